@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.metron.maas.config.Endpoint;
@@ -34,6 +35,8 @@ import org.apache.metron.maas.config.ModelEndpoint;
 import org.apache.metron.maas.discovery.ServiceDiscoverer;
 import org.apache.metron.maas.util.ConfigUtil;
 import org.apache.metron.maas.util.RESTUtil;
+import org.apache.metron.stellar.common.utils.CoalescingExecutor;
+import org.apache.metron.stellar.common.utils.ConversionUtils;
 import org.apache.metron.stellar.common.utils.JSONUtils;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.stellar.dsl.ParseException;
@@ -44,6 +47,20 @@ import org.slf4j.LoggerFactory;
 
 public class MaaSFunctions {
  protected static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The global config property holding the maximum number of requests sent to each model endpoint at once.
+   */
+  public static final String MAX_CONCURRENT_REQUESTS_CONF = "maas.max.concurrent.requests";
+  public static final int MAX_CONCURRENT_REQUESTS_DEFAULT = 10;
+
+  /**
+   * The global config property holding the time allowed for a model request, in milliseconds, including
+   * the time spent waiting to be sent.
+   */
+  public static final String TIMEOUT_CONF = "maas.timeout";
+  public static final long TIMEOUT_DEFAULT = 10000;
+
   private static class ModelCacheKey {
     String name;
     String version;
@@ -82,7 +99,8 @@ public class MaaSFunctions {
 
   @Stellar(name="MODEL_APPLY"
           , namespace="MAAS"
-          , description = "Returns the output of a model deployed via Model as a Service. NOTE: Results are cached locally for 10 minutes."
+          , description = "Returns the output of a model deployed via Model as a Service. NOTE: Results are cached locally for 10 minutes, " +
+                          "and identical requests made at the same time are sent once."
           , params = { "endpoint - A map containing the name, version, and url for the REST endpoint"
                      , "function - The optional endpoint path; default is 'apply'"
                      , "model_args - A Dictionary of arguments for the model (these become request params)"
@@ -93,6 +111,7 @@ public class MaaSFunctions {
     private boolean isInitialized = false;
     private ServiceDiscoverer discoverer;
     private Cache<ModelCacheKey, Map<String, Object> > resultCache;
+    private CoalescingExecutor executor;
     public ModelApply() {
       resultCache = CacheBuilder.newBuilder()
                             .concurrencyLevel(4)
@@ -104,6 +123,10 @@ public class MaaSFunctions {
 
     @Override
     public Object apply(List<Object> args, Context context) throws ParseException {
+      return CoalescingExecutor.join(submit(args, context));
+    }
+
+    private CompletableFuture<Object> submit(List<Object> args, Context context) throws ParseException {
       if(args.size() < 2) {
         throw new ParseException("Unable to execute model_apply. " +
                                  "Expected arguments: endpoint_map:map, " +
@@ -111,12 +134,9 @@ public class MaaSFunctions {
                                  );
       }
       if(!isInitialized) {
-        return null;
+        return CompletableFuture.completedFuture(null);
       }
       int i = 0;
-      if(args.size() == 0) {
-        return null;
-      }
       Object endpointObj = args.get(i++);
       Map endpoint = null;
       String modelName;
@@ -129,7 +149,7 @@ public class MaaSFunctions {
         modelUrl = endpoint.get("url") + "";
       }
       else {
-        return null;
+        return CompletableFuture.completedFuture(null);
       }
       String modelFunction = "apply";
       Map<String, String> modelArgs = new HashMap<>();
@@ -154,45 +174,54 @@ public class MaaSFunctions {
        || modelVersion == null
        || modelFunction == null
         ) {
-        return null;
+        return CompletableFuture.completedFuture(null);
       }
       ModelCacheKey cacheKey = new ModelCacheKey(modelName, modelVersion, modelFunction, modelArgs);
-      Map<String, Object> ret = resultCache.getIfPresent(cacheKey);
-      if(ret != null) {
-        return ret;
+      Map<String, Object> cached = resultCache.getIfPresent(cacheKey);
+      if(cached != null) {
+        return CompletableFuture.completedFuture(cached);
       }
-      else {
-        String url = modelUrl;
-        if (url.endsWith("/")) {
-          url = url.substring(0, url.length() - 1);
-        }
-        if (modelFunction.startsWith("/")) {
-          modelFunction = modelFunction.substring(1);
-        }
-        try {
-          URL u = new URL(url + "/" + modelFunction);
-
-          String results = RESTUtil.INSTANCE.getRESTJSONResults(u, modelArgs);
-          ret = JSONUtils.INSTANCE.load(results, JSONUtils.MAP_SUPPLIER);
-          resultCache.put(cacheKey, ret);
-          return ret;
-        } catch (Exception e) {
-          LOG.error(e.getMessage(), e);
-          if (discoverer != null) {
-            try {
-              URL u = new URL(modelUrl);
-              discoverer.blacklist(u);
-            } catch (MalformedURLException e1) {
-            }
+      String url = modelUrl;
+      if (url.endsWith("/")) {
+        url = url.substring(0, url.length() - 1);
+      }
+      if (modelFunction.startsWith("/")) {
+        modelFunction = modelFunction.substring(1);
+      }
+      String functionUrl = url + "/" + modelFunction;
+      Map<String, String> requestArgs = modelArgs;
+      Map<String, Object> globalConfig = getGlobalConfig(context);
+      int maxConcurrent = ConversionUtils.convert(globalConfig.getOrDefault(MAX_CONCURRENT_REQUESTS_CONF, MAX_CONCURRENT_REQUESTS_DEFAULT), Integer.class);
+      long timeout = ConversionUtils.convert(globalConfig.getOrDefault(TIMEOUT_CONF, TIMEOUT_DEFAULT), Long.class);
+      return executor.submit(modelUrl, cacheKey, maxConcurrent, timeout, () -> {
+        String results = RESTUtil.INSTANCE.getRESTJSONResults(new URL(functionUrl), requestArgs, (int) timeout);
+        Map<String, Object> ret = JSONUtils.INSTANCE.load(results, JSONUtils.MAP_SUPPLIER);
+        resultCache.put(cacheKey, ret);
+        return (Object) ret;
+      }).exceptionally(t -> {
+        LOG.error(t.getMessage(), t);
+        if (discoverer != null) {
+          try {
+            URL u = new URL(modelUrl);
+            discoverer.blacklist(u);
+          } catch (MalformedURLException e1) {
           }
         }
-      }
-      return null;
+        return null;
+      });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getGlobalConfig(Context context) {
+      Optional<Object> globalConfig = context.getCapability(Context.Capabilities.GLOBAL_CONFIG, false);
+      return globalConfig.map(o -> (Map<String, Object>) o).orElseGet(HashMap::new);
     }
 
     @Override
     public synchronized void initialize(Context context) {
-
+      if (executor == null) {
+        executor = new CoalescingExecutor("maas-model-apply");
+      }
       try {
         Optional<ServiceDiscoverer> discovererOpt = (Optional) (context.getCapability(Context.Capabilities.SERVICE_DISCOVERER));
         if (discovererOpt.isPresent()) {
@@ -222,6 +251,13 @@ public class MaaSFunctions {
     public boolean isInitialized() {
       return isInitialized;
     }
+
+    @Override
+    public synchronized void close() {
+      if (executor != null) {
+        executor.close();
+      }
+    }
   }
 
   private static ServiceDiscoverer createDiscoverer(CuratorFramework client) throws Exception {
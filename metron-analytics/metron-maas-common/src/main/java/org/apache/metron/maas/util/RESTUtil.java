@@ -18,53 +18,72 @@
 package org.apache.metron.maas.util;
 
 import com.google.common.collect.Iterables;
-import com.google.common.io.CharStreams;
 import java.nio.charset.StandardCharsets;
-import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public enum RESTUtil {
   INSTANCE;
-  public static ThreadLocal<HttpClient> CLIENT = new ThreadLocal<HttpClient>() {
 
-    @Override
-    protected HttpClient initialValue() {
-      //TODO: Figure out connection management
-      return new DefaultHttpClient();
-    }
-  };
+  /**
+   * The maximum number of connections to each model endpoint.
+   */
+  public static final int MAX_CONNECTIONS_PER_ROUTE = 20;
+
+  /**
+   * The client is thread-safe, so it is shared, along with its pooled connections, by every thread.
+   */
+  private final CloseableHttpClient client;
 
-  public String getRESTJSONResults(URL endpointUrl, Map<String, String> getArgs) throws IOException, URISyntaxException { String encodedParams = encodeParams(getArgs);
+  RESTUtil() {
+    PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+    cm.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+    cm.setMaxTotal(10 * MAX_CONNECTIONS_PER_ROUTE);
+    client = HttpClients.custom().setConnectionManager(cm).build();
+  }
+
+  public String getRESTJSONResults(URL endpointUrl, Map<String, String> getArgs) throws IOException, URISyntaxException {
+    return getRESTJSONResults(endpointUrl, getArgs, 0);
+  }
+
+  /**
+   * @param timeoutMillis The connect and socket timeouts, in milliseconds, or 0 for none.
+   */
+  public String getRESTJSONResults(URL endpointUrl, Map<String, String> getArgs, int timeoutMillis) throws IOException, URISyntaxException {
+    String encodedParams = encodeParams(getArgs);
     HttpGet get = new HttpGet(appendToUrl(endpointUrl, encodedParams).toURI());
     get.addHeader("accept", "application/json");
-    HttpResponse response = CLIENT.get().execute(get);
-
-    if (response.getStatusLine().getStatusCode() != 200) {
-      throw new IllegalStateException("Failed : HTTP error code : "
-              + response.getStatusLine().getStatusCode());
+    if (timeoutMillis > 0) {
+      get.setConfig(RequestConfig.custom()
+              .setConnectTimeout(timeoutMillis)
+              .setConnectionRequestTimeout(timeoutMillis)
+              .setSocketTimeout(timeoutMillis)
+              .build());
+    }
+    // the response is always consumed, so that its connection returns to the pool
+    try (CloseableHttpResponse response = client.execute(get)) {
+      if (response.getStatusLine().getStatusCode() != 200) {
+        EntityUtils.consume(response.getEntity());
+        throw new IllegalStateException("Failed : HTTP error code : "
+                + response.getStatusLine().getStatusCode());
+      }
+      return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
     }
-
-    return new BufferedReader(new InputStreamReader(response.getEntity().getContent(),
-        StandardCharsets.UTF_8))
-            .lines().collect(Collectors.joining("\n"));
   }
   public URL appendToUrl(URL endpointUrl, String params) throws MalformedURLException {
     return new URL(endpointUrl.toString() + "?" + params);
@@ -21,13 +21,26 @@
 package org.apache.metron.profiler.client;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.metron.common.utils.SerDeUtils;
 import org.apache.metron.hbase.TableProvider;
@@ -41,6 +54,28 @@ import org.apache.metron.profiler.hbase.RowKeyBuilder;
  */
 public class HBaseProfilerClient implements ProfilerClient {
 
+  /**
+   * How profile measurements are read from HBase.
+   */
+  public enum ReadMode {
+
+    /**
+     * Each measurement is read with its own Get.
+     */
+    GET,
+
+    /**
+     * The measurements stored contiguously are read with a single Scan.  The scans are run in parallel.
+     */
+    SCAN
+  }
+
+  /**
+   * Runs the scans for all clients.  Its threads live as long as the process, since each holds its own
+   * connection to HBase.
+   */
+  private static ExecutorService scanExecutor;
+
   /**
    * Used to access the profile data stored in HBase.
    */
@@ -59,6 +94,12 @@ public class HBaseProfilerClient implements ProfilerClient {
   private long periodDurationMillis;
   private String tableName;
   private final Configuration hbaseConfig;
+  private ReadMode readMode = ReadMode.GET;
+
+  /**
+   * The maximum number of scans run in parallel for a single fetch.
+   */
+  private int scanThreads = 8;
 
   public HBaseProfilerClient(TableProvider tableProvider,
                              RowKeyBuilder rowKeyBuilder,
@@ -123,9 +164,170 @@ public class HBaseProfilerClient implements ProfilerClient {
     }
 
     // retrieve the measurement values from HBase
+    if(readMode == ReadMode.SCAN) {
+      List<ScanRange> ranges = toRanges(toFetch);
+      if(ranges != null) {
+        return doScan(toFetch, ranges, clazz, defaultValue);
+      }
+    }
     return doFetch(toFetch, clazz, defaultValue);
   }
 
+  /**
+   * The row keys of measurements which are stored contiguously, and so can be read with a single scan.
+   */
+  private static class ScanRange {
+
+    /**
+     * The row key of each measurement in the range, ordered by period, and its index in the fetch.
+     */
+    private final Map<ByteBuffer, List<Integer>> rowKeys = new LinkedHashMap<>();
+    private byte[] startRow;
+    private byte[] lastRow;
+
+    private void add(byte[] rowKey, int index) {
+      if(startRow == null) {
+        startRow = rowKey;
+      }
+      lastRow = rowKey;
+      rowKeys.computeIfAbsent(ByteBuffer.wrap(rowKey), k -> new ArrayList<>(1)).add(index);
+    }
+  }
+
+  /**
+   * Groups the measurements into ranges that can each be read with a single scan.
+   *
+   * <p>The measurements are split wherever their periods are not consecutive, so that a scan reads few
+   * rows other than those requested.  The measurements of consecutive periods are then grouped by their
+   * row key prefix, which includes the salt.
+   *
+   * @param measurements The measurements to fetch.
+   * @return The ranges to scan, or null if the row keys do not allow scanning.
+   */
+  private List<ScanRange> toRanges(List<ProfileMeasurement> measurements) {
+    List<Integer> byPeriod = new ArrayList<>();
+    for(int i = 0; i < measurements.size(); i++) {
+      byPeriod.add(i);
+    }
+    byPeriod.sort(Comparator.comparingLong(i -> measurements.get(i).getPeriod().getPeriod()));
+
+    List<ScanRange> ranges = new ArrayList<>();
+    Map<ByteBuffer, ScanRange> run = new HashMap<>();
+    long lastPeriod = Long.MIN_VALUE;
+    for(int i : byPeriod) {
+      ProfileMeasurement measurement = measurements.get(i);
+      byte[] prefix = rowKeyBuilder.rowKeyPrefix(measurement);
+      if(prefix == null) {
+        return null;
+      }
+
+      long period = measurement.getPeriod().getPeriod();
+      if(period > lastPeriod + 1) {
+        // the periods are not consecutive, so start new ranges
+        run.clear();
+      }
+      lastPeriod = period;
+
+      ScanRange range = run.get(ByteBuffer.wrap(prefix));
+      if(range == null) {
+        range = new ScanRange();
+        run.put(ByteBuffer.wrap(prefix), range);
+        ranges.add(range);
+      }
+      range.add(rowKeyBuilder.rowKey(measurement), i);
+    }
+    return ranges;
+  }
+
+  /**
+   * Fetches the measurements by scanning each range in parallel.
+   */
+  private <T> List<ProfileMeasurement> doScan(List<ProfileMeasurement> measurements, List<ScanRange> ranges, Class<T> clazz, Optional<T> defaultValue) {
+    byte[] columnFamily = Bytes.toBytes(columnBuilder.getColumnFamily());
+    byte[] columnQualifier = columnBuilder.getColumnQualifier("value");
+    Object[] found = new Object[measurements.size()];
+
+    // each task takes the next range until none are left; the calling thread runs one of them
+    AtomicInteger next = new AtomicInteger();
+    Runnable task = () -> {
+      for(int i = next.getAndIncrement(); i < ranges.size(); i = next.getAndIncrement()) {
+        scan(ranges.get(i), columnFamily, columnQualifier, clazz, found);
+      }
+    };
+    int parallelism = Math.min(scanThreads, ranges.size());
+    List<Future<?>> futures = new ArrayList<>();
+    for(int i = 1; i < parallelism; i++) {
+      futures.add(getScanExecutor(scanThreads).submit(task));
+    }
+    try {
+      task.run();
+      for(Future<?> future : futures) {
+        future.get();
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+
+    } catch(ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+
+    } finally {
+      // stop the remaining tasks, if any failed
+      next.set(ranges.size());
+    }
+
+    List<ProfileMeasurement> values = new ArrayList<>();
+    for(int i = 0; i < found.length; i++) {
+      ProfileMeasurement measurement = measurements.get(i);
+      if(found[i] != null) {
+        values.add(measurement.withProfileValue(found[i]));
+
+      } else if(defaultValue.isPresent()) {
+        values.add(measurement.withProfileValue(defaultValue.get()));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Scans a range, reading only the value column.  Rows within the range which were not requested,
+   * such as those of periods outside of the fetch, are ignored.
+   */
+  private <T> void scan(ScanRange range, byte[] columnFamily, byte[] columnQualifier, Class<T> clazz, Object[] found) {
+    // the stop row is exclusive
+    byte[] stopRow = Bytes.add(range.lastRow, new byte[] { 0 });
+    Scan scan = new Scan(range.startRow, stopRow)
+            .addColumn(columnFamily, columnQualifier)
+            .setCaching(range.rowKeys.size() + 1);
+
+    try(Table table = tableProvider.getTable(hbaseConfig, tableName);
+        ResultScanner scanner = table.getScanner(scan)) {
+      for(Result result : scanner) {
+        List<Integer> indices = range.rowKeys.get(ByteBuffer.wrap(result.getRow()));
+        if(indices != null && result.containsColumn(columnFamily, columnQualifier)) {
+          byte[] value = result.getValue(columnFamily, columnQualifier);
+          for(int index : indices) {
+            found[index] = SerDeUtils.fromBytes(value, clazz);
+          }
+        }
+      }
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static synchronized ExecutorService getScanExecutor(int threads) {
+    if(scanExecutor == null) {
+      AtomicInteger count = new AtomicInteger();
+      scanExecutor = Executors.newFixedThreadPool(threads, r -> {
+        Thread thread = new Thread(r, "profiler-client-scan-" + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return scanExecutor;
+  }
+
   private <T> List<ProfileMeasurement> doFetch(List<ProfileMeasurement> measurements, Class<T> clazz, Optional<T> defaultValue) {
     List<ProfileMeasurement> values = new ArrayList<>();
 
@@ -181,4 +383,16 @@ public class HBaseProfilerClient implements ProfilerClient {
   public void setColumnBuilder(ColumnBuilder columnBuilder) {
     this.columnBuilder = columnBuilder;
   }
+
+  public void setReadMode(ReadMode readMode) {
+    this.readMode = readMode;
+  }
+
+  /**
+   * @param scanThreads The maximum number of scans run in parallel for a single fetch.  The threads are
+   *                    shared by all clients, so only the first client to scan determines their number.
+   */
+  public void setScanThreads(int scanThreads) {
+    this.scanThreads = Math.max(scanThreads, 1);
+  }
 }
@@ -29,6 +29,7 @@ import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PRO
 import static org.apache.metron.profiler.client.stellar.Util.getArg;
 import static org.apache.metron.profiler.client.stellar.Util.getEffectiveConfig;
 import static org.apache.metron.profiler.client.stellar.Util.getPeriodDurationInMillis;
+import static org.apache.metron.profiler.client.stellar.Util.withReadMode;
 
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
@@ -171,7 +172,7 @@ public class GetProfile implements StellarFunction {
       long periodDuration = getPeriodDurationInMillis(effectiveConfig);
       String tableName = PROFILER_HBASE_TABLE.get(effectiveConfig, String.class);
       Configuration hbaseConfig = HBaseConfiguration.create();
-      client = new HBaseProfilerClient(getTableProvider(effectiveConfig), rowKeyBuilder, columnBuilder, periodDuration, tableName, hbaseConfig);
+      client = withReadMode(new HBaseProfilerClient(getTableProvider(effectiveConfig), rowKeyBuilder, columnBuilder, periodDuration, tableName, hbaseConfig), effectiveConfig);
       cachedConfigMap = effectiveConfig;
     }
     if(cachedConfigMap != null) {
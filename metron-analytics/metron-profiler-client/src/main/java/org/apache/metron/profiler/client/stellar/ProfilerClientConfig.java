@@ -58,6 +58,18 @@ public enum ProfilerClientConfig {
    */
   PROFILER_SALT_DIVISOR("profiler.client.salt.divisor", 1000L, Long.class),
 
+  /**
+   * A global property that defines how profile data is read from HBase; either 'GET', where each
+   * measurement is read with its own Get, or 'SCAN', where the measurements stored contiguously are
+   * read with a single scan.
+   */
+  PROFILER_READ_MODE("profiler.client.read.mode", "GET", String.class),
+
+  /**
+   * A global property that defines the maximum number of scans run in parallel when the read mode is 'SCAN'.
+   */
+  PROFILER_SCAN_THREADS("profiler.client.scan.threads", 8, Integer.class),
+
   /**
    * The default value to be returned if a profile is not written for a given period for a profile and entity.
    */
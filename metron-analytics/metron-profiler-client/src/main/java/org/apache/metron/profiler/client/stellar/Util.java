@@ -22,6 +22,8 @@ package org.apache.metron.profiler.client.stellar;
 import static java.lang.String.format;
 import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PROFILER_PERIOD;
 import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PROFILER_PERIOD_UNITS;
+import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PROFILER_READ_MODE;
+import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PROFILER_SCAN_THREADS;
 import static org.apache.metron.stellar.dsl.Context.Capabilities.GLOBAL_CONFIG;
 
 import java.lang.invoke.MethodHandles;
@@ -32,6 +34,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.lang.StringUtils;
+import org.apache.metron.profiler.client.HBaseProfilerClient;
 import org.apache.metron.stellar.common.utils.ConversionUtils;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.stellar.dsl.ParseException;
@@ -126,4 +129,21 @@ public class Util {
 
     return units.toMillis(duration);
   }
+
+  /**
+   * Configures how a client reads profile measurements from HBase.
+   * @param client The client.
+   * @param global The global configuration.
+   * @return The client.
+   */
+  public static HBaseProfilerClient withReadMode(HBaseProfilerClient client, Map<String, Object> global) {
+    String mode = PROFILER_READ_MODE.get(global, String.class);
+    LOG.debug("profiler client: {}={}", PROFILER_READ_MODE, mode);
+    client.setReadMode(HBaseProfilerClient.ReadMode.valueOf(mode.trim().toUpperCase()));
+
+    int scanThreads = PROFILER_SCAN_THREADS.get(global, Integer.class);
+    LOG.debug("profiler client: {}={}", PROFILER_SCAN_THREADS, scanThreads);
+    client.setScanThreads(scanThreads);
+    return client;
+  }
 }
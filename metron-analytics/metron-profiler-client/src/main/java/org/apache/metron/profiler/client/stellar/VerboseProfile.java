@@ -25,6 +25,7 @@ import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PRO
 import static org.apache.metron.profiler.client.stellar.ProfilerClientConfig.PROFILER_SALT_DIVISOR;
 import static org.apache.metron.profiler.client.stellar.Util.getArg;
 import static org.apache.metron.profiler.client.stellar.Util.getPeriodDurationInMillis;
+import static org.apache.metron.profiler.client.stellar.Util.withReadMode;
 import static org.apache.metron.stellar.dsl.Context.Capabilities.GLOBAL_CONFIG;
 
 import java.lang.invoke.MethodHandles;
@@ -129,7 +130,7 @@ public class VerboseProfile implements StellarFunction {
       ColumnBuilder columnBuilder = getColumnBuilder(globals);
       TableProvider provider = getTableProvider(globals);
       long periodDuration = getPeriodDurationInMillis(globals);
-      client = new HBaseProfilerClient(provider, rowKeyBuilder, columnBuilder, periodDuration, getTableName(globals), HBaseConfiguration.create());
+      client = withReadMode(new HBaseProfilerClient(provider, rowKeyBuilder, columnBuilder, periodDuration, getTableName(globals), HBaseConfiguration.create()), globals);
     }
 
     // is there a default value?
@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.profiler.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.metron.hbase.TableProvider;
+import org.apache.metron.profiler.ProfileMeasurement;
+import org.apache.metron.profiler.hbase.ColumnBuilder;
+import org.apache.metron.profiler.hbase.RowKeyBuilder;
+import org.apache.metron.profiler.hbase.SaltyRowKeyBuilder;
+import org.apache.metron.profiler.hbase.ValueOnlyColumnBuilder;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the latency of reading profile measurements with each of the HBaseProfilerClient's read modes.
+ * By default the test is disabled due to it taking too much time to run during normal unit testing.
+ * Remove the disabled attribute to allow the test to run.
+ */
+public class HBaseProfilerClientReadModePerfTest {
+
+  private static final String tableName = "profiler";
+  private static final String columnFamily = "P";
+  private static final long periodDurationMillis = TimeUnit.MINUTES.toMillis(15);
+  private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long SEEK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+  private static final long NEXT_NANOS = TimeUnit.MICROSECONDS.toNanos(2);
+
+  /**
+   * Compares the latency of reading 90 days of 15 minute periods with each read mode.
+   */
+  @Test
+  @Disabled
+  public void Should_ReadLongWindowsFaster_When_Scanning() {
+    LatentTable table = new LatentTable(tableName, columnFamily, ROUND_TRIP_NANOS, SEEK_NANOS, NEXT_NANOS);
+    TableProvider latentProvider = (config, name) -> table;
+    RowKeyBuilder rowKeyBuilder = new SaltyRowKeyBuilder(10, periodDurationMillis, TimeUnit.MILLISECONDS);
+    ColumnBuilder columnBuilder = new ValueOnlyColumnBuilder(columnFamily);
+
+    long end = System.currentTimeMillis();
+    long start = end - TimeUnit.DAYS.toMillis(90);
+    ProfileMeasurement prototype = new ProfileMeasurement()
+            .withProfileName("profile1")
+            .withEntity("entity1")
+            .withPeriod(start, periodDurationMillis, TimeUnit.MILLISECONDS);
+    new ProfileWriter(rowKeyBuilder, columnBuilder, latentProvider, periodDurationMillis, tableName, null)
+            .write(prototype, 90 * 96, Collections.emptyList(), val -> 1L);
+
+    long[] nanos = new long[2];
+    List<List<ProfileMeasurement>> results = new ArrayList<>();
+    for(HBaseProfilerClient.ReadMode mode : HBaseProfilerClient.ReadMode.values()) {
+      HBaseProfilerClient reader = new HBaseProfilerClient(latentProvider, rowKeyBuilder, columnBuilder,
+              periodDurationMillis, tableName, null);
+      reader.setReadMode(mode);
+
+      // warm up, then take the best of several runs
+      reader.fetch(Long.class, "profile1", "entity1", Collections.emptyList(), start, end, Optional.empty());
+      nanos[mode.ordinal()] = Long.MAX_VALUE;
+      for(int i = 0; i < 5; i++) {
+        long begin = System.nanoTime();
+        List<ProfileMeasurement> fetched = reader.fetch(Long.class, "profile1", "entity1", Collections.emptyList(), start, end, Optional.empty());
+        nanos[mode.ordinal()] = Math.min(nanos[mode.ordinal()], System.nanoTime() - begin);
+        if(i == 0) {
+          results.add(fetched);
+        }
+      }
+    }
+
+    long getMillis = TimeUnit.NANOSECONDS.toMillis(nanos[HBaseProfilerClient.ReadMode.GET.ordinal()]);
+    long scanMillis = TimeUnit.NANOSECONDS.toMillis(nanos[HBaseProfilerClient.ReadMode.SCAN.ordinal()]);
+    assertEquals(results.get(0), results.get(1));
+    assertTrue(results.get(0).size() >= 90 * 96);
+    assertTrue(scanMillis * 2 < getMillis, String.format("Expected scan (%d ms) to be faster than get (%d ms)", scanMillis, getMillis));
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.profiler.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.metron.hbase.TableProvider;
+import org.apache.metron.profiler.ProfileMeasurement;
+import org.apache.metron.profiler.ProfilePeriod;
+import org.apache.metron.profiler.hbase.ColumnBuilder;
+import org.apache.metron.profiler.hbase.RowKeyBuilder;
+import org.apache.metron.profiler.hbase.SaltyRowKeyBuilder;
+import org.apache.metron.profiler.hbase.ValueOnlyColumnBuilder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the HBaseProfilerClient when it reads profile measurements by scanning.
+ */
+public class HBaseProfilerClientScanTest extends HBaseProfilerClientTest {
+
+  private static final String tableName = "profiler";
+  private static final String columnFamily = "P";
+  private static final long periodDurationMillis = TimeUnit.MINUTES.toMillis(15);
+
+  @Override
+  protected HBaseProfilerClient.ReadMode getReadMode() {
+    return HBaseProfilerClient.ReadMode.SCAN;
+  }
+
+  private static long periodStart(long when) {
+    return when - when % periodDurationMillis;
+  }
+
+  @Test
+  public void Should_ReturnOnlyRequestedPeriods_When_PeriodsAreNotConsecutive() {
+    long start = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1);
+    ProfileMeasurement prototype = new ProfileMeasurement()
+            .withProfileName("profile1")
+            .withEntity("entity1")
+            .withPeriod(start, periodDurationMillis, TimeUnit.MILLISECONDS);
+    profileWriter.write(prototype, 96, Collections.emptyList(), val -> val == null ? 0 : (Integer) val + 1);
+
+    // request every third period, in reverse
+    List<ProfilePeriod> periods = new ArrayList<>();
+    ProfilePeriod period = prototype.getPeriod();
+    for(int i = 0; i < 96; i++) {
+      if(i % 3 == 0) {
+        periods.add(0, period);
+      }
+      period = period.next();
+    }
+
+    List<ProfileMeasurement> results = client.fetch(Integer.class, "profile1", "entity1", Collections.emptyList(), periods, Optional.empty());
+    assertEquals(32, results.size());
+    for(int i = 0; i < results.size(); i++) {
+      assertEquals(periods.get(i), results.get(i).getPeriod());
+      assertEquals(93 - 3 * i, results.get(i).getProfileValue());
+    }
+  }
+
+  @Test
+  public void Should_ReturnDefaultValue_When_PeriodIsMissing() {
+    long start = periodStart(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(4));
+    ProfileMeasurement prototype = new ProfileMeasurement()
+            .withProfileName("profile1")
+            .withEntity("entity1")
+            .withPeriod(start, periodDurationMillis, TimeUnit.MILLISECONDS);
+    profileWriter.write(prototype, 8, Collections.emptyList(), val -> 7);
+
+    List<ProfileMeasurement> results = client.fetch(Integer.class, "profile1", "entity1", Collections.emptyList(),
+            start, start + TimeUnit.HOURS.toMillis(4) - 1, Optional.of(-1));
+    assertEquals(16, results.size());
+    for(int i = 0; i < results.size(); i++) {
+      assertEquals(i < 8 ? 7 : -1, results.get(i).getProfileValue());
+    }
+  }
+
+  @Test
+  public void Should_NotReturnOtherEntities_When_EntityNamesSharePrefix() {
+    long start = periodStart(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2));
+    for(String entity : Arrays.asList("entity1", "entity10", "entity")) {
+      ProfileMeasurement prototype = new ProfileMeasurement()
+              .withProfileName("profile1")
+              .withEntity(entity)
+              .withPeriod(start, periodDurationMillis, TimeUnit.MILLISECONDS);
+      profileWriter.write(prototype, 8, Collections.emptyList(), val -> entity);
+    }
+
+    List<ProfileMeasurement> results = client.fetch(String.class, "profile1", "entity1", Collections.emptyList(),
+            start, start + TimeUnit.HOURS.toMillis(2) - 1, Optional.empty());
+    assertEquals(8, results.size());
+    results.forEach(m -> assertEquals("entity1", m.getProfileValue()));
+  }
+
+  @Test
+  public void Should_ScanEachSaltOncePerRun_When_Scanning() {
+    LatentTable table = new LatentTable(tableName, columnFamily);
+    TableProvider countingProvider = (config, name) -> table;
+    RowKeyBuilder rowKeyBuilder = new SaltyRowKeyBuilder(10, periodDurationMillis, TimeUnit.MILLISECONDS);
+    ColumnBuilder columnBuilder = new ValueOnlyColumnBuilder(columnFamily);
+
+    long start = periodStart(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1));
+    ProfileMeasurement prototype = new ProfileMeasurement()
+            .withProfileName("profile1")
+            .withEntity("entity1")
+            .withPeriod(start, periodDurationMillis, TimeUnit.MILLISECONDS);
+    new ProfileWriter(rowKeyBuilder, columnBuilder, countingProvider, periodDurationMillis, tableName, null)
+            .write(prototype, 96, Collections.emptyList(), val -> 1L);
+
+    // request two runs of consecutive periods, separated by a gap
+    List<ProfilePeriod> periods = new ArrayList<>();
+    List<Set<ByteBuffer>> saltsByRun = Arrays.asList(new HashSet<>(), new HashSet<>());
+    ProfilePeriod period = prototype.getPeriod();
+    for(int i = 0; i < 96; i++) {
+      if(i < 40 || i >= 50) {
+        periods.add(period);
+        saltsByRun.get(i < 40 ? 0 : 1).add(ByteBuffer.wrap(SaltyRowKeyBuilder.getSalt(period, 10)));
+      }
+      period = period.next();
+    }
+
+    List<List<ProfileMeasurement>> results = new ArrayList<>();
+    for(HBaseProfilerClient.ReadMode mode : HBaseProfilerClient.ReadMode.values()) {
+      HBaseProfilerClient reader = new HBaseProfilerClient(countingProvider, rowKeyBuilder, columnBuilder,
+              periodDurationMillis, tableName, null);
+      reader.setReadMode(mode);
+      table.resetCounts();
+      results.add(reader.fetch(Long.class, "profile1", "entity1", Collections.emptyList(), periods, Optional.empty()));
+
+      if(mode == HBaseProfilerClient.ReadMode.GET) {
+        // a single batched get
+        assertEquals(1, table.getGets());
+        assertEquals(0, table.getScans());
+      } else {
+        // one scan for each salt of each run
+        assertEquals(0, table.getGets());
+        assertEquals(saltsByRun.get(0).size() + saltsByRun.get(1).size(), table.getScans());
+      }
+    }
+    assertEquals(86, results.get(0).size());
+    assertEquals(results.get(0), results.get(1));
+  }
+}
@@ -57,10 +57,17 @@ public class HBaseProfilerClientTest {
   private static final TimeUnit periodUnits = TimeUnit.MINUTES;
   private static final int periodsPerHour = 4;
 
-  private HBaseProfilerClient client;
+  protected HBaseProfilerClient client;
   private StellarStatefulExecutor executor;
-  private MockHBaseTableProvider provider;
-  private ProfileWriter profileWriter;
+  protected MockHBaseTableProvider provider;
+  protected ProfileWriter profileWriter;
+
+  /**
+   * @return How the client reads profile measurements.
+   */
+  protected HBaseProfilerClient.ReadMode getReadMode() {
+    return HBaseProfilerClient.ReadMode.GET;
+  }
 
   @BeforeEach
   public void setup() {
@@ -77,6 +84,7 @@ public class HBaseProfilerClientTest {
 
     client = new HBaseProfilerClient(provider, rowKeyBuilder, columnBuilder, periodDurationMillis,
         tableName, null);
+    client.setReadMode(getReadMode());
   }
 
   @AfterEach
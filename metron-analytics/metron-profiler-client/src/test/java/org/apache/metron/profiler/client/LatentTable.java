@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.profiler.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.metron.hbase.mock.MockHTable;
+
+/**
+ * A stand-in for HBase which counts the round trips made to it.  It can also charge a fixed latency for
+ * each round trip, plus the cost of reading each row.  Reading a row with a Get requires a seek, which
+ * costs more than reading the next row of a scan.
+ *
+ * <p>The rows are indexed once written, so that the cost of the stand-in itself does not dominate.
+ */
+class LatentTable extends MockHTable {
+  private final long roundTripNanos;
+  private final long seekNanos;
+  private final long nextNanos;
+  private final AtomicInteger gets = new AtomicInteger();
+  private final AtomicInteger scans = new AtomicInteger();
+  private NavigableMap<byte[], Result> rows;
+
+  /**
+   * A table without latency, which only counts the round trips.
+   */
+  LatentTable(String tableName, String columnFamily) {
+    this(tableName, columnFamily, 0, 0, 0);
+  }
+
+  LatentTable(String tableName, String columnFamily, long roundTripNanos, long seekNanos, long nextNanos) {
+    super(tableName, columnFamily);
+    this.roundTripNanos = roundTripNanos;
+    this.seekNanos = seekNanos;
+    this.nextNanos = nextNanos;
+  }
+
+  /**
+   * @return The number of batched gets made.
+   */
+  int getGets() {
+    return gets.get();
+  }
+
+  /**
+   * @return The number of scans made.
+   */
+  int getScans() {
+    return scans.get();
+  }
+
+  void resetCounts() {
+    gets.set(0);
+    scans.set(0);
+  }
+
+  private synchronized NavigableMap<byte[], Result> getRows() throws IOException {
+    if(rows == null) {
+      rows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for(Result result : super.getScanner(new Scan())) {
+        rows.put(result.getRow(), result);
+      }
+    }
+    return rows;
+  }
+
+  private void roundTrip(long nanos) {
+    if(nanos > 0) {
+      LockSupport.parkNanos(nanos);
+    }
+  }
+
+  @Override
+  public Result[] get(List<Get> gets) throws IOException {
+    this.gets.incrementAndGet();
+    Result[] results = new Result[gets.size()];
+    for(int i = 0; i < gets.size(); i++) {
+      results[i] = getRows().getOrDefault(gets.get(i).getRow(), new Result());
+    }
+    roundTrip(roundTripNanos + gets.size() * seekNanos);
+    return results;
+  }
+
+  @Override
+  public ResultScanner getScanner(Scan scan) throws IOException {
+    scans.incrementAndGet();
+
+    // the rows are returned in a single round trip, since the client caches as many as it requested
+    List<Result> rows = new ArrayList<>(getRows().subMap(scan.getStartRow(), true, scan.getStopRow(), false).values());
+    roundTrip(roundTripNanos + seekNanos + rows.size() * nextNanos);
+    Iterator<Result> results = rows.iterator();
+    return new ResultScanner() {
+      @Override
+      public Result next() {
+        return results.hasNext() ? results.next() : null;
+      }
+
+      @Override
+      public Result[] next(int nbRows) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close() {
+      }
+
+      @Override
+      public Iterator<Result> iterator() {
+        return results;
+      }
+    };
+  }
+}
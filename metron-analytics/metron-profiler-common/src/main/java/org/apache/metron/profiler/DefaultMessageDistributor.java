@@ -36,6 +36,7 @@ import javax.annotation.Nullable;
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
@@ -60,6 +61,10 @@ import static java.lang.String.format;
  * the expired profiles using `flushExpired`, the state of these profiles will be
  * lost.
  *
+ * <p>By default, a single profile is maintained for each (profile, entity) pair and all of its messages
+ * are applied to it until it is flushed.  If {@link #withSeparatePeriods(boolean)} is set, a separate
+ * profile is maintained for each period instead, so that messages for one period can still be applied
+ * after messages for the next have arrived.  Each of these is removed once flushed by {@link #flush(long)}.
  */
 public class DefaultMessageDistributor implements MessageDistributor, Serializable {
 
@@ -90,6 +95,11 @@ public class DefaultMessageDistributor implements MessageDistributor, Serializab
    */
   private Cache<Integer, ProfileBuilder> expiredCache;
 
+  /**
+   * If true, a separate profile is maintained for each (profile, entity, period).
+   */
+  private boolean separatePeriods;
+
   /**
    * Create a new message distributor.
    *
@@ -192,6 +202,37 @@ public class DefaultMessageDistributor implements MessageDistributor, Serializab
     return measurements;
   }
 
+  /**
+   * Flush the active profiles whose period has ended.
+   *
+   * <p>If separate periods are maintained, each profile flushed is removed since no more messages will
+   * be applied to it.  Otherwise, the profile is reset and waits for messages in a later period.
+   *
+   * @param watermark Profiles whose period ends at or before the watermark are flushed.
+   * @return The {@link ProfileMeasurement} values; one for each (profile, entity, period) flushed.
+   */
+  @Override
+  public List<ProfileMeasurement> flush(long watermark) {
+    LOG.debug("About to flush active profiles before watermark; watermark={}", watermark);
+
+    // cache maintenance needed here to ensure active profiles will expire
+    cacheMaintenance();
+
+    List<ProfileMeasurement> measurements = new ArrayList<>();
+    Iterator<ProfileBuilder> builders = activeCache.asMap().values().iterator();
+    while(builders.hasNext()) {
+      ProfileBuilder profileBuilder = builders.next();
+      if(profileBuilder.isInitialized() && profileBuilder.getPeriod().getEndTimeMillis() <= watermark) {
+        profileBuilder.flush().ifPresent(m -> measurements.add(m));
+        if(separatePeriods) {
+          builders.remove();
+        }
+      }
+    }
+
+    return measurements;
+  }
+
   /**
    * Flush all expired profiles.
    *
@@ -275,7 +316,14 @@ public class DefaultMessageDistributor implements MessageDistributor, Serializab
                     .withPeriodDurationMillis(periodDurationMillis)
                     .withContext(context)
                     .build();
-    return activeCache.get(cacheKey(profile, entity), profileCreator);
+    int key;
+    if(separatePeriods) {
+      long period = ProfilePeriod.fromTimestamp(route.getTimestamp(), periodDurationMillis, TimeUnit.MILLISECONDS).getPeriod();
+      key = cacheKey(profile, entity, period);
+    } else {
+      key = cacheKey(profile, entity);
+    }
+    return activeCache.get(key, profileCreator);
   }
 
   /**
@@ -296,6 +344,21 @@ public class DefaultMessageDistributor implements MessageDistributor, Serializab
             .hashCode();
   }
 
+  /**
+   * Builds the key that is used to lookup the {@link ProfileBuilder} for a single period within the cache.
+   *
+   * @param profile The profile definition.
+   * @param entity The entity.
+   * @param period The period identifier.
+   */
+  private int cacheKey(ProfileConfig profile, String entity, long period) {
+    return new HashCodeBuilder(17, 37)
+            .append(profile)
+            .append(entity)
+            .append(period)
+            .hashCode();
+  }
+
   public DefaultMessageDistributor withPeriodDurationMillis(long periodDurationMillis) {
     this.periodDurationMillis = periodDurationMillis;
     return this;
@@ -305,6 +368,11 @@ public class DefaultMessageDistributor implements MessageDistributor, Serializab
     return withPeriodDurationMillis(units.toMillis(duration));
   }
 
+  public DefaultMessageDistributor withSeparatePeriods(boolean separatePeriods) {
+    this.separatePeriods = separatePeriods;
+    return this;
+  }
+
   /**
    * Notified synchronously when the active cache is modified.
    */
@@ -323,6 +391,11 @@ public class DefaultMessageDistributor implements MessageDistributor, Serializab
         LOG.debug("Profile expired from active cache due to inactivity; profile={}, entity={}, cause={}",
                 value.getDefinition().getProfile(), value.getEntity(), cause);
 
+      } else if(separatePeriods && cause == RemovalCause.EXPLICIT) {
+        // the profile's period was flushed
+        LOG.debug("Profile removed from active cache after its period was flushed; profile={}, entity={}, period={}",
+                value.getDefinition().getProfile(), value.getEntity(), value.getPeriod().getPeriod());
+
       } else {
         LOG.error("Profile removed from cache unexpectedly. File a bug report; profile={}, entity={}, cause={}",
                 value.getDefinition().getProfile(), value.getEntity(), cause);
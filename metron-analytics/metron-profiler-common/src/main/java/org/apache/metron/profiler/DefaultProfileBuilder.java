@@ -161,7 +161,7 @@ public class DefaultProfileBuilder implements ProfileBuilder, Serializable {
   @Override
   public Optional<ProfileMeasurement> flush() {
     Optional<ProfileMeasurement> result;
-    ProfilePeriod period = ProfilePeriod.fromTimestamp(maxTimestamp, periodDurationMillis, TimeUnit.MILLISECONDS);
+    ProfilePeriod period = getPeriod();
     try {
       // execute the 'profile' expression
       String profileExpression = definition
@@ -236,6 +236,11 @@ public class DefaultProfileBuilder implements ProfileBuilder, Serializable {
     return isInitialized;
   }
 
+  @Override
+  public ProfilePeriod getPeriod() {
+    return ProfilePeriod.fromTimestamp(maxTimestamp, periodDurationMillis, TimeUnit.MILLISECONDS);
+  }
+
   @Override
   public ProfileConfig getDefinition() {
     return definition;
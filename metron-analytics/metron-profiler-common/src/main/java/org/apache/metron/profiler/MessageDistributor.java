@@ -60,6 +60,18 @@ public interface MessageDistributor {
    */
   List<ProfileMeasurement> flush();
 
+  /**
+   * Flush the active profiles whose period has ended.
+   *
+   * <p>Unlike {@link #flush()}, this allows the client to flush each period once it is certain that no
+   * more messages will arrive for that period, even though messages continue to arrive for later periods.
+   *
+   * @param watermark All messages with a timestamp before the watermark have been distributed.  Profiles
+   *                  whose period ends at or before the watermark are flushed.
+   * @return The {@link ProfileMeasurement} values; one for each (profile, entity, period) flushed.
+   */
+  List<ProfileMeasurement> flush(long watermark);
+
   /**
    * Flush all expired profiles.
    *
@@ -62,6 +62,15 @@ public interface ProfileBuilder {
    */
   boolean isInitialized();
 
+  /**
+   * Returns the period of the latest message applied to the profile.
+   *
+   * <p>This is the period of the {@link ProfileMeasurement} that will be returned when the profile is next flushed.
+   *
+   * @return The profile period.
+   */
+  ProfilePeriod getPeriod();
+
   /**
    * Returns the definition of the profile being built.
    *
@@ -72,4 +72,15 @@ public interface RowKeyBuilder extends Serializable {
    */
   List<byte[]> rowKeys(String profile, String entity, List<Object> groups, Iterable<ProfilePeriod> periods);
 
+  /**
+   * Builds the part of a measurement's row key that it shares with the measurements of other periods
+   * stored alongside it.  Each row key must be this prefix followed by a suffix that sorts in period
+   * order, so that the measurements sharing a prefix can be read with a single scan.
+   *
+   * @param measurement The profile measurement.
+   * @return The row key prefix, or null if measurements cannot be read by scanning.
+   */
+  default byte[] rowKeyPrefix(ProfileMeasurement measurement) {
+    return null;
+  }
 }
@@ -129,6 +129,25 @@ public class SaltyRowKeyBuilder implements RowKeyBuilder {
     return rowKey(m.getProfileName(), m.getEntity(), m.getPeriod(), m.getGroups());
   }
 
+  /**
+   * Builds the row key without its 'time' component.  The measurements of a profile, entity and
+   * group(s) which share a salt are stored contiguously in period order after this prefix.
+   * @param m The profile measurement.
+   * @return The row key prefix.
+   */
+  @Override
+  public byte[] rowKeyPrefix(ProfileMeasurement m) {
+    byte[] salt = getSalt(m.getPeriod(), saltDivisor);
+    byte[] prefixKey = prefixKey(m.getProfileName(), m.getEntity());
+    byte[] groupKey = groupKey(m.getGroups());
+    return ByteBuffer
+            .allocate(salt.length + prefixKey.length + groupKey.length)
+            .put(salt)
+            .put(prefixKey)
+            .put(groupKey)
+            .array();
+  }
+
   /**
    * Build the row key.
    * @param profile The name of the profile.
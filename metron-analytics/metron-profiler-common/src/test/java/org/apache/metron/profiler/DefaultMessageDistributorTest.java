@@ -273,6 +273,40 @@ public class DefaultMessageDistributorTest {
     assertEquals(0, distributor.flushExpired().size());
   }
 
+  /**
+   * When separate periods are maintained, a message can be applied to a period after messages for
+   * the next period have arrived.  Each period is flushed once the watermark passes its end.
+   */
+  @Test
+  public void testFlushSeparatePeriodsBeforeWatermark() throws Exception {
+    distributor.withSeparatePeriods(true);
+    ProfileConfig definition = createDefinition(profileOne);
+    String entity = (String) messageOne.get("ip_src_addr");
+
+    // two messages in the first period, with one arriving after a message in the second period
+    long first = periodDurationMillis * 100;
+    long second = first + periodDurationMillis;
+    distributor.distribute(new MessageRoute(definition, entity, messageOne, first + 1), context);
+    distributor.distribute(new MessageRoute(definition, entity, messageOne, second + 1), context);
+    distributor.distribute(new MessageRoute(definition, entity, messageOne, second - 1), context);
+
+    // the first period has not ended
+    assertEquals(0, distributor.flush(second - 1).size());
+
+    // only the first period should be flushed
+    List<ProfileMeasurement> measurements = distributor.flush(second);
+    assertEquals(1, measurements.size());
+    assertEquals(100, measurements.get(0).getPeriod().getPeriod());
+    assertEquals(2, measurements.get(0).getProfileValue());
+
+    // the first period should not be flushed again
+    measurements = distributor.flush(second + periodDurationMillis);
+    assertEquals(1, measurements.size());
+    assertEquals(101, measurements.get(0).getPeriod().getPeriod());
+    assertEquals(1, measurements.get(0).getProfileValue());
+    assertEquals(0, distributor.flush(second + periodDurationMillis).size());
+  }
+
   /**
    * An implementation of Ticker that can be used to drive time
    * when testing the Guava caches.
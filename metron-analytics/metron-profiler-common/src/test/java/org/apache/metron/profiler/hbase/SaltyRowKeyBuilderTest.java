@@ -243,4 +243,20 @@ public class SaltyRowKeyBuilderTest {
       assertThat(actual, equalTo(expected));
     }
   }
+
+  /**
+   * The row key should be its prefix followed by the period.
+   */
+  @Test
+  public void testRowKeyPrefix() {
+    measurement.withGroups(Arrays.asList("group1", 200));
+
+    byte[] prefix = rowKeyBuilder.rowKeyPrefix(measurement);
+    byte[] expected = ByteBuffer
+            .allocate(prefix.length + Long.BYTES)
+            .put(prefix)
+            .putLong(measurement.getPeriod().getPeriod())
+            .array();
+    assertArrayEquals(expected, rowKeyBuilder.rowKey(measurement));
+  }
 }
@@ -27,6 +27,7 @@ import org.apache.metron.profiler.spark.function.GroupByPeriodFunction;
 import org.apache.metron.profiler.spark.function.HBaseWriterFunction;
 import org.apache.metron.profiler.spark.function.MessageRouterFunction;
 import org.apache.metron.profiler.spark.function.ProfileBuilderFunction;
+import org.apache.metron.profiler.spark.reader.TelemetryPushdown;
 import org.apache.metron.profiler.spark.reader.TelemetryReader;
 import org.apache.metron.profiler.spark.reader.TelemetryReaders;
 import org.apache.spark.sql.Dataset;
@@ -43,6 +44,7 @@ import java.util.Properties;
 
 import static org.apache.metron.profiler.spark.BatchProfilerConfig.TELEMETRY_INPUT_BEGIN;
 import static org.apache.metron.profiler.spark.BatchProfilerConfig.TELEMETRY_INPUT_END;
+import static org.apache.metron.profiler.spark.BatchProfilerConfig.TELEMETRY_INPUT_PUSHDOWN;
 import static org.apache.metron.profiler.spark.BatchProfilerConfig.TELEMETRY_INPUT_READER;
 import static org.apache.spark.sql.functions.sum;
 
@@ -83,7 +85,16 @@ public class BatchProfiler implements Serializable {
     
     // fetch the archived telemetry using the input reader
     TelemetryReader reader = TelemetryReaders.create(TELEMETRY_INPUT_READER.get(profilerProps, String.class));
-    Dataset<String> telemetry = reader.read(spark, profilerProps, readerProps);
+    Dataset<String> telemetry;
+    if(TELEMETRY_INPUT_PUSHDOWN.get(profilerProps, Boolean.class)) {
+      // only read the telemetry needed by the profiles
+      TelemetryPushdown pushdown = telemetryPushdown(profilerProps, profiles);
+      LOG.debug("Pushing down to the telemetry reader; pushdown={}", pushdown);
+      telemetry = reader.read(spark, profilerProps, readerProps, pushdown);
+
+    } else {
+      telemetry = reader.read(spark, profilerProps, readerProps);
+    }
     LOG.debug("Found {} telemetry record(s)", telemetry.cache().count());
 
     // find all routes for each message
@@ -132,4 +143,24 @@ public class BatchProfiler implements Serializable {
 
     return routerFunction;
   }
+
+  /**
+   * Builds the description of the telemetry needed by the profiles.
+   *
+   * @param profilerProps The profiler configuration properties.
+   * @param profiles The profile definitions.
+   * @return A {@link TelemetryPushdown}.
+   */
+  private TelemetryPushdown telemetryPushdown(Properties profilerProps, ProfilerConfig profiles) {
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles);
+
+    // the same time constraints used when routing messages
+    Optional<Long> beginAt = timestampParser.parse(TELEMETRY_INPUT_BEGIN.get(profilerProps, String.class));
+    beginAt.ifPresent(begin -> pushdown.withBegin(begin));
+
+    Optional<Long> endAt = timestampParser.parse(TELEMETRY_INPUT_END.get(profilerProps, String.class));
+    endAt.ifPresent(end -> pushdown.withEnd(end));
+
+    return pushdown;
+  }
 }
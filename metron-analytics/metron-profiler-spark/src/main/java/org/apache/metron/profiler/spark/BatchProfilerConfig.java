@@ -54,7 +54,9 @@ public enum BatchProfilerConfig {
 
   TELEMETRY_INPUT_BEGIN("profiler.batch.input.begin", "", String.class),
 
-  TELEMETRY_INPUT_END("profiler.batch.input.end", "", String.class);
+  TELEMETRY_INPUT_END("profiler.batch.input.end", "", String.class),
+
+  TELEMETRY_INPUT_PUSHDOWN("profiler.batch.input.pushdown", true, Boolean.class);
 
   /**
    * The key for the configuration value.
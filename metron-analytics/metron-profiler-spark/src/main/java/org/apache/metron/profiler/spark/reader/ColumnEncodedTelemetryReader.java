@@ -21,6 +21,7 @@ package org.apache.metron.profiler.spark.reader;
 
 import com.google.common.collect.Maps;
 import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SparkSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +69,17 @@ public class ColumnEncodedTelemetryReader implements TelemetryReader {
 
   @Override
   public Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps) {
+    return load(spark, profilerProps, readerProps).toJSON();
+  }
+
+  @Override
+  public Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps, TelemetryPushdown pushdown) {
+    return pushdown
+            .apply(load(spark, profilerProps, readerProps))
+            .toJSON();
+  }
+
+  private Dataset<Row> load(SparkSession spark, Properties profilerProps, Properties readerProps) {
     String inputPath = TELEMETRY_INPUT_PATH.get(profilerProps, String.class);
     if(inputFormat == null) {
       inputFormat = TELEMETRY_INPUT_FORMAT.get(profilerProps, String.class);
@@ -78,7 +90,6 @@ public class ColumnEncodedTelemetryReader implements TelemetryReader {
             .read()
             .options(Maps.fromProperties(readerProps))
             .format(inputFormat)
-            .load(inputPath)
-            .toJSON();
+            .load(inputPath);
   }
 }
@@ -0,0 +1,497 @@
+/*
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.metron.profiler.spark.reader;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.metron.common.configuration.profiler.ProfileConfig;
+import org.apache.metron.common.configuration.profiler.ProfilerConfig;
+import org.apache.metron.stellar.common.StellarProcessor;
+import org.apache.metron.stellar.common.generated.StellarLexer;
+import org.apache.metron.stellar.common.generated.StellarParser;
+import org.apache.metron.stellar.dsl.ErrorListener;
+import org.apache.metron.stellar.dsl.VariableResolver;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.BooleanType;
+import org.apache.spark.sql.types.DataType;
+import org.apache.spark.sql.types.DateType;
+import org.apache.spark.sql.types.NumericType;
+import org.apache.spark.sql.types.StringType;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.TimestampType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.apache.spark.sql.functions.col;
+import static org.apache.spark.sql.functions.get_json_object;
+import static org.apache.spark.sql.functions.lit;
+
+/**
+ * Describes the telemetry needed by a set of profiles, so that a {@link TelemetryReader} can
+ * avoid reading telemetry that the profiles will never use.
+ *
+ * <p>Two things are pushed down to the reader.
+ * <ul>
+ *   <li>A projection; only the fields referenced by the profiles are read.</li>
+ *   <li>A filter; only the messages that may satisfy at least one profile's 'onlyif' expression, and
+ *   whose timestamp may fall within the time constraints, are read.</li>
+ * </ul>
+ *
+ * <p>The pushdown is conservative.  Every message is still routed and applied by the profiles as
+ * usual, so the pushdown only needs to remove messages and fields which can never be used.  Only
+ * simple 'onlyif' expressions are translated into a filter; equality with a string literal, 'exists',
+ * 'in' with a list of string literals, and any combination of those using 'and', 'or' and parentheses.
+ * Any other part of an expression is assumed to be satisfied by every message, as is a comparison
+ * with a field whose column is not atomic; an array, map or struct for example.
+ */
+public class TelemetryPushdown implements Serializable {
+
+  protected static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The fields referenced by the profiles, or null if any field may be referenced.
+   */
+  private Set<String> fields;
+
+  /**
+   * The 'onlyif' expression of each profile.
+   */
+  private List<String> predicates;
+
+  /**
+   * The field containing the timestamp, or null if processing time is used.
+   */
+  private String timestampField;
+
+  /**
+   * Only messages with a timestamp after this may be used.
+   */
+  private long begin;
+
+  /**
+   * Only messages with a timestamp before this may be used.
+   */
+  private long end;
+
+  /**
+   * @param profiles The profile definitions.
+   */
+  public TelemetryPushdown(ProfilerConfig profiles) {
+    this.fields = fieldsUsed(profiles);
+    this.predicates = new ArrayList<>();
+    for(ProfileConfig profile: profiles.getProfiles()) {
+      predicates.add(profile.getOnlyif());
+    }
+    this.timestampField = profiles.getTimestampField().orElse(null);
+    this.begin = Long.MIN_VALUE;
+    this.end = Long.MAX_VALUE;
+  }
+
+  /**
+   * @param begin Only messages with a timestamp after this will be read.
+   */
+  public TelemetryPushdown withBegin(long begin) {
+    this.begin = begin;
+    return this;
+  }
+
+  /**
+   * @param end Only messages with a timestamp before this will be read.
+   */
+  public TelemetryPushdown withEnd(long end) {
+    this.end = end;
+    return this;
+  }
+
+  /**
+   * @return The fields referenced by the profiles, or Optional.empty() if any field may be referenced.
+   */
+  public Optional<Set<String>> getFields() {
+    return Optional.ofNullable(fields);
+  }
+
+  /**
+   * Builds the filter that only retains messages which may be used by the profiles.
+   *
+   * @param field Returns the column containing a field of the message.
+   * @return The filter, or Optional.empty() if every message may be used.
+   */
+  public Optional<Column> getFilter(Function<String, Column> field) {
+    return getFilter(field, name -> true);
+  }
+
+  /**
+   * Builds the filter that only retains messages which may be used by the profiles.
+   *
+   * @param field Returns the column containing a field of the message.
+   * @param comparable Whether the column containing a field can be compared with a literal.
+   * @return The filter, or Optional.empty() if every message may be used.
+   */
+  public Optional<Column> getFilter(Function<String, Column> field, Predicate<String> comparable) {
+    Optional<Column> filter = Optional.empty();
+
+    // a message may be used if it may satisfy any of the profiles
+    List<Column> profileFilters = new ArrayList<>();
+    for(String predicate: predicates) {
+      Optional<Column> profileFilter = toFilter(predicate, field, comparable);
+      if(!profileFilter.isPresent()) {
+        profileFilters.clear();
+        break;
+      }
+      profileFilters.add(profileFilter.get());
+    }
+    if(profileFilters.size() > 0) {
+      filter = profileFilters.stream().reduce(Column::or);
+    }
+
+    // the timestamp must be in [begin, end]
+    Optional<Column> timestamp = Optional.empty();
+    if(timestampField != null && comparable.test(timestampField) && (begin != Long.MIN_VALUE || end != Long.MAX_VALUE)) {
+      timestamp = column(field, timestampField).map(column -> column.cast("double"));
+    }
+    if(timestamp.isPresent()) {
+      Column inRange = timestamp.get().geq(begin).and(timestamp.get().leq(end));
+      filter = Optional.of(filter.map(f -> f.and(inRange)).orElse(inRange));
+    }
+
+    return filter;
+  }
+
+  /**
+   * Applies the pushdown to column-oriented telemetry.
+   *
+   * <p>A field which is not one of the columns is treated as missing from every message.  A field
+   * whose column is not atomic is never compared with a literal.
+   *
+   * @param telemetry The telemetry.
+   * @return The telemetry, filtered and projected.
+   */
+  public Dataset<Row> apply(Dataset<Row> telemetry) {
+    Map<String, DataType> columns = new HashMap<>();
+    for(StructField column: telemetry.schema().fields()) {
+      columns.put(column.name(), column.dataType());
+    }
+    Function<String, Column> field = name -> columns.containsKey(name) ? col(quote(name)) : lit(null);
+    Predicate<String> comparable = name -> !columns.containsKey(name) || isAtomic(columns.get(name));
+
+    Optional<Column> filter = getFilter(field, comparable);
+    LOG.debug("Filtering telemetry; filter={}", filter);
+    if(filter.isPresent()) {
+      telemetry = telemetry.where(filter.get());
+    }
+
+    if(fields != null) {
+      Column[] projection = fields
+              .stream()
+              .filter(columns::containsKey)
+              .map(name -> col(quote(name)))
+              .toArray(Column[]::new);
+      LOG.debug("Projecting telemetry; columns={}", Arrays.toString(projection));
+      telemetry = telemetry.select(projection);
+    }
+
+    return telemetry;
+  }
+
+  /**
+   * Applies the pushdown to telemetry where each message is a JSON document.
+   *
+   * <p>Only the filter is applied.  Each field in the filter is extracted from the JSON document.
+   *
+   * @param telemetry The telemetry.
+   * @return The telemetry, filtered.
+   */
+  public Dataset<String> applyToJSON(Dataset<String> telemetry) {
+    Column message = col(telemetry.columns()[0]);
+    Function<String, Column> field = name -> name.contains("'")
+            ? null
+            : get_json_object(message, "$['" + name + "']");
+
+    Optional<Column> filter = getFilter(field);
+    LOG.debug("Filtering telemetry; filter={}", filter);
+    return filter.map(telemetry::where).orElse(telemetry);
+  }
+
+  /**
+   * Finds the fields referenced by the profiles.  A message is visible to a profile's 'onlyif',
+   * 'foreach', 'init' and 'update' expressions, along with the timestamp field.
+   *
+   * @param profiles The profile definitions.
+   * @return The fields, or null if any field may be referenced.
+   */
+  private static Set<String> fieldsUsed(ProfilerConfig profiles) {
+    List<String> expressions = new ArrayList<>();
+    for(ProfileConfig profile: profiles.getProfiles()) {
+      expressions.add(profile.getOnlyif());
+      expressions.add(profile.getForeach());
+      expressions.addAll(profile.getInit().values());
+      expressions.addAll(profile.getUpdate().values());
+    }
+
+    Set<String> fields = new TreeSet<>();
+    profiles.getTimestampField().ifPresent(fields::add);
+    StellarProcessor processor = new StellarProcessor();
+    for(String expression: expressions) {
+      try {
+        Set<String> used = processor.variablesUsed(expression);
+        if(used != null) {
+          fields.addAll(used);
+        }
+      } catch(Throwable e) {
+        LOG.debug("Unable to find the fields used; expression={}", expression, e);
+        return null;
+      }
+    }
+
+    // the entire message is referenced
+    return fields.contains(VariableResolver.ALL_FIELDS) ? null : fields;
+  }
+
+  /**
+   * Translates an 'onlyif' expression into a filter.
+   *
+   * @param predicate The 'onlyif' expression.
+   * @param field Returns the column containing a field of the message.
+   * @param comparable Whether the column containing a field can be compared with a literal.
+   * @return The filter, or Optional.empty() if every message may satisfy the expression.
+   */
+  private static Optional<Column> toFilter(String predicate, Function<String, Column> field, Predicate<String> comparable) {
+    if(StringUtils.isBlank(predicate)) {
+      return Optional.empty();
+    }
+
+    try {
+      StellarLexer lexer = new StellarLexer(new ANTLRInputStream(predicate));
+      lexer.removeErrorListeners();
+      lexer.addErrorListener(new ErrorListener());
+      StellarParser parser = new StellarParser(new CommonTokenStream(lexer));
+      parser.removeErrorListeners();
+      parser.addErrorListener(new ErrorListener());
+      return toFilter(parser.transformation(), field, comparable);
+
+    } catch(Throwable e) {
+      LOG.debug("Unable to translate into a filter; onlyif={}", predicate, e);
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<Column> toFilter(ParseTree tree, Function<String, Column> field, Predicate<String> comparable) {
+    if(tree instanceof StellarParser.TransformationContext) {
+      return toFilter(((StellarParser.TransformationContext) tree).transformation_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.TransformationExprContext) {
+      return toFilter(((StellarParser.TransformationExprContext) tree).transformation_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.ComparisonExpressionContext) {
+      return toFilter(((StellarParser.ComparisonExpressionContext) tree).comparison_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.LogicalExpressionContext) {
+      return toFilter(((StellarParser.LogicalExpressionContext) tree).logical_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.InExpressionContext) {
+      return toFilter(((StellarParser.InExpressionContext) tree).in_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.TransformationEntityContext) {
+      return toFilter(((StellarParser.TransformationEntityContext) tree).transformation_entity(), field, comparable);
+
+    } else if(tree instanceof StellarParser.Transformation_entityContext) {
+      return toFilter(((StellarParser.Transformation_entityContext) tree).identifier_operand(), field, comparable);
+
+    } else if(tree instanceof StellarParser.LogicalExpressionAndContext) {
+      // either side is enough to exclude a message
+      StellarParser.LogicalExpressionAndContext and = (StellarParser.LogicalExpressionAndContext) tree;
+      Optional<Column> left = toFilter(and.b_expr(), field, comparable);
+      Optional<Column> right = toFilter(and.logical_expr(), field, comparable);
+      if(left.isPresent() && right.isPresent()) {
+        return Optional.of(left.get().and(right.get()));
+      }
+      return left.isPresent() ? left : right;
+
+    } else if(tree instanceof StellarParser.LogicalExpressionOrContext) {
+      // both sides are needed to exclude a message
+      StellarParser.LogicalExpressionOrContext or = (StellarParser.LogicalExpressionOrContext) tree;
+      Optional<Column> left = toFilter(or.b_expr(), field, comparable);
+      Optional<Column> right = toFilter(or.logical_expr(), field, comparable);
+      if(left.isPresent() && right.isPresent()) {
+        return Optional.of(left.get().or(right.get()));
+      }
+
+    } else if(tree instanceof StellarParser.BoleanExpressionContext) {
+      return toFilter(((StellarParser.BoleanExpressionContext) tree).b_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.B_exprContext) {
+      StellarParser.B_exprContext expr = (StellarParser.B_exprContext) tree;
+      return toFilter(expr.comparison_expr() != null ? expr.comparison_expr() : expr.in_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.ComparisonExpressionParensContext) {
+      return toFilter(((StellarParser.ComparisonExpressionParensContext) tree).logical_expr(), field, comparable);
+
+    } else if(tree instanceof StellarParser.ComparisonExpressionWithOperatorContext) {
+      // field == 'literal' or 'literal' == field
+      StellarParser.ComparisonExpressionWithOperatorContext comparison = (StellarParser.ComparisonExpressionWithOperatorContext) tree;
+      if(comparison.comp_operator() instanceof StellarParser.ComparisonOpContext
+              && ((StellarParser.ComparisonOpContext) comparison.comp_operator()).EQ() != null) {
+        ParseTree left = comparison.comparison_expr(0);
+        ParseTree right = comparison.comparison_expr(1);
+        Optional<String> name = Optional.ofNullable(fieldName(left).orElse(fieldName(right).orElse(null)));
+        Optional<String> literal = Optional.ofNullable(stringLiteral(right).orElse(stringLiteral(left).orElse(null)));
+        if(name.isPresent() && literal.isPresent() && comparable.test(name.get())) {
+          return column(field, name.get()).map(column -> column.equalTo(literal.get()));
+        }
+      }
+
+    } else if(tree instanceof StellarParser.InExpressionStatementContext) {
+      // field in ['literal', ...]
+      StellarParser.InExpressionStatementContext in = (StellarParser.InExpressionStatementContext) tree;
+      Optional<String> name = fieldName(in.identifier_operand());
+      Optional<List<String>> literals = stringLiterals(in.b_expr().comparison_expr());
+      if(name.isPresent() && literals.isPresent() && comparable.test(name.get())) {
+        return column(field, name.get()).map(column -> column.isin(literals.get().toArray()));
+      }
+
+    } else if(tree instanceof StellarParser.OperandContext) {
+      return toFilter(((StellarParser.OperandContext) tree).identifier_operand(), field, comparable);
+
+    } else if(tree instanceof StellarParser.ExistsFuncContext) {
+      String name = ((StellarParser.ExistsFuncContext) tree).IDENTIFIER().getText();
+      return column(field, name).map(Column::isNotNull);
+    }
+
+    return Optional.empty();
+  }
+
+  private static Optional<Column> column(Function<String, Column> field, String name) {
+    return Optional.ofNullable(field.apply(name));
+  }
+
+  /**
+   * @param type The data type of a column.
+   * @return True, if the column can be compared with a literal.
+   */
+  private static boolean isAtomic(DataType type) {
+    return type instanceof StringType
+            || type instanceof NumericType
+            || type instanceof BooleanType
+            || type instanceof DateType
+            || type instanceof TimestampType;
+  }
+
+  /**
+   * @return The name of the field, if the expression is nothing but a field.
+   */
+  private static Optional<String> fieldName(ParseTree tree) {
+    if(tree instanceof StellarParser.OperandContext) {
+      return fieldName(((StellarParser.OperandContext) tree).identifier_operand());
+
+    } else if(tree instanceof StellarParser.ArithmeticOperandsContext) {
+      return fieldName(((StellarParser.ArithmeticOperandsContext) tree).arithmetic_expr());
+
+    } else if(tree instanceof StellarParser.ArithExpr_soloContext) {
+      return fieldName(((StellarParser.ArithExpr_soloContext) tree).arithmetic_expr_mul());
+
+    } else if(tree instanceof StellarParser.ArithExpr_mul_soloContext) {
+      return fieldName(((StellarParser.ArithExpr_mul_soloContext) tree).arithmetic_operands());
+
+    } else if(tree instanceof StellarParser.VariableContext) {
+      String name = tree.getText();
+      if(!VariableResolver.ALL_FIELDS.equals(name)) {
+        return Optional.of(name);
+      }
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * @return The value of the string literal, if the expression is nothing but a string literal.
+   */
+  private static Optional<String> stringLiteral(ParseTree tree) {
+    if(tree instanceof StellarParser.OperandContext) {
+      return stringLiteral(((StellarParser.OperandContext) tree).identifier_operand());
+
+    } else if(tree instanceof StellarParser.StringLiteralContext) {
+      String literal = StringEscapeUtils.UNESCAPE_JSON.translate(tree.getText());
+      return Optional.of(literal.substring(1, literal.length() - 1));
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * @return The values of the string literals, if the expression is nothing but a list of string literals.
+   */
+  private static Optional<List<String>> stringLiterals(ParseTree tree) {
+    if(tree instanceof StellarParser.OperandContext) {
+      return stringLiterals(((StellarParser.OperandContext) tree).identifier_operand());
+
+    } else if(tree instanceof StellarParser.ListContext) {
+      StellarParser.Op_listContext list = ((StellarParser.ListContext) tree).list_entity().op_list();
+      List<String> literals = new ArrayList<>();
+      while(list != null) {
+        ParseTree element = list.identifier_operand() != null ? list.identifier_operand() : list.comparison_expr();
+        Optional<String> literal = stringLiteral(element);
+        if(!literal.isPresent()) {
+          return Optional.empty();
+        }
+        literals.add(0, literal.get());
+        list = list.op_list();
+      }
+      return literals.isEmpty() ? Optional.empty() : Optional.of(literals);
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Quotes a field name so that it is not interpreted as a nested field; 'source.type' for example.
+   */
+  private static String quote(String name) {
+    return "`" + name.replace("`", "``") + "`";
+  }
+
+  @Override
+  public String toString() {
+    return "TelemetryPushdown{" +
+            "fields=" + fields +
+            ", timestampField=" + timestampField +
+            ", begin=" + begin +
+            ", end=" + end +
+            '}';
+  }
+}
@@ -40,4 +40,19 @@ public interface TelemetryReader extends Serializable {
    * @return A {@link Dataset} containing archived telemetry.
    */
   Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps);
+
+  /**
+   * Read in only the telemetry needed by the profiles.
+   *
+   * <p>By default, the pushdown is ignored and all of the telemetry is read.
+   *
+   * @param spark The spark session.
+   * @param profilerProps The profiler properties.
+   * @param readerProps The properties specific to reading input data.
+   * @param pushdown Describes the telemetry needed by the profiles.
+   * @return A {@link Dataset} containing archived telemetry.
+   */
+  default Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps, TelemetryPushdown pushdown) {
+    return read(spark, profilerProps, readerProps);
+  }
 }
@@ -107,4 +107,9 @@ public enum TelemetryReaders implements TelemetryReader {
   public Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps) {
     return supplier.get().read(spark, profilerProps, readerProps);
   }
+
+  @Override
+  public Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps, TelemetryPushdown pushdown) {
+    return supplier.get().read(spark, profilerProps, readerProps, pushdown);
+  }
 }
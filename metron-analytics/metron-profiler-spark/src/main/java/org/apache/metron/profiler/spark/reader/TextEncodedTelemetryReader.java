@@ -80,4 +80,9 @@ public class TextEncodedTelemetryReader implements TelemetryReader {
             .load(inputPath)
             .as(Encoders.STRING());
   }
+
+  @Override
+  public Dataset<String> read(SparkSession spark, Properties profilerProps, Properties readerProps, TelemetryPushdown pushdown) {
+    return pushdown.applyToJSON(read(spark, profilerProps, readerProps));
+  }
 }
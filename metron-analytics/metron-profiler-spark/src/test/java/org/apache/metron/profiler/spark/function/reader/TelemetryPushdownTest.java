@@ -0,0 +1,290 @@
+/*
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.metron.profiler.spark.function.reader;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.metron.common.configuration.profiler.ProfileConfig;
+import org.apache.metron.common.configuration.profiler.ProfilerConfig;
+import org.apache.metron.profiler.spark.reader.TelemetryPushdown;
+import org.apache.metron.profiler.spark.reader.TelemetryReaders;
+import org.apache.spark.SparkConf;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.SparkSession;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Rule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.migrationsupport.rules.EnableRuleMigrationSupport;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.apache.metron.profiler.spark.BatchProfilerConfig.TELEMETRY_INPUT_PATH;
+import static org.apache.spark.sql.functions.array;
+import static org.apache.spark.sql.functions.col;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link TelemetryPushdown} class.
+ *
+ * <p>The test data contains 100 messages; 18 'dns' messages, each of which has a 'query', along with
+ * 68 'http' messages with a 'GET' method and 14 'http' messages with a 'POST' method.
+ */
+@EnableRuleMigrationSupport
+public class TelemetryPushdownTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+  private static SparkSession spark;
+  private Properties profilerProperties;
+  private Properties readerProperties;
+
+  @BeforeAll
+  public static void setupSpark() {
+    SparkConf conf = new SparkConf()
+            .setMaster("local")
+            .setAppName("TelemetryPushdownTest")
+            .set("spark.sql.shuffle.partitions", "8");
+    spark = SparkSession
+            .builder()
+            .config(conf)
+            .getOrCreate();
+  }
+
+  @AfterAll
+  public static void tearDownSpark() {
+    if(spark != null) {
+      spark.close();
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    readerProperties = new Properties();
+    profilerProperties = new Properties();
+  }
+
+  @Test
+  public void testFieldsUsed() {
+    ProfilerConfig profiles = profiles("protocol == 'dns'")
+            .withTimestampField(Optional.of("timestamp"));
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles);
+
+    // 'count' is not a field of the message, but there is no way to know that up front
+    assertEquals(ImmutableSet.of("ip_src_addr", "protocol", "count", "timestamp"), pushdown.getFields().get());
+  }
+
+  @Test
+  public void testFieldsUsedWithEntireMessage() {
+    ProfileConfig profile = new ProfileConfig()
+            .withProfile("profile")
+            .withForeach("ip_src_addr")
+            .withUpdate("methods", "SET_ADD(methods, MAP_GET('method', _))");
+    TelemetryPushdown pushdown = new TelemetryPushdown(new ProfilerConfig().withProfile(profile));
+
+    // the entire message is used, so every field is needed
+    assertFalse(pushdown.getFields().isPresent());
+  }
+
+  @Test
+  public void testProjectionWithParquet() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("parquet"));
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles("protocol == 'dns'"));
+
+    Dataset<String> telemetry = TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(18, telemetry.count());
+
+    // only the fields used by the profile should be read
+    for(String json: telemetry.collectAsList()) {
+      JSONObject message = (JSONObject) new JSONParser().parse(json);
+      assertEquals(ImmutableSet.of("ip_src_addr", "protocol"), message.keySet());
+      assertEquals("dns", message.get("protocol"));
+    }
+  }
+
+  @Test
+  public void testProjectionWithORC() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("org.apache.spark.sql.execution.datasources.orc"));
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles("source.type == 'bro' && exists(query)"));
+
+    Dataset<String> telemetry = TelemetryReaders.ORC.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(18, telemetry.count());
+
+    // only the fields used by the profile should be read
+    for(String json: telemetry.collectAsList()) {
+      JSONObject message = (JSONObject) new JSONParser().parse(json);
+      assertEquals(ImmutableSet.of("ip_src_addr", "source.type", "query"), message.keySet());
+    }
+  }
+
+  @Test
+  public void testFilterWithJSON() {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), "src/test/resources/telemetry.json");
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles("protocol == 'dns' or method in ['POST']"));
+
+    // the messages are not projected, but should be filtered
+    Dataset<String> telemetry = TelemetryReaders.JSON.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(18 + 14, telemetry.count());
+    assertTrue(telemetry.first().contains("original_string"));
+  }
+
+  @Test
+  public void testFilterWithAnyProfile() {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), "src/test/resources/telemetry.json");
+    ProfilerConfig profiles = profiles("exists(query)")
+            .withProfile(profile("'POST' == method"));
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles);
+
+    // a message is needed if it is needed by any of the profiles
+    Dataset<String> telemetry = TelemetryReaders.JSON.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(18 + 14, telemetry.count());
+  }
+
+  @Test
+  public void testNoFilterWhenAnyProfileNeedsAllMessages() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("parquet"));
+    ProfilerConfig profiles = profiles("exists(query)")
+            .withProfile(profile("true"));
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles);
+
+    Dataset<String> telemetry = TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(100, telemetry.count());
+  }
+
+  @Test
+  public void testExpressionsThatCannotBeTranslated() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("parquet"));
+
+    // none of these can be translated, so no messages should be filtered
+    String[] predicates = {
+            "protocol != 'dns'",
+            "not(exists(query))",
+            "protocol == 'dns' or method == 'GET' or qtype > 1",
+            "TO_UPPER(protocol) == 'DNS'",
+            "protocol == method",
+            "not a valid expression"
+    };
+    for(String predicate: predicates) {
+      TelemetryPushdown pushdown = new TelemetryPushdown(profiles(predicate));
+      Dataset<String> telemetry = TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown);
+      assertEquals(100, telemetry.count(), predicate);
+    }
+  }
+
+  @Test
+  public void testPartialTranslation() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("parquet"));
+
+    // only 'method == GET' can be translated; the rest is left to the profile
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles("method == 'GET' and ip_dst_port != 80"));
+
+    Dataset<String> telemetry = TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(68, telemetry.count());
+  }
+
+  @Test
+  public void testMissingField() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("parquet"));
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles("exists(missing)"));
+
+    Dataset<String> telemetry = TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown);
+    assertEquals(0, telemetry.count());
+  }
+
+  @Test
+  public void testComparisonWithArrayField() throws Exception {
+    String path = tempFolder.getRoot().getAbsolutePath();
+    spark.read()
+            .format("json")
+            .load("src/test/resources/telemetry.json")
+            .withColumn("tags", array(col("protocol")))
+            .write()
+            .mode("overwrite")
+            .format("parquet")
+            .save(path);
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), path);
+
+    // an array cannot be compared with a literal, so every message may be used
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles("tags == 'dns' or tags in ['dns']"));
+    assertEquals(100, TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown).count());
+
+    // the rest of the expression can still be translated
+    pushdown = new TelemetryPushdown(profiles("protocol == 'dns' and tags == 'dns'"));
+    assertEquals(18, TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown).count());
+  }
+
+  @Test
+  public void testTimeConstraints() throws Exception {
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), rewriteAs("parquet"));
+    ProfilerConfig profiles = profiles("true")
+            .withTimestampField(Optional.of("timestamp"));
+
+    // the first 50 messages
+    TelemetryPushdown pushdown = new TelemetryPushdown(profiles)
+            .withEnd(1530978708970L);
+    assertEquals(50, TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown).count());
+
+    // the last 50 messages
+    pushdown = new TelemetryPushdown(profiles)
+            .withBegin(1530978712051L);
+    assertEquals(50, TelemetryReaders.PARQUET.read(spark, profilerProperties, readerProperties, pushdown).count());
+
+    // the same constraints should apply to JSON
+    profilerProperties.put(TELEMETRY_INPUT_PATH.getKey(), "src/test/resources/telemetry.json");
+    assertEquals(50, TelemetryReaders.JSON.read(spark, profilerProperties, readerProperties, pushdown).count());
+  }
+
+  /**
+   * Re-writes the test data in a column-oriented format.
+   *
+   * @param format The format.
+   * @return The path to the re-written test data.
+   */
+  private String rewriteAs(String format) {
+    String path = tempFolder.getRoot().getAbsolutePath();
+    spark.read()
+            .format("json")
+            .load("src/test/resources/telemetry.json")
+            .write()
+            .mode("overwrite")
+            .format(format)
+            .save(path);
+    return path;
+  }
+
+  private static ProfilerConfig profiles(String onlyif) {
+    return new ProfilerConfig().withProfile(profile(onlyif));
+  }
+
+  private static ProfileConfig profile(String onlyif) {
+    return new ProfileConfig()
+            .withProfile("profile")
+            .withForeach("ip_src_addr")
+            .withOnlyif(onlyif)
+            .withInit("count", "0")
+            .withUpdate("count", "count + 1");
+  }
+}
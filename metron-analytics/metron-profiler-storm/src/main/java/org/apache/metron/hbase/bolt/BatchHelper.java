@@ -23,6 +23,7 @@ package org.apache.metron.hbase.bolt;
 import java.lang.invoke.MethodHandles;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import org.apache.storm.Constants;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.tuple.Tuple;
@@ -85,6 +86,24 @@ public class BatchHelper {
     forceFlush = false;
   }
 
+  /**
+   * Ack the batch, except for the tuples which failed.
+   * @param failed The tuples which failed.
+   * @param cause The cause of the failures.
+   */
+  public void ack(Set<Tuple> failed, Throwable cause) {
+    collector.reportError(cause);
+    for (Tuple t : tupleBatch) {
+      if (failed.contains(t)) {
+        collector.fail(t);
+      } else {
+        collector.ack(t);
+      }
+    }
+    tupleBatch.clear();
+    forceFlush = false;
+  }
+
   public boolean shouldHandle(Tuple tuple) {
     if (isTick(tuple)) {
       LOG.debug("TICK received! current batch status [{}/{}]", tupleBatch.size(), batchSize);
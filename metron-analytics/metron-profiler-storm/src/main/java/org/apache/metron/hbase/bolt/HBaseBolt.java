@@ -22,11 +22,16 @@ package org.apache.metron.hbase.bolt;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.metron.hbase.HTableProvider;
 import org.apache.metron.hbase.TableProvider;
 import org.apache.metron.hbase.ColumnList;
@@ -65,6 +70,18 @@ public class HBaseBolt extends BaseRichBolt {
    */
   private int batchSize = 1000;
 
+  /**
+   * The size of the HBase client's write buffer in bytes.  If greater than 0, mutations are written
+   * in the background as the buffer fills, rather than all at once when the batch is flushed.
+   */
+  private long writeBufferSize = 0;
+
+  /**
+   * How often in milliseconds the write buffer is flushed in the background.  If 0, it is only
+   * flushed when full or when the batch is flushed.
+   */
+  private long backgroundFlushMillis = 0;
+
   /**
    * The name of the HBase table.  Each bolt communicates with a single HBase table.
    */
@@ -89,6 +106,11 @@ public class HBaseBolt extends BaseRichBolt {
   protected TableProvider tableProvider;
 
   private BatchHelper batchHelper;
+
+  /**
+   * The tuple from which each mutation in the batch was created.
+   */
+  private transient Map<Mutation, Tuple> mutationTuples;
   protected OutputCollector collector;
   protected transient HBaseClient hbaseClient;
 
@@ -122,6 +144,16 @@ public class HBaseBolt extends BaseRichBolt {
     return this;
   }
 
+  public HBaseBolt withWriteBufferSize(long writeBufferSize) {
+    this.writeBufferSize = writeBufferSize;
+    return this;
+  }
+
+  public HBaseBolt withBackgroundFlushMillis(long backgroundFlushMillis) {
+    this.backgroundFlushMillis = backgroundFlushMillis;
+    return this;
+  }
+
   public void setClient(HBaseClient hbaseClient) {
     this.hbaseClient = hbaseClient;
   }
@@ -139,6 +171,7 @@ public class HBaseBolt extends BaseRichBolt {
   public void prepare(Map map, TopologyContext topologyContext, OutputCollector collector) {
     this.collector = collector;
     this.batchHelper = new BatchHelper(batchSize, collector);
+    this.mutationTuples = new IdentityHashMap<>();
 
     TableProvider provider;
     if(this.tableProvider == null) {
@@ -147,7 +180,7 @@ public class HBaseBolt extends BaseRichBolt {
       provider = this.tableProvider;
     }
 
-    hbaseClient = new HBaseClient(provider, HBaseConfiguration.create(), tableName);
+    hbaseClient = new HBaseClient(provider, HBaseConfiguration.create(), tableName, writeBufferSize, backgroundFlushMillis);
   }
 
   @Override
@@ -171,6 +204,7 @@ public class HBaseBolt extends BaseRichBolt {
     } catch (Exception e) {
       batchHelper.fail(e);
       hbaseClient.clearMutations();
+      mutationTuples.clear();
     }
   }
 
@@ -184,24 +218,34 @@ public class HBaseBolt extends BaseRichBolt {
     Durability durability = writeToWAL ? Durability.SYNC_WAL : Durability.SKIP_WAL;
 
     Optional<Long> ttl = mapper.getTTL(tuple);
+    List<Mutation> mutations;
     if(ttl.isPresent()) {
-      hbaseClient.addMutation(rowKey, cols, durability, ttl.get());
+      mutations = hbaseClient.addMutation(rowKey, cols, durability, ttl.get());
     } else {
-      hbaseClient.addMutation(rowKey, cols, durability);
+      mutations = hbaseClient.addMutation(rowKey, cols, durability);
     }
+    mutations.forEach(m -> mutationTuples.put(m, tuple));
 
     batchHelper.addBatch(tuple);
     LOG.debug("Added mutation to the batch; size={}", batchHelper.getBatchSize());
   }
 
   /**
-   * Flush all saved operations.
+   * Flush all saved operations.  Only the tuples whose mutations failed are failed; the rest are acked.
    */
   private void flush() {
     LOG.debug("About to flush a batch of {} mutation(s)", batchHelper.getBatchSize());
 
-    this.hbaseClient.mutate();
-    batchHelper.ack();
+    Map<Mutation, Throwable> failed = hbaseClient.mutateAll();
+    if (failed.isEmpty()) {
+      batchHelper.ack();
+
+    } else {
+      Set<Tuple> failedTuples = Collections.newSetFromMap(new IdentityHashMap<>());
+      failed.keySet().forEach(m -> failedTuples.add(mutationTuples.get(m)));
+      batchHelper.ack(failedTuples, failed.values().iterator().next());
+    }
+    mutationTuples.clear();
   }
 
   /**
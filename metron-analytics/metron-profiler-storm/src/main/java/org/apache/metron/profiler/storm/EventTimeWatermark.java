@@ -0,0 +1,150 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.metron.profiler.storm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the progress of event time across the partitions of an input stream.
+ *
+ * <p>Timestamps are expected to arrive roughly in order within each partition, but the partitions
+ * may progress at different rates.  The watermark is the earliest of the latest timestamps seen on
+ * each partition, less the allowed lateness.  Once the watermark has passed a timestamp, no more
+ * messages are expected at or before that time.
+ *
+ * <p>A partition that has not received a message for the idle timeout, measured in system time, is
+ * ignored until it receives another, so that an idle partition does not hold back the watermark.
+ *
+ * <p>The watermark never moves backwards.
+ */
+public class EventTimeWatermark {
+
+  protected static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The latest timestamp and the system time it was last updated, for a single partition.
+   */
+  private static class Partition {
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long lastUpdated;
+  }
+
+  /**
+   * The amount of time that timestamps may arrive out-of-order within a partition.
+   */
+  private final long allowedLatenessMillis;
+
+  /**
+   * A partition is ignored after receiving no messages for this amount of system time.
+   */
+  private final long idleTimeoutMillis;
+
+  /**
+   * Provides the system time in epoch milliseconds.
+   */
+  private final LongSupplier systemTime;
+
+  private final Map<Integer, Partition> partitions;
+  private long watermark;
+
+  /**
+   * @param allowedLatenessMillis The amount of time that timestamps may arrive out-of-order.
+   * @param idleTimeoutMillis A partition is ignored after receiving no messages for this amount of system time.
+   */
+  public EventTimeWatermark(long allowedLatenessMillis, long idleTimeoutMillis) {
+    this(allowedLatenessMillis, idleTimeoutMillis, System::currentTimeMillis);
+  }
+
+  /**
+   * @param allowedLatenessMillis The amount of time that timestamps may arrive out-of-order.
+   * @param idleTimeoutMillis A partition is ignored after receiving no messages for this amount of system time.
+   * @param systemTime Provides the system time in epoch milliseconds.
+   */
+  public EventTimeWatermark(long allowedLatenessMillis, long idleTimeoutMillis, LongSupplier systemTime) {
+    if(allowedLatenessMillis < 0) {
+      throw new IllegalArgumentException("allowed lateness must be >= 0");
+    }
+    if(idleTimeoutMillis <= 0) {
+      throw new IllegalArgumentException("idle timeout must be > 0");
+    }
+
+    this.allowedLatenessMillis = allowedLatenessMillis;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.systemTime = systemTime;
+    this.partitions = new HashMap<>();
+    this.watermark = Long.MIN_VALUE;
+  }
+
+  /**
+   * Update the watermark with a timestamp received on a partition.
+   *
+   * @param partition The partition that the timestamp was received on.
+   * @param timestamp The timestamp.
+   * @return The watermark.
+   */
+  public long update(int partition, long timestamp) {
+    Partition state = partitions.computeIfAbsent(partition, k -> new Partition());
+    state.lastUpdated = systemTime.getAsLong();
+    if(timestamp > state.maxTimestamp) {
+      state.maxTimestamp = timestamp;
+    }
+
+    return advance();
+  }
+
+  /**
+   * Returns the watermark.
+   *
+   * <p>Partitions that have become idle are no longer considered, which may advance the watermark.
+   *
+   * @return The watermark, or {@link Long#MIN_VALUE} if no timestamps have been received.
+   */
+  public long get() {
+    return advance();
+  }
+
+  public long getAllowedLatenessMillis() {
+    return allowedLatenessMillis;
+  }
+
+  private long advance() {
+    long now = systemTime.getAsLong();
+    long min = Long.MAX_VALUE;
+    for(Partition partition: partitions.values()) {
+      if(now - partition.lastUpdated < idleTimeoutMillis && partition.maxTimestamp < min) {
+        min = partition.maxTimestamp;
+      }
+    }
+
+    // if every partition is idle, the watermark waits for the next message
+    if(min != Long.MAX_VALUE && min - allowedLatenessMillis > watermark) {
+      watermark = min - allowedLatenessMillis;
+      LOG.debug("Watermark advanced; watermark={}, partitions={}", watermark, partitions.size());
+    }
+
+    return watermark;
+  }
+}
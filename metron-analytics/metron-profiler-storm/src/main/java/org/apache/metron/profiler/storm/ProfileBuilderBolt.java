@@ -49,7 +49,6 @@ import org.apache.storm.topology.base.BaseWindowedBolt;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.windowing.TupleWindow;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -141,11 +140,6 @@ public class ProfileBuilderBolt extends BaseWindowedBolt implements Reloadable {
    */
   private MessageDistributor messageDistributor;
 
-  /**
-   * Parses JSON messages.
-   */
-  private transient JSONParser parser;
-
   /**
    * Responsible for emitting {@link ProfileMeasurement} values.
    *
@@ -203,7 +197,6 @@ public class ProfileBuilderBolt extends BaseWindowedBolt implements Reloadable {
     }
 
     this.collector = collector;
-    this.parser = new JSONParser();
     this.messageDistributor = new DefaultMessageDistributor(periodDurationMillis, profileTimeToLiveMillis, maxNumberOfRoutes);
     this.configurations = new ProfilerConfigurations();
     this.activeFlushSignal = new FixedFrequencyFlushSignal(periodDurationMillis);
@@ -0,0 +1,411 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.metron.profiler.storm;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.metron.common.configuration.profiler.ProfileConfig;
+import org.apache.metron.profiler.DefaultMessageDistributor;
+import org.apache.metron.profiler.MessageDistributor;
+import org.apache.metron.profiler.MessageRoute;
+import org.apache.metron.profiler.ProfileMeasurement;
+import org.apache.metron.stellar.common.utils.ConversionUtils;
+import org.apache.metron.stellar.dsl.Context;
+import org.apache.metron.storm.common.bolt.ConfiguredProfilerBolt;
+import org.apache.storm.task.OutputCollector;
+import org.apache.storm.task.TopologyContext;
+import org.apache.storm.topology.OutputFieldsDeclarer;
+import org.apache.storm.tuple.Tuple;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static org.apache.metron.profiler.storm.ProfileSplitterBolt.ENTITY_TUPLE_FIELD;
+import static org.apache.metron.profiler.storm.ProfileSplitterBolt.MESSAGE_TUPLE_FIELD;
+import static org.apache.metron.profiler.storm.ProfileSplitterBolt.PROFILE_TUPLE_FIELD;
+import static org.apache.metron.profiler.storm.ProfileSplitterBolt.TIMESTAMP_TUPLE_FIELD;
+
+/**
+ * A Storm bolt that builds profiles without windowing.
+ *
+ * <p>Unlike the {@link ProfileBuilderBolt}, Storm does not buffer tuples for the duration of a window.
+ * Each message is applied to its profile as soon as it arrives, so the state held by this bolt grows
+ * with the number of (profile, entity) pairs rather than the rate of messages.
+ *
+ * <p>A separate profile is built for each period.  The bolt tracks an {@link EventTimeWatermark} across
+ * the upstream tasks that send it messages and flushes each period once the watermark passes its end.
+ * Messages may arrive out-of-order by up to the allowed lateness.  A message arriving after its period
+ * has been flushed is dropped.
+ *
+ * <p>If no messages arrive to advance the watermark, the "time-to-live" mechanism will flush a profile
+ * after no messages have been received for some period of time.
+ */
+public class WatermarkProfileBuilderBolt extends ConfiguredProfilerBolt {
+
+  protected static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private OutputCollector collector;
+
+  /**
+   * The duration of each profile period in milliseconds.
+   */
+  private long periodDurationMillis;
+
+  /**
+   * The amount of time that messages may arrive out-of-order in milliseconds.
+   */
+  private long allowedLatenessMillis;
+
+  /**
+   * If a message has not been applied to a Profile in this number of milliseconds,
+   * the Profile will be forgotten and its resources will be cleaned up.
+   *
+   * <p>WARNING: The TTL must be at least greater than the period duration.
+   */
+  private long profileTimeToLiveMillis;
+
+  /**
+   * The maximum number of {@link MessageRoute} routes that will be maintained by
+   * this bolt.  After this value is exceeded, lesser used routes will be evicted
+   * from the internal cache.
+   */
+  private long maxNumberOfRoutes;
+
+  /**
+   * Distributes messages to the profile builders.
+   *
+   * <p>Since expired profiles are flushed on a separate thread, all access to this
+   * {@code MessageDistributor} needs to be protected.
+   */
+  private MessageDistributor messageDistributor;
+
+  /**
+   * Responsible for emitting {@link ProfileMeasurement} values.
+   */
+  private List<ProfileMeasurementEmitter> emitters;
+
+  /**
+   * Tracks the progress of event time across the upstream tasks.
+   */
+  private transient EventTimeWatermark watermark;
+
+  /**
+   * All periods ending at or before this time have been flushed.
+   */
+  private long flushedUntil;
+
+  /**
+   * The number of messages dropped since the last flush, because their period had already been flushed.
+   */
+  private long droppedSinceFlush;
+
+  /**
+   * An executor that flushes expired profiles at a regular interval on a separate
+   * thread.
+   */
+  private transient ScheduledExecutorService flushExpiredExecutor;
+
+  public WatermarkProfileBuilderBolt(String zookeeperUrl) {
+    super(zookeeperUrl);
+    this.emitters = new ArrayList<>();
+  }
+
+  @Override
+  public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
+    super.prepare(stormConf, context, collector);
+
+    if(periodDurationMillis <= 0) {
+      throw new IllegalArgumentException("expect 'profiler.period.duration' >= 0");
+    }
+    if(profileTimeToLiveMillis <= 0) {
+      throw new IllegalArgumentException("expect 'profiler.ttl' >= 0");
+    }
+    if(profileTimeToLiveMillis < periodDurationMillis) {
+      throw new IllegalArgumentException("expect 'profiler.ttl' >= 'profiler.period.duration'");
+    }
+    if(maxNumberOfRoutes <= 0) {
+      throw new IllegalArgumentException("expect 'profiler.max.routes.per.bolt' > 0");
+    }
+    if(allowedLatenessMillis < 0) {
+      throw new IllegalArgumentException("expect 'profiler.allowed.lateness' >= 0");
+    }
+
+    this.collector = collector;
+    this.messageDistributor = new DefaultMessageDistributor(periodDurationMillis, profileTimeToLiveMillis, maxNumberOfRoutes)
+            .withSeparatePeriods(true);
+
+    // an upstream task that sends nothing for a full period should not hold back the others
+    this.watermark = new EventTimeWatermark(allowedLatenessMillis, periodDurationMillis);
+    this.flushedUntil = Long.MIN_VALUE;
+    startFlushingExpiredProfiles();
+  }
+
+  @Override
+  public void cleanup() {
+    try {
+      super.cleanup();
+      flushExpiredExecutor.shutdown();
+
+    } catch(Throwable e) {
+      LOG.error("Exception when cleaning up", e);
+    }
+  }
+
+  @Override
+  public void declareOutputFields(OutputFieldsDeclarer declarer) {
+
+    if(emitters.size() == 0) {
+      throw new IllegalStateException("At least one destination handler must be defined.");
+    }
+
+    // allow each emitter to define its own stream
+    emitters.forEach(emitter -> emitter.declareOutputFields(declarer));
+  }
+
+  private Context getStellarContext() {
+
+    Map<String, Object> global = getConfigurations().getGlobalConfig();
+    return new Context.Builder()
+            .with(Context.Capabilities.ZOOKEEPER_CLIENT, () -> client)
+            .with(Context.Capabilities.GLOBAL_CONFIG, () -> global)
+            .with(Context.Capabilities.STELLAR_CONFIG, () -> global)
+            .build();
+  }
+
+  @Override
+  public void execute(Tuple input) {
+    try {
+      long current = handleMessage(input);
+
+      // has the watermark passed the end of a period?
+      if(current > Long.MIN_VALUE) {
+        long periodStart = current - Math.floorMod(current, periodDurationMillis);
+        if(periodStart > flushedUntil) {
+          flushActive(periodStart);
+        }
+      }
+
+    } catch (Throwable e) {
+      LOG.error("Unexpected error", e);
+      collector.reportError(e);
+
+    } finally {
+      // the message has been applied to the profile's state, so it should not be replayed
+      collector.ack(input);
+    }
+  }
+
+  /**
+   * Flush the active profiles whose period has ended.
+   *
+   * @param until Profiles whose period ends at or before this time are flushed.
+   */
+  protected void flushActive(long until) {
+    flushedUntil = until;
+
+    List<ProfileMeasurement> measurements;
+    synchronized(messageDistributor) {
+      measurements = messageDistributor.flush(until);
+      emitMeasurements(measurements);
+    }
+
+    if(droppedSinceFlush > 0) {
+      LOG.warn("Dropped {} message(s) that arrived after their period was flushed; allowedLateness={} ms",
+              droppedSinceFlush, allowedLatenessMillis);
+      droppedSinceFlush = 0;
+    }
+
+    LOG.debug("Flushed active profiles until {} and found {} measurement(s).", until, measurements.size());
+  }
+
+  /**
+   * Flushes all expired profiles.
+   *
+   * <p>If a profile has not received a message for an extended period of time then it is
+   * marked as expired.  Periodically we need to flush these expired profiles to ensure
+   * that their state is not lost.
+   */
+  protected void flushExpired() {
+    List<ProfileMeasurement> measurements = null;
+    try {
+      // flush the expired profiles
+      synchronized (messageDistributor) {
+        measurements = messageDistributor.flushExpired();
+        emitMeasurements(measurements);
+      }
+
+    } catch(Throwable t) {
+      // need to catch the exception, otherwise subsequent executions would be suppressed.
+      // see java.util.concurrent.ScheduledExecutorService#scheduleAtFixedRate
+      LOG.error("Failed to flush expired profiles", t);
+    }
+
+    LOG.debug("Flushed expired profiles and found {} measurement(s).", CollectionUtils.size(measurements));
+  }
+
+  /**
+   * Handles the processing of a single tuple.
+   *
+   * @param input The tuple containing a telemetry message.
+   * @return The watermark.
+   */
+  private long handleMessage(Tuple input) {
+
+    // crack open the tuple
+    JSONObject message = getField(MESSAGE_TUPLE_FIELD, input, JSONObject.class);
+    ProfileConfig definition = getField(PROFILE_TUPLE_FIELD, input, ProfileConfig.class);
+    String entity = getField(ENTITY_TUPLE_FIELD, input, String.class);
+    Long timestamp = getField(TIMESTAMP_TUPLE_FIELD, input, Long.class);
+
+    // keep track of time
+    long current = watermark.update(input.getSourceTask(), timestamp);
+
+    if(timestamp < flushedUntil) {
+      // the message's period has already been flushed
+      droppedSinceFlush++;
+      LOG.debug("Message dropped after its period was flushed: profile={}, entity={}, timestamp={}, watermark={}",
+              definition.getProfile(), entity, timestamp, current);
+      return current;
+    }
+
+    // distribute the message
+    MessageRoute route = new MessageRoute(definition, entity, message, timestamp);
+    synchronized (messageDistributor) {
+      messageDistributor.distribute(route, getStellarContext());
+    }
+
+    LOG.debug("Message distributed: profile={}, entity={}, timestamp={}, watermark={}",
+            definition.getProfile(), entity, timestamp, current);
+    return current;
+  }
+
+  /**
+   * Handles the {@code ProfileMeasurement}s that are created when a profile is flushed.
+   *
+   * @param measurements The measurements to handle.
+   */
+  private void emitMeasurements(List<ProfileMeasurement> measurements) {
+    for(ProfileMeasurement measurement: measurements) {
+      for (ProfileMeasurementEmitter emitter : emitters) {
+        emitter.emit(measurement, collector);
+
+        LOG.debug("Measurement emitted; stream={}, profile={}, entity={}, value={}, period={}",
+                emitter.getStreamId(),
+                measurement.getProfileName(),
+                measurement.getEntity(),
+                measurement.getProfileValue(),
+                measurement.getPeriod().getPeriod());
+      }
+    }
+
+    LOG.debug("Emitted {} measurement(s).", measurements.size());
+  }
+
+  /**
+   * Retrieves an expected field from a Tuple.  If the field is missing an exception is thrown to
+   * indicate a fatal error.
+   * @param fieldName The name of the field.
+   * @param tuple The tuple from which to retrieve the field.
+   * @param clazz The type of the field value.
+   * @param <T> The type of the field value.
+   */
+  private <T> T getField(String fieldName, Tuple tuple, Class<T> clazz) {
+
+    T value = ConversionUtils.convert(tuple.getValueByField(fieldName), clazz);
+    if(value == null) {
+      throw new IllegalStateException(format("Invalid tuple: missing or invalid field '%s'", fieldName));
+    }
+
+    return value;
+  }
+
+  /**
+   * Creates a separate thread that regularly flushes expired profiles.
+   */
+  private void startFlushingExpiredProfiles() {
+
+    long initialDelay = profileTimeToLiveMillis;
+    long period = profileTimeToLiveMillis;
+    flushExpiredExecutor = Executors.newSingleThreadScheduledExecutor();
+    flushExpiredExecutor.scheduleAtFixedRate(() -> flushExpired(), initialDelay, period, TimeUnit.MILLISECONDS);
+  }
+
+  public long getPeriodDurationMillis() {
+    return periodDurationMillis;
+  }
+
+  public WatermarkProfileBuilderBolt withPeriodDurationMillis(long periodDurationMillis) {
+    this.periodDurationMillis = periodDurationMillis;
+    return this;
+  }
+
+  public WatermarkProfileBuilderBolt withPeriodDuration(int duration, TimeUnit units) {
+    return withPeriodDurationMillis(units.toMillis(duration));
+  }
+
+  public WatermarkProfileBuilderBolt withProfileTimeToLiveMillis(long timeToLiveMillis) {
+    this.profileTimeToLiveMillis = timeToLiveMillis;
+    return this;
+  }
+
+  public WatermarkProfileBuilderBolt withProfileTimeToLive(int duration, TimeUnit units) {
+    return withProfileTimeToLiveMillis(units.toMillis(duration));
+  }
+
+  public long getAllowedLatenessMillis() {
+    return allowedLatenessMillis;
+  }
+
+  public WatermarkProfileBuilderBolt withAllowedLatenessMillis(long allowedLatenessMillis) {
+    this.allowedLatenessMillis = allowedLatenessMillis;
+    return this;
+  }
+
+  public WatermarkProfileBuilderBolt withAllowedLateness(int duration, TimeUnit units) {
+    return withAllowedLatenessMillis(units.toMillis(duration));
+  }
+
+  public WatermarkProfileBuilderBolt withEmitter(ProfileMeasurementEmitter emitter) {
+    this.emitters.add(emitter);
+    return this;
+  }
+
+  public WatermarkProfileBuilderBolt withMaxNumberOfRoutes(long maxNumberOfRoutes) {
+    this.maxNumberOfRoutes = maxNumberOfRoutes;
+    return this;
+  }
+
+  public MessageDistributor getMessageDistributor() {
+    return messageDistributor;
+  }
+
+  public WatermarkProfileBuilderBolt withMessageDistributor(MessageDistributor messageDistributor) {
+    this.messageDistributor = messageDistributor;
+    return this;
+  }
+}
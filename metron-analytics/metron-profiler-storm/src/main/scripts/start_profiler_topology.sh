@@ -17,7 +17,9 @@
 # limitations under the License.
 #
 METRON_VERSION=${project.version}
-METRON_HOME=/usr/metron/$METRON_VERSION
+export METRON_HOME=/usr/metron/$METRON_VERSION
 TOPOLOGY_JAR=${project.artifactId}-$METRON_VERSION-uber.jar
 STELLAR_JAR=stellar-common-$METRON_VERSION-uber.jar
-storm jar $METRON_HOME/lib/$TOPOLOGY_JAR org.apache.storm.flux.Flux --remote $METRON_HOME/flux/profiler/remote.yaml --filter $METRON_HOME/config/profiler.properties --jars "$METRON_HOME/lib/$STELLAR_JAR"
+# set PROFILER_FLUX=watermark.yaml to build profiles without windowing
+PROFILER_FLUX=${PROFILER_FLUX:-remote.yaml}
+storm jar $METRON_HOME/lib/$TOPOLOGY_JAR org.apache.storm.flux.Flux --remote $METRON_HOME/flux/profiler/$PROFILER_FLUX --filter $METRON_HOME/config/profiler.properties --env-filter --jars "$METRON_HOME/lib/$STELLAR_JAR"
@@ -20,6 +20,8 @@
 
 package org.apache.metron.hbase.bolt;
 
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.metron.hbase.TableProvider;
 import org.apache.metron.hbase.bolt.mapper.Widget;
 import org.apache.metron.hbase.bolt.mapper.WidgetMapper;
@@ -31,6 +33,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.IOException;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -89,7 +92,7 @@ public class HBaseBoltTest extends BaseBoltTest {
 
     // batch size is 2, received 2 tuples - flush the batch
     verify(client, times(2)).addMutation(any(), any(), any());
-    verify(client, times(1)).mutate();
+    verify(client, times(1)).mutateAll();
   }
 
   /**
@@ -102,7 +105,7 @@ public class HBaseBoltTest extends BaseBoltTest {
 
     // 1 put was added to the batch, but nothing was flushed
     verify(client, times(1)).addMutation(any(), any(), any());
-    verify(client, times(0)).mutate();
+    verify(client, times(0)).mutateAll();
   }
 
   /**
@@ -115,11 +118,11 @@ public class HBaseBoltTest extends BaseBoltTest {
     // the batch is not ready to write
     bolt.execute(tuple1);
     verify(client, times(1)).addMutation(any(), any(), any());
-    verify(client, times(0)).mutate();
+    verify(client, times(0)).mutateAll();
 
     // the batch should be flushed after the tick tuple
     bolt.execute(mockTickTuple());
-    verify(client, times(1)).mutate();
+    verify(client, times(1)).mutateAll();
   }
 
   /**
@@ -146,6 +149,29 @@ public class HBaseBoltTest extends BaseBoltTest {
     assertEquals(expectedTTL, ttlCaptor.getValue());
   }
 
+  /**
+   * If some of the mutations fail, only the tuples from which they were created should be failed.
+   */
+  @Test
+  public void testPartialFailure() {
+    Mutation mutation1 = new Put(widget1.getName().getBytes());
+    Mutation mutation2 = new Put(widget2.getName().getBytes());
+    when(client.addMutation(any(), any(), any())).thenReturn(
+            Collections.singletonList(mutation1), Collections.singletonList(mutation2));
+    IOException cause = new IOException("region unavailable");
+    when(client.mutateAll()).thenReturn(Collections.singletonMap(mutation2, cause));
+
+    HBaseBolt bolt = createBolt(2, new WidgetMapper());
+    bolt.execute(tuple1);
+    bolt.execute(tuple2);
+
+    // only the second tuple failed
+    verify(outputCollector, times(1)).ack(tuple1);
+    verify(outputCollector, times(1)).fail(tuple2);
+    verify(outputCollector, never()).fail(tuple1);
+    verify(outputCollector, times(1)).reportError(cause);
+  }
+
   private static Tuple mockTuple(String componentId, String streamId) {
     Tuple tuple = mock(Tuple.class);
     when(tuple.getSourceComponent()).thenReturn(componentId);
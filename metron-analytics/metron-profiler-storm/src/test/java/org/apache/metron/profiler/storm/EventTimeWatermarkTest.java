@@ -0,0 +1,87 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.apache.metron.profiler.storm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@code EventTimeWatermark} class.
+ */
+public class EventTimeWatermarkTest {
+
+  private AtomicLong systemTime = new AtomicLong(0);
+
+  @Test
+  public void testWatermarkLagsLatestTimestamp() {
+    EventTimeWatermark watermark = new EventTimeWatermark(1000, 60000, systemTime::get);
+
+    // no timestamps yet
+    assertEquals(Long.MIN_VALUE, watermark.get());
+
+    // watermark = latest - lateness = 5000 - 1000
+    assertEquals(4000, watermark.update(1, 5000));
+
+    // an out-of-order timestamp does not move the watermark
+    assertEquals(4000, watermark.update(1, 4500));
+    assertEquals(9000, watermark.update(1, 10000));
+  }
+
+  @Test
+  public void testWatermarkWaitsForSlowestPartition() {
+    EventTimeWatermark watermark = new EventTimeWatermark(0, 60000, systemTime::get);
+
+    assertEquals(10000, watermark.update(1, 10000));
+
+    // the watermark never moves backwards, even when a new partition is behind
+    assertEquals(10000, watermark.update(2, 5000));
+
+    // partition 2 is now the slowest
+    assertEquals(10000, watermark.update(1, 30000));
+    assertEquals(20000, watermark.update(2, 20000));
+    assertEquals(30000, watermark.update(2, 40000));
+  }
+
+  @Test
+  public void testIdlePartitionsAreIgnored() {
+    EventTimeWatermark watermark = new EventTimeWatermark(0, 60000, systemTime::get);
+    watermark.update(1, 10000);
+    watermark.update(2, 10000);
+
+    // partition 2 holds back the watermark until it becomes idle
+    systemTime.set(59999);
+    assertEquals(10000, watermark.update(1, 50000));
+    systemTime.set(60000);
+    assertEquals(50000, watermark.get());
+
+    // once partition 2 is active again, it holds back the watermark
+    assertEquals(50000, watermark.update(2, 55000));
+    assertEquals(55000, watermark.update(1, 90000));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new EventTimeWatermark(-1, 1000));
+    assertThrows(IllegalArgumentException.class, () -> new EventTimeWatermark(1000, 0));
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package org.apache.metron.profiler.storm;
+
+import org.apache.metron.common.configuration.profiler.ProfileConfig;
+import org.apache.metron.profiler.MessageDistributor;
+import org.apache.metron.profiler.ProfileMeasurement;
+import org.apache.metron.profiler.storm.integration.MessageBuilder;
+import org.apache.metron.test.bolt.BaseBoltTest;
+import org.apache.storm.tuple.Tuple;
+import org.apache.storm.tuple.Values;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the WatermarkProfileBuilderBolt.
+ */
+public class WatermarkProfileBuilderBoltTest extends BaseBoltTest {
+
+  private JSONObject message;
+  private ProfileConfig profile;
+  private ProfileMeasurementEmitter emitter;
+  private WatermarkProfileBuilderBolt bolt;
+
+  @BeforeEach
+  public void setup() {
+
+    message = new MessageBuilder()
+            .withField("ip_src_addr", "10.0.0.1")
+            .withField("value", "22")
+            .build();
+
+    profile = new ProfileConfig()
+            .withProfile("profile1")
+            .withForeach("ip_src_addr")
+            .withInit("x", "0")
+            .withUpdate("x", "x + 1")
+            .withResult("x");
+
+    emitter = new HBaseEmitter();
+    bolt = new WatermarkProfileBuilderBolt("zookeeperURL")
+            .withPeriodDuration(1, TimeUnit.MINUTES)
+            .withProfileTimeToLive(30, TimeUnit.MINUTES)
+            .withAllowedLateness(10, TimeUnit.SECONDS)
+            .withMaxNumberOfRoutes(Long.MAX_VALUE)
+            .withEmitter(emitter);
+    bolt.setCuratorFramework(client);
+    bolt.setZKCache(cache);
+    bolt.getConfigurations().updateGlobalConfig(Collections.emptyMap());
+    bolt.prepare(new HashMap<>(), topologyContext, outputCollector);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    bolt.cleanup();
+  }
+
+  /**
+   * A period should be flushed once the watermark passes its end, and not before.
+   */
+  @Test
+  public void testFlushWhenWatermarkPassesPeriod() {
+
+    // the watermark is 55 seconds; the first period has not ended
+    bolt.execute(createTuple(1, 10000L));
+    bolt.execute(createTuple(1, 65000L));
+    getProfileMeasurements(0);
+
+    // an out-of-order message within the allowed lateness is applied to the first period
+    bolt.execute(createTuple(1, 59000L));
+    getProfileMeasurements(0);
+
+    // the watermark is 61 seconds; the first period has ended
+    bolt.execute(createTuple(1, 71000L));
+    List<ProfileMeasurement> measurements = getProfileMeasurements(1);
+    assertEquals(0, measurements.get(0).getPeriod().getPeriod());
+    assertEquals(2, measurements.get(0).getProfileValue());
+
+    // every tuple is acked as soon as it is applied
+    verify(outputCollector, times(4)).ack(any());
+  }
+
+  /**
+   * The watermark should not pass the latest timestamp of the slowest upstream task.
+   */
+  @Test
+  public void testWatermarkWaitsForSlowestTask() {
+
+    bolt.execute(createTuple(1, 10000L));
+    bolt.execute(createTuple(2, 30000L));
+    bolt.execute(createTuple(1, 120000L));
+    getProfileMeasurements(0);
+
+    // the watermark is 65 seconds, once the slower task catches up
+    bolt.execute(createTuple(2, 75000L));
+    List<ProfileMeasurement> measurements = getProfileMeasurements(1);
+    assertEquals(0, measurements.get(0).getPeriod().getPeriod());
+    assertEquals(2, measurements.get(0).getProfileValue());
+  }
+
+  /**
+   * A message that arrives after its period has been flushed should be dropped, rather than
+   * producing a second measurement for that period.
+   */
+  @Test
+  public void testDropMessagesAfterPeriodFlushed() {
+
+    bolt.execute(createTuple(1, 10000L));
+    bolt.execute(createTuple(1, 71000L));
+    getProfileMeasurements(1);
+
+    // the first period has already been flushed
+    bolt.execute(createTuple(1, 30000L));
+
+    // flush the second period
+    bolt.execute(createTuple(1, 131000L));
+    List<ProfileMeasurement> measurements = getProfileMeasurements(2);
+    assertEquals(1, measurements.get(1).getPeriod().getPeriod());
+    assertEquals(1, measurements.get(1).getProfileValue());
+
+    // the dropped message is still acked
+    verify(outputCollector, times(4)).ack(any());
+  }
+
+  /**
+   * Errors should be reported, and the tuple acked.
+   */
+  @Test
+  public void testReportErrors() {
+    MessageDistributor distributor = mock(MessageDistributor.class);
+    doThrow(new IllegalStateException("error")).when(distributor).distribute(any(), any());
+    bolt.withMessageDistributor(distributor);
+
+    Tuple tuple = createTuple(1, 10000L);
+    bolt.execute(tuple);
+
+    verify(outputCollector).reportError(any(IllegalStateException.class));
+    verify(outputCollector).ack(tuple);
+  }
+
+  /**
+   * Retrieves the ProfileMeasurement(s) (if any) that have been emitted.
+   *
+   * @param expected The number of measurements expected.
+   * @return A list of ProfileMeasurement(s).
+   */
+  private List<ProfileMeasurement> getProfileMeasurements(int expected) {
+    ArgumentCaptor<Values> argCaptor = ArgumentCaptor.forClass(Values.class);
+    verify(outputCollector, times(expected))
+            .emit(eq(emitter.getStreamId()), argCaptor.capture());
+
+    return argCaptor.getAllValues()
+            .stream()
+            .map(val -> (ProfileMeasurement) val.get(0))
+            .collect(Collectors.toList());
+  }
+
+  /**
+   * Create a tuple received from an upstream task.
+   * @param sourceTask The upstream task.
+   * @param timestamp The timestamp of the message.
+   */
+  private Tuple createTuple(int sourceTask, long timestamp) {
+
+    Tuple tuple = mock(Tuple.class);
+    when(tuple.getSourceTask()).thenReturn(sourceTask);
+    when(tuple.getValueByField(eq(ProfileSplitterBolt.MESSAGE_TUPLE_FIELD))).thenReturn(message);
+    when(tuple.getValueByField(eq(ProfileSplitterBolt.TIMESTAMP_TUPLE_FIELD))).thenReturn(timestamp);
+    when(tuple.getValueByField(eq(ProfileSplitterBolt.ENTITY_TUPLE_FIELD))).thenReturn("10.0.0.1");
+    when(tuple.getValueByField(eq(ProfileSplitterBolt.PROFILE_TUPLE_FIELD))).thenReturn(profile);
+
+    return tuple;
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.statistics;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * An {@link OnlineStatisticsProvider} which holds values back from its digest in a buffer, adding
+ * them in sorted batches once the buffer fills or the digest is read.  Runs of equal values in a
+ * batch are added to the digest only once, which makes adding values cheaper when they repeat,
+ * as counts, sizes and ports often do.
+ *
+ * <p>All other statistics are updated as each value is added.
+ */
+public class BufferedStatisticsProvider extends OnlineStatisticsProvider {
+
+  /**
+   * The default number of values held back from the digest.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  private double[] buffer;
+  private int buffered = 0;
+
+  public BufferedStatisticsProvider() {
+    this(DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param bufferSize The number of values held back from the digest.
+   */
+  public BufferedStatisticsProvider(int bufferSize) {
+    if(bufferSize <= 0) {
+      throw new IllegalArgumentException("The buffer size must be positive, but was " + bufferSize);
+    }
+    buffer = new double[bufferSize];
+  }
+
+  /**
+   * @return The number of values held back from the digest.
+   */
+  public int getBufferSize() {
+    return buffer.length;
+  }
+
+  /**
+   * Add a value.
+   * NOTE: This is NOT threadsafe.
+   * @param value
+   */
+  @Override
+  public void addValue(double value) {
+    addMoments(value);
+    buffer[buffered++] = value;
+    if(buffered == buffer.length) {
+      flush();
+    }
+  }
+
+  @Override
+  void flush() {
+    if(buffered > 0) {
+      addToDigest(buffer, buffered);
+      buffered = 0;
+    }
+  }
+
+  @Override
+  OnlineStatisticsProvider newProvider() {
+    return new BufferedStatisticsProvider(buffer.length);
+  }
+
+  @Override
+  public void write(Kryo kryo, Output output) {
+    super.write(kryo, output);
+    output.writeInt(buffer.length);
+  }
+
+  @Override
+  public void read(Kryo kryo, Input input) {
+    super.read(kryo, input);
+    buffer = new double[input.readInt()];
+    buffered = 0;
+  }
+}
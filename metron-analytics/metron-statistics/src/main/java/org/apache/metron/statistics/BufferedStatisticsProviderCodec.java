@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.statistics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.apache.metron.common.utils.serde.ValueCodec;
+import org.apache.metron.common.utils.serde.ValueCodecs;
+
+/**
+ * Serializes a {@link BufferedStatisticsProvider} as its buffer size followed by the form written by
+ * {@link OnlineStatisticsProviderCodec}.  Buffered values are added to the digest first.
+ */
+public class BufferedStatisticsProviderCodec implements ValueCodec<BufferedStatisticsProvider> {
+
+  public static final int ID = 65;
+
+  @Override
+  public int getId() {
+    return ID;
+  }
+
+  @Override
+  public Class<BufferedStatisticsProvider> getType() {
+    return BufferedStatisticsProvider.class;
+  }
+
+  @Override
+  public void write(BufferedStatisticsProvider value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+    ValueCodecs.writeVarLong(out, value.getBufferSize());
+    value.writeTo(out);
+  }
+
+  @Override
+  public BufferedStatisticsProvider read(DataInputStream in, ValueCodecs codecs) throws IOException {
+    int bufferSize = (int) ValueCodecs.readVarLong(in);
+    return OnlineStatisticsProvider.readFrom(in, new BufferedStatisticsProvider(bufferSize));
+  }
+}
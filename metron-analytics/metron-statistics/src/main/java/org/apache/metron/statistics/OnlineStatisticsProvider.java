@@ -27,8 +27,13 @@ import com.esotericsoftware.kryo.io.Output;
 import com.tdunning.math.stats.AVLTreeDigest;
 import com.tdunning.math.stats.TDigest;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.metron.common.utils.serde.ValueCodecs;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * A (near) constant memory implementation of a statistics provider.
@@ -82,13 +87,20 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
    */
   @Override
   public void addValue(double value) {
+    addMoments(value);
+    digest.add(value);
+  }
+
+  /**
+   * Updates every term except the digest.
+   */
+  void addMoments(double value) {
     long n1 = n;
     min = min == null?value:Math.min(min, value);
     max = max == null?value:Math.max(max, value);
     sum += value;
     sumOfLogs += Math.log(value);
     sumOfSquares += value*value;
-    digest.add(value);
     n++;
     double delta, delta_n, delta_n2, term1;
     //delta between the value and the mean
@@ -108,6 +120,38 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
 
   }
 
+  /**
+   * Adds a batch of values to the digest, whose other terms must already have been updated.  The
+   * batch is sorted so that runs of equal values are added once, with their count as the weight.
+   * @param values The values, which are reordered.
+   * @param length The number of values to add.
+   */
+  void addToDigest(double[] values, int length) {
+    Arrays.sort(values, 0, length);
+    int i = 0;
+    while(i < length) {
+      int j = i + 1;
+      while(j < length && values[j] == values[i]) {
+        j++;
+      }
+      digest.add(values[i], j - i);
+      i = j;
+    }
+  }
+
+  /**
+   * Adds any values that are held back from the digest.  Called before the digest is read.
+   */
+  void flush() {
+  }
+
+  /**
+   * @return An empty provider of the same kind, to hold the result of a merge.
+   */
+  OnlineStatisticsProvider newProvider() {
+    return new OnlineStatisticsProvider();
+  }
+
   private void checkFlowError(double sumOfSquares, double sum, double... vals) {
     //overflow
     for(double val : vals) {
@@ -222,14 +266,17 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
    */
   @Override
   public double getPercentile(double p) {
+    flush();
     return digest.quantile(p/100.0);
   }
 
   @Override
   public StatisticsProvider merge(StatisticsProvider provider) {
-    OnlineStatisticsProvider combined = new OnlineStatisticsProvider();
+    OnlineStatisticsProvider combined = newProvider();
     OnlineStatisticsProvider a = this;
     OnlineStatisticsProvider b = (OnlineStatisticsProvider)provider;
+    a.flush();
+    b.flush();
 
     //Combining the simple terms that obviously form a semigroup
     combined.n = a.n + b.n;
@@ -278,6 +325,8 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
     if (o == null || getClass() != o.getClass()) return false;
 
     OnlineStatisticsProvider that = (OnlineStatisticsProvider) o;
+    flush();
+    that.flush();
 
     if (n != that.n) return false;
     if (Double.compare(that.sum, sum) != 0) return false;
@@ -297,6 +346,7 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
   public int hashCode() {
     int result;
     long temp;
+    flush();
     result = digest != null ? digest.hashCode() : 0;
     result = 31 * result + (int) (n ^ (n >>> 32));
     temp = Double.doubleToLongBits(sum);
@@ -320,6 +370,7 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
 
   @Override
   public void write(Kryo kryo, Output output) {
+    flush();
     //storing tdigest
     ByteBuffer outBuffer = ByteBuffer.allocate(digest.byteSize());
     digest.asBytes(outBuffer);
@@ -355,4 +406,57 @@ public class OnlineStatisticsProvider implements StatisticsProvider, KryoSeriali
     M3 = input.readDouble();
     M4 = input.readDouble();
   }
+
+  /**
+   * Writes the provider in the compact form used by {@link OnlineStatisticsProviderCodec}.  The
+   * digest is written with its full encoding, as Kryo does; the small encoding stores the centroid
+   * means as floats, which loses precision for large values.
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    flush();
+    ByteBuffer outBuffer = ByteBuffer.allocate(digest.byteSize());
+    digest.asBytes(outBuffer);
+    ValueCodecs.writeBytes(out, outBuffer.array());
+    ValueCodecs.writeVarLong(out, n);
+    out.writeDouble(sum);
+    out.writeDouble(sumOfSquares);
+    out.writeDouble(sumOfLogs);
+    out.writeBoolean(min != null);
+    if (min != null) {
+      out.writeDouble(min);
+      out.writeDouble(max);
+    }
+    out.writeDouble(M1);
+    out.writeDouble(M2);
+    out.writeDouble(M3);
+    out.writeDouble(M4);
+  }
+
+  /**
+   * Reads a provider written by {@link #writeTo(DataOutputStream)}.
+   */
+  static OnlineStatisticsProvider readFrom(DataInputStream in) throws IOException {
+    return readFrom(in, new OnlineStatisticsProvider());
+  }
+
+  /**
+   * Reads a provider written by {@link #writeTo(DataOutputStream)} into an empty provider.
+   */
+  static <T extends OnlineStatisticsProvider> T readFrom(DataInputStream in, T ret) throws IOException {
+    OnlineStatisticsProvider provider = ret;
+    provider.digest = AVLTreeDigest.fromBytes(ByteBuffer.wrap(ValueCodecs.readBytes(in)));
+    provider.n = ValueCodecs.readVarLong(in);
+    provider.sum = in.readDouble();
+    provider.sumOfSquares = in.readDouble();
+    provider.sumOfLogs = in.readDouble();
+    if (in.readBoolean()) {
+      provider.min = in.readDouble();
+      provider.max = in.readDouble();
+    }
+    provider.M1 = in.readDouble();
+    provider.M2 = in.readDouble();
+    provider.M3 = in.readDouble();
+    provider.M4 = in.readDouble();
+    return ret;
+  }
 }
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.statistics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.apache.metron.common.utils.serde.ValueCodec;
+import org.apache.metron.common.utils.serde.ValueCodecs;
+
+/**
+ * Serializes an {@link OnlineStatisticsProvider} without Kryo, dropping the class name that Kryo writes.
+ */
+public class OnlineStatisticsProviderCodec implements ValueCodec<OnlineStatisticsProvider> {
+
+  public static final int ID = 64;
+
+  @Override
+  public int getId() {
+    return ID;
+  }
+
+  @Override
+  public Class<OnlineStatisticsProvider> getType() {
+    return OnlineStatisticsProvider.class;
+  }
+
+  @Override
+  public void write(OnlineStatisticsProvider value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+    value.writeTo(out);
+  }
+
+  @Override
+  public OnlineStatisticsProvider read(DataInputStream in, ValueCodecs codecs) throws IOException {
+    return OnlineStatisticsProvider.readFrom(in);
+  }
+}
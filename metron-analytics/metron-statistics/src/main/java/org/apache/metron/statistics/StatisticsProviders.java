@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.statistics;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges many statistics providers at once.
+ *
+ * <p>Large lists are split in halves on a fork-join pool until each part is small enough to merge
+ * in order, and the parts are then merged pairwise.  Merging is associative, so the result is the
+ * same as merging the providers one after another, up to rounding.
+ */
+public final class StatisticsProviders {
+
+  /**
+   * Lists of at most this many providers are merged in order on the calling thread.
+   */
+  static final int SEQUENTIAL_THRESHOLD = 16;
+
+  private StatisticsProviders() {
+  }
+
+  /**
+   * Merges providers, on the common fork-join pool if there are many of them.
+   *
+   * @param providers The providers to merge.  Buffered values are added to their digests.
+   * @return The merged provider, or null if there are no providers.
+   */
+  public static StatisticsProvider merge(List<? extends StatisticsProvider> providers) {
+    return merge(providers, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Merges providers, on the given fork-join pool if there are many of them.
+   *
+   * @param providers The providers to merge.  Buffered values are added to their digests.
+   * @param pool The pool to merge on.
+   * @return The merged provider, or null if there are no providers.
+   */
+  public static StatisticsProvider merge(List<? extends StatisticsProvider> providers, ForkJoinPool pool) {
+    if(providers.size() <= SEQUENTIAL_THRESHOLD) {
+      return mergeInOrder(providers, 0, providers.size());
+    }
+    return pool.invoke(new MergeTask(providers, 0, providers.size()));
+  }
+
+  private static StatisticsProvider mergeInOrder(List<? extends StatisticsProvider> providers, int from, int to) {
+    StatisticsProvider ret = null;
+    for(int i = from;i < to;++i) {
+      ret = ret == null ? providers.get(i) : ret.merge(providers.get(i));
+    }
+    return ret;
+  }
+
+  private static class MergeTask extends RecursiveTask<StatisticsProvider> {
+    private final List<? extends StatisticsProvider> providers;
+    private final int from;
+    private final int to;
+
+    private MergeTask(List<? extends StatisticsProvider> providers, int from, int to) {
+      this.providers = providers;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected StatisticsProvider compute() {
+      if(to - from <= SEQUENTIAL_THRESHOLD) {
+        return mergeInOrder(providers, from, to);
+      }
+      int mid = (from + to) >>> 1;
+      MergeTask left = new MergeTask(providers, from, mid);
+      left.fork();
+      StatisticsProvider right = new MergeTask(providers, mid, to).compute();
+      return left.join().merge(right);
+    }
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.metron.stellar.dsl.BaseStellarFunction;
 import org.apache.metron.stellar.dsl.Stellar;
 import org.apache.metron.stellar.common.utils.ConversionUtils;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -49,12 +50,19 @@ public class StellarStatisticsFunctions {
     if(windowSize > 0) {
       return new WindowedStatisticsProvider(windowSize);
     }
+    int bufferSize = 0;
+    if(args.size() > 1 && args.get(1) instanceof Number) {
+      bufferSize = convert(args.get(1), Integer.class);
+    }
+    if(bufferSize > 0) {
+      return new BufferedStatisticsProvider(bufferSize);
+    }
     return new OnlineStatisticsProvider();
   }
 
   @Stellar( namespace="STATS"
           , name="MERGE"
-          , description = "Merges statistics objects."
+          , description = "Merges statistics objects.  Long lists are merged in parallel."
           , params = {
                       "statistics - A list of statistics objects"
                       }
@@ -66,18 +74,13 @@ public class StellarStatisticsFunctions {
       if(args.size() > 0) {
         Object firstArg = args.get(0);
         if(firstArg instanceof List) {
-          StatisticsProvider ret = null;
+          List<StatisticsProvider> providers = new ArrayList<>();
           for(Object sp : (List)firstArg) {
             if(sp instanceof StatisticsProvider) {
-              if(ret == null) {
-                ret = (StatisticsProvider)sp;
-              }
-              else {
-                ret = ret.merge((StatisticsProvider)sp);
-              }
+              providers.add((StatisticsProvider)sp);
             }
           }
-          return ret;
+          return StatisticsProviders.merge(providers);
         }
         else {
           return null;
@@ -90,12 +93,14 @@ public class StellarStatisticsFunctions {
   /**
    * Initialize the summary statistics.
    *
-   *  STATS_INIT (window_size)
+   *  STATS_INIT (window_size [, buffer_size])
    *
    * window_size The number of input data values to maintain in a rolling window
    *             in memory.  If equal to 0, then no rolling window is maintained.
    *             Using no rolling window is less memory intensive, but cannot
    *             calculate certain statistics like percentiles and kurtosis.
+   * buffer_size The number of values to buffer before adding them to the
+   *             distributional sketch, when no rolling window is maintained.
    */
   @Stellar( namespace="STATS"
           , name="INIT"
@@ -104,7 +109,10 @@ public class StellarStatisticsFunctions {
                       "window_size - The number of input data values to maintain in a rolling window " +
                       "in memory.  If window_size is equal to 0, then no rolling window is maintained. " +
                       "Using no rolling window is less memory intensive, but cannot " +
-                      "calculate certain statistics like percentiles and kurtosis."
+                      "calculate certain statistics like percentiles and kurtosis.",
+                      "buffer_size? - The number of values to buffer before adding them, sorted, to the " +
+                      "distributional sketch used for percentiles.  Only used when window_size is 0.  Buffering " +
+                      "is faster when values often repeat.  If omitted or 0, then values are not buffered."
                       }
           , returns = "A Stellar statistics object"
           )
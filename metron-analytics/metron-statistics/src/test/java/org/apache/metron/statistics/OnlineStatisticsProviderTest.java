@@ -23,13 +23,19 @@ import org.apache.commons.math3.random.GaussianRandomGenerator;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.apache.metron.common.utils.SerDeUtils;
+import org.apache.metron.common.utils.serde.ValueCodecs;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class OnlineStatisticsProviderTest {
 
@@ -163,6 +169,110 @@ public class OnlineStatisticsProviderTest {
     }
     validateEquality(values);
   }
+  @Test
+  public void testSerialization() {
+    DescriptiveStatistics stats = new DescriptiveStatistics();
+    SummaryStatistics summaryStats = new SummaryStatistics();
+    OnlineStatisticsProvider statsProvider = new OnlineStatisticsProvider();
+    GaussianRandomGenerator gaussian = new GaussianRandomGenerator(new MersenneTwister(0L));
+    for(int i = 0;i < 10000;++i) {
+      double d = 10 + gaussian.nextNormalizedDouble();
+      stats.addValue(d);
+      summaryStats.addValue(d);
+      statsProvider.addValue(d);
+    }
+    byte[] raw = SerDeUtils.toBytes(statsProvider);
+    assertTrue(ValueCodecs.isEncoded(raw));
+    validateStatisticsProvider(SerDeUtils.fromBytes(raw, OnlineStatisticsProvider.class), summaryStats, stats);
+
+    OnlineStatisticsProvider empty = SerDeUtils.fromBytes(SerDeUtils.toBytes(new OnlineStatisticsProvider()), OnlineStatisticsProvider.class);
+    assertEquals(0, empty.getCount());
+    assertTrue(Double.isNaN(empty.getMin()));
+    empty.addValue(1.0);
+    assertEquals(1.0, empty.getMax(), 1e-9);
+  }
+
+  @Test
+  public void testSerializationPreservesPercentilesOfLargeValues() {
+    // values like epoch milliseconds, which a float cannot hold exactly
+    OnlineStatisticsProvider statsProvider = new OnlineStatisticsProvider();
+    GaussianRandomGenerator gaussian = new GaussianRandomGenerator(new MersenneTwister(0L));
+    for(int i = 0;i < 10000;++i) {
+      statsProvider.addValue(1e12 + 1000 * gaussian.nextNormalizedDouble());
+    }
+    byte[] raw = SerDeUtils.toBytes(statsProvider);
+    assertTrue(ValueCodecs.isEncoded(raw));
+    OnlineStatisticsProvider actual = SerDeUtils.fromBytes(raw, OnlineStatisticsProvider.class);
+    for(double p : new double[] { 1, 10, 25, 50, 75, 90, 99 }) {
+      assertEquals(statsProvider.getPercentile(p), actual.getPercentile(p), 0.0, "percentile " + p);
+    }
+  }
+
+  @Test
+  public void testBufferedProvider() {
+    DescriptiveStatistics stats = new DescriptiveStatistics();
+    SummaryStatistics summaryStats = new SummaryStatistics();
+    BufferedStatisticsProvider statsProvider = new BufferedStatisticsProvider(1000);
+    List<StatisticsProvider> providers = new ArrayList<>();
+    for(int i = 0;i < 4 * StatisticsProviders.SEQUENTIAL_THRESHOLD;++i) {
+      providers.add(new BufferedStatisticsProvider(100));
+    }
+    GaussianRandomGenerator gaussian = new GaussianRandomGenerator(new MersenneTwister(0L));
+    for(int i = 0;i < 100000;++i) {
+      // round the values so that many of them repeat
+      double d = Math.round(1000 * (10 + gaussian.nextNormalizedDouble())) / 1000.0;
+      stats.addValue(d);
+      summaryStats.addValue(d);
+      statsProvider.addValue(d);
+      providers.get(i % providers.size()).addValue(d);
+    }
+    validateStatisticsProvider(statsProvider, summaryStats, stats);
+
+    StatisticsProvider aggregatedProvider = StatisticsProviders.merge(providers);
+    assertTrue(aggregatedProvider instanceof BufferedStatisticsProvider);
+    validateStatisticsProvider(aggregatedProvider, summaryStats, stats);
+  }
+
+  @Test
+  public void testBufferedSerialization() {
+    DescriptiveStatistics stats = new DescriptiveStatistics();
+    SummaryStatistics summaryStats = new SummaryStatistics();
+    BufferedStatisticsProvider statsProvider = new BufferedStatisticsProvider(64);
+    GaussianRandomGenerator gaussian = new GaussianRandomGenerator(new MersenneTwister(0L));
+    // leave some values in the buffer
+    for(int i = 0;i < 10000 + 17;++i) {
+      double d = 10 + gaussian.nextNormalizedDouble();
+      stats.addValue(d);
+      summaryStats.addValue(d);
+      statsProvider.addValue(d);
+    }
+    byte[] raw = SerDeUtils.toBytes(statsProvider);
+    assertTrue(ValueCodecs.isEncoded(raw));
+    BufferedStatisticsProvider deserialized = SerDeUtils.fromBytes(raw, BufferedStatisticsProvider.class);
+    assertEquals(64, deserialized.getBufferSize());
+    validateStatisticsProvider(deserialized, summaryStats, stats);
+  }
+
+  @Test
+  public void testMergeMany() {
+    assertNull(StatisticsProviders.merge(new ArrayList<>()));
+    OnlineStatisticsProvider single = new OnlineStatisticsProvider();
+    assertSame(single, StatisticsProviders.merge(Collections.singletonList(single)));
+
+    List<OnlineStatisticsProvider> providers = new ArrayList<>();
+    for(int i = 0;i < 1000;++i) {
+      OnlineStatisticsProvider provider = new OnlineStatisticsProvider();
+      provider.addValue(i + 1);
+      providers.add(provider);
+    }
+    StatisticsProvider merged = StatisticsProviders.merge(providers);
+    assertEquals(1000, merged.getCount());
+    assertEquals(500500, merged.getSum(), 1e-6);
+    assertEquals(1, merged.getMin(), 1e-9);
+    assertEquals(1000, merged.getMax(), 1e-9);
+    assertEquals(500, merged.getPercentile(50), 1);
+  }
+
   @Test
   public void testUniformlyDistributedRandomData() {
     List<Double> values = new ArrayList<>();
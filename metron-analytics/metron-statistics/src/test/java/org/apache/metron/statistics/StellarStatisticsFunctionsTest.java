@@ -452,6 +452,19 @@ public class StellarStatisticsFunctionsTest {
     assertEquals(stats.getPercentile(percentile), (Double) actual, 1);
   }
 
+  @Test
+  public void testPercentileBuffered() {
+    Object result = run("STATS_ADD(STATS_INIT(0, 4), " + Joiner.on(",").join(values) + ")", variables);
+    assertTrue(result instanceof BufferedStatisticsProvider);
+    assertEquals(4, ((BufferedStatisticsProvider) result).getBufferSize());
+    variables.put("stats", result);
+
+    final double percentile = 0.9;
+    Object actual = run(format("STATS_PERCENTILE(stats, %f)", percentile), variables);
+    assertEquals(stats.getPercentile(percentile), (Double) actual, 1);
+    assertEquals(stats.getMean(), (Double) run("STATS_MEAN(stats)", variables), 1e-6);
+  }
+
   @Test
   public void testPercentileWithWindow() {
     statsInit(100);
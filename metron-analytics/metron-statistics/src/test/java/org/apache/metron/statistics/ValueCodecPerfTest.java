@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.statistics;
+
+import org.apache.commons.math3.random.GaussianRandomGenerator;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.metron.common.utils.SerDeUtils;
+import org.apache.metron.statistics.approximation.HyperLogLogPlus;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the size and decode time of profile values written by the value codecs against Kryo.
+ * By default the test is disabled due to it taking too much time to run during normal unit testing.
+ * Remove the disabled attribute to allow the test to run.
+ */
+public class ValueCodecPerfTest {
+  private static final double NANO_TO_MICROS = 1e3;
+  private static final int REPS = 10000;
+
+  @Test
+  @Disabled
+  public void compareWithKryo() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("long", 1234567L);
+    values.put("double", 12.5);
+    Map<String, Object> map = new HashMap<>();
+    for (int i = 0; i < 10; ++i) {
+      map.put("key" + i, i * 1.5);
+    }
+    values.put("map of 10 doubles", map);
+    values.put("stats of 100 values", stats(100));
+    values.put("stats of 100000 values", stats(100000));
+    HyperLogLogPlus hllp = new HyperLogLogPlus();
+    for (int i = 0; i < 10000; ++i) {
+      hllp.add("item-" + i);
+    }
+    values.put("hllp of 10000 items", hllp);
+
+    System.out.println(String.format("%-24s %12s %12s %14s %14s", "value", "kryo bytes", "codec bytes", "kryo us/read", "codec us/read"));
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      // stellar-common serializes with the same Kryo configuration, but without the codecs
+      byte[] kryo = org.apache.metron.stellar.common.utils.SerDeUtils.toBytes(entry.getValue());
+      byte[] codec = SerDeUtils.toBytes(entry.getValue());
+      double kryoTime = time(() -> org.apache.metron.stellar.common.utils.SerDeUtils.fromBytes(kryo, Object.class));
+      double codecTime = time(() -> SerDeUtils.fromBytes(codec, Object.class));
+      System.out.println(String.format("%-24s %12d %12d %14.2f %14.2f", entry.getKey(), kryo.length, codec.length, kryoTime, codecTime));
+    }
+  }
+
+  private static OnlineStatisticsProvider stats(int n) {
+    OnlineStatisticsProvider ret = new OnlineStatisticsProvider();
+    GaussianRandomGenerator gaussian = new GaussianRandomGenerator(new MersenneTwister(0L));
+    for (int i = 0; i < n; ++i) {
+      ret.addValue(10 + gaussian.nextNormalizedDouble());
+    }
+    return ret;
+  }
+
+  /**
+   * @return The median time in microseconds to run the operation, after warming up.
+   */
+  private static double time(Runnable operation) {
+    for (int i = 0; i < REPS; ++i) {
+      operation.run();
+    }
+    DescriptiveStatistics stats = new DescriptiveStatistics();
+    for (int i = 0; i < REPS; ++i) {
+      long start = System.nanoTime();
+      operation.run();
+      stats.addValue((System.nanoTime() - start) / NANO_TO_MICROS);
+    }
+    return stats.getPercentile(50);
+  }
+}
@@ -18,6 +18,8 @@
 package org.apache.metron.statistics.approximation;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.metron.common.utils.SerDeUtils;
+import org.apache.metron.common.utils.serde.ValueCodecs;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
@@ -27,6 +29,7 @@ import java.util.List;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class HyperLogLogPlusFunctionsTest {
@@ -41,6 +44,28 @@ public class HyperLogLogPlusFunctionsTest {
     assertThat("instance types should match for full constructor", new HyperLogLogPlusFunctions.HLLPInit().apply(ImmutableList.of(5, 6)), instanceOf(HyperLogLogPlus.class));
   }
 
+  @Test
+  public void hllp_set_survives_serialization() {
+    for (HyperLogLogPlus expected : Arrays.asList(new HyperLogLogPlus(), new HyperLogLogPlus(5, 6), new HyperLogLogPlus(8))) {
+      for (int i = 0; i < 1000; ++i) {
+        expected.add("item-" + i);
+      }
+      // there is no codec for the estimator, so it is written with Kryo
+      byte[] raw = SerDeUtils.toBytes(expected);
+      assertFalse(ValueCodecs.isEncoded(raw));
+      assertRoundTrip(expected, SerDeUtils.fromBytes(raw, HyperLogLogPlus.class));
+    }
+  }
+
+  private static void assertRoundTrip(HyperLogLogPlus expected, HyperLogLogPlus actual) {
+    assertThat(actual.getP(), equalTo(expected.getP()));
+    assertThat(actual.getSp(), equalTo(expected.getSp()));
+    assertThat(actual.cardinality(), equalTo(expected.cardinality()));
+    actual.add("item-1000");
+    expected.add("item-1000");
+    assertThat(actual, equalTo(expected));
+  }
+
   @Test
   public void hllp_init_with_incorrect_args_throws_exception() {
     Exception e = assertThrows(IllegalArgumentException.class, () -> new HyperLogLogPlusFunctions.HLLPInit().apply(ImmutableList.of("turkey")));
@@ -328,6 +328,7 @@ enrichment_host_known_hosts = config['configurations']['metron-enrichment-env'][
 enrichment_kafka_start = config['configurations']['metron-enrichment-env']['enrichment_kafka_start']
 enrichment_input_topic = status_params.enrichment_input_topic
 enrichment_output_topic = config['configurations']['metron-enrichment-env']['enrichment_output_topic']
+enrichment_output_wire_format = config['configurations']['metron-enrichment-env']['enrichment_output_wire_format']
 enrichment_error_topic = config['configurations']['metron-enrichment-env']['enrichment_error_topic']
 threatintel_error_topic = config['configurations']['metron-enrichment-env']['threatintel_error_topic']
 enrichment_kafka_writer_batch_size = config['configurations']['metron-enrichment-env']['enrichment_kafka_writer_batch_size']
@@ -351,6 +352,8 @@ unified_enrichment_cache_size = config['configurations']['metron-enrichment-env'
 unified_threat_intel_cache_size = config['configurations']['metron-enrichment-env']['unified_threat_intel_cache_size']
 unified_enrichment_threadpool_size = config['configurations']['metron-enrichment-env']['unified_enrichment_threadpool_size']
 unified_enrichment_threadpool_type = config['configurations']['metron-enrichment-env']['unified_enrichment_threadpool_type']
+unified_enrichment_max_pending = config['configurations']['metron-enrichment-env']['unified_enrichment_max_pending']
+unified_threat_intel_max_pending = config['configurations']['metron-enrichment-env']['unified_threat_intel_max_pending']
 
 # Profiler
 metron_profiler_topology = 'profiler'
@@ -364,6 +367,8 @@ profiler_ttl = config['configurations']['metron-profiler-env']['profiler_ttl']
 profiler_ttl_units = config['configurations']['metron-profiler-env']['profiler_ttl_units']
 profiler_hbase_batch = config['configurations']['metron-profiler-env']['profiler_hbase_batch']
 profiler_hbase_flush_interval = config['configurations']['metron-profiler-env']['profiler_hbase_flush_interval']
+profiler_hbase_write_buffer_bytes = config['configurations']['metron-profiler-env']['profiler_hbase_write_buffer_bytes']
+profiler_hbase_background_flush_millis = config['configurations']['metron-profiler-env']['profiler_hbase_background_flush_millis']
 profiler_topology_workers = config['configurations']['metron-profiler-env']['profiler_topology_workers']
 profiler_acker_executors = config['configurations']['metron-profiler-env']['profiler_acker_executors']
 profiler_spout_parallelism = config['configurations']['metron-profiler-env']['profiler_spout_parallelism']
@@ -383,6 +388,10 @@ profiler_topology_worker_childopts += config['configurations']['metron-profiler-
 profiler_max_routes_per_bolt=config['configurations']['metron-profiler-env']['profiler_max_routes_per_bolt']
 profiler_window_lag=config['configurations']['metron-profiler-env']['profiler_window_lag']
 profiler_window_lag_units=config['configurations']['metron-profiler-env']['profiler_window_lag_units']
+profiler_allowed_lateness=config['configurations']['metron-profiler-env']['profiler_allowed_lateness']
+profiler_allowed_lateness_units=config['configurations']['metron-profiler-env']['profiler_allowed_lateness_units']
+profiler_builder_mode=config['configurations']['metron-profiler-env']['profiler_builder_mode']
+profiler_flux='watermark.yaml' if profiler_builder_mode == 'WATERMARK' else 'remote.yaml'
 profiler_topology_message_timeout_secs=config['configurations']['metron-profiler-env']['profiler_topology_message_timeout_secs']
 profiler_topology_max_spout_pending=config['configurations']['metron-profiler-env']['profiler_topology_max_spout_pending']
 profiler_kafka_writer_batch_size = config['configurations']['metron-profiler-env']['profiler_kafka_writer_batch_size']
@@ -127,7 +127,12 @@ class ProfilerCommands:
             start_cmd = start_cmd_template.format(self.__params.metron_home,
                                                   self.__profiler_topology,
                                                   self.__params.zookeeper_quorum)
-            Execute(start_cmd, user=self.__params.metron_user, tries=3, try_sleep=5, logoutput=True)
+            Execute(start_cmd,
+                    user=self.__params.metron_user,
+                    environment={'PROFILER_FLUX': self.__params.profiler_flux},
+                    tries=3,
+                    try_sleep=5,
+                    logoutput=True)
         else:
             Logger.info('Profiler topology already running')
 
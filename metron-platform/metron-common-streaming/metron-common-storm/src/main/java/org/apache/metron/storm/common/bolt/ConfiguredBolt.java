@@ -34,6 +34,7 @@ import org.apache.metron.common.configuration.writer.ConfigurationsStrategies;
 import org.apache.metron.zookeeper.SimpleEventListener;
 import org.apache.metron.common.zookeeper.configurations.ConfigurationsUpdater;
 import org.apache.metron.common.zookeeper.configurations.Reloadable;
+import org.apache.metron.storm.common.metrics.LatencyMetric;
 import org.apache.metron.zookeeper.ZKCache;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
@@ -99,6 +100,7 @@ public abstract class ConfiguredBolt<CONFIG_T extends Configurations> extends Ba
   @Override
   public void prepare(Map stormConf, TopologyContext context, OutputCollector collector) {
     prepCache();
+    LatencyMetric.register(context, getConfigurations().getGlobalConfig());
   }
 
   /**
@@ -18,6 +18,7 @@
 package org.apache.metron.storm.common.message;
 
 import org.apache.commons.io.Charsets;
+import org.apache.metron.common.message.WireFormat;
 import org.apache.storm.tuple.Tuple;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -43,7 +44,12 @@ public class JSONFromPosition implements MessageGetStrategy {
   public JSONObject get(Tuple tuple) {
     String s = null;
     try {
-      s =  new String(tuple.getBinary(position), Charsets.UTF_8);
+      byte[] bytes = tuple.getBinary(position);
+      WireFormat format = WireFormat.detect(bytes);
+      if(format != WireFormat.JSON) {
+        return format.read(bytes);
+      }
+      s =  new String(bytes, Charsets.UTF_8);
       return (JSONObject) parser.get().parse(s);
     } catch (Exception e) {
       throw new IllegalStateException("Unable to parse " + s + " due to " + e.getMessage(), e);
@@ -26,11 +26,16 @@ import java.util.function.Function;
  * abstraction returns a value from a tuple.  The implementations include:
  * <ul>
  *   <li>BYTES_FROM_POSITION - gets a byte array from the provided position</li>
- *   <li>JSON_FROM_POSITION - gets a byte array from the provided position then converts to a string and parses the string to JSON</li>
+ *   <li>JSON_FROM_POSITION - gets a byte array from the provided position then parses it to JSON, detecting the
+ *   {@link org.apache.metron.common.message.WireFormat} it was written in</li>
+ *   <li>STREAMING_JSON_FROM_POSITION - as JSON_FROM_POSITION, but parses the byte array with a streaming parser
+ *   instead of through a string</li>
  *   <li>JSON_FROM_FIELD - gets a JSONObject from the provided field</li>
  *   <li>OBJECT_FROM_FIELD - gets an Object from the provided field</li>
  *   <li>DEFAULT_BYTES_FROM_POSITION - gets a byte array from position 0</li>
- *   <li>DEFAULT_JSON_FROM_POSITION - gets a byte array from position 0 then converts to a string and parses the string to JSON</li>
+ *   <li>DEFAULT_JSON_FROM_POSITION - gets a byte array from position 0 then parses it to JSON, detecting the wire format</li>
+ *   <li>DEFAULT_STREAMING_JSON_FROM_POSITION - as DEFAULT_JSON_FROM_POSITION, but parses the byte array with a
+ *   streaming parser instead of through a string</li>
  *   <li>DEFAULT_JSON_FROM_FIELD - gets a JSONObject from the "message" field</li>
  *   <li>DEFAULT_OBJECT_FROM_FIELD - gets an Object from the "message" field</li>
  * </ul>
@@ -40,11 +45,13 @@ public enum MessageGetters {
 
   BYTES_FROM_POSITION((String arg) -> new BytesFromPosition(ConversionUtils.convert(arg, Integer.class))),
   JSON_FROM_POSITION((String arg) -> new JSONFromPosition(ConversionUtils.convert(arg, Integer.class))),
+  STREAMING_JSON_FROM_POSITION((String arg) -> new StreamingJSONFromPosition(ConversionUtils.convert(arg, Integer.class))),
   JSON_FROM_FIELD((String arg) -> new JSONFromField(arg)),
   JSON_FROM_FIELD_BY_REFERENCE((String arg) -> new JSONFromFieldByReference(arg)),
   OBJECT_FROM_FIELD((String arg) -> new ObjectFromField(arg)),
   DEFAULT_BYTES_FROM_POSITION(new BytesFromPosition()),
   DEFAULT_JSON_FROM_POSITION(new JSONFromPosition()),
+  DEFAULT_STREAMING_JSON_FROM_POSITION(new StreamingJSONFromPosition()),
   DEFAULT_JSON_FROM_FIELD(new JSONFromField()),
   DEFAULT_OBJECT_FROM_FIELD(new ObjectFromField());
 
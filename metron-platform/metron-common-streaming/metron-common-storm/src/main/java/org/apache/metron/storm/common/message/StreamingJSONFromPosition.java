@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.storm.common.message;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.metron.common.message.WireFormat;
+import org.apache.storm.tuple.Tuple;
+import org.json.simple.JSONObject;
+
+/**
+ * Gets a byte array from the provided position and decodes it to JSON with a streaming parser,
+ * without first building a string.  A drop-in replacement for {@link JSONFromPosition}, which also
+ * reads each {@link WireFormat}.
+ */
+public class StreamingJSONFromPosition implements MessageGetStrategy {
+
+  private int position = 0;
+
+  public StreamingJSONFromPosition() {}
+
+  public StreamingJSONFromPosition(Integer position) {
+    this.position = position == null?0:position;
+  }
+
+  @Override
+  public JSONObject get(Tuple tuple) {
+    byte[] bytes = tuple.getBinary(position);
+    try {
+      return WireFormat.detect(bytes).read(bytes);
+    } catch (Exception e) {
+      String s = bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+      throw new IllegalStateException("Unable to parse " + s + " due to " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.storm.common.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.metron.common.performance.LatencyHistogram;
+import org.apache.metron.common.performance.LatencyIntervals;
+import org.apache.metron.common.performance.LatencyMetrics;
+import org.apache.storm.metric.api.IMetric;
+import org.apache.storm.task.TopologyContext;
+
+/**
+ * Publishes the latencies recorded in {@link LatencyMetrics} through Storm's metrics system.
+ *
+ * <p>The value is a map from recorder name to a summary of the latencies recorded in the
+ * interval (count, mean, percentiles and max, in nanoseconds).  Since the recorders are shared by
+ * every task in the worker, the metric is registered by the first task in each worker only.
+ */
+public class LatencyMetric implements IMetric {
+
+  public static final String NAME = "latency";
+
+  private static final AtomicBoolean REGISTERED = new AtomicBoolean(false);
+
+  private final LatencyIntervals intervals = new LatencyIntervals();
+
+  /**
+   * Registers the metric, if it has not already been registered in this worker, and starts any
+   * reporter configured in the global config.
+   *
+   * @param context The topology context of the task.
+   * @param globalConfig The global config.
+   */
+  public static void register(TopologyContext context, Map<String, Object> globalConfig) {
+    if (context != null && REGISTERED.compareAndSet(false, true)) {
+      context.registerMetric(NAME, new LatencyMetric(), LatencyMetrics.getPeriod(globalConfig));
+    }
+    LatencyMetrics.INSTANCE.startReporting(globalConfig);
+  }
+
+  @Override
+  public Object getValueAndReset() {
+    Map<String, Map<String, Number>> ret = new LinkedHashMap<>();
+    for (Map.Entry<String, LatencyHistogram> kv : intervals.next(LatencyMetrics.INSTANCE.snapshot()).entrySet()) {
+      ret.put(kv.getKey(), kv.getValue().summarize());
+    }
+    return ret;
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.metron.storm.common.message;
 
+import org.apache.metron.common.message.WireFormat;
 import org.apache.storm.tuple.Tuple;
 import org.json.simple.JSONObject;
 import org.junit.jupiter.api.Test;
@@ -48,6 +49,17 @@ public class MessageGettersTest {
     assertEquals(expected, messageGetStrategy.get(tuple));
   }
 
+  @Test
+  public void jsonFromPositionShouldDetectWireFormat() throws Exception {
+    JSONObject expected = new JSONObject();
+    expected.put("field", "value");
+    Tuple tuple = mock(Tuple.class);
+    when(tuple.getBinary(1)).thenReturn(WireFormat.SMILE.write(expected));
+
+    MessageGetStrategy messageGetStrategy = MessageGetters.JSON_FROM_POSITION.get("1");
+    assertEquals(expected, messageGetStrategy.get(tuple));
+  }
+
   @Test
   public void jsonFromPositionShouldThrowException() {
     Tuple tuple = mock(Tuple.class);
@@ -57,6 +69,28 @@ public class MessageGettersTest {
     assertThrows(IllegalStateException.class, () -> messageGetStrategy.get(tuple));
   }
 
+  @Test
+  public void streamingJsonFromPositionShouldReturnJSON() throws Exception {
+    JSONObject expected = new JSONObject();
+    expected.put("field", "value");
+    expected.put("count", 2L);
+    Tuple tuple = mock(Tuple.class);
+    when(tuple.getBinary(1)).thenReturn("{\"field\":\"value\",\"count\":2}".getBytes(UTF_8));
+    when(tuple.getBinary(0)).thenReturn(WireFormat.SMILE.write(expected));
+
+    assertEquals(expected, MessageGetters.STREAMING_JSON_FROM_POSITION.get("1").get(tuple));
+    assertEquals(expected, MessageGetters.DEFAULT_STREAMING_JSON_FROM_POSITION.get().get(tuple));
+  }
+
+  @Test
+  public void streamingJsonFromPositionShouldThrowException() {
+    Tuple tuple = mock(Tuple.class);
+    when(tuple.getBinary(1)).thenReturn("{\"field\":".getBytes(UTF_8));
+
+    MessageGetStrategy messageGetStrategy = MessageGetters.STREAMING_JSON_FROM_POSITION.get("1");
+    assertThrows(IllegalStateException.class, () -> messageGetStrategy.get(tuple));
+  }
+
   @Test
   public void jsonFromFieldShouldReturnJSON() {
     JSONObject actual = new JSONObject();
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.performance;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A fixed-size, log-linear histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ *
+ * <p>Values below {@code 2 * SUB_BUCKETS} are counted exactly.  Above that, each power of two is
+ * split into {@link #SUB_BUCKETS} equal sub-buckets, so any recorded value is reported to within
+ * 1/{@value #SUB_BUCKETS} of its true value.  Values of {@link #MAX_VALUE} or more are counted
+ * in the highest bucket.
+ *
+ * <p>Instances are not thread safe; see {@link LatencyRecorder} for concurrent recording.
+ */
+public class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 6;
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The largest value that can be distinguished, about 18 minutes.
+   */
+  public static final long MAX_VALUE = (1L << 40) - 1;
+
+  static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+  private final long[] counts;
+  private long totalCount;
+  private long sum;
+
+  public LatencyHistogram() {
+    this.counts = new long[BUCKET_COUNT];
+  }
+
+  private LatencyHistogram(long[] counts, long totalCount, long sum) {
+    this.counts = counts;
+    this.totalCount = totalCount;
+    this.sum = sum;
+  }
+
+  /**
+   * @param value The value.
+   * @return The index of the bucket which counts the value.
+   */
+  static int indexOf(long value) {
+    if (value < 2 * SUB_BUCKETS) {
+      return value < 0 ? 0 : (int) value;
+    }
+    long v = Math.min(value, MAX_VALUE);
+    int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS;
+    return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((v >>> shift) - SUB_BUCKETS);
+  }
+
+  /**
+   * @param index The index of a bucket.
+   * @return The largest value counted by the bucket.
+   */
+  static long highestValueOf(int index) {
+    if (index < 2 * SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+    long subBucket = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  public void recordValue(long value) {
+    counts[indexOf(value)]++;
+    totalCount++;
+    sum += value;
+  }
+
+  void recordBucket(int index, long count) {
+    counts[index] += count;
+    totalCount += count;
+  }
+
+  void addSum(long value) {
+    sum += value;
+  }
+
+  /**
+   * Adds the counts of another histogram to this one.
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; ++i) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    sum += other.sum;
+  }
+
+  /**
+   * @param other An earlier snapshot of the same recorder.
+   * @return The values recorded since the earlier snapshot.
+   */
+  public LatencyHistogram minus(LatencyHistogram other) {
+    long[] delta = new long[counts.length];
+    for (int i = 0; i < counts.length; ++i) {
+      delta[i] = counts[i] - other.counts[i];
+    }
+    return new LatencyHistogram(delta, totalCount - other.totalCount, sum - other.sum);
+  }
+
+  public LatencyHistogram copy() {
+    return new LatencyHistogram(Arrays.copyOf(counts, counts.length), totalCount, sum);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    sum = 0;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public double getMean() {
+    return totalCount == 0 ? 0d : (double) sum / totalCount;
+  }
+
+  /**
+   * @return The smallest recorded value, to within the histogram's precision, or 0 if empty.
+   */
+  public long getMin() {
+    for (int i = 0; i < counts.length; ++i) {
+      if (counts[i] > 0) {
+        return highestValueOf(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return The largest recorded value, to within the histogram's precision, or 0 if empty.
+   */
+  public long getMax() {
+    for (int i = counts.length - 1; i >= 0; --i) {
+      if (counts[i] > 0) {
+        return highestValueOf(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @param percentile The percentile, between 0 and 100.
+   * @return The value at or below which the given percentage of values fall, or 0 if empty.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    double p = Math.min(Math.max(percentile, 0d), 100d);
+    long target = Math.max(1, (long) Math.ceil(p / 100d * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; ++i) {
+      seen += counts[i];
+      if (seen >= target) {
+        return highestValueOf(i);
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * @return The count, mean, max and common percentiles, suitable for publishing as a metric.
+   */
+  public Map<String, Number> summarize() {
+    Map<String, Number> ret = new LinkedHashMap<>();
+    ret.put("count", totalCount);
+    ret.put("mean", getMean());
+    ret.put("p50", getValueAtPercentile(50));
+    ret.put("p90", getValueAtPercentile(90));
+    ret.put("p99", getValueAtPercentile(99));
+    ret.put("p999", getValueAtPercentile(99.9));
+    ret.put("max", getMax());
+    return ret;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram" + summarize();
+  }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.performance;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns successive cumulative snapshots into the values recorded in each interval.
+ *
+ * <p>Each consumer of latencies, such as a Storm metric or a {@link LatencyReporter}, keeps its own
+ * instance so that consumers reporting on different schedules do not interfere with one another.
+ */
+public class LatencyIntervals {
+
+  private Map<String, LatencyHistogram> previous = new HashMap<>();
+
+  /**
+   * @param cumulative The latest cumulative snapshot, e.g. from {@link LatencyMetrics#snapshot()}.
+   * @return The values recorded since the last call, omitting recorders with nothing new.
+   */
+  public synchronized Map<String, LatencyHistogram> next(Map<String, LatencyHistogram> cumulative) {
+    Map<String, LatencyHistogram> ret = new TreeMap<>();
+    for (Map.Entry<String, LatencyHistogram> kv : cumulative.entrySet()) {
+      LatencyHistogram before = previous.get(kv.getKey());
+      LatencyHistogram delta = before == null ? kv.getValue().copy() : kv.getValue().minus(before);
+      if (delta.getTotalCount() > 0) {
+        ret.put(kv.getKey(), delta);
+      }
+    }
+    previous = new HashMap<>(cumulative);
+    return ret;
+  }
+}
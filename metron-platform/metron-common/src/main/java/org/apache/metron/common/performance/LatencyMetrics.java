@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.performance;
+
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.metron.common.utils.ReflectionUtils;
+import org.apache.metron.stellar.common.utils.ConversionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The JVM-wide registry of latency recorders for each stage of processing, per sensor.
+ *
+ * <p>Recorders are named {@code stage.sensor}, for example {@code parse.bro} or
+ * {@code enrichment.geo.bro}.  Looking up a recorder does not allocate, but callers on a hot path
+ * may hold on to the recorder they are given.
+ */
+public enum LatencyMetrics {
+  INSTANCE;
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final String PARSE = "parse";
+  public static final String FIELD_TRANSFORMATION = "transformation";
+  public static final String ENRICHMENT = "enrichment";
+  public static final String THREAT_INTEL = "threat_intel";
+  public static final String TRIAGE = "triage";
+  public static final String WRITE = "write";
+
+  /**
+   * The fully qualified class name of the {@link LatencyReporter} to periodically report to.
+   */
+  public static final String REPORTER_CONF = "performance.latency.reporter";
+
+  /**
+   * How often, in seconds, to publish latencies to Storm metrics and the reporter.
+   */
+  public static final String PERIOD_CONF = "performance.latency.period.seconds";
+  public static final int PERIOD_DEFAULT = 60;
+
+  /**
+   * The recorders keyed by stage, then qualifier, then sensor, so that looking one up does not build its name.
+   */
+  private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, LatencyRecorder>>> recorders = new ConcurrentHashMap<>();
+  private final Map<String, ScheduledExecutorService> reporting = new HashMap<>();
+
+  /**
+   * @param stage The stage of processing, e.g. {@link #PARSE}.
+   * @param sensor The sensor, or other qualifier such as the enrichment adapter.
+   * @return The recorder for the stage and sensor.
+   */
+  public LatencyRecorder recorder(String stage, String sensor) {
+    return recorder(stage, null, sensor);
+  }
+
+  /**
+   * @param stage The stage of processing.
+   * @param qualifier The qualifier within the stage, e.g. the enrichment adapter.
+   * @param sensor The sensor.
+   * @return The recorder for the qualified stage and sensor.
+   */
+  public LatencyRecorder recorder(String stage, String qualifier, String sensor) {
+    ConcurrentMap<String, ConcurrentMap<String, LatencyRecorder>> byQualifier = recorders.get(stage);
+    if (byQualifier == null) {
+      byQualifier = recorders.computeIfAbsent(stage, s -> new ConcurrentHashMap<>());
+    }
+    String qualifierKey = qualifier == null ? "" : qualifier;
+    ConcurrentMap<String, LatencyRecorder> bySensor = byQualifier.get(qualifierKey);
+    if (bySensor == null) {
+      bySensor = byQualifier.computeIfAbsent(qualifierKey, q -> new ConcurrentHashMap<>());
+    }
+    String sensorKey = sensor == null ? "" : sensor;
+    LatencyRecorder ret = bySensor.get(sensorKey);
+    if (ret == null) {
+      ret = bySensor.computeIfAbsent(sensorKey, s -> new LatencyRecorder(name(stage, qualifierKey, sensorKey)));
+    }
+    return ret;
+  }
+
+  private static String name(String stage, String qualifier, String sensor) {
+    StringBuilder name = new StringBuilder(stage);
+    if (!qualifier.isEmpty()) {
+      name.append('.').append(qualifier);
+    }
+    if (!sensor.isEmpty()) {
+      name.append('.').append(sensor);
+    }
+    return name.toString();
+  }
+
+  /**
+   * @return A cumulative snapshot of every recorder, keyed by name.
+   */
+  public Map<String, LatencyHistogram> snapshot() {
+    Map<String, LatencyHistogram> ret = new TreeMap<>();
+    for (ConcurrentMap<String, ConcurrentMap<String, LatencyRecorder>> byQualifier : recorders.values()) {
+      for (ConcurrentMap<String, LatencyRecorder> bySensor : byQualifier.values()) {
+        for (LatencyRecorder recorder : bySensor.values()) {
+          ret.put(recorder.getName(), recorder.snapshot());
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Starts periodically reporting to the reporter configured in the global config, if any.  Each reporter
+   * class is started at most once per JVM.
+   *
+   * @param globalConfig The global config.
+   */
+  public synchronized void startReporting(Map<String, Object> globalConfig) {
+    Object reporterClass = globalConfig == null ? null : globalConfig.get(REPORTER_CONF);
+    if (reporterClass == null || reporting.containsKey(reporterClass.toString())) {
+      return;
+    }
+    LatencyReporter reporter = ReflectionUtils.createInstance(reporterClass.toString());
+    reporter.configure(globalConfig);
+    startReporting(reporterClass.toString(), reporter, getPeriod(globalConfig));
+  }
+
+  synchronized void startReporting(String name, LatencyReporter reporter, int periodSeconds) {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "latency-reporter-" + name);
+      t.setDaemon(true);
+      return t;
+    });
+    LatencyIntervals intervals = new LatencyIntervals();
+    executor.scheduleAtFixedRate(() -> {
+      try {
+        reporter.report(intervals.next(snapshot()));
+      } catch (Throwable t) {
+        LOG.error("Unable to report latencies to {}: {}", name, t.getMessage(), t);
+      }
+    }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    reporting.put(name, executor);
+    LOG.info("Reporting latencies to {} every {} seconds", name, periodSeconds);
+  }
+
+  /**
+   * Stops all periodic reporting.
+   */
+  public synchronized void stopReporting() {
+    for (ScheduledExecutorService executor : reporting.values()) {
+      executor.shutdownNow();
+    }
+    reporting.clear();
+  }
+
+  /**
+   * Removes all recorders.  Intended for tests.
+   */
+  public void clear() {
+    recorders.clear();
+  }
+
+  /**
+   * @param globalConfig The global config.
+   * @return The configured reporting period in seconds.
+   */
+  public static int getPeriod(Map<String, Object> globalConfig) {
+    Object period = globalConfig == null ? null : globalConfig.get(PERIOD_CONF);
+    return period == null ? PERIOD_DEFAULT : ConversionUtils.convert(period, Integer.class);
+  }
+}
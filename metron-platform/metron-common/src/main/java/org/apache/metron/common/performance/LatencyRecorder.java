@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.performance;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies from any number of threads into a {@link LatencyHistogram}.
+ *
+ * <p>Each thread records into its own array of counts, which only that thread writes, so recording
+ * takes no locks and does not contend with other threads.  Snapshots merge every thread's counts.
+ * A snapshot is cumulative; use {@link LatencyHistogram#minus(LatencyHistogram)} against an earlier
+ * snapshot to get the values recorded in an interval.
+ */
+public class LatencyRecorder {
+
+  private final String name;
+  private final List<AtomicLongArray> cells = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<AtomicLongArray> cell = ThreadLocal.withInitial(this::newCell);
+
+  public LatencyRecorder(String name) {
+    this.name = name;
+  }
+
+  /**
+   * The last slot of each cell holds the sum of the recorded values.
+   */
+  private AtomicLongArray newCell() {
+    AtomicLongArray ret = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT + 1);
+    cells.add(ret);
+    return ret;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos The latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    AtomicLongArray counts = cell.get();
+    int index = LatencyHistogram.indexOf(nanos);
+    // only this thread writes to the cell, so an ordered write is enough to publish the update
+    counts.lazySet(index, counts.get(index) + 1);
+    int sumIndex = LatencyHistogram.BUCKET_COUNT;
+    counts.lazySet(sumIndex, counts.get(sumIndex) + nanos);
+  }
+
+  /**
+   * Records the time elapsed since the given start.
+   *
+   * @param startNanos The start time, as returned by {@link System#nanoTime()}.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @return The values recorded so far by all threads.
+   */
+  public LatencyHistogram snapshot() {
+    LatencyHistogram ret = new LatencyHistogram();
+    for (AtomicLongArray counts : cells) {
+      for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; ++i) {
+        long count = counts.get(i);
+        if (count != 0) {
+          ret.recordBucket(i, count);
+        }
+      }
+      ret.addSum(counts.get(LatencyHistogram.BUCKET_COUNT));
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyRecorder{name='" + name + "', " + snapshot() + "}";
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.performance;
+
+import java.util.Map;
+
+/**
+ * Receives the latencies recorded in each reporting interval.  Implementations are configured with
+ * {@link LatencyMetrics#REPORTER_CONF} in the global config and must have a no-arg constructor.
+ */
+public interface LatencyReporter {
+
+  /**
+   * @param globalConfig The global config.
+   */
+  default void configure(Map<String, Object> globalConfig) {
+  }
+
+  /**
+   * @param latencies The latencies recorded in the interval, keyed by recorder name.
+   */
+  void report(Map<String, LatencyHistogram> latencies);
+}
@@ -47,6 +47,7 @@ import de.javakaffee.kryoserializers.guava.ImmutableSetSerializer;
 import de.javakaffee.kryoserializers.jodatime.JodaLocalDateSerializer;
 import de.javakaffee.kryoserializers.jodatime.JodaLocalDateTimeSerializer;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
@@ -59,6 +60,7 @@ import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.function.Function;
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.metron.common.utils.serde.ValueCodecs;
 import org.objenesis.instantiator.ObjectInstantiator;
 import org.objenesis.strategy.InstantiatorStrategy;
 import org.objenesis.strategy.StdInstantiatorStrategy;
@@ -223,6 +225,17 @@ public class SerDeUtils {
     // do not instantiate
   }
 
+  /**
+   * The system property which, when set to false, serializes every value with Kryo.  Values
+   * written that way can still be read by versions of Metron which predate {@link ValueCodecs}.
+   */
+  public static final String CODECS_PROPERTY = "metron.serde.codecs";
+  private static final boolean USE_CODECS = Boolean.parseBoolean(System.getProperty(CODECS_PROPERTY, "true"));
+
+  private static class Codecs {
+    private static final ValueCodecs INSTANCE = ValueCodecs.load(SerDeUtils.class.getClassLoader());
+  }
+
   /**
    * Serialize a profile measurement's value.
    *
@@ -230,10 +243,19 @@ public class SerDeUtils {
    * type depends on how the profile is defined by the user.  The user should be able to
    * choose the data type that is most suitable for their use case.
    *
+   * <p>Values with a {@link org.apache.metron.common.utils.serde.ValueCodec} are written in its
+   * compact form.  Any other value is written with Kryo.
+   *
    * @param value The value to serialize.
    */
   public static byte[] toBytes(Object value) {
     try {
+      if (USE_CODECS && value != null) {
+        byte[] encoded = Codecs.INSTANCE.toBytes(value);
+        if (encoded != null) {
+          return encoded;
+        }
+      }
       ByteArrayOutputStream bos = new ByteArrayOutputStream();
       Output output = new Output(bos);
       kryo.get().writeClassAndObject(output, value);
@@ -258,9 +280,16 @@ public class SerDeUtils {
    */
   public static <T> T fromBytes(byte[] value, Class<T> clazz) {
     try {
+      if (ValueCodecs.isEncoded(value)) {
+        return clazz.cast(Codecs.INSTANCE.fromBytes(value));
+      }
       Input input = new Input(new ByteArrayInputStream(value));
       return clazz.cast(kryo.get().readClassAndObject(input));
     }
+    catch(IOException e) {
+      LOG.error("Unable to deserialize  because {}", e.getMessage(), e);
+      throw new IllegalStateException("Unable to deserialize because " + e.getMessage(), e);
+    }
     catch(Throwable t) {
       LOG.error("Unable to deserialize  because {}", t.getMessage(), t);
       throw t;
@@ -0,0 +1,318 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.utils.serde;
+
+import static org.apache.metron.common.utils.serde.ValueCodecs.readBytes;
+import static org.apache.metron.common.utils.serde.ValueCodecs.readVarLong;
+import static org.apache.metron.common.utils.serde.ValueCodecs.readZigZagLong;
+import static org.apache.metron.common.utils.serde.ValueCodecs.writeBytes;
+import static org.apache.metron.common.utils.serde.ValueCodecs.writeVarLong;
+import static org.apache.metron.common.utils.serde.ValueCodecs.writeZigZagLong;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import org.apache.metron.stellar.common.utils.BloomFilter;
+
+/**
+ * The codecs for numbers, strings, collections and bloom filters.
+ */
+public class StandardCodecs {
+
+  private StandardCodecs() {
+  }
+
+  /**
+   * @return A new instance of each standard codec.
+   */
+  public static List<ValueCodec<?>> all() {
+    return Arrays.asList(
+            new IntegerCodec(),
+            new LongCodec(),
+            new ShortCodec(),
+            new ByteCodec(),
+            new FloatCodec(),
+            new DoubleCodec(),
+            new BooleanCodec(),
+            new StringCodec(),
+            new MapCodec<>(9, HashMap.class, HashMap::new),
+            new MapCodec<>(10, LinkedHashMap.class, LinkedHashMap::new),
+            new ListCodec(),
+            new BloomFilterCodec()
+    );
+  }
+
+  private abstract static class AbstractCodec<T> implements ValueCodec<T> {
+    private final int id;
+    private final Class<T> type;
+
+    AbstractCodec(int id, Class<T> type) {
+      this.id = id;
+      this.type = type;
+    }
+
+    @Override
+    public int getId() {
+      return id;
+    }
+
+    @Override
+    public Class<T> getType() {
+      return type;
+    }
+  }
+
+  private static class IntegerCodec extends AbstractCodec<Integer> {
+    IntegerCodec() {
+      super(1, Integer.class);
+    }
+
+    @Override
+    public void write(Integer value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      writeZigZagLong(out, value);
+    }
+
+    @Override
+    public Integer read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return (int) readZigZagLong(in);
+    }
+  }
+
+  private static class LongCodec extends AbstractCodec<Long> {
+    LongCodec() {
+      super(2, Long.class);
+    }
+
+    @Override
+    public void write(Long value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      writeZigZagLong(out, value);
+    }
+
+    @Override
+    public Long read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return readZigZagLong(in);
+    }
+  }
+
+  private static class ShortCodec extends AbstractCodec<Short> {
+    ShortCodec() {
+      super(3, Short.class);
+    }
+
+    @Override
+    public void write(Short value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      out.writeShort(value);
+    }
+
+    @Override
+    public Short read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return in.readShort();
+    }
+  }
+
+  private static class ByteCodec extends AbstractCodec<Byte> {
+    ByteCodec() {
+      super(4, Byte.class);
+    }
+
+    @Override
+    public void write(Byte value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      out.writeByte(value);
+    }
+
+    @Override
+    public Byte read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return in.readByte();
+    }
+  }
+
+  private static class FloatCodec extends AbstractCodec<Float> {
+    FloatCodec() {
+      super(5, Float.class);
+    }
+
+    @Override
+    public void write(Float value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      out.writeFloat(value);
+    }
+
+    @Override
+    public Float read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return in.readFloat();
+    }
+  }
+
+  private static class DoubleCodec extends AbstractCodec<Double> {
+    DoubleCodec() {
+      super(6, Double.class);
+    }
+
+    @Override
+    public void write(Double value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      out.writeDouble(value);
+    }
+
+    @Override
+    public Double read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return in.readDouble();
+    }
+  }
+
+  private static class BooleanCodec extends AbstractCodec<Boolean> {
+    BooleanCodec() {
+      super(7, Boolean.class);
+    }
+
+    @Override
+    public void write(Boolean value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      out.writeBoolean(value);
+    }
+
+    @Override
+    public Boolean read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return in.readBoolean();
+    }
+  }
+
+  private static class StringCodec extends AbstractCodec<String> {
+    StringCodec() {
+      super(8, String.class);
+    }
+
+    @Override
+    public void write(String value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Writes maps of an exact type, such as HashMap, whose keys and values can all be written.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static class MapCodec<M extends Map> extends AbstractCodec<M> {
+    private final IntFunction<M> factory;
+
+    MapCodec(int id, Class<M> type, IntFunction<M> factory) {
+      super(id, type);
+      this.factory = factory;
+    }
+
+    @Override
+    public boolean canWrite(M value, ValueCodecs codecs) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!codecs.canWrite(entry.getKey()) || !codecs.canWrite(entry.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void write(M value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      writeVarLong(out, value.size());
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        codecs.writeValue(entry.getKey(), out);
+        codecs.writeValue(entry.getValue(), out);
+      }
+    }
+
+    @Override
+    public M read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      int size = (int) readVarLong(in);
+      M ret = factory.apply(Math.min(size, 1024));
+      for (int i = 0; i < size; ++i) {
+        ret.put(codecs.readValue(in), codecs.readValue(in));
+      }
+      return ret;
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static class ListCodec extends AbstractCodec<ArrayList> {
+    ListCodec() {
+      super(11, ArrayList.class);
+    }
+
+    @Override
+    public boolean canWrite(ArrayList value, ValueCodecs codecs) {
+      for (Object o : value) {
+        if (!codecs.canWrite(o)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void write(ArrayList value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      writeVarLong(out, value.size());
+      for (Object o : value) {
+        codecs.writeValue(o, out);
+      }
+    }
+
+    @Override
+    public ArrayList read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      int size = (int) readVarLong(in);
+      ArrayList ret = new ArrayList(Math.min(size, 1024));
+      for (int i = 0; i < size; ++i) {
+        ret.add(codecs.readValue(in));
+      }
+      return ret;
+    }
+  }
+
+  /**
+   * Writes the bits of bloom filters which use the default serializer.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static class BloomFilterCodec extends AbstractCodec<BloomFilter> {
+    BloomFilterCodec() {
+      super(16, BloomFilter.class);
+    }
+
+    @Override
+    public boolean canWrite(BloomFilter value, ValueCodecs codecs) {
+      Object serializer = value.getSerializer();
+      return serializer != null && serializer.getClass() == BloomFilter.DefaultSerializer.class;
+    }
+
+    @Override
+    public void write(BloomFilter value, DataOutputStream out, ValueCodecs codecs) throws IOException {
+      value.writeTo(out);
+    }
+
+    @Override
+    public BloomFilter read(DataInputStream in, ValueCodecs codecs) throws IOException {
+      return BloomFilter.readFrom(in, new BloomFilter.DefaultSerializer<>());
+    }
+  }
+}
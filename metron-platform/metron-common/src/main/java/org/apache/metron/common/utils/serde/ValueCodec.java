@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.utils.serde;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.atteo.classindex.IndexSubclasses;
+
+/**
+ * Writes and reads values of a single type in a compact binary form.
+ *
+ * <p>Implementations are discovered on the classpath by {@link ValueCodecs#load(ClassLoader)}, so they
+ * must be public with a public no-arg constructor.  Each codec is identified in the serialized bytes by
+ * its id, which must never change once values have been written with it.  Ids 1 to 63 are reserved for
+ * the codecs in metron-common.
+ *
+ * @param <T> The type of value.
+ */
+@IndexSubclasses
+public interface ValueCodec<T> {
+
+  /**
+   * @return The id of the codec, between 1 and 255.
+   */
+  int getId();
+
+  /**
+   * @return The exact class of the values written by this codec.  Subclasses are not written.
+   */
+  Class<T> getType();
+
+  /**
+   * @param value The value.
+   * @param codecs The codecs, for values holding other values.
+   * @return True if the value can be written by this codec.
+   */
+  default boolean canWrite(T value, ValueCodecs codecs) {
+    return true;
+  }
+
+  void write(T value, DataOutputStream out, ValueCodecs codecs) throws IOException;
+
+  T read(DataInputStream in, ValueCodecs codecs) throws IOException;
+}
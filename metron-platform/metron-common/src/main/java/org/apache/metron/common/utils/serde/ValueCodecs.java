@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.utils.serde;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.atteo.classindex.ClassIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A registry of {@link ValueCodec}s, which writes values in a compact, versioned binary form.
+ *
+ * <p>Serialized values start with a header byte holding the format version, followed by the value,
+ * which is the id of its codec followed by whatever the codec writes.  Header bytes count down from
+ * {@link #MAGIC}, which is version 1, and the sixteen bytes down to {@link #MIN_HEADER} are reserved for
+ * later versions.  Kryo output starts with the id of a registered class, and far fewer classes than that
+ * are registered, so the two forms can be told apart by their first byte.
+ */
+public class ValueCodecs {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final byte MAGIC = 0x7F;
+  public static final byte MIN_HEADER = 0x70;
+  public static final int VERSION = 1;
+  private static final int NULL_ID = 0;
+
+  private final Map<Class<?>, ValueCodec<?>> byType = new HashMap<>();
+  private final ValueCodec<?>[] byId = new ValueCodec<?>[256];
+
+  /**
+   * @param codecs The codecs.
+   * @throws IllegalStateException If two codecs have the same id or type.
+   */
+  public ValueCodecs(Iterable<? extends ValueCodec<?>> codecs) {
+    for (ValueCodec<?> codec : codecs) {
+      int id = codec.getId();
+      if (id <= NULL_ID || id >= byId.length) {
+        throw new IllegalStateException(String.format("Codec %s has an invalid id %d", codec.getClass().getName(), id));
+      }
+      if (byId[id] != null || byType.containsKey(codec.getType())) {
+        throw new IllegalStateException(String.format("Codec %s conflicts with %s", codec.getClass().getName(),
+                (byId[id] != null ? byId[id] : byType.get(codec.getType())).getClass().getName()));
+      }
+      byId[id] = codec;
+      byType.put(codec.getType(), codec);
+    }
+  }
+
+  /**
+   * Creates a registry holding the {@link StandardCodecs} and every other codec on the classpath.
+   *
+   * @param classLoader The class loader to find codecs with.
+   * @return The registry.
+   */
+  public static ValueCodecs load(ClassLoader classLoader) {
+    List<ValueCodec<?>> codecs = new ArrayList<>(StandardCodecs.all());
+    Set<String> names = new HashSet<>();
+    for (String name : ClassIndex.getSubclassesNames(ValueCodec.class, classLoader)) {
+      names.add(name);
+    }
+    for (String name : names) {
+      if (name.startsWith(StandardCodecs.class.getName() + "$")) {
+        continue;
+      }
+      try {
+        Class<?> clazz = Class.forName(name, true, classLoader);
+        if (!clazz.isInterface() && !Modifier.isAbstract(clazz.getModifiers())) {
+          codecs.add((ValueCodec<?>) clazz.getConstructor().newInstance());
+        }
+      } catch (ReflectiveOperationException | LinkageError e) {
+        LOG.warn("Unable to load value codec {}; values of its type will be serialized with Kryo", name, e);
+      }
+    }
+    return new ValueCodecs(codecs);
+  }
+
+  /**
+   * @param bytes Serialized bytes.
+   * @return True if the bytes were written by a codec, rather than Kryo.
+   */
+  public static boolean isEncoded(byte[] bytes) {
+    return bytes != null && bytes.length > 1 && bytes[0] >= MIN_HEADER && bytes[0] <= MAGIC;
+  }
+
+  /**
+   * @param value The value.
+   * @return True if the value, and any values it holds, can be written by the codecs.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean canWrite(Object value) {
+    if (value == null) {
+      return true;
+    }
+    ValueCodec<Object> codec = (ValueCodec<Object>) byType.get(value.getClass());
+    return codec != null && codec.canWrite(value, this);
+  }
+
+  /**
+   * Serializes a value, with its header.
+   *
+   * @param value The value.
+   * @return The serialized value, or null if it cannot be written by the codecs.
+   * @throws IOException If the value could not be written.
+   */
+  public byte[] toBytes(Object value) throws IOException {
+    if (!canWrite(value)) {
+      return null;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(MAGIC - (VERSION - 1));
+    writeValue(value, out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Deserializes a value written by {@link #toBytes(Object)}.
+   *
+   * @param bytes The serialized value.
+   * @return The value.
+   * @throws IOException If the value could not be read.
+   */
+  public Object fromBytes(byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int version = MAGIC - in.readByte() + 1;
+    if (version != VERSION) {
+      throw new IOException(String.format("Unsupported serialization version %d; expected %d", version, VERSION));
+    }
+    return readValue(in);
+  }
+
+  /**
+   * Writes a value, preceded by the id of its codec.  Used by codecs for the values they hold.
+   */
+  @SuppressWarnings("unchecked")
+  public void writeValue(Object value, DataOutputStream out) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL_ID);
+      return;
+    }
+    ValueCodec<Object> codec = (ValueCodec<Object>) byType.get(value.getClass());
+    if (codec == null) {
+      throw new IOException("No codec for " + value.getClass().getName());
+    }
+    out.writeByte(codec.getId());
+    codec.write(value, out, this);
+  }
+
+  /**
+   * Reads a value written by {@link #writeValue(Object, DataOutputStream)}.
+   */
+  public Object readValue(DataInputStream in) throws IOException {
+    int id = in.readUnsignedByte();
+    if (id == NULL_ID) {
+      return null;
+    }
+    ValueCodec<?> codec = byId[id];
+    if (codec == null) {
+      throw new IOException(String.format("No codec with id %d is on the classpath", id));
+    }
+    return codec.read(in, this);
+  }
+
+  /**
+   * Writes an unsigned variable-length long, 7 bits per byte.
+   */
+  public static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  public static long readVarLong(DataInputStream in) throws IOException {
+    long ret = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      ret |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return ret;
+      }
+    }
+    throw new IOException("Malformed variable-length long");
+  }
+
+  /**
+   * Writes a signed variable-length long, zig-zag encoded so that small negative numbers stay small.
+   */
+  public static void writeZigZagLong(DataOutputStream out, long value) throws IOException {
+    writeVarLong(out, (value << 1) ^ (value >> 63));
+  }
+
+  public static long readZigZagLong(DataInputStream in) throws IOException {
+    long value = readVarLong(in);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Writes a byte array, preceded by its length.
+   */
+  public static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    writeVarLong(out, bytes.length);
+    out.write(bytes);
+  }
+
+  public static byte[] readBytes(DataInputStream in) throws IOException {
+    long length = readVarLong(in);
+    if (length > in.available()) {
+      throw new IOException("Malformed byte array of length " + length);
+    }
+    byte[] ret = new byte[(int) length];
+    in.readFully(ret);
+    return ret;
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.message;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the size and the time to write and read telemetry in each wire format, and against
+ * reading JSON with json-simple through a string, as JSONFromPosition does.
+ * By default the test is disabled due to it taking too much time to run during normal unit testing.
+ * Remove the disabled attribute to allow the test to run.
+ */
+public class WireFormatPerfTest {
+  private static final double NANO_TO_MICROS = 1e3;
+  private static final int REPS = 100000;
+
+  @Test
+  @Disabled
+  public void compareFormats() throws Exception {
+    Map<String, JSONObject> messages = new LinkedHashMap<>();
+    messages.put("bro", (JSONObject) new JSONParser().parse(WireFormatTest.BRO));
+    messages.put("snort", (JSONObject) new JSONParser().parse(WireFormatTest.SNORT));
+
+    System.out.println(String.format("%-8s %-12s %8s %12s %12s", "message", "format", "bytes", "us/write", "us/read"));
+    for (Map.Entry<String, JSONObject> entry : messages.entrySet()) {
+      byte[] json = WireFormat.JSON.write(entry.getValue());
+      JSONParser parser = new JSONParser();
+      double jsonSimpleTime = time(() -> {
+        try {
+          parser.parse(new String(json, StandardCharsets.UTF_8));
+        } catch (ParseException e) {
+          throw new IOException(e);
+        }
+      });
+      System.out.println(String.format("%-8s %-12s %8d %12s %12.2f", entry.getKey(), "json-simple", json.length, "", jsonSimpleTime));
+      for (WireFormat format : WireFormat.values()) {
+        byte[] bytes = format.write(entry.getValue());
+        double writeTime = time(() -> format.write(entry.getValue()));
+        double readTime = time(() -> format.read(bytes));
+        System.out.println(String.format("%-8s %-12s %8d %12.2f %12.2f", entry.getKey(), format, bytes.length, writeTime, readTime));
+      }
+    }
+  }
+
+  private interface Operation {
+    void run() throws IOException;
+  }
+
+  /**
+   * @return The median time in microseconds to run the operation, after warming up.
+   */
+  private static double time(Operation operation) {
+    try {
+      for (int i = 0; i < REPS; ++i) {
+        operation.run();
+      }
+      DescriptiveStatistics stats = new DescriptiveStatistics();
+      for (int i = 0; i < REPS; ++i) {
+        long start = System.nanoTime();
+        operation.run();
+        stats.addValue((System.nanoTime() - start) / NANO_TO_MICROS);
+      }
+      return stats.getPercentile(50);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
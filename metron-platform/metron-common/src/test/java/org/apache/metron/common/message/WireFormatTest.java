@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.message;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WireFormatTest {
+
+  static final String BRO = "{\"bro_timestamp\":\"1402307733.473\",\"status_code\":200,\"method\":\"GET\",\"ip_dst_port\":80,\"re" +
+          "quest_body_len\":0,\"uri\":\"/\",\"tags\":[],\"source.type\":\"bro\",\"uid\":\"CTo78A11g7CYbbOHvj\"," +
+          "\"resp_mime_types\":[\"text/html\"],\"trans_depth\":1,\"protocol\":\"http\",\"original_string\":\"HT" +
+          "TP | id.orig_p:58808 status_code:200 method:GET request_body_len:0 id.resp_p:80 uri:/ tags:[] uid:CT" +
+          "o78A11g7CYbbOHvj resp_mime_types:[\\\"text\\\\/html\\\"] trans_depth:1 host:www.cisco.com status_msg" +
+          ":OK id.orig_h:192.249.113.37 response_body_len:25523 user_agent:curl/7.22.0 (x86_64-pc-linux-gnu) li" +
+          "bcurl/7.22.0 OpenSSL/1.0.1 zlib/1.2.3.4 libidn/1.23 librtmp/2.3 ts:1402307733.473 id.resp_h:72.163.4" +
+          ".161 resp_fuids:[\\\"FJDyMC15lxUn5ngPfd\\\"]\",\"ip_dst_addr\":\"72.163.4.161\",\"ip_src_port\":5880" +
+          "8,\"host\":\"www.cisco.com\",\"status_msg\":\"OK\",\"response_body_len\":25523,\"ip_src_addr\":\"192" +
+          ".249.113.37\",\"user_agent\":\"curl/7.22.0 (x86_64-pc-linux-gnu) libcurl/7.22.0 OpenSSL/1.0.1 zlib/1" +
+          ".2.3.4 libidn/1.23 librtmp/2.3\",\"resp_fuids\":[\"FJDyMC15lxUn5ngPfd\"],\"timestamp\":1402307733473" +
+          ",\"guid\":\"this-is-random-uuid-will-be-36-chars\"}";
+
+  static final String SNORT = "{\"msg\":\"Consecutive TCP small segments exceeding threshold\",\"sig_rev\":\"1\",\"ip_dst_addr\":\"" +
+          "10.0.2.15\",\"ip_dst_port\":\"22\",\"ethsrc\":\"52:54:00:12:35:02\",\"tcpseq\":\"0x9AFF3D7\",\"dgmle" +
+          "n\":\"64\",\"icmpid\":\"\",\"tcplen\":\"\",\"tcpwindow\":\"0xFFFF\",\"icmpseq\":\"\",\"tcpack\":\"0x" +
+          "C8761D52\",\"original_string\":\"01/27/16-16:01:04.877970 ,129,12,1,\\\"Consecutive TCP small segmen" +
+          "ts exceeding threshold\\\",TCP,10.0.2.2,56642,10.0.2.15,22,52:54:00:12:35:02,08:00:27:7F:93:2D,0x4E," +
+          "***AP***,0x9AFF3D7,0xC8761D52,,0xFFFF,64,0,59677,64,65536,,,,\",\"icmpcode\":\"\",\"tos\":\"0\",\"id" +
+          "\":\"59677\",\"timestamp\":1453932941970,\"ethdst\":\"08:00:27:7F:93:2D\",\"ip_src_addr\":\"10.0.2.2" +
+          "\",\"ttl\":\"64\",\"source.type\":\"snort\",\"ethlen\":\"0x4E\",\"iplen\":\"65536\",\"icmptype\":\"\"" +
+          ",\"protocol\":\"TCP\",\"ip_src_port\":\"56642\",\"tcpflags\":\"***AP***\",\"sig_id\":\"12\",\"sig_ge" +
+          "nerator\":\"129\",\"is_alert\":\"true\",\"guid\":\"this-is-random-uuid-will-be-36-chars\"}";
+
+  private static JSONObject parse(String json) throws Exception {
+    return (JSONObject) new JSONParser().parse(json);
+  }
+
+  @Test
+  public void shouldRoundTripTelemetry() throws Exception {
+    for (String json : Arrays.asList(BRO, SNORT)) {
+      JSONObject message = parse(json);
+      for (WireFormat format : WireFormat.values()) {
+        byte[] bytes = format.write(message);
+        assertEquals(format, WireFormat.detect(bytes));
+        assertEquals(message, WireFormat.detect(bytes).read(bytes));
+      }
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldDecodeToTheSameTypesAsJson() throws Exception {
+    JSONObject message = new JSONObject();
+    message.put("int", 7);
+    message.put("short", (short) 3);
+    message.put("float", 0.1f);
+    message.put("nan", Double.NaN);
+    message.put("big", new BigInteger("123456789012345678901234567890"));
+    message.put("list", Arrays.asList(1, "a", null));
+    Map<Integer, Object> map = new HashMap<>();
+    map.put(1, true);
+    message.put("map", map);
+    message.put("other", new StringBuilder("text"));
+
+    JSONObject actual = WireFormat.SMILE.read(WireFormat.SMILE.write(message));
+    assertEquals(7L, actual.get("int"));
+    assertEquals(3L, actual.get("short"));
+    assertEquals(0.1, actual.get("float"));
+    assertTrue(actual.containsKey("nan"));
+    assertNull(actual.get("nan"));
+    assertEquals(new BigInteger("123456789012345678901234567890"), actual.get("big"));
+    assertEquals(Arrays.asList(1L, "a", null), actual.get("list"));
+    assertTrue(actual.get("list") instanceof JSONArray);
+    assertTrue(actual.get("map") instanceof JSONObject);
+    assertEquals(true, ((JSONObject) actual.get("map")).get("1"));
+    assertEquals("text", actual.get("other"));
+
+    // the JSON text of the message decodes to the same values, apart from what it cannot hold
+    message.remove("big");
+    message.remove("other");
+    actual.remove("big");
+    actual.remove("other");
+    assertEquals(parse(message.toJSONString()), actual);
+  }
+
+  @Test
+  public void shouldDetectJson() {
+    assertEquals(WireFormat.JSON, WireFormat.detect("{}".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(WireFormat.JSON, WireFormat.detect(" {\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(WireFormat.JSON, WireFormat.detect(new byte[0]));
+    assertEquals(WireFormat.JSON, WireFormat.detect(null));
+  }
+
+  @Test
+  public void shouldReadJsonAsJsonSimpleDoes() throws Exception {
+    String json = "{\"s\":\"tab\there\\u00e9\",\"i\":-12,\"d\":1.5e3,\"n\":null,\"b\":false,"
+            + "\"a\":[{\"x\":[]}],\"dup\":1,\"dup\":2} ";
+    assertEquals(parse(json), WireFormat.JSON.read(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void shouldRejectInvalidMessages() {
+    assertThrows(IOException.class, () -> WireFormat.JSON.read("[1, 2]".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IOException.class, () -> WireFormat.JSON.read("{".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IOException.class, () -> WireFormat.JSON.read("{} {}".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IOException.class, () -> WireFormat.SMILE.read("{}".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void shouldLookUpFormatsByName() {
+    assertEquals(WireFormat.JSON, WireFormat.of(null));
+    assertEquals(WireFormat.SMILE, WireFormat.of("smile"));
+    assertEquals(WireFormat.SMILE, WireFormat.of(" SMILE "));
+    assertThrows(IllegalArgumentException.class, () -> WireFormat.of("xml"));
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.common.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyMetricsTest {
+
+  @AfterEach
+  public void teardown() {
+    LatencyMetrics.INSTANCE.clear();
+  }
+
+  @Test
+  public void histogramIsExactForSmallValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 0; i < 2 * LatencyHistogram.SUB_BUCKETS; ++i) {
+      histogram.recordValue(i);
+    }
+    assertEquals(2 * LatencyHistogram.SUB_BUCKETS, histogram.getTotalCount());
+    assertEquals(0, histogram.getMin());
+    assertEquals(2 * LatencyHistogram.SUB_BUCKETS - 1, histogram.getMax());
+    assertEquals(LatencyHistogram.SUB_BUCKETS - 1, histogram.getValueAtPercentile(50));
+  }
+
+  @Test
+  public void histogramIsWithinPrecision() {
+    for (long value = 1; value < LatencyHistogram.MAX_VALUE; value = value * 3 + 1) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.recordValue(value);
+      long reported = histogram.getMax();
+      assertTrue(reported >= value, "Reported " + reported + " for " + value);
+      assertTrue(reported - value <= value / LatencyHistogram.SUB_BUCKETS, "Reported " + reported + " for " + value);
+    }
+  }
+
+  @Test
+  public void histogramClampsLargeValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordValue(Long.MAX_VALUE);
+    assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+  }
+
+  @Test
+  public void histogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1000; ++i) {
+      histogram.recordValue(i * 1000);
+    }
+    assertEquals(500500d, histogram.getMean(), 1e-6);
+    assertWithinPrecision(500000, histogram.getValueAtPercentile(50));
+    assertWithinPrecision(990000, histogram.getValueAtPercentile(99));
+    assertWithinPrecision(1000000, histogram.getMax());
+    assertEquals(1000L, histogram.summarize().get("count"));
+  }
+
+  @Test
+  public void recorderMergesThreads() throws InterruptedException {
+    LatencyRecorder recorder = LatencyMetrics.INSTANCE.recorder(LatencyMetrics.PARSE, "test");
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; ++t) {
+      Thread thread = new Thread(() -> {
+        for (int i = 1; i <= 10000; ++i) {
+          recorder.record(i);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    LatencyHistogram snapshot = recorder.snapshot();
+    assertEquals(40000, snapshot.getTotalCount());
+    assertEquals(5000.5, snapshot.getMean(), 1e-6);
+    assertWithinPrecision(10000, snapshot.getMax());
+  }
+
+  @Test
+  public void recordersAreNamedByStageAndSensor() {
+    LatencyRecorder recorder = LatencyMetrics.INSTANCE.recorder(LatencyMetrics.ENRICHMENT, "geo", "bro");
+    assertEquals("enrichment.geo.bro", recorder.getName());
+    assertSame(recorder, LatencyMetrics.INSTANCE.recorder(LatencyMetrics.ENRICHMENT, "geo", "bro"));
+    recorder.record(10);
+    assertEquals(1, LatencyMetrics.INSTANCE.snapshot().get("enrichment.geo.bro").getTotalCount());
+
+    // a stage without a qualifier or sensor is named by the stage alone
+    assertEquals("parse.bro", LatencyMetrics.INSTANCE.recorder(LatencyMetrics.PARSE, "bro").getName());
+    assertSame(LatencyMetrics.INSTANCE.recorder(LatencyMetrics.PARSE, "bro"), LatencyMetrics.INSTANCE.recorder(LatencyMetrics.PARSE, null, "bro"));
+    assertEquals("write", LatencyMetrics.INSTANCE.recorder(LatencyMetrics.WRITE, null).getName());
+  }
+
+  @Test
+  public void intervalsOnlyContainNewValues() {
+    LatencyRecorder parse = LatencyMetrics.INSTANCE.recorder(LatencyMetrics.PARSE, "bro");
+    LatencyRecorder triage = LatencyMetrics.INSTANCE.recorder(LatencyMetrics.TRIAGE, "bro");
+    LatencyIntervals intervals = new LatencyIntervals();
+    parse.record(100);
+    parse.record(200);
+    triage.record(5);
+
+    Map<String, LatencyHistogram> interval = intervals.next(LatencyMetrics.INSTANCE.snapshot());
+    assertEquals(2, interval.get("parse.bro").getTotalCount());
+    assertEquals(1, interval.get("triage.bro").getTotalCount());
+
+    parse.record(300);
+    interval = intervals.next(LatencyMetrics.INSTANCE.snapshot());
+    assertEquals(1, interval.size());
+    assertEquals(1, interval.get("parse.bro").getTotalCount());
+    assertEquals(300d, interval.get("parse.bro").getMean(), 1e-6);
+
+    assertTrue(intervals.next(LatencyMetrics.INSTANCE.snapshot()).isEmpty());
+  }
+
+  private static void assertWithinPrecision(long expected, long actual) {
+    assertTrue(actual >= expected && actual - expected <= expected / LatencyHistogram.SUB_BUCKETS,
+            "Expected " + expected + " but was " + actual);
+  }
+}
@@ -21,13 +21,20 @@
 package org.apache.metron.common.utils;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.metron.common.utils.serde.StandardCodecs;
+import org.apache.metron.common.utils.serde.ValueCodecs;
 import org.apache.metron.stellar.common.utils.BloomFilter;
+import org.json.simple.JSONObject;
 import org.junit.jupiter.api.Test;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -127,6 +134,7 @@ public class SerDeUtilsTest {
     expected.add("foo");
     expected.add("bar");
     byte[] raw = SerDeUtils.toBytes(expected);
+    assertTrue(ValueCodecs.isEncoded(raw));
     BloomFilter<Object> actual = (BloomFilter) SerDeUtils.fromBytes(raw, Object.class);
     assertTrue(actual.mightContain("foo"));
     assertFalse(actual.mightContain("timothy"));
@@ -213,4 +221,55 @@ public class SerDeUtilsTest {
     Object actual = SerDeUtils.fromBytes(raw, Object.class);
     assertEquals(expected, actual);
   }
+
+  @Test
+  public void testStandardTypesUseCodecs() {
+    Map<String, Object> nested = new LinkedHashMap<>();
+    nested.put("list", new ArrayList<>(Arrays.asList(1, -2L, (short) 3, (byte) 4, 5.0f, null)));
+    nested.put("flag", true);
+    nested.put("unicode", "é漢");
+    Map<Object, Object> expected = new HashMap<>();
+    expected.put("nested", nested);
+    expected.put(Long.MIN_VALUE, Integer.MAX_VALUE);
+
+    byte[] raw = SerDeUtils.toBytes(expected);
+    assertTrue(ValueCodecs.isEncoded(raw));
+    Map<?, ?> actual = SerDeUtils.fromBytes(raw, Map.class);
+    assertEquals(expected, actual);
+    assertEquals(LinkedHashMap.class, actual.get("nested").getClass());
+    assertEquals(Short.class, ((List<?>) ((Map<?, ?>) actual.get("nested")).get("list")).get(2).getClass());
+
+    assertEquals(3, SerDeUtils.toBytes(2).length);
+  }
+
+  public static class ConstantSerializer implements Function<Object, byte[]>, Serializable {
+    @Override
+    public byte[] apply(Object o) {
+      return new byte[] { 1 };
+    }
+  }
+
+  @Test
+  public void testOtherTypesUseKryo() {
+    JSONObject json = new JSONObject();
+    json.put("foo", "bar");
+    Map<String, Object> withPojo = new HashMap<>();
+    withPojo.put("pojo", new ArbitraryPojo());
+
+    for (Object value : Arrays.asList(null, json, withPojo, ImmutableList.of("foo"))) {
+      byte[] raw = SerDeUtils.toBytes(value);
+      assertFalse(ValueCodecs.isEncoded(raw), "Should use Kryo for " + value);
+      assertEquals(value, SerDeUtils.fromBytes(raw, Object.class));
+    }
+    ValueCodecs codecs = new ValueCodecs(StandardCodecs.all());
+    assertFalse(codecs.canWrite(new BloomFilter<Object>(new ConstantSerializer(), 10, 0.01)));
+  }
+
+  @Test
+  public void testUnsupportedVersion() {
+    byte[] raw = SerDeUtils.toBytes("foo");
+    raw[0] = ValueCodecs.MIN_HEADER;
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> SerDeUtils.fromBytes(raw, Object.class));
+    assertTrue(e.getMessage().contains("Unsupported serialization version"));
+  }
 }
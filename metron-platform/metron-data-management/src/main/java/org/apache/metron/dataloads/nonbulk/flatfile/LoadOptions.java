@@ -104,6 +104,67 @@ public enum LoadOptions implements CLIOptions<LoadOptions> {
   ,NUM_THREADS(new CommonOptions.NumThreads<>())
   ,BATCH_SIZE(new CommonOptions.BatchSize<>())
   ,INPUT(new CommonOptions.Input<>())
+  ,HFILE_OUTPUT(new OptionHandler<LoadOptions>() {
+    @Nullable
+    @Override
+    public Option apply(@Nullable String s) {
+      Option o = new Option(s, "hfile_output", true, "The directory to write HFiles to in the LOCAL_BULK and MR_BULK import modes." +
+              "  It must not exist.  Default: a temporary directory under hbase.fs.tmp.dir, which is removed once loaded.");
+      o.setArgName("DIR");
+      o.setRequired(false);
+      return o;
+    }
+
+    @Override
+    public Optional<Object> getValue(LoadOptions option, CommandLine cli) {
+      return Optional.ofNullable(option.get(cli)).map(String::trim);
+    }
+
+    @Override
+    public String getShortCode() {
+      return "o";
+    }
+  })
+  ,SKIP_BULK_LOAD(new OptionHandler<LoadOptions>() {
+    @Nullable
+    @Override
+    public Option apply(@Nullable String s) {
+      return new Option(s, "skip_bulk_load", false, "Write HFiles in the LOCAL_BULK and MR_BULK import modes" +
+              " without bulk loading them into HBase.");
+    }
+
+    @Override
+    public Optional<Object> getValue(LoadOptions option, CommandLine cli) {
+      return Optional.of(option.has(cli));
+    }
+
+    @Override
+    public String getShortCode() {
+      return "s";
+    }
+  })
+  ,DIFF_MANIFEST(new OptionHandler<LoadOptions>() {
+    @Nullable
+    @Override
+    public Option apply(@Nullable String s) {
+      Option o = new Option(s, "diff_manifest", true, "The manifest of the previous load, on HDFS or local disk." +
+              "  If given, only added or changed indicators are written and indicators which are no longer present are deleted." +
+              "  The manifest is replaced once the load completes.  Only supported by the LOCAL import mode.");
+      o.setArgName("FILE");
+      o.setRequired(false);
+      return o;
+    }
+
+    @Override
+    public Optional<Object> getValue(LoadOptions option, CommandLine cli) {
+      return Optional.ofNullable(option.get(cli)).map(String::trim);
+    }
+
+    @Override
+    public String getShortCode() {
+      return "d";
+    }
+  })
   ;
   Option option;
   String shortCode;
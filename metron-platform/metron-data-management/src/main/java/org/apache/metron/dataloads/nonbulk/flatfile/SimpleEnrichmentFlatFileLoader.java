@@ -53,6 +53,9 @@ public class SimpleEnrichmentFlatFileLoader {
             FileUtils.readFileToString(new File(LoadOptions.EXTRACTOR_CONFIG.get(cli).trim()))
     );
     ImportStrategy strategy = (ImportStrategy) config.get(LoadOptions.IMPORT_MODE).get();
+    if(config.get(LoadOptions.DIFF_MANIFEST).isPresent() && strategy != ImportStrategy.LOCAL) {
+      throw new IllegalArgumentException("A diff manifest is only supported by the LOCAL import mode, not " + strategy);
+    }
     strategy.getImporter().importData(config, handler, hadoopConfig);
 
     SensorEnrichmentUpdateConfig sensorEnrichmentUpdateConfig = null;
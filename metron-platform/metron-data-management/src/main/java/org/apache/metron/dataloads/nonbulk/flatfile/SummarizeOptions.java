@@ -25,6 +25,7 @@ import org.apache.commons.cli.Options;
 import org.apache.metron.common.utils.cli.CLIOptions;
 import org.apache.metron.common.utils.cli.OptionHandler;
 import org.apache.metron.dataloads.nonbulk.flatfile.importer.Summarizers;
+import org.apache.metron.dataloads.nonbulk.flatfile.writer.OutputFormats;
 import org.apache.metron.dataloads.nonbulk.flatfile.writer.Writers;
 
 import javax.annotation.Nullable;
@@ -63,6 +64,30 @@ public enum SummarizeOptions implements CLIOptions<SummarizeOptions> {
       return "om";
     }
   })
+  , OUTPUT_FORMAT(new OptionHandler<SummarizeOptions>() {
+    @Nullable
+    @Override
+    public Option apply(@Nullable String s) {
+      Option o = new Option(s, "output_format", true
+                           , "The output format to use: " + Joiner.on(",").join(OutputFormats.values())
+                           + ".  Default: " + OutputFormats.SERIALIZED
+                           );
+      o.setArgName("FORMAT");
+      o.setRequired(false);
+      return o;
+    }
+
+    @Override
+    public Optional<Object> getValue(SummarizeOptions option, CommandLine cli) {
+      String format = option.get(cli);
+      return Optional.of(OutputFormats.getFormat(format).orElse(OutputFormats.SERIALIZED));
+    }
+
+    @Override
+    public String getShortCode() {
+      return "of";
+    }
+  })
   ,EXTRACTOR_CONFIG(new CommonOptions.ExtractorConfig<>())
   ,LOG4J_PROPERTIES(new CommonOptions.Log4jProperties<>())
   ,NUM_THREADS(new CommonOptions.NumThreads<>())
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.importer;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.EnumMap;
+import java.util.Optional;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.mapreduce.LoadIncrementalHFiles;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.metron.dataloads.nonbulk.flatfile.LoadOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes HFiles and bulk loads them, for the bulk import strategies.
+ */
+public class BulkLoadUtils {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private BulkLoadUtils() {
+  }
+
+  /**
+   * @return True if HFiles are written to a directory of our choosing, which is removed once loaded.
+   */
+  public static boolean isTemporaryOutput(EnumMap<LoadOptions, Optional<Object>> config) {
+    return !config.getOrDefault(LoadOptions.HFILE_OUTPUT, Optional.empty()).isPresent();
+  }
+
+  /**
+   * @return True if the HFiles are only written, rather than written and bulk loaded.
+   */
+  public static boolean isSkipLoad(EnumMap<LoadOptions, Optional<Object>> config) {
+    return (boolean) config.getOrDefault(LoadOptions.SKIP_BULK_LOAD, Optional.of(false)).orElse(false);
+  }
+
+  /**
+   * @return The directory to write HFiles to, which must not exist.
+   */
+  public static Path getOutputDir(EnumMap<LoadOptions, Optional<Object>> config, Configuration hadoopConfig, String table)
+          throws IOException {
+    Path ret;
+    if (isTemporaryOutput(config)) {
+      String tmp = hadoopConfig.get("hbase.fs.tmp.dir", "/tmp");
+      ret = new Path(tmp, "metron-bulkload/" + table.replace(':', '_') + "_" + System.currentTimeMillis());
+    } else {
+      ret = new Path((String) config.get(LoadOptions.HFILE_OUTPUT).get());
+    }
+    if (ret.getFileSystem(hadoopConfig).exists(ret)) {
+      throw new IllegalStateException("HFile output directory " + ret + " already exists");
+    }
+    return ret;
+  }
+
+  /**
+   * Creates a writer for a new HFile, with the settings of the column family it is loaded into.
+   *
+   * @param familyDir The directory, named after the column family, to write the HFile to.
+   */
+  public static StoreFile.Writer createWriter(Configuration hadoopConfig, FileSystem fs, Path familyDir
+          , HColumnDescriptor family) throws IOException {
+    HFileContext context = new HFileContextBuilder()
+            .withCompression(family.getCompressionType())
+            .withDataBlockEncoding(family.getDataBlockEncoding())
+            .withBlockSize(family.getBlocksize())
+            .build();
+    // the files are not read by this process, so are not cached
+    Configuration noCache = new Configuration(hadoopConfig);
+    noCache.setFloat("hfile.block.cache.size", 0.0f);
+    return new StoreFile.WriterBuilder(hadoopConfig, new CacheConfig(noCache), fs)
+            .withOutputDir(familyDir)
+            .withBloomType(family.getBloomFilterType())
+            .withComparator(KeyValue.COMPARATOR)
+            .withFileContext(context)
+            .build();
+  }
+
+  /**
+   * Closes an HFile, adding the metadata that bulk loaded files carry.
+   */
+  public static void close(StoreFile.Writer writer) throws IOException {
+    writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY, Bytes.toBytes(System.currentTimeMillis()));
+    writer.appendFileInfo(StoreFile.BULKLOAD_TASK_KEY, Bytes.toBytes("metron"));
+    writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(true));
+    writer.appendFileInfo(StoreFile.EXCLUDE_FROM_MINOR_COMPACTION_KEY, Bytes.toBytes(false));
+    writer.appendTrackedTimestampsToMetadata();
+    writer.close();
+  }
+
+  /**
+   * Records the number and size of the HFiles written.
+   */
+  public static void recordOutput(ImportMetrics metrics, Configuration hadoopConfig, Path output) throws IOException {
+    FileSystem fs = output.getFileSystem(hadoopConfig);
+    long files = 0;
+    long bytes = 0;
+    if (fs.exists(output)) {
+      RemoteIterator<LocatedFileStatus> it = fs.listFiles(output, true);
+      while (it.hasNext()) {
+        LocatedFileStatus status = it.next();
+        // skip markers such as _SUCCESS, which are not loaded
+        if (!status.getPath().getName().startsWith("_") && !status.getPath().getName().startsWith(".")) {
+          files++;
+          bytes += status.getLen();
+        }
+      }
+    }
+    metrics.setOutput(files, bytes);
+  }
+
+  /**
+   * Bulk loads the HFiles in a directory into a table.  HFiles which span regions are split first.
+   */
+  public static void bulkLoad(Connection connection, TableName tableName, Path output, Configuration hadoopConfig)
+          throws Exception {
+    LOG.info("Bulk loading {} into {}", output, tableName);
+    try (Admin admin = connection.getAdmin();
+         Table table = connection.getTable(tableName);
+         RegionLocator locator = connection.getRegionLocator(tableName)) {
+      new LoadIncrementalHFiles(hadoopConfig).doBulkLoad(output, admin, table, locator);
+    }
+  }
+
+  /**
+   * Finishes an import: bulk loads the HFiles unless asked not to, and removes a temporary output directory
+   * once loaded.
+   */
+  public static void finish(EnumMap<LoadOptions, Optional<Object>> config, Configuration hadoopConfig
+          , Connection connection, TableName tableName, Path output, ImportMetrics metrics) throws IOException {
+    recordOutput(metrics, hadoopConfig, output);
+    if (isSkipLoad(config)) {
+      LOG.info("Skipping bulk load; HFiles are in {}", output);
+      if (!(boolean) config.getOrDefault(LoadOptions.QUIET, Optional.of(false)).orElse(false)) {
+        System.out.println("HFiles written to " + output);
+      }
+      return;
+    }
+    metrics.time("load", () -> bulkLoad(connection, tableName, output, hadoopConfig));
+    if (isTemporaryOutput(config)) {
+      output.getFileSystem(hadoopConfig).delete(output, true);
+    }
+  }
+}
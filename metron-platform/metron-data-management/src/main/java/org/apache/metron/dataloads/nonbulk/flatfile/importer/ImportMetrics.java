@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.importer;
+
+import java.lang.invoke.MethodHandles;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the throughput of an import: how much was read and written, and how long each phase took.
+ */
+public class ImportMetrics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * A phase of the import.
+   */
+  @FunctionalInterface
+  public interface Phase {
+    void run() throws Exception;
+  }
+
+  private final LongAdder records = new LongAdder();
+  private final LongAdder cells = new LongAdder();
+  private long files;
+  private long bytes;
+  private final Map<String, Long> phases = new LinkedHashMap<>();
+
+  public void addRecords(long n) {
+    records.add(n);
+  }
+
+  public void addCells(long n) {
+    cells.add(n);
+  }
+
+  public void setOutput(long files, long bytes) {
+    this.files = files;
+    this.bytes = bytes;
+  }
+
+  public long getRecords() {
+    return records.sum();
+  }
+
+  public long getCells() {
+    return cells.sum();
+  }
+
+  public long getFiles() {
+    return files;
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return The duration of each phase which has run, in milliseconds.
+   */
+  public Map<String, Long> getPhases() {
+    return phases;
+  }
+
+  /**
+   * Runs and times a phase of the import.
+   *
+   * @param name The name of the phase.
+   * @param phase The phase.
+   * @throws IllegalStateException If the phase fails.
+   */
+  public void time(String name, Phase phase) {
+    long start = System.nanoTime();
+    try {
+      phase.run();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to " + name + ": " + e.getMessage(), e);
+    } finally {
+      phases.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+  }
+
+  @Override
+  public String toString() {
+    long total = phases.values().stream().mapToLong(Long::longValue).sum();
+    StringBuilder ret = new StringBuilder();
+    ret.append(String.format("Imported %,d records as %,d cells in %,d HFiles (%,d bytes) in %,d ms"
+            , getRecords(), getCells(), files, bytes, total));
+    if (total > 0) {
+      ret.append(String.format(" (%,.0f records/s, %,.0f cells/s)"
+              , 1000.0 * getRecords() / total, 1000.0 * getCells() / total));
+    }
+    for (Map.Entry<String, Long> phase : phases.entrySet()) {
+      ret.append(String.format("%n  %s: %,d ms", phase.getKey(), phase.getValue()));
+    }
+    return ret.toString();
+  }
+
+  /**
+   * Logs the metrics, and prints them unless quiet.
+   */
+  public void report(boolean quiet) {
+    LOG.info("{}", this);
+    if (!quiet) {
+      System.out.println(this);
+    }
+  }
+}
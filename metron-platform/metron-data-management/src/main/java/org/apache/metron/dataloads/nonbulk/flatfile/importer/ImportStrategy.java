@@ -21,7 +21,9 @@ import java.util.Optional;
 
 public enum ImportStrategy {
   LOCAL(new LocalImporter()),
-  MR(MapReduceImporter.INSTANCE)
+  MR(MapReduceImporter.INSTANCE),
+  LOCAL_BULK(new LocalBulkImporter()),
+  MR_BULK(MapReduceBulkImporter.INSTANCE)
   ;
   private Importer importer;
 
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.importer;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+
+/**
+ * A record of what a load wrote to HBase: the row key of each indicator and a hash of its content.
+ *
+ * <p>Given the manifest of the previous load, a load can tell which indicators were added, which changed
+ * and which disappeared, and so write only the difference.  This assumes that the loader is the only
+ * writer of the indicators it loads.  Removing the manifest forces a full load.
+ */
+public class LoadManifest {
+
+  /**
+   * How an indicator compares to the previous load.
+   */
+  public enum Change {
+    ADDED,
+    CHANGED,
+    UNCHANGED
+  }
+
+  static final int MAGIC = 0x4D4C4D46;
+  static final int VERSION = 1;
+
+  private final Map<ByteBuffer, Long> previous;
+  private final Map<ByteBuffer, Long> current = new ConcurrentHashMap<>();
+  private final LongAdder added = new LongAdder();
+  private final LongAdder changed = new LongAdder();
+  private final LongAdder unchanged = new LongAdder();
+
+  LoadManifest(Map<ByteBuffer, Long> previous) {
+    this.previous = previous;
+  }
+
+  /**
+   * Reads the manifest of the previous load.
+   *
+   * @param fs The file system holding the manifest.
+   * @param path The manifest.  If it does not exist, every indicator will be treated as added.
+   * @return The manifest.
+   * @throws IOException If the manifest could not be read.
+   */
+  public static LoadManifest read(FileSystem fs, Path path) throws IOException {
+    if (!fs.exists(path)) {
+      return new LoadManifest(Collections.emptyMap());
+    }
+    try (DataInputStream in = new DataInputStream(fs.open(path))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(String.format("%s is not a version %s load manifest", path, VERSION));
+      }
+      int size = in.readInt();
+      Map<ByteBuffer, Long> previous = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+      for (int i = 0; i < size; ++i) {
+        byte[] row = new byte[in.readInt()];
+        in.readFully(row);
+        previous.put(ByteBuffer.wrap(row), in.readLong());
+      }
+      return new LoadManifest(previous);
+    }
+  }
+
+  /**
+   * Writes the indicators seen in this load as the manifest for the next.  The manifest is written
+   * to a temporary file first, so a failed write leaves the previous manifest in place.
+   *
+   * @param fs The file system to hold the manifest.
+   * @param path The manifest.
+   * @throws IOException If the manifest could not be written.
+   */
+  public void write(FileSystem fs, Path path) throws IOException {
+    Path tmp = new Path(path.getParent(), "." + path.getName() + ".tmp");
+    try (DataOutputStream out = fs.create(tmp, true)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(current.size());
+      for (Map.Entry<ByteBuffer, Long> entry : current.entrySet()) {
+        out.writeInt(entry.getKey().remaining());
+        out.write(entry.getKey().array());
+        out.writeLong(entry.getValue());
+      }
+    }
+    if (fs.exists(path) && !fs.delete(path, false)) {
+      throw new IOException("Unable to replace load manifest " + path);
+    }
+    if (!fs.rename(tmp, path)) {
+      throw new IOException("Unable to rename " + tmp + " to " + path);
+    }
+  }
+
+  /**
+   * Records an indicator written by this load.  It may be called from several threads at once.
+   *
+   * @param put The indicator.
+   * @return How the indicator compares to the previous load.  Unchanged indicators need not be written.
+   */
+  public Change record(Put put) {
+    ByteBuffer row = ByteBuffer.wrap(put.getRow());
+    long hash = hash(put);
+    current.put(row, hash);
+    Long last = previous.get(row);
+    if (last == null) {
+      added.increment();
+      return Change.ADDED;
+    } else if (last != hash) {
+      changed.increment();
+      return Change.CHANGED;
+    }
+    unchanged.increment();
+    return Change.UNCHANGED;
+  }
+
+  /**
+   * @return The row keys of the indicators in the previous load which were not seen in this one.
+   */
+  public List<byte[]> getRemoved() {
+    List<byte[]> ret = new ArrayList<>();
+    for (ByteBuffer row : previous.keySet()) {
+      if (!current.containsKey(row)) {
+        ret.add(row.array());
+      }
+    }
+    return ret;
+  }
+
+  public long getAdded() {
+    return added.sum();
+  }
+
+  public long getChanged() {
+    return changed.sum();
+  }
+
+  public long getUnchanged() {
+    return unchanged.sum();
+  }
+
+  /**
+   * @return A hash of the columns written by a put.  The row key is not included.
+   */
+  static long hash(Put put) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (Map.Entry<byte[], List<Cell>> family : put.getFamilyCellMap().entrySet()) {
+      hasher.putInt(family.getKey().length).putBytes(family.getKey());
+      for (Cell cell : family.getValue()) {
+        byte[] qualifier = CellUtil.cloneQualifier(cell);
+        byte[] value = CellUtil.cloneValue(cell);
+        hasher.putInt(qualifier.length).putBytes(qualifier);
+        hasher.putInt(value.length).putBytes(value);
+      }
+    }
+    return hasher.hash().asLong();
+  }
+}
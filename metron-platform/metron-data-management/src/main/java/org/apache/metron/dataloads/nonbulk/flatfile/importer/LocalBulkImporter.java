@@ -0,0 +1,420 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.importer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.metron.dataloads.extractor.Extractor;
+import org.apache.metron.dataloads.extractor.ExtractorHandler;
+import org.apache.metron.dataloads.nonbulk.flatfile.LoadOptions;
+import org.apache.metron.enrichment.converter.EnrichmentConverter;
+import org.apache.metron.enrichment.converter.HbaseConverter;
+import org.apache.metron.enrichment.lookup.LookupKV;
+
+/**
+ * Imports data by writing HFiles and bulk loading them, rather than writing through the HBase client.
+ *
+ * <p>Each thread extracts cells into a buffer which, when full, is sorted and spilled to a run on local
+ * disk.  Once the input is read, the runs are merged into HFiles, which are split at region boundaries
+ * so that they can be loaded without being rewritten.  Cells with the same key are written once, with the value
+ * extracted last, as it would be if the cells were written through the HBase client.
+ */
+public class LocalBulkImporter extends AbstractLocalImporter<LoadOptions, LocalBulkImporter.SortingState> {
+
+  /**
+   * The number of bytes of cells each thread buffers before spilling them to disk.
+   */
+  public static final String SPILL_BYTES_KEY = "metron.bulkload.spill.bytes";
+  public static final long SPILL_BYTES_DEFAULT = 64L * 1024 * 1024;
+
+  /**
+   * The size at which an HFile is rolled, if it does not reach a region boundary first.
+   */
+  public static final String MAX_FILE_SIZE_KEY = "hbase.hregion.max.filesize";
+  public static final long MAX_FILE_SIZE_DEFAULT = 10L * 1024 * 1024 * 1024;
+
+  /**
+   * A cell, along with the order in which it was extracted.
+   */
+  private static class SequencedKeyValue {
+    private final KeyValue kv;
+    private final long sequence;
+
+    private SequencedKeyValue(KeyValue kv, long sequence) {
+      this.kv = kv;
+      this.sequence = sequence;
+    }
+
+    private static int compare(SequencedKeyValue a, SequencedKeyValue b) {
+      int ret = KeyValue.COMPARATOR.compare(a.kv, b.kv);
+      return ret != 0 ? ret : Long.compare(a.sequence, b.sequence);
+    }
+  }
+
+  /**
+   * A sorted run of cells on local disk.
+   */
+  private static class Run {
+    private final File file;
+    private final long size;
+
+    private Run(File file, long size) {
+      this.file = file;
+      this.size = size;
+    }
+  }
+
+  /**
+   * The cells extracted by a thread.
+   */
+  public static class SortingState {
+    private final Extractor extractor;
+    private final HbaseConverter converter;
+    private final String cf;
+    private final long timestamp;
+    private final long spillBytes;
+    private final File runDir;
+    private final AtomicLong sequence;
+    private final ImportMetrics metrics;
+    private final List<SequencedKeyValue> buffer = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private long bufferBytes;
+
+    public SortingState(Extractor extractor, HbaseConverter converter, String cf, long timestamp
+            , long spillBytes, File runDir, AtomicLong sequence, ImportMetrics metrics) {
+      this.extractor = extractor;
+      this.converter = converter;
+      this.cf = cf;
+      this.timestamp = timestamp;
+      this.spillBytes = spillBytes;
+      this.runDir = runDir;
+      this.sequence = sequence;
+      this.metrics = metrics;
+    }
+
+    public void extract(String line) throws IOException {
+      for (LookupKV kv : extractor.extract(line)) {
+        Put put = converter.toPut(cf, kv.getKey(), kv.getValue());
+        for (List<Cell> cells : put.getFamilyCellMap().values()) {
+          for (Cell cell : cells) {
+            // cells have no timestamp until they reach a region server, so they are all given the time of the import
+            KeyValue keyValue = new KeyValue(CellUtil.cloneRow(cell), CellUtil.cloneFamily(cell)
+                    , CellUtil.cloneQualifier(cell), timestamp, CellUtil.cloneValue(cell));
+            buffer.add(new SequencedKeyValue(keyValue, sequence.getAndIncrement()));
+            bufferBytes += keyValue.heapSize();
+          }
+        }
+      }
+      metrics.addRecords(1);
+      if (bufferBytes >= spillBytes) {
+        spill();
+      }
+    }
+
+    /**
+     * Sorts the buffered cells and writes them to a run.
+     */
+    public void spill() throws IOException {
+      if (buffer.isEmpty()) {
+        return;
+      }
+      Collections.sort(buffer, SequencedKeyValue::compare);
+      File file = File.createTempFile("run", ".kv", runDir);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+        for (SequencedKeyValue cell : buffer) {
+          out.writeLong(cell.sequence);
+          out.writeInt(cell.kv.getLength());
+          out.write(cell.kv.getBuffer(), cell.kv.getOffset(), cell.kv.getLength());
+        }
+      }
+      runs.add(new Run(file, buffer.size()));
+      buffer.clear();
+      bufferBytes = 0;
+    }
+  }
+
+  /**
+   * Reads the cells of a run in order.
+   */
+  private static class RunReader implements Closeable {
+    private final DataInputStream in;
+    private long remaining;
+    private SequencedKeyValue current;
+
+    private RunReader(Run run) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), 1 << 16));
+      this.remaining = run.size;
+    }
+
+    /**
+     * @return False if there are no more cells.
+     */
+    private boolean advance() throws IOException {
+      if (remaining-- <= 0) {
+        current = null;
+        return false;
+      }
+      long sequence = in.readLong();
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      current = new SequencedKeyValue(new KeyValue(bytes), sequence);
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Writes sorted cells to HFiles, starting a new file at each region boundary or once a file is full.  Of the
+   * cells with the same key, only the last appended is written.
+   */
+  private static class HFileSink implements Closeable {
+    private final Configuration hadoopConfig;
+    private final FileSystem fs;
+    private final Path familyDir;
+    private final HColumnDescriptor family;
+    private final byte[][] startKeys;
+    private final long maxFileSize;
+    private int region;
+    private StoreFile.Writer writer;
+    private long written;
+    private KeyValue last;
+    private KeyValue pending;
+
+    private HFileSink(Configuration hadoopConfig, Path output, HColumnDescriptor family, byte[][] startKeys)
+            throws IOException {
+      this.hadoopConfig = hadoopConfig;
+      this.familyDir = new Path(output, family.getNameAsString());
+      this.fs = familyDir.getFileSystem(hadoopConfig);
+      this.family = family;
+      this.startKeys = startKeys;
+      this.maxFileSize = hadoopConfig.getLong(MAX_FILE_SIZE_KEY, MAX_FILE_SIZE_DEFAULT);
+    }
+
+    /**
+     * @return False if the cell has the same key as the last, so replaces it.
+     */
+    private boolean append(KeyValue kv) throws IOException {
+      if (pending != null && KeyValue.COMPARATOR.compare(pending, kv) == 0) {
+        pending = kv;
+        return false;
+      }
+      if (pending != null) {
+        write(pending);
+      }
+      pending = kv;
+      return true;
+    }
+
+    private void write(KeyValue kv) throws IOException {
+      boolean newRow = last == null || !CellUtil.matchingRow(last, kv);
+      boolean newRegion = false;
+      while (region + 1 < startKeys.length && Bytes.compareTo(kv.getRowArray(), kv.getRowOffset(), kv.getRowLength()
+              , startKeys[region + 1], 0, startKeys[region + 1].length) >= 0) {
+        region++;
+        newRegion = true;
+      }
+      if (writer != null && (newRegion || (newRow && written >= maxFileSize))) {
+        BulkLoadUtils.close(writer);
+        writer = null;
+      }
+      if (writer == null) {
+        writer = BulkLoadUtils.createWriter(hadoopConfig, fs, familyDir, family);
+        written = 0;
+      }
+      writer.append(kv);
+      written += kv.getLength();
+      last = kv;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (pending != null) {
+        write(pending);
+        pending = null;
+      }
+      if (writer != null) {
+        BulkLoadUtils.close(writer);
+        writer = null;
+      }
+    }
+  }
+
+  private List<SortingState> states;
+  private File runDir;
+  private AtomicLong sequence;
+  private ImportMetrics metrics;
+  private long timestamp;
+
+  @Override
+  public synchronized void importData(final EnumMap<LoadOptions, Optional<Object>> config
+                                     , final ExtractorHandler handler
+                                     , final Configuration hadoopConfig
+                                     ) throws IOException {
+    validateState(config, handler);
+    String tableName = (String) config.get(LoadOptions.HBASE_TABLE).get();
+    String cf = (String) config.get(LoadOptions.HBASE_CF).get();
+    TableName name = TableName.valueOf(tableName);
+    Path output = BulkLoadUtils.getOutputDir(config, hadoopConfig, tableName);
+    states = Collections.synchronizedList(new ArrayList<>());
+    runDir = Files.createTempDirectory("metron-bulkload").toFile();
+    sequence = new AtomicLong();
+    metrics = new ImportMetrics();
+    timestamp = System.currentTimeMillis();
+    try (Connection connection = ConnectionFactory.createConnection(hadoopConfig)) {
+      HColumnDescriptor family;
+      byte[][] startKeys;
+      try (Table table = connection.getTable(name); RegionLocator locator = connection.getRegionLocator(name)) {
+        family = table.getTableDescriptor().getFamily(Bytes.toBytes(cf));
+        if (family == null) {
+          throw new IllegalStateException("Table " + tableName + " has no column family " + cf);
+        }
+        startKeys = locator.getStartKeys();
+      }
+
+      metrics.time("extract", () -> super.importData(config, handler, hadoopConfig));
+      List<Run> runs = new ArrayList<>();
+      metrics.time("sort", () -> {
+        for (SortingState state : states) {
+          state.spill();
+          runs.addAll(state.runs);
+        }
+      });
+      metrics.time("write", () -> merge(runs, new HFileSink(hadoopConfig, output, family, startKeys)));
+      BulkLoadUtils.finish(config, hadoopConfig, connection, name, output, metrics);
+    } finally {
+      FileUtils.deleteQuietly(runDir);
+      states = null;
+    }
+    metrics.report(isQuiet(config));
+  }
+
+  private void merge(List<Run> runs, HFileSink sink) throws IOException {
+    PriorityQueue<RunReader> readers = new PriorityQueue<>(Math.max(runs.size(), 1)
+            , (a, b) -> SequencedKeyValue.compare(a.current, b.current));
+    try {
+      for (Run run : runs) {
+        RunReader reader = new RunReader(run);
+        if (reader.advance()) {
+          readers.add(reader);
+        } else {
+          reader.close();
+        }
+      }
+      while (!readers.isEmpty()) {
+        RunReader reader = readers.poll();
+        if (sink.append(reader.current.kv)) {
+          metrics.addCells(1);
+        }
+        if (reader.advance()) {
+          readers.add(reader);
+        } else {
+          reader.close();
+        }
+      }
+    } finally {
+      sink.close();
+      for (RunReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  @Override
+  protected List<String> getInputs(EnumMap<LoadOptions, Optional<Object>> config) {
+    return (List<String>) config.get(LoadOptions.INPUT).get();
+  }
+
+  @Override
+  protected boolean isQuiet(EnumMap<LoadOptions, Optional<Object>> config) {
+    return (boolean) config.get(LoadOptions.QUIET).get();
+  }
+
+  @Override
+  protected int batchSize(EnumMap<LoadOptions, Optional<Object>> config) {
+    return (int) config.get(LoadOptions.BATCH_SIZE).get();
+  }
+
+  @Override
+  protected int numThreads(EnumMap<LoadOptions, Optional<Object>> config, ExtractorHandler handler) {
+    return (int) config.get(LoadOptions.NUM_THREADS).get();
+  }
+
+  @Override
+  protected void validateState(EnumMap<LoadOptions, Optional<Object>> config, ExtractorHandler handler) {
+    assertOption(config, LoadOptions.HBASE_CF);
+    assertOption(config, LoadOptions.HBASE_TABLE);
+  }
+
+  @Override
+  protected ThreadLocal<SortingState> createState(EnumMap<LoadOptions, Optional<Object>> config
+                                                 , Configuration hadoopConfig
+                                                 , final ExtractorHandler handler
+                                                 ) {
+    String cf = (String) config.get(LoadOptions.HBASE_CF).get();
+    long spillBytes = hadoopConfig.getLong(SPILL_BYTES_KEY, SPILL_BYTES_DEFAULT);
+    return new ThreadLocal<SortingState>() {
+      @Override
+      protected SortingState initialValue() {
+        SortingState state = new SortingState(handler.getExtractor(), new EnrichmentConverter(), cf, timestamp
+                , spillBytes, runDir, sequence, metrics);
+        states.add(state);
+        return state;
+      }
+    };
+  }
+
+  @Override
+  protected void extract(SortingState state, String line) throws IOException {
+    state.extract(line);
+  }
+}
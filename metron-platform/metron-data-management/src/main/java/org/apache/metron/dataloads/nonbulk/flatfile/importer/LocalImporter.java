@@ -23,12 +23,17 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Optional;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.metron.dataloads.extractor.Extractor;
 import org.apache.metron.dataloads.extractor.ExtractorHandler;
 import org.apache.metron.dataloads.nonbulk.flatfile.HBaseExtractorState;
 import org.apache.metron.dataloads.nonbulk.flatfile.LoadOptions;
+import org.apache.metron.dataloads.nonbulk.flatfile.writer.InvalidWriterOutput;
 import org.apache.metron.enrichment.converter.EnrichmentConverter;
 import org.apache.metron.enrichment.converter.HbaseConverter;
 import org.apache.metron.enrichment.lookup.LookupKV;
@@ -41,6 +46,7 @@ public class LocalImporter extends AbstractLocalImporter<LoadOptions, HBaseExtra
   }
 
   HTableProviderRetriever provider;
+  private LoadManifest manifest;
 
   public LocalImporter(HTableProviderRetriever provider) {
     this.provider = provider;
@@ -51,6 +57,60 @@ public class LocalImporter extends AbstractLocalImporter<LoadOptions, HBaseExtra
   }
 
 
+  /**
+   * Imports the data.  If a manifest of the previous load is given, only the indicators which were added
+   * or changed since then are written, and those which are no longer present are deleted.
+   */
+  @Override
+  public synchronized void importData(final EnumMap<LoadOptions, Optional<Object>> config
+                                     , final ExtractorHandler handler
+                                     , final Configuration hadoopConfig
+                                     ) throws IOException, InvalidWriterOutput {
+    Optional<Object> manifestPath = config.get(LoadOptions.DIFF_MANIFEST);
+    if (!manifestPath.isPresent()) {
+      super.importData(config, handler, hadoopConfig);
+      return;
+    }
+    Path path = new Path((String) manifestPath.get());
+    FileSystem fs = path.getFileSystem(hadoopConfig);
+    manifest = LoadManifest.read(fs, path);
+    try {
+      super.importData(config, handler, hadoopConfig);
+      long deleted = deleteRemoved(config, hadoopConfig);
+      manifest.write(fs, path);
+      if (!isQuiet(config)) {
+        System.out.println(String.format("Added %d, changed %d and deleted %d indicators; %d were unchanged."
+                , manifest.getAdded(), manifest.getChanged(), deleted, manifest.getUnchanged()));
+      }
+    } finally {
+      manifest = null;
+    }
+  }
+
+  private long deleteRemoved(EnumMap<LoadOptions, Optional<Object>> config, Configuration hadoopConfig) throws IOException {
+    List<byte[]> removed = manifest.getRemoved();
+    if (removed.isEmpty()) {
+      return 0;
+    }
+    int batchSize = batchSize(config);
+    // only the column family being loaded is deleted; other families may hold data that is not ours
+    byte[] cf = Bytes.toBytes((String) config.get(LoadOptions.HBASE_CF).get());
+    try (Table table = provider.retrieve().getTable(hadoopConfig, (String) config.get(LoadOptions.HBASE_TABLE).get())) {
+      List<Delete> deletes = new ArrayList<>(batchSize);
+      for (byte[] row : removed) {
+        deletes.add(new Delete(row).addFamily(cf));
+        if (deletes.size() >= batchSize) {
+          table.delete(deletes);
+          deletes.clear();
+        }
+      }
+      if (!deletes.isEmpty()) {
+        table.delete(deletes);
+      }
+    }
+    return removed.size();
+  }
+
   @Override
   protected List<String> getInputs(EnumMap<LoadOptions, Optional<Object>> config) {
     return (List<String>) config.get(LoadOptions.INPUT).get();
@@ -102,7 +162,12 @@ public class LocalImporter extends AbstractLocalImporter<LoadOptions, HBaseExtra
   @Override
   protected void extract(HBaseExtractorState state, String line) throws IOException {
     HBaseExtractorState es = state;
-    es.getTable().put(toPut(line, es.getExtractor(), state.getCf(), es.getConverter()));
+    List<Put> puts = toPut(line, es.getExtractor(), state.getCf(), es.getConverter());
+    LoadManifest diff = manifest;
+    if (diff != null) {
+      puts.removeIf(put -> diff.record(put) == LoadManifest.Change.UNCHANGED);
+    }
+    es.getTable().put(puts);
   }
 
   public List<Put> toPut(String line
@@ -27,6 +27,7 @@ import org.apache.metron.dataloads.extractor.ExtractorHandler;
 import org.apache.metron.dataloads.extractor.StatefulExtractor;
 import org.apache.metron.dataloads.nonbulk.flatfile.SummarizeOptions;
 import org.apache.metron.dataloads.nonbulk.flatfile.writer.InvalidWriterOutput;
+import org.apache.metron.dataloads.nonbulk.flatfile.writer.OutputFormats;
 import org.apache.metron.dataloads.nonbulk.flatfile.writer.Writer;
 import org.apache.metron.dataloads.nonbulk.flatfile.writer.Writers;
 
@@ -118,6 +119,7 @@ public class LocalSummarizer extends AbstractLocalImporter<SummarizeOptions, Loc
   @Override
   public void importData(EnumMap<SummarizeOptions, Optional<Object>> config, ExtractorHandler handler, Configuration hadoopConfig) throws IOException, InvalidWriterOutput {
     Writer writer = (Writer) config.get(SummarizeOptions.OUTPUT_MODE).get();
+    OutputFormats format = (OutputFormats) config.getOrDefault(SummarizeOptions.OUTPUT_FORMAT, Optional.of(OutputFormats.SERIALIZED)).get();
     Optional<String> fileName = Optional.ofNullable((String)config.get(SummarizeOptions.OUTPUT).orElse(null));
     writer.validate(fileName, hadoopConfig);
     super.importData(config, handler, hadoopConfig);
@@ -133,7 +135,7 @@ public class LocalSummarizer extends AbstractLocalImporter<SummarizeOptions, Loc
       }
       finalState = extractor.mergeStates(states);
     }
-    writer.write(finalState, fileName, hadoopConfig);
+    format.write(writer, finalState, fileName, hadoopConfig);
   }
 
   @Override
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.importer;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Optional;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.mapreduce.HFileOutputFormat2;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.metron.dataloads.extractor.ExtractorHandler;
+import org.apache.metron.dataloads.nonbulk.flatfile.LoadOptions;
+
+/**
+ * Imports data with a MapReduce job which writes HFiles, partitioned and sorted by region, and then bulk
+ * loads them, rather than writing through the HBase client.
+ */
+public enum MapReduceBulkImporter implements Importer<LoadOptions> {
+  INSTANCE
+  ;
+
+  @Override
+  public void importData(EnumMap<LoadOptions, Optional<Object>> config
+                        , ExtractorHandler handler
+                        , Configuration hadoopConfig
+                        ) throws IOException {
+    String tableName = (String) config.get(LoadOptions.HBASE_TABLE).get();
+    TableName name = TableName.valueOf(tableName);
+    Path output = BulkLoadUtils.getOutputDir(config, hadoopConfig, tableName);
+    ImportMetrics metrics = new ImportMetrics();
+    Job job = MapReduceImporter.createJob("MapReduceBulkImporter", config, handler, hadoopConfig);
+    job.setMapOutputKeyClass(ImmutableBytesWritable.class);
+    job.setMapOutputValueClass(Put.class);
+    try (Connection connection = ConnectionFactory.createConnection(hadoopConfig)) {
+      try (Table table = connection.getTable(name); RegionLocator locator = connection.getRegionLocator(name)) {
+        // sorts the puts into a partition per region
+        HFileOutputFormat2.configureIncrementalLoad(job, table, locator);
+      }
+      FileOutputFormat.setOutputPath(job, output);
+      metrics.time("write", () -> {
+        if (!job.waitForCompletion(true)) {
+          throw new IllegalStateException("Job " + job.getJobName() + " failed");
+        }
+      });
+      metrics.addRecords(job.getCounters().findCounter(TaskCounter.MAP_INPUT_RECORDS).getValue());
+      metrics.addCells(job.getCounters().findCounter(TaskCounter.REDUCE_OUTPUT_RECORDS).getValue());
+      BulkLoadUtils.finish(config, hadoopConfig, connection, name, output, metrics);
+    }
+    metrics.report((boolean) config.getOrDefault(LoadOptions.QUIET, Optional.of(false)).orElse(false));
+  }
+}
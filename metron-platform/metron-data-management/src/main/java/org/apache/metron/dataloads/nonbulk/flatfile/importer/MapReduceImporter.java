@@ -50,29 +50,43 @@ public enum MapReduceImporter implements Importer<LoadOptions> {
                         , Configuration hadoopConfig
                         ) throws IOException {
     String table = (String) config.get(LoadOptions.HBASE_TABLE).get();
+    Job job = createJob("MapReduceImporter", config, handler, hadoopConfig);
+    job.setOutputFormatClass(TableOutputFormat.class);
+    job.getConfiguration().set(TableOutputFormat.OUTPUT_TABLE, table);
+    job.setOutputKeyClass(ImmutableBytesWritable.class);
+    job.setOutputValueClass(Put.class);
+    job.setNumReduceTasks(0);
+    try {
+      job.waitForCompletion(true);
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to complete job: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Creates a job which maps the input to a Put per extracted key and value.  The job's output is left
+   * to the caller to configure.
+   */
+  static Job createJob(String name
+                      , EnumMap<LoadOptions, Optional<Object>> config
+                      , ExtractorHandler handler
+                      , Configuration hadoopConfig
+                      ) throws IOException {
+    String table = (String) config.get(LoadOptions.HBASE_TABLE).get();
     String cf = (String) config.get(LoadOptions.HBASE_CF).get();
     String extractorConfigContents  = (String) config.get(LoadOptions.EXTRACTOR_CONFIG).get();
     Job job = Job.getInstance(hadoopConfig);
     List<String> inputs = (List<String>) config.get(LoadOptions.INPUT).get();
-    job.setJobName("MapReduceImporter: " + inputs.stream().collect(Collectors.joining(",")) + " => " +  table + ":" + cf);
+    job.setJobName(name + ": " + inputs.stream().collect(Collectors.joining(",")) + " => " +  table + ":" + cf);
     LOG.info("Configuring {}", job.getJobName());
     job.setJarByClass(MapReduceImporter.class);
     job.setMapperClass(org.apache.metron.dataloads.hbase.mr.BulkLoadMapper.class);
-    job.setOutputFormatClass(TableOutputFormat.class);
-    job.getConfiguration().set(TableOutputFormat.OUTPUT_TABLE, table);
     job.getConfiguration().set(BulkLoadMapper.COLUMN_FAMILY_KEY, cf);
     job.getConfiguration().set(BulkLoadMapper.CONFIG_KEY, extractorConfigContents);
     job.getConfiguration().set(BulkLoadMapper.CONVERTER_KEY, EnrichmentConverter.class.getName());
-    job.setOutputKeyClass(ImmutableBytesWritable.class);
-    job.setOutputValueClass(Put.class);
-    job.setNumReduceTasks(0);
     List<Path> paths = inputs.stream().map(p -> new Path(p)).collect(Collectors.toList());
     handler.getInputFormat().set(job, paths, handler.getConfig());
     TableMapReduceUtil.initCredentials(job);
-    try {
-      job.waitForCompletion(true);
-    } catch (Exception e) {
-      throw new IllegalStateException("Unable to complete job: " + e.getMessage(), e);
-    }
+    return job;
   }
 }
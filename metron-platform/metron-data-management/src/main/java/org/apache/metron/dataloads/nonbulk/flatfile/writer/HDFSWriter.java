@@ -23,6 +23,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.metron.enrichment.cache.LookupTableWriter;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -47,4 +48,13 @@ public class HDFSWriter implements Writer {
       stream.flush();
     }
   }
+
+  @Override
+  public void writeLookupTable(Object obj, Optional<String> output, Configuration hadoopConfig) throws IOException {
+    FileSystem fs = FileSystem.get(hadoopConfig);
+    try(FSDataOutputStream stream = fs.create(new Path(output.get()))) {
+      LookupTableWriter.write(obj, stream);
+      stream.flush();
+    }
+  }
 }
@@ -20,6 +20,7 @@ package org.apache.metron.dataloads.nonbulk.flatfile.writer;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.metron.enrichment.cache.LookupTableWriter;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -41,13 +42,25 @@ public class LocalWriter implements Writer {
 
   @Override
   public void write(byte[] obj, Optional<String> output, Configuration hadoopConfig) throws IOException {
-    File outFile = new File(output.get());
-    if(!outFile.getParentFile().exists()) {
-      outFile.getParentFile().mkdirs();
-    }
-    try(FileOutputStream fs = new FileOutputStream(outFile)) {
+    try(FileOutputStream fs = open(output)) {
       IOUtils.write(obj, fs);
       fs.flush();
     }
   }
+
+  @Override
+  public void writeLookupTable(Object obj, Optional<String> output, Configuration hadoopConfig) throws IOException {
+    try(FileOutputStream fs = open(output)) {
+      LookupTableWriter.write(obj, fs);
+      fs.flush();
+    }
+  }
+
+  private FileOutputStream open(Optional<String> output) throws IOException {
+    File outFile = new File(output.get());
+    if(outFile.getParentFile() != null && !outFile.getParentFile().exists()) {
+      outFile.getParentFile().mkdirs();
+    }
+    return new FileOutputStream(outFile);
+  }
 }
@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.writer;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * The formats that a summary object can be written in.
+ */
+public enum OutputFormats {
+  /**
+   * The object is serialized as a whole and deserialized as a whole by OBJECT_GET and ENRICHMENT_OBJECT_GET.
+   */
+  SERIALIZED {
+    @Override
+    public void write(Writer writer, Object obj, Optional<String> output, Configuration hadoopConfig) throws IOException {
+      writer.write(obj, output, hadoopConfig);
+    }
+  },
+  /**
+   * The object, which must be a map with string keys, is written as a lookup table, which ENRICHMENT_OBJECT_GET
+   * memory maps rather than reading onto the heap.
+   */
+  LOOKUP_TABLE {
+    @Override
+    public void write(Writer writer, Object obj, Optional<String> output, Configuration hadoopConfig) throws IOException {
+      if(obj != null) {
+        writer.writeLookupTable(obj, output, hadoopConfig);
+      }
+    }
+  };
+
+  public abstract void write(Writer writer, Object obj, Optional<String> output, Configuration hadoopConfig) throws IOException;
+
+  public static Optional<OutputFormats> getFormat(String formatName) {
+    if(formatName == null) {
+      return Optional.empty();
+    }
+    for(OutputFormats format : values()) {
+      if(format.name().equalsIgnoreCase(formatName.trim())) {
+        return Optional.of(format);
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.metron.dataloads.nonbulk.flatfile.writer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.metron.common.utils.SerDeUtils;
+import org.apache.metron.enrichment.cache.LookupTableWriter;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -31,4 +32,11 @@ public interface Writer {
     }
   }
   void write(byte[] obj, Optional<String> output, Configuration hadoopConfig) throws IOException;
+
+  /**
+   * Writes a map as a lookup table, see {@link LookupTableWriter}.  By default, it is written as any other object.
+   */
+  default void writeLookupTable(Object obj, Optional<String> output, Configuration hadoopConfig) throws IOException {
+    write(obj, output, hadoopConfig);
+  }
 }
@@ -53,4 +53,9 @@ public enum Writers implements Writer {
   public void write(byte[] obj, Optional<String> output, Configuration hadoopConf) throws IOException {
     writer.write(obj, output, hadoopConf);
   }
+
+  @Override
+  public void writeLookupTable(Object obj, Optional<String> output, Configuration hadoopConf) throws IOException {
+    writer.writeLookupTable(obj, output, hadoopConf);
+  }
 }
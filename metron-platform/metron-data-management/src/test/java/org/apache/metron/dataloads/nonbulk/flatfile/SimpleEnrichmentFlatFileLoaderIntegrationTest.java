@@ -26,7 +26,12 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Table;
@@ -35,6 +40,8 @@ import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.metron.common.configuration.ConfigurationsUtils;
 import org.apache.metron.dataloads.extractor.csv.CSVExtractor;
 import org.apache.metron.dataloads.hbase.mr.HBaseUtil;
+import org.apache.metron.dataloads.nonbulk.flatfile.importer.BulkLoadUtils;
+import org.apache.metron.dataloads.nonbulk.flatfile.importer.LocalBulkImporter;
 import org.apache.metron.enrichment.converter.EnrichmentConverter;
 import org.apache.metron.enrichment.converter.EnrichmentKey;
 import org.apache.metron.enrichment.converter.EnrichmentValue;
@@ -52,6 +59,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -63,6 +71,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
@@ -77,6 +86,7 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
   private static CuratorFramework client;
   private static final String tableName = "enrichment";
   private static final String cf = "cf";
+  private static final String otherCf = "other";
   private static final String csvFile="input.csv";
   private static final String extractorJson = "extractor.json";
   private static final String enrichmentJson = "enrichment_config.json";
@@ -86,6 +96,7 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
   private static final File multilineFile= new File("target/sefflt_data_2.csv");
   private static final File multilineZipFile= new File("target/sefflt_data_2.csv.zip");
   private static final File multilineGzFile= new File("target/sefflt_data_2.csv.gz");
+  private static final File duplicatesFile = new File("target/sefflt_duplicates.csv");
   private static final File lineByLineExtractorConfigFile = new File("target/sefflt_extractorConfig_lbl.json");
   private static final File wholeFileExtractorConfigFile = new File("target/sefflt_extractorConfig_wf.json");
   private static final File stellarExtractorConfigFile = new File("target/sefflt_extractorConfig_stellar.json");
@@ -194,7 +205,7 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
     Map.Entry<HBaseTestingUtility, Configuration> kv = HBaseUtil.INSTANCE.create(true);
     config = kv.getValue();
     testUtil = kv.getKey();
-    testTable = testUtil.createTable(Bytes.toBytes(tableName), Bytes.toBytes(cf));
+    testTable = testUtil.createTable(Bytes.toBytes(tableName), new byte[][] { Bytes.toBytes(cf), Bytes.toBytes(otherCf) });
     zookeeperUrl = getZookeeperUrl(config.get("hbase.zookeeper.quorum"), testUtil.getZkCluster().getClientPort());
     setupGlobalConfig(zookeeperUrl);
 
@@ -248,6 +259,14 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
                , StandardOpenOption.CREATE_NEW , StandardOpenOption.TRUNCATE_EXISTING
     );
 
+    if(duplicatesFile.exists()) {
+      duplicatesFile.delete();
+    }
+    Files.write( duplicatesFile.toPath()
+               , "google1.com,1,first\ngoogle2.com,2,only\ngoogle1.com,1,last\n".getBytes(StandardCharsets.UTF_8)
+               , StandardOpenOption.CREATE_NEW , StandardOpenOption.TRUNCATE_EXISTING
+    );
+
     if(multilineFile.exists()) {
       multilineFile.delete();
     }
@@ -297,6 +316,7 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
     HBaseUtil.INSTANCE.teardown(testUtil);
     file1.delete();
     file2.delete();
+    duplicatesFile.delete();
     multilineFile.delete();
     multilineGzFile.delete();
     multilineZipFile.delete();
@@ -351,6 +371,102 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
     assertTrue(results.get(0).getValue().getMetadata().get("host").toString().startsWith("google"));
   }
 
+  @Test
+  public void testLocalBulkLineByLine() throws Exception {
+    String[] argv = {"-c cf", "-t enrichment"
+            , "-e " + lineByLineExtractorConfigFile.getPath()
+            , "-i " + multilineFile.getPath()
+            , "-m LOCAL_BULK"
+            , "-p 2", "-b 128", "-q"
+    };
+    SimpleEnrichmentFlatFileLoader.main(config, argv);
+    EnrichmentConverter converter = new EnrichmentConverter();
+    ResultScanner scanner = testTable.getScanner(Bytes.toBytes(cf));
+    List<LookupKV<EnrichmentKey, EnrichmentValue>> results = new ArrayList<>();
+    for (Result r : scanner) {
+      results.add(converter.fromResult(r, cf));
+      testTable.delete(new Delete(r.getRow()));
+    }
+    assertEquals(NUM_LINES, results.size());
+    assertTrue(results.get(0).getKey().indicator.startsWith("google"));
+    assertEquals(results.get(0).getKey().type, "enrichment");
+    assertEquals(results.get(0).getValue().getMetadata().size(), 2);
+    assertTrue(results.get(0).getValue().getMetadata().get("meta").toString().startsWith("foo"));
+    assertTrue(results.get(0).getValue().getMetadata().get("host").toString().startsWith("google"));
+  }
+
+  @Test
+  public void testLocalBulkKeepsLastDuplicate() throws Exception {
+    // spill after every cell, so that the duplicates are merged from different runs
+    Configuration spillEveryCell = new Configuration(config);
+    spillEveryCell.setLong(LocalBulkImporter.SPILL_BYTES_KEY, 1);
+    for (String mode : new String[] { "LOCAL", "LOCAL_BULK" }) {
+      String[] argv = {"-c cf", "-t enrichment"
+              , "-e " + lineByLineExtractorConfigFile.getPath()
+              , "-i " + duplicatesFile.getPath()
+              , "-m " + mode
+              , "-p 1", "-b 128", "-q"
+      };
+      SimpleEnrichmentFlatFileLoader.main(spillEveryCell, argv);
+      Map<String, Object> meta = new HashMap<>();
+      for (LookupKV<EnrichmentKey, EnrichmentValue> result : readAndClearTable()) {
+        meta.put(result.getKey().indicator, result.getValue().getMetadata().get("meta"));
+      }
+      // both modes keep the value extracted last
+      assertEquals(2, meta.size(), mode);
+      assertEquals("last", meta.get("google1.com"), mode);
+      assertEquals("only", meta.get("google2.com"), mode);
+    }
+  }
+
+  @Test
+  public void testLocalBulkHFileOutput() throws Exception {
+    Path output = new Path("sefflt_hfiles_loaded");
+    FileSystem fs = FileSystem.get(config);
+    fs.delete(output, true);
+    String[] argv = {"-c cf", "-t enrichment"
+            , "-e " + lineByLineExtractorConfigFile.getPath()
+            , "-i " + multilineFile.getPath()
+            , "-m LOCAL_BULK"
+            , "-o " + output
+            , "-p 2", "-b 128", "-q"
+    };
+    SimpleEnrichmentFlatFileLoader.main(config, argv);
+    assertEquals(NUM_LINES, readAndClearTable().size());
+
+    // the directory was given, so it is kept once the HFiles are loaded from it
+    assertTrue(fs.exists(new Path(output, cf)));
+    fs.delete(output, true);
+  }
+
+  @Test
+  public void testLocalBulkSkipBulkLoad() throws Exception {
+    Path output = new Path("sefflt_hfiles_skipped");
+    FileSystem fs = FileSystem.get(config);
+    fs.delete(output, true);
+    String[] argv = {"-c cf", "-t enrichment"
+            , "-e " + lineByLineExtractorConfigFile.getPath()
+            , "-i " + multilineFile.getPath()
+            , "-m LOCAL_BULK"
+            , "-o " + output
+            , "-s"
+            , "-p 2", "-b 128", "-q"
+    };
+    SimpleEnrichmentFlatFileLoader.main(config, argv);
+
+    // the HFiles are written, but not loaded
+    assertTrue(readAndClearTable().isEmpty());
+    assertTrue(fs.listStatus(new Path(output, cf)).length > 0);
+
+    // and may be loaded later
+    TableName name = TableName.valueOf(tableName);
+    try (Connection connection = ConnectionFactory.createConnection(config)) {
+      BulkLoadUtils.bulkLoad(connection, name, output, config);
+    }
+    assertEquals(NUM_LINES, readAndClearTable().size());
+    fs.delete(output, true);
+  }
+
   @Test
   public void testLocalLineByLine_gz() throws Exception {
     String[] argv = {"-c cf", "-t enrichment"
@@ -423,6 +539,58 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
 
   }
 
+  @Test
+  public void testLocalDiffManifest() throws Exception {
+    File manifest = new File("target/sefflt_manifest");
+    manifest.delete();
+    String[] argv = {"-c cf", "-t enrichment"
+            , "-e " + lineByLineExtractorConfigFile.getPath()
+            , "-i " + file1.getPath() + "," + file2.getPath()
+            , "-d " + manifest.getAbsolutePath()
+            , "-p 2", "-b 128", "-q"
+    };
+    SimpleEnrichmentFlatFileLoader.main(config, argv);
+    assertTrue(manifest.exists());
+    EnrichmentConverter converter = new EnrichmentConverter();
+    List<LookupKV<EnrichmentKey, EnrichmentValue>> results = new ArrayList<>();
+    byte[] removedRow = null;
+    for (Result r : testTable.getScanner(Bytes.toBytes(cf))) {
+      LookupKV<EnrichmentKey, EnrichmentValue> result = converter.fromResult(r, cf);
+      results.add(result);
+      if ("google2.com".equals(result.getKey().indicator)) {
+        removedRow = r.getRow();
+      }
+    }
+    assertEquals(2, results.size());
+
+    // the row also has data in another column family, which the loader does not own
+    testTable.put(new Put(removedRow).addColumn(Bytes.toBytes(otherCf), Bytes.toBytes("q"), Bytes.toBytes("v")));
+
+    // google2.com is no longer in the feed, so it is deleted
+    argv = new String[] {"-c cf", "-t enrichment"
+            , "-e " + lineByLineExtractorConfigFile.getPath()
+            , "-i " + file1.getPath()
+            , "-d " + manifest.getAbsolutePath()
+            , "-p 2", "-b 128", "-q"
+    };
+    SimpleEnrichmentFlatFileLoader.main(config, argv);
+    results = new ArrayList<>();
+    for (Result r : testTable.getScanner(Bytes.toBytes(cf))) {
+      results.add(converter.fromResult(r, cf));
+      testTable.delete(new Delete(r.getRow()));
+    }
+    Result other = testTable.get(new Get(removedRow));
+    testTable.delete(new Delete(removedRow));
+    manifest.delete();
+    assertEquals(1, results.size());
+    assertEquals("google1.com", results.get(0).getKey().indicator);
+    assertEquals("foo2", results.get(0).getValue().getMetadata().get("meta"));
+
+    // only the loaded column family of the removed row is deleted
+    assertTrue(other.containsColumn(Bytes.toBytes(otherCf), Bytes.toBytes("q")));
+    assertFalse(other.containsColumn(Bytes.toBytes(cf), EnrichmentValue.VALUE_COLUMN_NAME_B));
+  }
+
   @Test
   public void testMRLineByLine() throws Exception {
     String[] argv = {"-c cf", "-t enrichment"
@@ -450,6 +618,40 @@ public class SimpleEnrichmentFlatFileLoaderIntegrationTest {
     assertTrue(results.get(0).getValue().getMetadata().get("host").toString().startsWith("google"));
   }
 
+  @Test
+  public void testMRBulkLineByLine() throws Exception {
+    String[] argv = {"-c cf", "-t enrichment"
+            , "-e " + lineByLineExtractorConfigFile.getPath()
+            , "-i " + multilineFile.getName()
+            , "-m MR_BULK"
+            , "-p 2", "-b 128", "-q"
+    };
+    FileSystem fs = FileSystem.get(config);
+    HBaseUtil.INSTANCE.writeFile(new String(Files.readAllBytes(multilineFile.toPath()),
+        StandardCharsets.UTF_8), new Path(multilineFile.getName()), fs);
+    SimpleEnrichmentFlatFileLoader.main(config, argv);
+    List<LookupKV<EnrichmentKey, EnrichmentValue>> results = readAndClearTable();
+    assertEquals(NUM_LINES, results.size());
+    assertTrue(results.get(0).getKey().indicator.startsWith("google"));
+    assertEquals(results.get(0).getKey().type, "enrichment");
+    assertEquals(results.get(0).getValue().getMetadata().size(), 2);
+    assertTrue(results.get(0).getValue().getMetadata().get("meta").toString().startsWith("foo"));
+    assertTrue(results.get(0).getValue().getMetadata().get("host").toString().startsWith("google"));
+  }
+
+  /**
+   * Reads the indicators in the table, and then deletes them.
+   */
+  private static List<LookupKV<EnrichmentKey, EnrichmentValue>> readAndClearTable() throws Exception {
+    EnrichmentConverter converter = new EnrichmentConverter();
+    List<LookupKV<EnrichmentKey, EnrichmentValue>> results = new ArrayList<>();
+    for (Result r : testTable.getScanner(Bytes.toBytes(cf))) {
+      results.add(converter.fromResult(r, cf));
+      testTable.delete(new Delete(r.getRow()));
+    }
+    return results;
+  }
+
   @Test
   public void stellar_transforms_and_filters_indicators_and_value_metadata() throws Exception {
     String[] argv = {"-c cf", "-t enrichment"
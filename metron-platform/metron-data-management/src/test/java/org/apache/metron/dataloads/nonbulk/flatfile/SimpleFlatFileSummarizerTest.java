@@ -31,11 +31,16 @@ import org.apache.metron.dataloads.nonbulk.flatfile.importer.LocalSummarizer;
 import org.apache.metron.dataloads.nonbulk.flatfile.location.Location;
 import org.apache.metron.dataloads.nonbulk.flatfile.location.RawLocation;
 import org.apache.metron.dataloads.nonbulk.flatfile.writer.InvalidWriterOutput;
+import org.apache.metron.dataloads.nonbulk.flatfile.writer.OutputFormats;
 import org.apache.metron.dataloads.nonbulk.flatfile.writer.Writer;
+import org.apache.metron.dataloads.nonbulk.flatfile.writer.Writers;
+import org.apache.metron.enrichment.cache.LookupTable;
+import org.apache.metron.integration.utils.TestUtils;
 import org.apache.metron.stellar.common.utils.StellarProcessorUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -133,7 +138,7 @@ public class SimpleFlatFileSummarizerTest {
     String[] argv = { "-e extractor.json"
             , "-o out.ser"
             , "-l log4j", "-i input.csv"
-            , "-p 2", "-b 128", "-q"
+            , "-p 2", "-b 128", "-q", "-of lookup_table"
     };
 
     Configuration config = new Configuration();
@@ -145,6 +150,7 @@ public class SimpleFlatFileSummarizerTest {
     assertEquals("log4j", SummarizeOptions.LOG4J_PROPERTIES.get(cli).trim());
     assertEquals("2", SummarizeOptions.NUM_THREADS.get(cli).trim());
     assertEquals("128", SummarizeOptions.BATCH_SIZE.get(cli).trim());
+    assertEquals(OutputFormats.LOOKUP_TABLE, SummarizeOptions.createConfig(cli).get(SummarizeOptions.OUTPUT_FORMAT).get());
   }
 
   public static class InMemoryLocation implements RawLocation {
@@ -261,6 +267,31 @@ public class SimpleFlatFileSummarizerTest {
     }
   }
 
+  @Test
+  public void testLookupTable() throws Exception {
+    ExtractorHandler handler = ExtractorHandler.load(stellarExtractorConfigLineByLine);
+    LocalSummarizer summarizer = new MockSummarizer(
+            ImmutableMap.of("input.csv", generateData())
+    );
+    File output = new File(TestUtils.createTempDir(this.getClass().getName()), "out.table");
+    EnumMap<SummarizeOptions, Optional<Object>> options = new EnumMap<SummarizeOptions, Optional<Object>>(SummarizeOptions.class) {{
+      put(SummarizeOptions.INPUT, Optional.of("input.csv"));
+      put(SummarizeOptions.BATCH_SIZE, Optional.of(5));
+      put(SummarizeOptions.QUIET, Optional.of(true));
+      put(SummarizeOptions.OUTPUT_MODE, Optional.of(Writers.LOCAL));
+      put(SummarizeOptions.OUTPUT_FORMAT, Optional.of(OutputFormats.LOOKUP_TABLE));
+      put(SummarizeOptions.OUTPUT, Optional.of(output.getAbsolutePath()));
+      put(SummarizeOptions.NUM_THREADS, Optional.of(1));
+    }};
+    summarizer.importData(options, handler, new Configuration());
+    LookupTable table = LookupTable.open(output);
+    String expr = "MAP_GET(DOMAIN_REMOVE_TLD(domain), s) > 0";
+    for(String domain : domains) {
+      Boolean b = (Boolean)StellarProcessorUtils.run(expr, ImmutableMap.of("s", table, "domain", domain));
+      assertTrue(b, "Can't find " + domain);
+    }
+  }
+
   @Test
   public void testWholeFile() throws Exception {
     testWholeFile(5);
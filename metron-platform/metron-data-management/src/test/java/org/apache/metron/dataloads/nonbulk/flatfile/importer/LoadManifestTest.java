@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.dataloads.nonbulk.flatfile.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoadManifestTest {
+
+  private FileSystem fs;
+  private Path path;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    fs = FileSystem.getLocal(new Configuration());
+    File dir = Files.createTempDirectory("LoadManifestTest").toFile();
+    dir.deleteOnExit();
+    path = new Path(dir.getAbsolutePath(), "manifest");
+  }
+
+  private static Put put(String row, String value) {
+    Put put = new Put(Bytes.toBytes(row));
+    put.addColumn(Bytes.toBytes("cf"), Bytes.toBytes("v"), Bytes.toBytes(value));
+    return put;
+  }
+
+  @Test
+  public void everythingIsAddedWithoutAManifest() throws Exception {
+    LoadManifest manifest = LoadManifest.read(fs, path);
+    assertEquals(LoadManifest.Change.ADDED, manifest.record(put("a", "1")));
+    assertEquals(LoadManifest.Change.ADDED, manifest.record(put("b", "2")));
+    assertEquals(2, manifest.getAdded());
+    assertTrue(manifest.getRemoved().isEmpty());
+  }
+
+  @Test
+  public void diffsAgainstThePreviousLoad() throws Exception {
+    LoadManifest first = LoadManifest.read(fs, path);
+    first.record(put("a", "1"));
+    first.record(put("b", "2"));
+    first.record(put("c", "3"));
+    first.write(fs, path);
+
+    LoadManifest second = LoadManifest.read(fs, path);
+    assertEquals(LoadManifest.Change.UNCHANGED, second.record(put("a", "1")));
+    assertEquals(LoadManifest.Change.CHANGED, second.record(put("b", "two")));
+    assertEquals(LoadManifest.Change.ADDED, second.record(put("d", "4")));
+    List<byte[]> removed = second.getRemoved();
+    assertEquals(1, removed.size());
+    assertArrayEquals(Bytes.toBytes("c"), removed.get(0));
+    assertEquals(1, second.getAdded());
+    assertEquals(1, second.getChanged());
+    assertEquals(1, second.getUnchanged());
+
+    // the new manifest replaces the old one
+    second.write(fs, path);
+    LoadManifest third = LoadManifest.read(fs, path);
+    assertEquals(LoadManifest.Change.UNCHANGED, third.record(put("b", "two")));
+    assertEquals(2, third.getRemoved().size());
+  }
+
+  @Test
+  public void hashCoversQualifiersAndValues() {
+    Put other = new Put(Bytes.toBytes("a"));
+    other.addColumn(Bytes.toBytes("cf"), Bytes.toBytes("w"), Bytes.toBytes("1"));
+    assertEquals(LoadManifest.hash(put("a", "1")), LoadManifest.hash(put("b", "1")));
+    assertNotEquals(LoadManifest.hash(put("a", "1")), LoadManifest.hash(put("a", "2")));
+    assertNotEquals(LoadManifest.hash(put("a", "1")), LoadManifest.hash(other));
+  }
+
+  @Test
+  public void rejectsOtherFiles() throws Exception {
+    Files.write(new File(path.toUri().getPath()).toPath(), new byte[16]);
+    assertThrows(IOException.class, () -> LoadManifest.read(fs, path));
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.enrichment.adapters.jdbc;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed size pool of read-only JDBC connections.  Each connection keeps the statements prepared on it,
+ * so a statement is only prepared once per connection.
+ *
+ * <p>Connections are opened as they are needed.  A connection which fails is discarded rather than
+ * returned to the pool, and replaced the next time one is borrowed.
+ */
+public class JdbcConnectionPool implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcConnectionPool.class);
+
+  /**
+   * A pooled connection and the statements prepared on it.  A session is used by one thread at a time.
+   */
+  public static class Session {
+    private final Connection connection;
+    private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+
+    private Session(Connection connection) {
+      this.connection = connection;
+    }
+
+    /**
+     * @param key Identifies the statement.
+     * @param sql Builds the SQL for the statement, if it has not been prepared yet.
+     * @return The prepared statement.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    public PreparedStatement prepare(int key, IntFunction<String> sql) throws SQLException {
+      PreparedStatement statement = statements.get(key);
+      if (statement == null) {
+        statement = connection.prepareStatement(sql.apply(key));
+        statements.put(key, statement);
+      }
+      return statement;
+    }
+
+    private void close() {
+      for (PreparedStatement statement : statements.values()) {
+        try {
+          statement.close();
+        } catch (SQLException e) {
+          LOG.debug("Unable to close JDBC statement: {}", e.getMessage(), e);
+        }
+      }
+      statements.clear();
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        LOG.debug("Unable to close JDBC connection: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  private final JdbcConfig config;
+  private final String username;
+  private final String password;
+  private final BlockingQueue<Session> idle;
+  private final Semaphore permits;
+  private volatile boolean closed;
+
+  /**
+   * @param config The database to connect to.
+   * @param size The maximum number of connections.
+   * @throws ClassNotFoundException If the JDBC driver is not on the classpath.
+   */
+  public JdbcConnectionPool(JdbcConfig config, int size) throws ClassNotFoundException {
+    Class.forName(config.getClassName());
+    this.config = config;
+    this.username = config instanceof BaseJdbcConfig ? ((BaseJdbcConfig) config).getUsername() : null;
+    this.password = config instanceof BaseJdbcConfig ? ((BaseJdbcConfig) config).getPassword() : null;
+    this.idle = new ArrayBlockingQueue<>(size);
+    this.permits = new Semaphore(size);
+  }
+
+  /**
+   * Borrows a session, waiting if every connection is in use.  The session must be given back with
+   * either {@link #release(Session)} or {@link #invalidate(Session)}.
+   *
+   * @return The session.
+   * @throws SQLException If a new connection could not be opened.
+   * @throws InterruptedException If interrupted while waiting for a connection.
+   */
+  public Session borrow() throws SQLException, InterruptedException {
+    if (closed) {
+      throw new IllegalStateException("The connection pool is closed");
+    }
+    permits.acquire();
+    Session session = idle.poll();
+    if (session != null) {
+      return session;
+    }
+    try {
+      Connection connection = username == null
+              ? DriverManager.getConnection(config.getJdbcUrl())
+              : DriverManager.getConnection(config.getJdbcUrl(), username, password);
+      connection.setReadOnly(true);
+      return new Session(connection);
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a healthy session to the pool.
+   */
+  public void release(Session session) {
+    if (closed || !idle.offer(session)) {
+      session.close();
+    }
+    permits.release();
+  }
+
+  /**
+   * Discards a session whose connection may be broken.
+   */
+  public void invalidate(Session session) {
+    session.close();
+    permits.release();
+  }
+
+  /**
+   * Closes the idle connections.  Connections in use are closed as they are given back.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    Session session;
+    while ((session = idle.poll()) != null) {
+      session.close();
+    }
+  }
+}
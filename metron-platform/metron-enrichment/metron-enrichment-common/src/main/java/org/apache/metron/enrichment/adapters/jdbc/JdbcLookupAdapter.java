@@ -0,0 +1,375 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.enrichment.adapters.jdbc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.metron.enrichment.cache.CacheKey;
+import org.apache.metron.enrichment.interfaces.EnrichmentAdapter;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enriches a field with the columns of the matching row of a database table.
+ *
+ * <p>Unlike {@link JdbcAdapter}, which shares a single connection and builds each query as a string,
+ * this adapter draws connections from a {@link JdbcConnectionPool} and reuses prepared statements.
+ *
+ * <p>Concurrent lookups are batched.  Enrichments run in parallel, so rather than each lookup running
+ * its own query, lookups are queued and whichever threads hold one of the pool's connections run them
+ * together, up to the batch size at a time, as a single {@code IN (...)} query.  The number of
+ * parameters in a query is rounded up to a power of two, so only a handful of statements is prepared.
+ *
+ * <p>Results are cached, including keys which are not in the table, which are cached for a shorter
+ * time.  Failed lookups are not cached.
+ */
+public class JdbcLookupAdapter implements EnrichmentAdapter<CacheKey>, Serializable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupAdapter.class);
+
+  /**
+   * How long a thread waits on a queued lookup before checking whether it can run the lookup itself.
+   */
+  private static final long WAIT_MILLIS = 5;
+
+  private static class PendingLookup {
+    private final String key;
+    private final CompletableFuture<JSONObject> result = new CompletableFuture<>();
+
+    private PendingLookup(String key) {
+      this.key = key;
+    }
+  }
+
+  private JdbcConfig jdbcConfig;
+  private JdbcLookupConfig lookupConfig;
+  private transient JdbcConnectionPool pool;
+  private transient Cache<String, JSONObject> results;
+  private transient Queue<PendingLookup> pending;
+  private transient Semaphore runners;
+  private final AtomicLong queries = new AtomicLong();
+
+  public JdbcLookupAdapter withJdbcConfig(JdbcConfig config) {
+    this.jdbcConfig = config;
+    return this;
+  }
+
+  public JdbcLookupAdapter withLookupConfig(JdbcLookupConfig config) {
+    this.lookupConfig = config;
+    return this;
+  }
+
+  @Override
+  public boolean initializeAdapter(Map<String, Object> config) {
+    try {
+      // fail early if the driver is missing or the query is invalid
+      lookupConfig.getQuery(1);
+      pool = new JdbcConnectionPool(jdbcConfig, lookupConfig.getPoolSize());
+      JdbcConnectionPool.Session session = pool.borrow();
+      pool.release(session);
+    } catch (Exception e) {
+      LOG.error("Unable to initialize JDBC lookups from {}: {}", lookupConfig, e.getMessage(), e);
+      cleanup();
+      return false;
+    }
+    results = createCache(lookupConfig);
+    pending = new ConcurrentLinkedQueue<>();
+    runners = new Semaphore(lookupConfig.getPoolSize());
+    return true;
+  }
+
+  private static Cache<String, JSONObject> createCache(JdbcLookupConfig config) {
+    if (config.getCacheSize() == 0) {
+      return null;
+    }
+    long found = TimeUnit.SECONDS.toNanos(config.getCacheExpirationSeconds());
+    long notFound = TimeUnit.SECONDS.toNanos(config.getNegativeCacheExpirationSeconds());
+    return Caffeine.newBuilder()
+            .maximumSize(config.getCacheSize())
+            .expireAfter(new Expiry<String, JSONObject>() {
+              @Override
+              public long expireAfterCreate(String key, JSONObject value, long currentTime) {
+                return value.isEmpty() ? notFound : found;
+              }
+
+              @Override
+              public long expireAfterUpdate(String key, JSONObject value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+              }
+
+              @Override
+              public long expireAfterRead(String key, JSONObject value, long currentTime, long currentDuration) {
+                return currentDuration;
+              }
+            })
+            .build();
+  }
+
+  @Override
+  public void updateAdapter(Map<String, Object> config) {
+  }
+
+  @Override
+  public void logAccess(CacheKey value) {
+  }
+
+  @Override
+  public JSONObject enrich(CacheKey value) {
+    String key = value.coerceValue(String.class);
+    if (key == null) {
+      return new JSONObject();
+    }
+    checkInitialized();
+    JSONObject result = results == null ? null : results.getIfPresent(key);
+    if (result == null) {
+      result = lookup(key);
+    }
+    return copy(result);
+  }
+
+  /**
+   * Looks up many keys at once, such as those of a batch of messages.
+   *
+   * @param keys The keys to look up.
+   * @return The values found for each key, which are empty for keys which are not in the table.
+   */
+  public Map<String, JSONObject> enrichAll(Collection<String> keys) {
+    checkInitialized();
+    Map<String, JSONObject> ret = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String key : new LinkedHashSet<>(keys)) {
+      JSONObject result = results == null ? null : results.getIfPresent(key);
+      if (result == null) {
+        missing.add(key);
+      } else {
+        ret.put(key, copy(result));
+      }
+    }
+    for (int i = 0; i < missing.size(); i += lookupConfig.getBatchSize()) {
+      List<String> batch = missing.subList(i, Math.min(missing.size(), i + lookupConfig.getBatchSize()));
+      Map<String, JSONObject> found;
+      try {
+        runners.acquire();
+        try {
+          found = query(batch);
+        } finally {
+          runners.release();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while looking up " + batch, e);
+      } catch (SQLException e) {
+        throw new IllegalStateException("Unable to look up " + batch + ": " + e.getMessage(), e);
+      }
+      for (String key : batch) {
+        ret.put(key, copy(found.get(key)));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Queues a lookup and waits for it to complete, running queued lookups whenever a connection is free.
+   */
+  private JSONObject lookup(String key) {
+    PendingLookup lookup = new PendingLookup(key);
+    pending.add(lookup);
+    while (true) {
+      if (runners.tryAcquire()) {
+        try {
+          boolean ran = true;
+          while (ran && !lookup.result.isDone()) {
+            ran = runPending();
+          }
+        } finally {
+          runners.release();
+        }
+      }
+      try {
+        return lookup.result.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // the lookup is queued or in flight, so check again whether it can be run here
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while looking up " + key, e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Unable to look up " + key + ": " + e.getCause().getMessage(), e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Runs up to a batch of queued lookups as a single query.
+   *
+   * @return False if there were no queued lookups.
+   */
+  private boolean runPending() {
+    Map<String, List<PendingLookup>> batch = new LinkedHashMap<>();
+    PendingLookup next;
+    while (batch.size() < lookupConfig.getBatchSize() && (next = pending.poll()) != null) {
+      batch.computeIfAbsent(next.key, k -> new ArrayList<>()).add(next);
+    }
+    if (batch.isEmpty()) {
+      return false;
+    }
+    try {
+      Map<String, JSONObject> found = query(batch.keySet());
+      for (Map.Entry<String, List<PendingLookup>> entry : batch.entrySet()) {
+        JSONObject result = found.get(entry.getKey());
+        for (PendingLookup lookup : entry.getValue()) {
+          lookup.result.complete(result);
+        }
+      }
+    } catch (Throwable e) {
+      LOG.error("Unable to look up {}: {}", batch.keySet(), e.getMessage(), e);
+      for (List<PendingLookup> lookups : batch.values()) {
+        for (PendingLookup lookup : lookups) {
+          lookup.result.completeExceptionally(e);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Queries the table for a batch of keys and caches the results.
+   *
+   * @param keys The distinct keys, no more than the batch size.
+   * @return The values found for every key, which are empty for keys which are not in the table.
+   */
+  private Map<String, JSONObject> query(Collection<String> keys) throws SQLException, InterruptedException {
+    List<String> values = lookupConfig.getValueColumns();
+    Map<String, JSONObject> ret = new HashMap<>();
+    JdbcConnectionPool.Session session = pool.borrow();
+    try {
+      int arity = arity(keys.size());
+      PreparedStatement statement = session.prepare(arity, lookupConfig::getQuery);
+      int parameter = 0;
+      String last = null;
+      for (String key : keys) {
+        statement.setString(++parameter, key);
+        last = key;
+      }
+      // pad the remaining parameters, which does not change the result
+      while (parameter < arity) {
+        statement.setString(++parameter, last);
+      }
+      queries.incrementAndGet();
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          String key = rs.getString(1);
+          if (key == null || ret.containsKey(key)) {
+            continue;
+          }
+          JSONObject row = new JSONObject();
+          for (int i = 0; i < values.size(); ++i) {
+            Object column = rs.getObject(i + 2);
+            if (column != null) {
+              row.put(values.get(i), column);
+            }
+          }
+          ret.put(key, row);
+        }
+      }
+    } catch (SQLException | RuntimeException e) {
+      pool.invalidate(session);
+      throw e;
+    }
+    pool.release(session);
+
+    for (String key : keys) {
+      JSONObject result = ret.computeIfAbsent(key, k -> new JSONObject());
+      if (results != null) {
+        results.put(key, result);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of parameters in the statement used to look up a number of keys.
+   */
+  private int arity(int keys) {
+    int ret = Integer.highestOneBit(keys);
+    ret = ret < keys ? ret << 1 : ret;
+    return Math.min(ret, lookupConfig.getBatchSize());
+  }
+
+  private void checkInitialized() {
+    if (pool == null) {
+      throw new IllegalStateException("The JDBC lookup adapter has not been initialized");
+    }
+  }
+
+  private static JSONObject copy(JSONObject result) {
+    JSONObject ret = new JSONObject();
+    ret.putAll(result);
+    return ret;
+  }
+
+  /**
+   * @return The number of queries run, for testing.
+   */
+  long getQueryCount() {
+    return queries.get();
+  }
+
+  /**
+   * @return The number of lookups waiting to be run, for testing.
+   */
+  int getPendingCount() {
+    return pending.size();
+  }
+
+  @Override
+  public void cleanup() {
+    if (pool != null) {
+      pool.close();
+    }
+    if (results != null) {
+      results.invalidateAll();
+    }
+  }
+
+  @Override
+  public String getOutputPrefix(CacheKey value) {
+    return value.getField();
+  }
+}
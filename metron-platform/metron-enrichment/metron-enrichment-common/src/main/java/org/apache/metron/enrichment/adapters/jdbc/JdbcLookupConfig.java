@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.enrichment.adapters.jdbc;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Describes the table a {@link JdbcLookupAdapter} reads from and how its lookups are pooled,
+ * batched and cached.
+ *
+ * <p>Lookups select the value columns of every row whose key column matches the value being
+ * enriched.  Table and column names are validated so they cannot be used to inject SQL.
+ */
+public class JdbcLookupConfig implements Serializable {
+
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)*");
+
+  private String table;
+  private String keyColumn;
+  private List<String> valueColumns = new ArrayList<>();
+  private int poolSize = 4;
+  private int batchSize = 100;
+  private long cacheSize = 10000;
+  private long cacheExpirationSeconds = 600;
+  private long negativeCacheExpirationSeconds = 60;
+
+  public String getTable() {
+    return table;
+  }
+
+  public JdbcLookupConfig withTable(String table) {
+    this.table = validate("table", table);
+    return this;
+  }
+
+  public String getKeyColumn() {
+    return keyColumn;
+  }
+
+  public JdbcLookupConfig withKeyColumn(String keyColumn) {
+    this.keyColumn = validate("key column", keyColumn);
+    return this;
+  }
+
+  public List<String> getValueColumns() {
+    return Collections.unmodifiableList(valueColumns);
+  }
+
+  public JdbcLookupConfig withValueColumns(List<String> valueColumns) {
+    List<String> columns = new ArrayList<>();
+    for (String column : valueColumns) {
+      columns.add(validate("value column", column));
+    }
+    this.valueColumns = columns;
+    return this;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * @param poolSize The maximum number of open connections, which is also the maximum number of
+   *                 queries run at once.
+   */
+  public JdbcLookupConfig withPoolSize(int poolSize) {
+    this.poolSize = positive("pool size", poolSize);
+    return this;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @param batchSize The maximum number of keys looked up by a single query.
+   */
+  public JdbcLookupConfig withBatchSize(int batchSize) {
+    this.batchSize = positive("batch size", batchSize);
+    return this;
+  }
+
+  public long getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * @param cacheSize The maximum number of lookup results to cache. 0 disables the cache.
+   */
+  public JdbcLookupConfig withCacheSize(long cacheSize) {
+    this.cacheSize = Math.max(cacheSize, 0);
+    return this;
+  }
+
+  public long getCacheExpirationSeconds() {
+    return cacheExpirationSeconds;
+  }
+
+  /**
+   * @param cacheExpirationSeconds How long the values found for a key are cached.
+   */
+  public JdbcLookupConfig withCacheExpirationSeconds(long cacheExpirationSeconds) {
+    this.cacheExpirationSeconds = cacheExpirationSeconds;
+    return this;
+  }
+
+  public long getNegativeCacheExpirationSeconds() {
+    return negativeCacheExpirationSeconds;
+  }
+
+  /**
+   * @param negativeCacheExpirationSeconds How long a key which is not in the table is cached.
+   */
+  public JdbcLookupConfig withNegativeCacheExpirationSeconds(long negativeCacheExpirationSeconds) {
+    this.negativeCacheExpirationSeconds = negativeCacheExpirationSeconds;
+    return this;
+  }
+
+  /**
+   * Builds the query for a number of keys.  The key column is always selected first, followed
+   * by the value columns in order.
+   *
+   * @param keys The number of keys, each of which is a parameter of the query.
+   * @return The query.
+   */
+  public String getQuery(int keys) {
+    if (table == null || keyColumn == null || valueColumns.isEmpty()) {
+      throw new IllegalStateException("A table, key column and at least one value column must be configured");
+    }
+    StringBuilder query = new StringBuilder("SELECT ").append(keyColumn);
+    for (String column : valueColumns) {
+      query.append(", ").append(column);
+    }
+    query.append(" FROM ").append(table).append(" WHERE ").append(keyColumn).append(" IN (");
+    for (int i = 0; i < keys; ++i) {
+      query.append(i == 0 ? "?" : ", ?");
+    }
+    return query.append(")").toString();
+  }
+
+  private static String validate(String name, String identifier) {
+    if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+      throw new IllegalArgumentException(String.format("Invalid %s name: %s", name, identifier));
+    }
+    return identifier;
+  }
+
+  private static int positive(String name, int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException(String.format("The %s must be positive, not %s", name, value));
+    }
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return "JdbcLookupConfig{" +
+            "table='" + table + '\'' +
+            ", keyColumn='" + keyColumn + '\'' +
+            ", valueColumns=" + valueColumns +
+            ", poolSize=" + poolSize +
+            ", batchSize=" + batchSize +
+            ", cacheSize=" + cacheSize +
+            ", cacheExpirationSeconds=" + cacheExpirationSeconds +
+            ", negativeCacheExpirationSeconds=" + negativeCacheExpirationSeconds +
+            '}';
+  }
+}
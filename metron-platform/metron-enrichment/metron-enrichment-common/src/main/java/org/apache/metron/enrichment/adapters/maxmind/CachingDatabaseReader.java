@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.enrichment.adapters.maxmind;
+
+import com.maxmind.geoip2.DatabaseReader;
+import com.maxmind.geoip2.exception.AddressNotFoundException;
+import com.maxmind.geoip2.exception.GeoIp2Exception;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DatabaseReader} fronted by a bounded cache of lookup results, keyed by IPv4 address.
+ *
+ * <p>The cache is direct-mapped: each address maps to a single slot, and a new result simply replaces
+ * whatever was in its slot.  Slots hold immutable entries, so reads and writes take no locks.  Addresses
+ * which are not in the database, or are not eligible for lookup, are cached as well.
+ *
+ * <p>The reader and its cache are swapped together when the database is updated, so a cache never
+ * serves results from an older database.
+ *
+ * @param <V> The type of the values in a lookup result.
+ */
+public class CachingDatabaseReader<V> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * Looks up an address in the database.
+   */
+  @FunctionalInterface
+  public interface Lookup<V> {
+    Map<String, V> apply(DatabaseReader reader, InetAddress addr) throws IOException, GeoIp2Exception;
+  }
+
+  private static class Entry<V> {
+    private final int key;
+    private final Map<String, V> value;
+
+    private Entry(int key, Map<String, V> value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  private final DatabaseReader reader;
+  private final Entry<V>[] entries;
+  private final int mask;
+
+  /**
+   * @param reader The database reader.
+   * @param cacheSize The maximum number of results to cache, rounded up to a power of two. 0 disables the cache.
+   */
+  @SuppressWarnings("unchecked")
+  public CachingDatabaseReader(DatabaseReader reader, int cacheSize) {
+    this.reader = reader;
+    if (cacheSize > 0) {
+      int size = Integer.highestOneBit(Math.min(cacheSize, 1 << 30));
+      size = size < cacheSize ? size << 1 : size;
+      this.entries = new Entry[size];
+      this.mask = size - 1;
+    } else {
+      this.entries = null;
+      this.mask = 0;
+    }
+  }
+
+  public DatabaseReader getReader() {
+    return reader;
+  }
+
+  /**
+   * @return The number of results the cache can hold.
+   */
+  public int getCacheSize() {
+    return entries == null ? 0 : entries.length;
+  }
+
+  /**
+   * Retrieves the result for an IP address, from the cache if possible.
+   *
+   * @param ip The IP address.
+   * @param lookup Looks up the address in the database on a cache miss.
+   * @return The result, or Optional.empty() if the address is invalid or not in the database.  The
+   *     result may be freely modified by the caller.
+   * @throws IOException If the database could not be read.  Such results are not cached.
+   * @throws GeoIp2Exception If the database could not be read.  Such results are not cached.
+   */
+  public Optional<Map<String, V>> get(String ip, Lookup<V> lookup) throws IOException, GeoIp2Exception {
+    long addr = MaxMindDbUtilities.toIpv4(ip);
+    int key = (int) addr;
+    int slot = hash(key) & mask;
+    if (addr >= 0 && entries != null) {
+      Entry<V> entry = entries[slot];
+      if (entry != null && entry.key == key) {
+        return copy(entry.value);
+      }
+    }
+
+    Map<String, V> result = null;
+    if (!MaxMindDbUtilities.invalidIp(ip)) {
+      try {
+        result = lookup.apply(reader, InetAddress.getByName(ip));
+      } catch (UnknownHostException | AddressNotFoundException e) {
+        LOG.debug("No result found for IP {}", ip);
+      }
+    }
+
+    if (addr >= 0 && entries != null) {
+      entries[slot] = new Entry<>(key, result == null ? null : Collections.unmodifiableMap(result));
+    }
+    return Optional.ofNullable(result);
+  }
+
+  private Optional<Map<String, V>> copy(Map<String, V> value) {
+    return value == null ? Optional.empty() : Optional.of(new HashMap<>(value));
+  }
+
+  /**
+   * Spreads the address so that neighbouring addresses, which share their high bits, use the whole table.
+   */
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -36,6 +36,23 @@ public interface MaxMindDatabase {
   String EXTENSION_TAR_GZ = ".tar.gz";
   String EXTENSION_MMDB_GZ = ".mmdb.gz";
 
+  /**
+   * How databases are opened: MEMORY reads the whole database onto the heap, while MEMORY_MAPPED
+   * stages it to local disk and maps it.
+   */
+  String MAXMIND_FILE_MODE = "maxmind.file.mode";
+
+  /**
+   * The local directory that memory-mapped databases are staged in.
+   */
+  String MAXMIND_LOCAL_DIR = "maxmind.local.dir";
+
+  /**
+   * The number of lookup results to cache for each database. 0 disables caching.
+   */
+  String MAXMIND_CACHE_SIZE = "maxmind.cache.size";
+  int MAXMIND_CACHE_SIZE_DEFAULT = 16384;
+
   /**
    * Retrieves the configuration key that holds the HDFS database file location
    * @return The configuration key
@@ -49,8 +66,8 @@ public interface MaxMindDatabase {
   String getHdfsFileDefault();
 
   /**
-   * Locks any underlying resources to ensure they are smoothly updated without disruption.
-   * Any callers implementing an update() function should lock during the update to ensure uninterrupted querying.
+   * Locks any underlying resources so that concurrent updates do not interleave.
+   * Any callers implementing an update() function should lock during the update.  Queries do not lock.
    */
   void lockIfNecessary();
 
@@ -65,7 +82,14 @@ public interface MaxMindDatabase {
    * @return The DatabaseReader for the MaxMind database.
    */
   DatabaseReader getReader();
-  void setReader(DatabaseReader reader);
+
+  /**
+   * Atomically replaces the database reader.  The replaced reader is closed once queries in progress
+   * against it have had time to finish.
+   * @param reader The new DatabaseReader.
+   * @param cacheSize The number of lookup results to cache in front of the new reader.
+   */
+  void setReader(DatabaseReader reader, int cacheSize);
 
   /**
    * Updates the database file, if the configuration points to a new file.
@@ -77,10 +101,19 @@ public interface MaxMindDatabase {
 
   /**
    * Update the database being queried to one backed by the provided HDFS file.
-   * Access to the database should be guarded by read locks to avoid disruption while updates are occurring.
    * @param hdfsFile The HDFS file path to be used for new queries.
    */
   default void update(String hdfsFile) {
+    update(hdfsFile, null);
+  }
+
+  /**
+   * Update the database being queried to one backed by the provided HDFS file.
+   * The new database is swapped in atomically, so queries are not disrupted while updates are occurring.
+   * @param hdfsFile The HDFS file path to be used for new queries.
+   * @param globalConfig The global config, which determines how the database is opened. May be null.
+   */
+  default void update(String hdfsFile, Map<String, Object> globalConfig) {
     // If nothing is set (or it's been unset, use the defaults)
     if (hdfsFile == null || hdfsFile.isEmpty()) {
       LOG.debug("Using default for {}: {}", getHdfsFileConfig(), getHdfsFileDefault());
@@ -88,11 +121,12 @@ public interface MaxMindDatabase {
     }
 
     FileSystem fs = MaxMindDbUtilities.getFileSystem();
+    int cacheSize = MaxMindDbUtilities.getCacheSize(globalConfig);
 
     if (hdfsFile.endsWith(MaxMindDatabase.EXTENSION_MMDB)) {
       lockIfNecessary();
       try (BufferedInputStream is = new BufferedInputStream(fs.open(new Path(hdfsFile)))) {
-        setReader(MaxMindDbUtilities.readNewDatabase(getReader(), hdfsFile, is));
+        setReader(MaxMindDbUtilities.readNewDatabase(hdfsFile, is, globalConfig), cacheSize);
       } catch (IOException e) {
         MaxMindDbUtilities.handleDatabaseIOException(hdfsFile, e);
       } finally {
@@ -101,7 +135,7 @@ public interface MaxMindDatabase {
     } else if (hdfsFile.endsWith(MaxMindDatabase.EXTENSION_MMDB_GZ)) {
       lockIfNecessary();
       try (GZIPInputStream is = new GZIPInputStream(fs.open(new Path(hdfsFile)))) {
-        setReader(MaxMindDbUtilities.readNewDatabase(getReader(), hdfsFile, is));
+        setReader(MaxMindDbUtilities.readNewDatabase(hdfsFile, is, globalConfig), cacheSize);
       } catch (IOException e) {
         MaxMindDbUtilities.handleDatabaseIOException(hdfsFile, e);
       } finally {
@@ -117,7 +151,7 @@ public interface MaxMindDatabase {
           if (entry.isFile() && entry.getName().endsWith(MaxMindDatabase.EXTENSION_MMDB)) {
             try(InputStream mmdb = new BufferedInputStream(is))
             { // Read directly from tarInput
-              setReader(MaxMindDbUtilities.readNewDatabase(getReader(), hdfsFile, mmdb));
+              setReader(MaxMindDbUtilities.readNewDatabase(hdfsFile, mmdb, globalConfig), cacheSize);
               break; // Don't care about the other entries, leave immediately
             }
           }
@@ -16,16 +16,25 @@ package org.apache.metron.enrichment.adapters.maxmind;/*
  * limitations under the License.
  */
 
-import com.maxmind.db.CHMCache;
+import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.validator.routines.InetAddressValidator;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.metron.stellar.common.utils.ConversionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +48,20 @@ public enum MaxMindDbUtilities {
   static InetAddressValidator ipvalidator = new InetAddressValidator();
 
   /**
-   * Determines if an IP is ineligible. In particular, this is used to filter before querying the database, as that requires a readlock to be set.
+   * How long a replaced database is kept open, so that lookups which are already using it can finish.
+   */
+  static final long CLOSE_DELAY_SECONDS = 30;
+
+  private static class Closer {
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "maxmind-database-closer");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Determines if an IP is ineligible. In particular, this is used to filter before querying the database.
    * @param ip The IP to be tested
    * @return true if invalid, false otherwise
    */
@@ -82,25 +104,154 @@ public enum MaxMindDbUtilities {
   }
 
   /**
-   * Reads a new Database from a given HDFS file
-   * @param reader The DatabaseReader to use to read the file
+   * Reads a new Database from a given HDFS file.  Closing the reader being replaced is left to the caller,
+   * see {@link #closeLater(Closeable)}.
    * @param hdfsFile The HDFS file to read
    * @param is An InputStream for use with the reader
+   * @param globalConfig The global config, which determines how the database is opened. May be null.
    * @return The DatabaseReader that is set up with the new file
    * @throws IOException If there is an issue reading the file.
    */
-  public static DatabaseReader readNewDatabase(DatabaseReader reader, String hdfsFile, InputStream is) throws IOException {
+  public static DatabaseReader readNewDatabase(String hdfsFile, InputStream is, Map<String, Object> globalConfig) throws IOException {
     LOG.info("Update to GeoIP data started with {}", hdfsFile);
-    // InputStream based DatabaseReaders are always in memory.
-    DatabaseReader newReader = new DatabaseReader.Builder(is).withCache(new CHMCache()).build();
-    // If we've never set a reader, don't close the old one
-    if (reader != null) {
-      reader.close();
+    DatabaseReader newReader;
+    if (getFileMode(globalConfig) == Reader.FileMode.MEMORY_MAPPED) {
+      File local = stage(is, getLocalDir(globalConfig));
+      try {
+        newReader = new DatabaseReader.Builder(local).fileMode(Reader.FileMode.MEMORY_MAPPED).build();
+      } finally {
+        // The mapping remains valid once the file is unlinked, so nothing is left behind on local disk.
+        if (!local.delete()) {
+          local.deleteOnExit();
+        }
+      }
+    } else {
+      // InputStream based DatabaseReaders are always in memory.
+      newReader = new DatabaseReader.Builder(is).build();
     }
     LOG.info("Finished update to GeoIP data started with {}", hdfsFile);
     return newReader;
   }
 
+  /**
+   * Copies a database to a file in a local directory.
+   * @param is The database
+   * @param localDir The local directory
+   * @return The local file
+   * @throws IOException If the database could not be copied.
+   */
+  static File stage(InputStream is, String localDir) throws IOException {
+    File dir = new File(localDir);
+    if (!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("Unable to create local directory " + localDir);
+    }
+    File local = File.createTempFile("maxmind-", MaxMindDatabase.EXTENSION_MMDB, dir);
+    try {
+      Files.copy(is, local.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      local.delete();
+      throw e;
+    }
+    LOG.debug("Staged MaxMind database to {}", local);
+    return local;
+  }
+
+  /**
+   * Closes a database that has been replaced, once any lookups in progress against it have had time to finish.
+   * @param reader The replaced database. Ignored if null.
+   */
+  public static void closeLater(Closeable reader) {
+    if (reader == null) {
+      return;
+    }
+    Closer.EXECUTOR.schedule(() -> {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        LOG.warn("Unable to close replaced MaxMind database", e);
+      }
+    }, CLOSE_DELAY_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @param globalConfig The global config. May be null.
+   * @return How databases should be opened, per {@link MaxMindDatabase#MAXMIND_FILE_MODE}.
+   */
+  public static Reader.FileMode getFileMode(Map<String, Object> globalConfig) {
+    Object mode = globalConfig == null ? null : globalConfig.get(MaxMindDatabase.MAXMIND_FILE_MODE);
+    if (mode == null) {
+      return Reader.FileMode.MEMORY;
+    }
+    try {
+      return Reader.FileMode.valueOf(mode.toString().trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Unknown {} '{}', using {}", MaxMindDatabase.MAXMIND_FILE_MODE, mode, Reader.FileMode.MEMORY);
+      return Reader.FileMode.MEMORY;
+    }
+  }
+
+  /**
+   * @param globalConfig The global config. May be null.
+   * @return The local directory to stage memory-mapped databases in, per {@link MaxMindDatabase#MAXMIND_LOCAL_DIR}.
+   */
+  public static String getLocalDir(Map<String, Object> globalConfig) {
+    Object dir = globalConfig == null ? null : globalConfig.get(MaxMindDatabase.MAXMIND_LOCAL_DIR);
+    return dir == null ? System.getProperty("java.io.tmpdir") : dir.toString();
+  }
+
+  /**
+   * @param globalConfig The global config. May be null.
+   * @return The number of lookup results to cache, per {@link MaxMindDatabase#MAXMIND_CACHE_SIZE}.
+   */
+  public static int getCacheSize(Map<String, Object> globalConfig) {
+    Object size = globalConfig == null ? null : globalConfig.get(MaxMindDatabase.MAXMIND_CACHE_SIZE);
+    return size == null ? MaxMindDatabase.MAXMIND_CACHE_SIZE_DEFAULT : ConversionUtils.convert(size, Integer.class);
+  }
+
+  /**
+   * Parses a dotted-quad IPv4 address without any allocation.
+   * @param ip The IP String
+   * @return The address as an unsigned 32 bit value, or -1 if it is not a dotted-quad IPv4 address.
+   */
+  public static long toIpv4(String ip) {
+    if (ip == null) {
+      return -1;
+    }
+    int len = ip.length();
+    if (len < 7 || len > 15) {
+      return -1;
+    }
+    long ret = 0;
+    int octets = 0;
+    int i = 0;
+    while (i < len) {
+      int start = i;
+      int octet = 0;
+      while (i < len && ip.charAt(i) != '.') {
+        char c = ip.charAt(i);
+        if (c < '0' || c > '9') {
+          return -1;
+        }
+        octet = octet * 10 + (c - '0');
+        i++;
+      }
+      int digits = i - start;
+      // Reject leading zeros, which some parsers treat as octal
+      if (digits == 0 || digits > 3 || octet > 255 || (digits > 1 && ip.charAt(start) == '0')) {
+        return -1;
+      }
+      ret = (ret << 8) | octet;
+      octets++;
+      if (i < len) {
+        // Skip the dot, which may not end the address
+        if (++i == len) {
+          return -1;
+        }
+      }
+    }
+    return octets == 4 ? ret : -1;
+  }
+
   /**
    * Retrieves the FileSystem
    * @return A FileSystem object used to retrieve the the database
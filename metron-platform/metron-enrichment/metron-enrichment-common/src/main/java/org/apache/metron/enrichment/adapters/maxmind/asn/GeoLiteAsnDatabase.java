@@ -17,19 +17,19 @@ package org.apache.metron.enrichment.adapters.maxmind.asn;/*
  */
 
 import com.maxmind.geoip2.DatabaseReader;
-import com.maxmind.geoip2.exception.AddressNotFoundException;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.AsnResponse;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import org.apache.metron.enrichment.adapters.maxmind.CachingDatabaseReader;
 import org.apache.metron.enrichment.adapters.maxmind.MaxMindDatabase;
 import org.apache.metron.enrichment.adapters.maxmind.MaxMindDbUtilities;
 import org.slf4j.Logger;
@@ -45,11 +45,9 @@ public enum GeoLiteAsnDatabase implements MaxMindDatabase {
   public static final String ASN_HDFS_FILE = "asn.hdfs.file";
   public static final String ASN_HDFS_FILE_DEFAULT = "/apps/metron/asn/default/GeoLite2-ASN.tar.gz";
 
-  private static ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-  private static final Lock readLock = lock.readLock();
-  private static final Lock writeLock = lock.writeLock();
+  private static final Lock updateLock = new ReentrantLock();
   private static volatile String hdfsLoc = ASN_HDFS_FILE_DEFAULT;
-  private static DatabaseReader reader = null;
+  private static final AtomicReference<CachingDatabaseReader<Object>> database = new AtomicReference<>();
 
   public enum AsnProps {
     NETWORK("network"),
@@ -94,22 +92,26 @@ public enum GeoLiteAsnDatabase implements MaxMindDatabase {
 
   @Override
   public void lockIfNecessary() {
-    writeLock.lock();
+    updateLock.lock();
   }
 
   @Override
   public void unlockIfNecessary() {
-    writeLock.unlock();
+    updateLock.unlock();
   }
 
   @Override
   public DatabaseReader getReader() {
-    return reader;
+    CachingDatabaseReader<Object> db = database.get();
+    return db == null ? null : db.getReader();
   }
 
   @Override
-  public void setReader(DatabaseReader reader) {
-    GeoLiteAsnDatabase.reader = reader;
+  public void setReader(DatabaseReader reader, int cacheSize) {
+    CachingDatabaseReader<Object> old = database.getAndSet(new CachingDatabaseReader<>(reader, cacheSize));
+    if (old != null) {
+      MaxMindDbUtilities.closeLater(old.getReader());
+    }
   }
 
   public synchronized void updateIfNecessary(Map<String, Object> globalConfig) {
@@ -121,10 +123,10 @@ public enum GeoLiteAsnDatabase implements MaxMindDatabase {
     }
 
     // Always update if we don't have a DatabaseReader
-    if (reader == null || !hdfsLoc.equals(hdfsFile)) {
+    if (database.get() == null || !hdfsLoc.equals(hdfsFile)) {
       // Update
       hdfsLoc = hdfsFile;
-      update(hdfsFile);
+      update(hdfsFile, globalConfig);
     } else {
       LOG.trace("Update to GeoLiteAsnDatabase unnecessary");
     }
@@ -136,29 +138,30 @@ public enum GeoLiteAsnDatabase implements MaxMindDatabase {
    * @return Optional.empty() if the IP address is invalid or not in the database.
    */
   public Optional<Map<String, Object>> get(String ip) {
-    if (MaxMindDbUtilities.invalidIp(ip)) {
+    CachingDatabaseReader<Object> db = database.get();
+    if (db == null) {
+      LOG.warn("GeoLite2 ASN DB has not been loaded");
       return Optional.empty();
     }
 
     try {
-      readLock.lock();
-      InetAddress addr = InetAddress.getByName(ip);
-      AsnResponse asnResponse = reader.asn(addr);
-      HashMap<String, Object> asnInfo = new HashMap<>();
-      AsnProps.ASN.set(asnInfo, asnResponse.getAutonomousSystemNumber());
-      AsnProps.ASO
-          .set(asnInfo, MaxMindDbUtilities.convertNullToEmptyString(asnResponse.getAutonomousSystemOrganization()));
-      AsnProps.NETWORK
-          .set(asnInfo, MaxMindDbUtilities.convertNullToEmptyString(asnResponse.getIpAddress()));
-
-      return Optional.of(asnInfo);
-    } catch (UnknownHostException | AddressNotFoundException e) {
-      LOG.debug("No result found for IP {}", ip);
+      return db.get(ip, GeoLiteAsnDatabase::lookup);
     } catch (GeoIp2Exception | IOException e) {
       LOG.warn("GeoLite2 ASN DB encountered an error", e);
-    } finally {
-      readLock.unlock();
     }
     return Optional.empty();
   }
+
+  private static Map<String, Object> lookup(DatabaseReader reader, InetAddress addr)
+          throws IOException, GeoIp2Exception {
+    AsnResponse asnResponse = reader.asn(addr);
+    HashMap<String, Object> asnInfo = new HashMap<>();
+    AsnProps.ASN.set(asnInfo, asnResponse.getAutonomousSystemNumber());
+    AsnProps.ASO
+        .set(asnInfo, MaxMindDbUtilities.convertNullToEmptyString(asnResponse.getAutonomousSystemOrganization()));
+    AsnProps.NETWORK
+        .set(asnInfo, MaxMindDbUtilities.convertNullToEmptyString(asnResponse.getIpAddress()));
+
+    return asnInfo;
+  }
 }
@@ -19,7 +19,6 @@ package org.apache.metron.enrichment.adapters.maxmind.geo;
 
 import ch.hsr.geohash.WGS84Point;
 import com.maxmind.geoip2.DatabaseReader;
-import com.maxmind.geoip2.exception.AddressNotFoundException;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.CityResponse;
 import com.maxmind.geoip2.record.City;
@@ -29,15 +28,16 @@ import com.maxmind.geoip2.record.Postal;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.metron.enrichment.adapters.maxmind.CachingDatabaseReader;
 import org.apache.metron.enrichment.adapters.maxmind.MaxMindDatabase;
 import org.apache.metron.enrichment.adapters.maxmind.MaxMindDbUtilities;
 import org.slf4j.Logger;
@@ -54,11 +54,9 @@ public enum GeoLiteCityDatabase implements MaxMindDatabase {
   public static final String GEO_HDFS_FILE_DEFAULT = "/apps/metron/geo/default/GeoLite2-City.tar.gz";
   public static final String GEO_HDFS_FILE_DEFAULT_FALLBACK = "/apps/metron/geo/default/GeoLite2-City.mmdb.gz";
 
-  private static ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-  private static final Lock readLock = lock.readLock();
-  private static final Lock writeLock = lock.writeLock();
+  private static final Lock updateLock = new ReentrantLock();
   private static volatile String hdfsLoc = GEO_HDFS_FILE_DEFAULT;
-  private static DatabaseReader reader = null;
+  private static final AtomicReference<CachingDatabaseReader<String>> database = new AtomicReference<>();
 
   public enum GeoProps {
     LOC_ID("locID"),
@@ -108,22 +106,26 @@ public enum GeoLiteCityDatabase implements MaxMindDatabase {
 
   @Override
   public void lockIfNecessary() {
-    writeLock.lock();
+    updateLock.lock();
   }
 
   @Override
   public void unlockIfNecessary() {
-    writeLock.unlock();
+    updateLock.unlock();
   }
 
   @Override
   public DatabaseReader getReader() {
-    return reader;
+    CachingDatabaseReader<String> db = database.get();
+    return db == null ? null : db.getReader();
   }
 
   @Override
-  public void setReader(DatabaseReader reader) {
-    GeoLiteCityDatabase.reader = reader;
+  public void setReader(DatabaseReader reader, int cacheSize) {
+    CachingDatabaseReader<String> old = database.getAndSet(new CachingDatabaseReader<>(reader, cacheSize));
+    if (old != null) {
+      MaxMindDbUtilities.closeLater(old.getReader());
+    }
   }
 
   public synchronized void updateIfNecessary(Map<String, Object> globalConfig) {
@@ -136,10 +138,10 @@ public enum GeoLiteCityDatabase implements MaxMindDatabase {
     }
 
     // Always update if we don't have a DatabaseReader
-    if (reader == null || !hdfsLoc.equals(hdfsFile)) {
+    if (database.get() == null || !hdfsLoc.equals(hdfsFile)) {
       // Update
       hdfsLoc = hdfsFile;
-      update(hdfsFile);
+      update(hdfsFile, globalConfig);
     } else {
       LOG.trace("Update to GeoLiteCity2Database unnecessary");
     }
@@ -177,52 +179,53 @@ public enum GeoLiteCityDatabase implements MaxMindDatabase {
    * @return Optional.empty() if the IP address is invalid or not in the database.
    */
   public Optional<Map<String, String>> get(String ip) {
-    if (MaxMindDbUtilities.invalidIp(ip)) {
+    CachingDatabaseReader<String> db = database.get();
+    if (db == null) {
+      LOG.warn("GeoLite2 City DB has not been loaded");
       return Optional.empty();
     }
 
     try {
-      readLock.lock();
-      InetAddress addr = InetAddress.getByName(ip);
-      CityResponse cityResponse = reader.city(addr);
-      HashMap<String, String> geoInfo = new HashMap<>();
-
-      Country country = cityResponse.getCountry();
-      City city = cityResponse.getCity();
-      Postal postal = cityResponse.getPostal();
-      Location location = cityResponse.getLocation();
-
-      GeoProps.LOC_ID.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(city.getGeoNameId()));
-      GeoProps.COUNTRY.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(country.getIsoCode()));
-      GeoProps.CITY.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(city.getName()));
-      GeoProps.POSTAL_CODE.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(postal.getCode()));
-      GeoProps.DMA_CODE.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(location.getMetroCode()));
-
-      Double latitudeRaw = location.getLatitude();
-      String latitude = MaxMindDbUtilities.convertNullToEmptyString(latitudeRaw);
-      GeoProps.LATITUDE.set(geoInfo, latitude);
-
-      Double longitudeRaw = location.getLongitude();
-      String longitude = MaxMindDbUtilities.convertNullToEmptyString(longitudeRaw);
-      GeoProps.LONGITUDE.set(geoInfo, longitude);
-
-      if (latitudeRaw == null || longitudeRaw == null) {
-        GeoProps.LOCATION_POINT.set(geoInfo, "");
-      } else {
-        GeoProps.LOCATION_POINT.set(geoInfo, latitude + "," + longitude);
-      }
-
-      return Optional.of(geoInfo);
-    } catch (UnknownHostException | AddressNotFoundException e) {
-      LOG.debug("No result found for IP {}", ip);
+      return db.get(ip, GeoLiteCityDatabase::lookup);
     } catch (GeoIp2Exception | IOException e) {
       LOG.warn("GeoLite2 City DB encountered an error", e);
-    } finally {
-      readLock.unlock();
     }
     return Optional.empty();
   }
 
+  private static Map<String, String> lookup(DatabaseReader reader, InetAddress addr)
+          throws IOException, GeoIp2Exception {
+    CityResponse cityResponse = reader.city(addr);
+    HashMap<String, String> geoInfo = new HashMap<>();
+
+    Country country = cityResponse.getCountry();
+    City city = cityResponse.getCity();
+    Postal postal = cityResponse.getPostal();
+    Location location = cityResponse.getLocation();
+
+    GeoProps.LOC_ID.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(city.getGeoNameId()));
+    GeoProps.COUNTRY.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(country.getIsoCode()));
+    GeoProps.CITY.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(city.getName()));
+    GeoProps.POSTAL_CODE.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(postal.getCode()));
+    GeoProps.DMA_CODE.set(geoInfo, MaxMindDbUtilities.convertNullToEmptyString(location.getMetroCode()));
+
+    Double latitudeRaw = location.getLatitude();
+    String latitude = MaxMindDbUtilities.convertNullToEmptyString(latitudeRaw);
+    GeoProps.LATITUDE.set(geoInfo, latitude);
+
+    Double longitudeRaw = location.getLongitude();
+    String longitude = MaxMindDbUtilities.convertNullToEmptyString(longitudeRaw);
+    GeoProps.LONGITUDE.set(geoInfo, longitude);
+
+    if (latitudeRaw == null || longitudeRaw == null) {
+      GeoProps.LOCATION_POINT.set(geoInfo, "");
+    } else {
+      GeoProps.LOCATION_POINT.set(geoInfo, latitude + "," + longitude);
+    }
+
+    return geoInfo;
+  }
+
   public Optional<WGS84Point> toPoint(Map<String, String> geoInfo) {
     String latitude = GeoProps.LATITUDE.get(geoInfo);
     String longitude = GeoProps.LONGITUDE.get(geoInfo);
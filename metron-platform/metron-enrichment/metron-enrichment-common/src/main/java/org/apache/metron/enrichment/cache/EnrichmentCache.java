@@ -0,0 +1,325 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.enrichment.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.metron.enrichment.interfaces.EnrichmentAdapter;
+import org.apache.metron.stellar.common.utils.ConversionUtils;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The cache of enrichment results, partitioned by enrichment adapter.
+ *
+ * <p>Each adapter has its own partition, so adapters never see each other's results.  The total capacity is
+ * shared between the partitions in proportion to the time each recently spent loading results, so an
+ * expensive adapter, such as one calling out to HBase or a REST service, keeps more of its results than a
+ * cheap one.  Every partition keeps at least a quarter of an even share.
+ *
+ * <p>Empty results are retained for their own, usually shorter, time.  Results which are read after the
+ * refresh time are reloaded in the background, while the old result continues to be served, so hot keys do
+ * not expire and stall together.
+ */
+public class EnrichmentCache {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The global config property holding the time, in minutes, after which a result which is read is reloaded in
+   * the background.  By default, results are not reloaded.
+   */
+  public static final String REFRESH_AFTER_WRITE_CONF = "enrichment.cache.refresh.after.write.minutes";
+
+  /**
+   * The global config property holding the time, in minutes, to retain an empty result.  By default, empty
+   * results are retained as long as any other.
+   */
+  public static final String NEGATIVE_TIME_RETAIN_CONF = "enrichment.cache.negative.time.retain.minutes";
+
+  /**
+   * The global config property which, if false, shares the capacity evenly between the adapters.  Defaults to true.
+   */
+  public static final String ADAPTIVE_CONF = "enrichment.cache.adaptive";
+
+  /**
+   * The global config property holding how often, in seconds, the capacity is shared out again.  Defaults to 60.
+   */
+  public static final String REBALANCE_PERIOD_CONF = "enrichment.cache.rebalance.period.seconds";
+  public static final long REBALANCE_PERIOD_DEFAULT = 60;
+
+  /**
+   * A result, which is empty if the adapter returned nothing.
+   */
+  private static class Entry {
+    private final JSONObject value;
+    private final long loadedAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private Entry(JSONObject value, long loadedAt) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+    }
+
+    private boolean isEmpty() {
+      return value == null || value.isEmpty();
+    }
+  }
+
+  /**
+   * The results of a single adapter.
+   */
+  private static class Partition {
+    private final Cache<CacheKey, Entry> cache;
+    private final LongAdder loadNanos = new LongAdder();
+    private double cost = 0;
+
+    private Partition(Cache<CacheKey, Entry> cache) {
+      this.cache = cache;
+    }
+
+    private void setMaximumSize(long maximumSize) {
+      cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumSize));
+    }
+
+    private long getMaximumSize() {
+      return cache.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(0L);
+    }
+  }
+
+  private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+  private final long maxSize;
+  private final long timeRetainNanos;
+  private final long negativeTimeRetainNanos;
+  private final long refreshNanos;
+  private final boolean adaptive;
+  private final long rebalanceNanos;
+  private final Executor executor;
+  private final boolean recordStats;
+  private final Ticker ticker;
+  private volatile long nextRebalance;
+
+  /**
+   * @param maxSize The maximum number of results, shared between the adapters.
+   * @param timeRetainMinutes The time to retain a result, in minutes.
+   * @param globalConfig The global config, holding the remaining settings.
+   * @param executor The executor used to reload results and maintain the cache.
+   * @param recordStats Whether to record statistics for each adapter.
+   */
+  public EnrichmentCache(long maxSize, long timeRetainMinutes, Map<String, Object> globalConfig,
+                         Executor executor, boolean recordStats) {
+    this(maxSize
+        , TimeUnit.MINUTES.toNanos(timeRetainMinutes)
+        , TimeUnit.MINUTES.toNanos(getLong(globalConfig, NEGATIVE_TIME_RETAIN_CONF, timeRetainMinutes))
+        , TimeUnit.MINUTES.toNanos(getLong(globalConfig, REFRESH_AFTER_WRITE_CONF, 0L))
+        , ConversionUtils.convert(getOrDefault(globalConfig, ADAPTIVE_CONF, true), Boolean.class)
+        , TimeUnit.SECONDS.toNanos(getLong(globalConfig, REBALANCE_PERIOD_CONF, REBALANCE_PERIOD_DEFAULT))
+        , executor
+        , recordStats
+        , Ticker.systemTicker()
+        );
+  }
+
+  EnrichmentCache(long maxSize, long timeRetainNanos, long negativeTimeRetainNanos, long refreshNanos,
+                  boolean adaptive, long rebalanceNanos, Executor executor, boolean recordStats, Ticker ticker) {
+    this.maxSize = maxSize;
+    this.timeRetainNanos = timeRetainNanos;
+    this.negativeTimeRetainNanos = negativeTimeRetainNanos;
+    this.refreshNanos = refreshNanos;
+    this.adaptive = adaptive;
+    this.rebalanceNanos = rebalanceNanos;
+    this.executor = executor;
+    this.recordStats = recordStats;
+    this.ticker = ticker;
+    this.nextRebalance = ticker.read() + rebalanceNanos;
+  }
+
+  private static Object getOrDefault(Map<String, Object> globalConfig, String key, Object defaultValue) {
+    return globalConfig == null ? defaultValue : globalConfig.getOrDefault(key, defaultValue);
+  }
+
+  private static long getLong(Map<String, Object> globalConfig, String key, long defaultValue) {
+    return ConversionUtils.convert(getOrDefault(globalConfig, key, defaultValue), Long.class);
+  }
+
+  /**
+   * Retrieves the result for a key, enriching it with the adapter if it is not cached.
+   *
+   * @param adapterName The name of the adapter, which identifies its partition.
+   * @param key The key.
+   * @param adapter The adapter.
+   * @return The result, which may be null.
+   */
+  public JSONObject get(String adapterName, CacheKey key, EnrichmentAdapter<CacheKey> adapter) {
+    Partition partition = partitions.get(adapterName);
+    if (partition == null) {
+      partition = createPartition(adapterName);
+    }
+    Partition p = partition;
+    Entry entry = p.cache.get(key, k -> load(p, k, adapter));
+    if (refreshNanos > 0 && ticker.read() - entry.loadedAt >= refreshNanos && entry.refreshing.compareAndSet(false, true)) {
+      executor.execute(() -> refresh(p, key, entry, adapter));
+    }
+    if (ticker.read() >= nextRebalance) {
+      rebalance();
+    }
+    return entry.value;
+  }
+
+  private Entry load(Partition partition, CacheKey key, EnrichmentAdapter<CacheKey> adapter) {
+    long start = ticker.read();
+    adapter.logAccess(key);
+    JSONObject value = adapter.enrich(key);
+    long end = ticker.read();
+    partition.loadNanos.add(end - start);
+    return new Entry(value, end);
+  }
+
+  private void refresh(Partition partition, CacheKey key, Entry entry, EnrichmentAdapter<CacheKey> adapter) {
+    try {
+      partition.cache.asMap().replace(key, entry, load(partition, key, adapter));
+    } catch (Throwable t) {
+      // the old result is kept, and reloaded again when it is next read
+      LOG.debug("Unable to refresh {}: {}", key, t.getMessage(), t);
+      entry.refreshing.set(false);
+    }
+  }
+
+  private synchronized Partition createPartition(String adapterName) {
+    Partition partition = partitions.get(adapterName);
+    if (partition == null) {
+      Caffeine<CacheKey, Entry> builder = Caffeine.newBuilder()
+              .maximumSize(maxSize)
+              .executor(executor)
+              .ticker(ticker)
+              .expireAfter(new Expiry<CacheKey, Entry>() {
+                @Override
+                public long expireAfterCreate(CacheKey key, Entry entry, long currentTime) {
+                  return entry.isEmpty() ? negativeTimeRetainNanos : timeRetainNanos;
+                }
+
+                @Override
+                public long expireAfterUpdate(CacheKey key, Entry entry, long currentTime, long currentDuration) {
+                  return expireAfterCreate(key, entry, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(CacheKey key, Entry entry, long currentTime, long currentDuration) {
+                  return currentDuration;
+                }
+              });
+      if (recordStats) {
+        builder = builder.recordStats();
+      }
+      partition = new Partition(builder.build());
+      partitions.put(adapterName, partition);
+      rebalance();
+    }
+    return partition;
+  }
+
+  /**
+   * Shares the capacity between the adapters in proportion to the time each spent loading results, decayed
+   * so that recent loads count the most.
+   */
+  synchronized void rebalance() {
+    nextRebalance = ticker.read() + rebalanceNanos;
+    int n = partitions.size();
+    if (n == 0) {
+      return;
+    }
+    double totalCost = 0;
+    for (Partition partition : partitions.values()) {
+      partition.cost = partition.cost / 2 + partition.loadNanos.sumThenReset();
+      totalCost += partition.cost;
+    }
+    long floor = adaptive ? maxSize / (4L * n) : maxSize / n;
+    long shared = maxSize - floor * n;
+    for (Map.Entry<String, Partition> kv : partitions.entrySet()) {
+      Partition partition = kv.getValue();
+      double weight = totalCost > 0 ? partition.cost / totalCost : 1.0 / n;
+      long size = Math.max(1, floor + (long) (shared * weight));
+      partition.setMaximumSize(size);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Enrichment cache for {} has capacity {}, size {} and stats {}", kv.getKey(), size,
+                partition.cache.estimatedSize(), partition.cache.stats());
+      }
+    }
+  }
+
+  /**
+   * @param adapterName The name of the adapter.
+   * @return The number of results the adapter may currently cache.
+   */
+  public long getMaximumSize(String adapterName) {
+    Partition partition = partitions.get(adapterName);
+    return partition == null ? 0 : partition.getMaximumSize();
+  }
+
+  /**
+   * @return The statistics of each adapter, keyed by name.  These are empty unless statistics are recorded.
+   */
+  public Map<String, CacheStats> getStats() {
+    Map<String, CacheStats> ret = new TreeMap<>();
+    for (Map.Entry<String, Partition> kv : partitions.entrySet()) {
+      ret.put(kv.getKey(), kv.getValue().cache.stats());
+    }
+    return Collections.unmodifiableMap(ret);
+  }
+
+  /**
+   * @return The statistics of every adapter combined.
+   */
+  public CacheStats stats() {
+    CacheStats ret = CacheStats.empty();
+    for (Partition partition : partitions.values()) {
+      ret = ret.plus(partition.cache.stats());
+    }
+    return ret;
+  }
+
+  public void invalidateAll() {
+    for (Partition partition : partitions.values()) {
+      partition.cache.invalidateAll();
+    }
+  }
+
+  /**
+   * Performs any pending maintenance, such as evicting results beyond the capacity.
+   */
+  public void cleanUp() {
+    for (Partition partition : partitions.values()) {
+      partition.cache.cleanUp();
+    }
+  }
+}
@@ -0,0 +1,302 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.enrichment.cache;
+
+import org.apache.metron.common.utils.SerDeUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map from strings to objects, memory mapped from a file written by {@link LookupTableWriter}.
+ *
+ * <p>Neither the keys nor the values are held on the heap.  Keys are found through a hashed index, and
+ * values are deserialized each time they are retrieved.
+ *
+ * <p>The file is laid out as follows, with all numbers big-endian:
+ * <ul>
+ *   <li>A header, holding {@link #MAGIC} and the format version.</li>
+ *   <li>The records, each holding the length of the UTF-8 key, the key, the length of the serialized
+ *   value (or -1 if the value is null) and the serialized value.</li>
+ *   <li>The index, an open-addressed hash table where each slot holds the hash of a key and the offset
+ *   of its record, or 0 if the slot is empty.</li>
+ *   <li>A trailer, holding the offset of the index, the number of records and the number of slots.</li>
+ * </ul>
+ */
+public class LookupTable extends AbstractMap<String, Object> {
+
+  static final byte[] MAGIC = "METRONLT".getBytes(StandardCharsets.US_ASCII);
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = MAGIC.length + 8;
+  static final int SLOT_SIZE = 4 + 8;
+  static final int TRAILER_SIZE = 8 + 8 + 4;
+  static final double LOAD_FACTOR = 0.75;
+
+  /**
+   * Files are mapped in segments, since a single mapping is limited to 2GB.
+   */
+  static final int SEGMENT_BITS = 30;
+
+  private final ByteBuffer[] segments;
+  private final int segmentBits;
+  private final long segmentMask;
+  private final long indexOffset;
+  private final long size;
+  private final int slotMask;
+
+  private LookupTable(ByteBuffer[] segments, int segmentBits, long indexOffset, long size, int slots) {
+    this.segments = segments;
+    this.segmentBits = segmentBits;
+    this.segmentMask = (1L << segmentBits) - 1;
+    this.indexOffset = indexOffset;
+    this.size = size;
+    this.slotMask = slots - 1;
+  }
+
+  /**
+   * Maps a lookup table.  The file may be deleted once it is opened.
+   *
+   * @param file The lookup table.
+   * @return The lookup table.
+   * @throws IOException If the file could not be mapped or is not a lookup table.
+   */
+  public static LookupTable open(File file) throws IOException {
+    return open(file, SEGMENT_BITS);
+  }
+
+  static LookupTable open(File file, int segmentBits) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+         FileChannel channel = raf.getChannel()) {
+      long length = channel.size();
+      if (length < HEADER_SIZE + TRAILER_SIZE) {
+        throw new IOException(String.format("File '%s' is too small to be a lookup table", file));
+      }
+      long segmentSize = 1L << segmentBits;
+      ByteBuffer[] segments = new ByteBuffer[(int) ((length + segmentSize - 1) >>> segmentBits)];
+      for (int i = 0; i < segments.length; ++i) {
+        long start = (long) i << segmentBits;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentSize, length - start));
+      }
+
+      LookupTable ret = new LookupTable(segments, segmentBits, 0, 0, 1);
+      byte[] magic = new byte[MAGIC.length];
+      ret.read(0, magic, 0, magic.length);
+      if (!isLookupTable(magic) || ret.getInt(MAGIC.length) != VERSION) {
+        throw new IOException(String.format("File '%s' is not a version %s lookup table", file, VERSION));
+      }
+      long trailer = length - TRAILER_SIZE;
+      long indexOffset = ret.getLong(trailer);
+      long size = ret.getLong(trailer + 8);
+      int slots = ret.getInt(trailer + 16);
+      if (Integer.bitCount(slots) != 1 || indexOffset + (long) slots * SLOT_SIZE != trailer) {
+        throw new IOException(String.format("Lookup table '%s' is corrupt", file));
+      }
+      return new LookupTable(segments, segmentBits, indexOffset, size, slots);
+    }
+  }
+
+  /**
+   * @param header The first bytes of a file.
+   * @return True if the file is a lookup table.
+   */
+  public static boolean isLookupTable(byte[] header) {
+    return header.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC);
+  }
+
+  /**
+   * @param size The number of records.
+   * @return The number of index slots for the given number of records.
+   */
+  static int slotCount(long size) {
+    long slots = 2;
+    while (slots * LOAD_FACTOR < size) {
+      slots <<= 1;
+    }
+    if (slots > 1 << 30) {
+      throw new IllegalArgumentException("Too many records for a lookup table: " + size);
+    }
+    return (int) slots;
+  }
+
+  static int hash(byte[] key) {
+    int h = 0x811C9DC5;
+    for (byte b : key) {
+      h = (h ^ b) * 0x01000193;
+    }
+    // spread the bits, since the index uses the low ones
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return h;
+  }
+
+  @Override
+  public Object get(Object key) {
+    long record = find(key);
+    return record < 0 ? null : readValue(record);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return find(key) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<Entry<String, Object>>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new Iterator<Entry<String, Object>>() {
+          private long record = HEADER_SIZE;
+
+          @Override
+          public boolean hasNext() {
+            return record < indexOffset;
+          }
+
+          @Override
+          public Entry<String, Object> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<String, Object> ret = new SimpleImmutableEntry<>(readKey(record), readValue(record));
+            long valueLength = getInt(valueOffset(record));
+            record = valueOffset(record) + 4 + Math.max(valueLength, 0);
+            return ret;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return LookupTable.this.size();
+      }
+    };
+  }
+
+  /**
+   * @return The offset of the key's record, or -1 if the key is not in the table.
+   */
+  private long find(Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+    int hash = hash(bytes);
+    for (int slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+      long slotOffset = indexOffset + (long) slot * SLOT_SIZE;
+      long record = getLong(slotOffset + 4);
+      if (record == 0) {
+        return -1;
+      }
+      if (getInt(slotOffset) == hash && keyEquals(record, bytes)) {
+        return record;
+      }
+    }
+  }
+
+  private boolean keyEquals(long record, byte[] key) {
+    if (getInt(record) != key.length) {
+      return false;
+    }
+    long offset = record + 4;
+    for (int i = 0; i < key.length; ++i) {
+      if (getByte(offset + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String readKey(long record) {
+    byte[] key = new byte[getInt(record)];
+    read(record + 4, key, 0, key.length);
+    return new String(key, StandardCharsets.UTF_8);
+  }
+
+  private long valueOffset(long record) {
+    return record + 4 + getInt(record);
+  }
+
+  private Object readValue(long record) {
+    long offset = valueOffset(record);
+    int length = getInt(offset);
+    if (length < 0) {
+      return null;
+    }
+    byte[] value = new byte[length];
+    read(offset + 4, value, 0, length);
+    return SerDeUtils.fromBytes(value, Object.class);
+  }
+
+  private byte getByte(long offset) {
+    return segments[(int) (offset >>> segmentBits)].get((int) (offset & segmentMask));
+  }
+
+  private int getInt(long offset) {
+    int pos = (int) (offset & segmentMask);
+    ByteBuffer segment = segments[(int) (offset >>> segmentBits)];
+    if (pos + 4 <= segment.limit()) {
+      return segment.getInt(pos);
+    }
+    int ret = 0;
+    for (int i = 0; i < 4; ++i) {
+      ret = (ret << 8) | (getByte(offset + i) & 0xFF);
+    }
+    return ret;
+  }
+
+  private long getLong(long offset) {
+    return ((long) getInt(offset) << 32) | (getInt(offset + 4) & 0xFFFFFFFFL);
+  }
+
+  private void read(long offset, byte[] dst, int dstOffset, int length) {
+    while (length > 0) {
+      ByteBuffer segment = segments[(int) (offset >>> segmentBits)].duplicate();
+      int pos = (int) (offset & segmentMask);
+      int n = Math.min(length, segment.limit() - pos);
+      segment.position(pos);
+      segment.get(dst, dstOffset, n);
+      offset += n;
+      dstOffset += n;
+      length -= n;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.enrichment.cache;
+
+import org.apache.metron.common.utils.SerDeUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes a map in the format read by {@link LookupTable}.  The output is written in a single pass,
+ * so it may go to any stream, such as a file in HDFS.
+ */
+public class LookupTableWriter {
+
+  private LookupTableWriter() {
+  }
+
+  /**
+   * Writes a map as a lookup table.  Values are serialized with {@link SerDeUtils}.
+   *
+   * @param map The map, which must have string keys.
+   * @param out The stream to write to.  It is not closed.
+   * @throws IOException If the table could not be written.
+   */
+  public static void write(Map<?, ?> map, OutputStream out) throws IOException {
+    int slots = LookupTable.slotCount(map.size());
+    int mask = slots - 1;
+    int[] hashes = new int[slots];
+    long[] records = new long[slots];
+
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    data.write(LookupTable.MAGIC);
+    data.writeInt(LookupTable.VERSION);
+    data.writeInt(0);
+    long position = LookupTable.HEADER_SIZE;
+
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (!(entry.getKey() instanceof String)) {
+        throw new IllegalArgumentException("Lookup tables must have string keys, but found " + entry.getKey());
+      }
+      byte[] key = ((String) entry.getKey()).getBytes(StandardCharsets.UTF_8);
+      int hash = LookupTable.hash(key);
+      int slot = hash & mask;
+      while (records[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      hashes[slot] = hash;
+      records[slot] = position;
+
+      data.writeInt(key.length);
+      data.write(key);
+      position += 4 + key.length;
+      if (entry.getValue() == null) {
+        data.writeInt(-1);
+        position += 4;
+      } else {
+        byte[] value = SerDeUtils.toBytes(entry.getValue());
+        data.writeInt(value.length);
+        data.write(value);
+        position += 4 + value.length;
+      }
+    }
+
+    long indexOffset = position;
+    for (int i = 0; i < slots; ++i) {
+      data.writeInt(hashes[i]);
+      data.writeLong(records[i]);
+    }
+    data.writeLong(indexOffset);
+    data.writeLong(map.size());
+    data.writeInt(slots);
+    data.flush();
+  }
+
+  /**
+   * Writes an object as a lookup table.
+   *
+   * @param obj The object, which must be a map with string keys.
+   * @param out The stream to write to.  It is not closed.
+   * @throws IOException If the table could not be written.
+   */
+  public static void write(Object obj, OutputStream out) throws IOException {
+    if (!(obj instanceof Map)) {
+      throw new IllegalArgumentException("Only maps can be written as lookup tables, not "
+              + (obj == null ? "null" : obj.getClass().getName()));
+    }
+    write((Map<?, ?>) obj, out);
+  }
+}
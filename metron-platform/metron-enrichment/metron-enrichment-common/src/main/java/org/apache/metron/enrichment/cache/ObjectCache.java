@@ -25,12 +25,14 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.metron.common.utils.SerDeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
@@ -61,7 +63,10 @@ public class ObjectCache {
       Object object = null;
       Path p = new Path(s);
       if (fs.exists(p)) {
-        if (fs.getFileStatus(p).getLen() <= objectCacheConfig.getMaxFileSize()) {
+        if (isLookupTable(p)) {
+          // Lookup tables are not read onto the heap, so they are not subject to the max file size.
+          object = loadLookupTable(p);
+        } else if (fs.getFileStatus(p).getLen() <= objectCacheConfig.getMaxFileSize()) {
           try (InputStream is = new BufferedInputStream(fs.open(p))) {
             byte[] serialized = IOUtils.toByteArray(is);
             if (serialized.length > 0) {
@@ -76,6 +81,37 @@ public class ObjectCache {
       }
       return object;
     }
+
+    private boolean isLookupTable(Path p) throws IOException {
+      try (InputStream is = fs.open(p)) {
+        byte[] header = new byte[LookupTable.MAGIC.length];
+        return IOUtils.read(is, header) == header.length && LookupTable.isLookupTable(header);
+      }
+    }
+
+    /**
+     * Maps a lookup table in place if it is on the local file system, otherwise copies it to the local
+     * directory first.  The local copy is removed as soon as it is mapped.
+     */
+    private LookupTable loadLookupTable(Path p) throws IOException {
+      if (fs instanceof LocalFileSystem) {
+        return LookupTable.open(((LocalFileSystem) fs).pathToFile(p));
+      }
+      File localDir = new File(objectCacheConfig.getLocalDir());
+      if (!localDir.exists() && !localDir.mkdirs()) {
+        throw new IOException(String.format("Unable to create local directory '%s'", localDir));
+      }
+      File local = File.createTempFile("lookup-table-", ".tmp", localDir);
+      try {
+        LOG.debug("Copying lookup table from '{}' to '{}'", p, local);
+        fs.copyToLocalFile(false, p, new Path(local.getAbsolutePath()), true);
+        return LookupTable.open(local);
+      } finally {
+        if (!local.delete()) {
+          local.deleteOnExit();
+        }
+      }
+    }
   }
 
   public Object get(String path) {
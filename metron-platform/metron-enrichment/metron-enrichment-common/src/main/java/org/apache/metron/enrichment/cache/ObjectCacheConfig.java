@@ -31,15 +31,18 @@ public class ObjectCacheConfig {
   public static final String OBJECT_CACHE_EXPIRATION_KEY = "object.cache.expiration";
   public static final String OBJECT_CACHE_TIME_UNIT_KEY = "object.cache.time.unit";
   public static final String OBJECT_CACHE_MAX_FILE_SIZE_KEY = "object.cache.max.file.size";
+  public static final String OBJECT_CACHE_LOCAL_DIR_KEY = "object.cache.local.dir";
   public static final long OBJECT_CACHE_SIZE_DEFAULT = 1000;
   public static final long OBJECT_CACHE_EXPIRATION_MIN_DEFAULT = 1440;
   public static final TimeUnit OBJECT_CACHE_TIME_UNIT_DEFAULT = TimeUnit.MINUTES;
   public static final long OBJECT_CACHE_MAX_FILE_SIZE_DEFAULT = 1048576; // default to 1 mb
+  public static final String OBJECT_CACHE_LOCAL_DIR_DEFAULT = System.getProperty("java.io.tmpdir");
 
   private long cacheSize;
   private long cacheExpiration;
   private TimeUnit timeUnit;
   private long maxFileSize;
+  private String localDir;
 
   public ObjectCacheConfig(Map<String, Object> config) {
       cacheSize = ConversionUtils.convert(config.getOrDefault(OBJECT_CACHE_SIZE_KEY, OBJECT_CACHE_SIZE_DEFAULT), Long.class);
@@ -52,6 +55,7 @@ public class ObjectCacheConfig {
                   TimeUnit.valueOf((String) config.get(OBJECT_CACHE_TIME_UNIT_KEY)) : OBJECT_CACHE_TIME_UNIT_DEFAULT;
       }
       maxFileSize = ConversionUtils.convert(config.getOrDefault(OBJECT_CACHE_MAX_FILE_SIZE_KEY, OBJECT_CACHE_MAX_FILE_SIZE_DEFAULT), Long.class);
+      localDir = (String) config.getOrDefault(OBJECT_CACHE_LOCAL_DIR_KEY, OBJECT_CACHE_LOCAL_DIR_DEFAULT);
   }
 
   public long getCacheSize() {
@@ -86,6 +90,14 @@ public class ObjectCacheConfig {
     this.maxFileSize = maxFileSize;
   }
 
+  public String getLocalDir() {
+    return localDir;
+  }
+
+  public void setLocalDir(String localDir) {
+    this.localDir = localDir;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -94,13 +106,14 @@ public class ObjectCacheConfig {
     return cacheSize == that.cacheSize &&
             cacheExpiration == that.cacheExpiration &&
             timeUnit == that.timeUnit &&
-            maxFileSize == that.maxFileSize;
+            maxFileSize == that.maxFileSize &&
+            Objects.equals(localDir, that.localDir);
   }
 
   @Override
   public int hashCode() {
 
-    return Objects.hash(cacheSize, cacheExpiration, timeUnit, maxFileSize);
+    return Objects.hash(cacheSize, cacheExpiration, timeUnit, maxFileSize, localDir);
   }
 
   @Override
@@ -110,6 +123,7 @@ public class ObjectCacheConfig {
             ", cacheExpiration=" + cacheExpiration +
             ", timeUnit=" + timeUnit +
             ", maxFileSize=" + maxFileSize +
+            ", localDir='" + localDir + '\'' +
             '}';
   }
 }
@@ -17,15 +17,12 @@
  */
 package org.apache.metron.enrichment.parallel;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import org.apache.metron.enrichment.cache.CacheKey;
-import org.json.simple.JSONObject;
+import org.apache.metron.enrichment.cache.EnrichmentCache;
 import org.slf4j.Logger;
 
 import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * This provides the parallel infrastructure, the thread pool and the cache.
@@ -33,7 +30,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class ConcurrencyContext {
   private static Executor executor;
-  private Cache<CacheKey, JSONObject> cache;
+  private EnrichmentCache cache;
 
   private static EnumMap<EnrichmentStrategies, ConcurrencyContext> strategyToInfrastructure
           = new EnumMap<EnrichmentStrategies, ConcurrencyContext>(EnrichmentStrategies.class) {{
@@ -65,6 +62,28 @@ public class ConcurrencyContext {
                                      , Logger log
                                      , boolean logStats
                                      ) {
+    initialize(numThreads, maxCacheSize, maxTimeRetain, poolStrategy, log, logStats, null);
+  }
+
+  /*
+   * Initialize the thread pool and cache.  The threadpool is static and the cache is per strategy.
+   *
+   * @param numThreads The number of threads in the threadpool.
+   * @param maxCacheSize The maximum size of the cache, beyond which and keys are evicted.
+   * @param maxTimeRetain The maximum time to retain an element in the cache (in minutes)
+   * @param poolStrategy The strategy for creating a threadpool
+   * @param log The logger to use
+   * @param logStats Should we record stats in the cache?
+   * @param globalConfig The global config, holding the remaining cache settings (see {@link EnrichmentCache})
+   */
+  public synchronized void initialize( int numThreads
+                                     , long maxCacheSize
+                                     , long maxTimeRetain
+                                     , WorkerPoolStrategies poolStrategy
+                                     , Logger log
+                                     , boolean logStats
+                                     , Map<String, Object> globalConfig
+                                     ) {
     if(executor == null) {
       if (log != null) {
         log.info("Creating new threadpool of size {}", numThreads);
@@ -75,14 +94,7 @@ public class ConcurrencyContext {
       if (log != null) {
         log.info("Creating new cache with maximum size {}, and expiration after write of {} minutes", maxCacheSize, maxTimeRetain);
       }
-      Caffeine builder = Caffeine.newBuilder().maximumSize(maxCacheSize)
-                           .expireAfterWrite(maxTimeRetain, TimeUnit.MINUTES)
-                           .executor(executor)
-                         ;
-      if(logStats) {
-        builder = builder.recordStats();
-      }
-      cache = builder.build();
+      cache = new EnrichmentCache(maxCacheSize, maxTimeRetain, globalConfig, executor, logStats);
     }
   }
 
@@ -90,7 +102,7 @@ public class ConcurrencyContext {
     return executor;
   }
 
-  public Cache<CacheKey, JSONObject> getCache() {
+  public EnrichmentCache getCache() {
     return cache;
   }
 }
@@ -22,6 +22,8 @@ import com.google.common.base.Joiner;
 import org.apache.metron.common.Constants;
 import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
 import org.apache.metron.common.configuration.enrichment.handler.ConfigHandler;
+import org.apache.metron.common.performance.LatencyMetrics;
+import org.apache.metron.common.performance.LatencyRecorder;
 import org.apache.metron.common.performance.PerformanceLogger;
 import org.apache.metron.common.utils.MessageUtils;
 import org.apache.metron.enrichment.cache.CacheKey;
@@ -120,6 +122,33 @@ public class ParallelEnricher {
     if(message == null) {
       return null;
     }
+    EnrichmentResult ret = applyAsync(message, strategy, config, perfLog).get();
+    if(perfLog != null) {
+      String key = message.get(Constants.GUID) + "";
+      perfLog.log("enrich", "key={}, elapsed time to enrich", key);
+      perfLog.log("execute", "key={}, elapsed time to run execute", key);
+    }
+    return ret;
+  }
+
+  /**
+   * Starts enriching a message without waiting for the enrichments to complete, so that the caller
+   * may enrich several messages at once.
+   *
+   * @param message the message to enrich
+   * @param strategy The enrichment strategy to use (e.g. enrichment or threat intel)
+   * @param config The sensor enrichment config
+   * @param perfLog The performance logger, which may be null.  Only the cache statistics and the split portion are logged.
+   * @return the enrichment result, once every enrichment has completed
+   */
+  public CompletableFuture<EnrichmentResult> applyAsync( JSONObject message
+                                                      , EnrichmentStrategies strategy
+                                                      , SensorEnrichmentConfig config
+                                                      , PerformanceLogger perfLog
+                                                      ) {
+    if(message == null) {
+      return CompletableFuture.completedFuture(null);
+    }
     if(perfLog != null) {
       perfLog.mark("execute");
       if(perfLog.isDebugEnabled() && !cacheStats.isEmpty()) {
@@ -150,6 +179,7 @@ public class ParallelEnricher {
     }
     List<CompletableFuture<JSONObject>> taskList = new ArrayList<>();
     List<Map.Entry<Object, Throwable>> errors = Collections.synchronizedList(new ArrayList<>());
+    String stage = strategy.name().toLowerCase();
     for(Map.Entry<String, List<JSONObject>> task : tasks.entrySet()) {
       //task is the list of enrichment tasks for the task.getKey() adapter
       EnrichmentAdapter<CacheKey> adapter = enrichmentsByType.get(task.getKey());
@@ -158,6 +188,7 @@ public class ParallelEnricher {
                 + ", possible adapters are: " + Joiner.on(",").join(enrichmentsByType.keySet()));
       }
       message.put("adapter." + adapter.getClass().getSimpleName().toLowerCase() + ".begin.ts", "" + System.currentTimeMillis());
+      LatencyRecorder latency = LatencyMetrics.INSTANCE.recorder(stage, task.getKey(), sensorType);
       for(JSONObject m : task.getValue()) {
         /* now for each unit of work (each of these only has one element in them)
          * the key is the field name and the value is value associated with that field.
@@ -179,7 +210,9 @@ public class ParallelEnricher {
           String prefix = adapter.getOutputPrefix(cacheKey);
           Supplier<JSONObject> supplier = () -> {
             try {
-              JSONObject ret = concurrencyContext.getCache().get(cacheKey, new EnrichmentCallable(cacheKey, adapter));
+              long start = System.nanoTime();
+              JSONObject ret = concurrencyContext.getCache().get(task.getKey(), cacheKey, adapter);
+              latency.recordSince(start);
               if(ret == null) {
                 ret = new JSONObject();
               }
@@ -203,17 +236,13 @@ public class ParallelEnricher {
     }
     if(taskList.isEmpty()) {
       message.put(getClass().getSimpleName().toLowerCase() + ".enrich.end.ts", "" + System.currentTimeMillis());
-      return new EnrichmentResult(message, errors);
+      return CompletableFuture.completedFuture(new EnrichmentResult(message, errors));
     }
 
-    EnrichmentResult ret = new EnrichmentResult(all(taskList, message, (left, right) -> join(left, right)).get(), errors);
-    ret.getResult().put(getClass().getSimpleName().toLowerCase() + ".enrich.end.ts", "" + System.currentTimeMillis());
-    if(perfLog != null) {
-      String key = message.get(Constants.GUID) + "";
-      perfLog.log("enrich", "key={}, elapsed time to enrich", key);
-      perfLog.log("execute", "key={}, elapsed time to run execute", key);
-    }
-    return ret;
+    return all(taskList, message, (left, right) -> join(left, right)).thenApply(result -> {
+      result.put(getClass().getSimpleName().toLowerCase() + ".enrich.end.ts", "" + System.currentTimeMillis());
+      return new EnrichmentResult(result, errors);
+    });
   }
 
   private static JSONObject join(JSONObject left, JSONObject right) {
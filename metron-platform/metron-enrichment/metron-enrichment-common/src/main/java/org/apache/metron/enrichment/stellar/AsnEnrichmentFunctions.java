@@ -100,7 +100,7 @@ public class AsnEnrichmentFunctions {
       LOG.info("Initializing AsnEnrichmentFunctions");
       Map<String, Object> config = getConfig(context);
       String hdfsDir = (String) config.get(GeoLiteAsnDatabase.ASN_HDFS_FILE);
-      GeoLiteAsnDatabase.INSTANCE.update(hdfsDir);
+      GeoLiteAsnDatabase.INSTANCE.update(hdfsDir, config);
       initialized = true;
     }
 
@@ -37,7 +37,9 @@ import static org.apache.metron.enrichment.stellar.EnrichmentObjectGet.ENRICHMEN
 @Stellar(namespace="ENRICHMENT"
         ,name="OBJECT_GET"
         ,description="Retrieve and deserialize a serialized object from HDFS and stores it in the ObjectCache,  " +
-        "then returns the value associated with the indicator." +
+        "then returns the value associated with the indicator. " +
+        "Lookup tables written by the flat file summarizer are memory mapped rather than deserialized, " +
+        "and only the value of the indicator is deserialized. " +
         "The cache can be specified via three properties in the global config: " +
         "\"" + ObjectCacheConfig.OBJECT_CACHE_SIZE_KEY + "\" (default " + ObjectCacheConfig.OBJECT_CACHE_SIZE_DEFAULT + ")," +
         "\"" + ObjectCacheConfig.OBJECT_CACHE_EXPIRATION_KEY + "\" (default " + ObjectCacheConfig.OBJECT_CACHE_EXPIRATION_MIN_DEFAULT + ")," +
@@ -93,7 +93,7 @@ public class GeoEnrichmentFunctions {
         LOG.info("Initializing GeoEnrichmentFunctions");
         Map<String, Object> config = getConfig(context);
         String hdfsDir = (String) config.get(GeoLiteCityDatabase.GEO_HDFS_FILE);
-        GeoLiteCityDatabase.INSTANCE.update(hdfsDir);
+        GeoLiteCityDatabase.INSTANCE.update(hdfsDir, config);
         initialized = true;
     }
 
@@ -22,6 +22,7 @@ import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
 import org.apache.metron.common.configuration.enrichment.threatintel.RuleScore;
 import org.apache.metron.common.configuration.enrichment.threatintel.ThreatScore;
 import org.apache.metron.common.configuration.enrichment.threatintel.ThreatTriageConfig;
+import org.apache.metron.common.performance.LatencyMetrics;
 import org.apache.metron.common.utils.MessageUtils;
 import org.apache.metron.stellar.common.utils.ConversionUtils;
 import org.apache.metron.stellar.dsl.Context;
@@ -114,7 +115,9 @@ public static JSONObject triage(JSONObject ret, SensorEnrichmentConfig config, F
 
         // triage the threat
         ThreatTriageProcessor threatTriageProcessor = new ThreatTriageProcessor(config, functionResolver, stellarContext);
+        long triageStart = System.nanoTime();
         ThreatScore score = threatTriageProcessor.apply(ret);
+        LatencyMetrics.INSTANCE.recorder(LatencyMetrics.TRIAGE, sourceType).recordSince(triageStart);
 
         if(LOG.isDebugEnabled()) {
           String rules = Joiner.on('\n').join(triageConfig.getRiskLevelRules());
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.threatintel.triage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running statistics for a single threat triage rule.
+ *
+ * <p>The statistics are shared by every thread triaging messages with the same
+ * triage configuration and are reset whenever that configuration changes.
+ */
+public class RuleStatistics {
+
+  /**
+   * The number of times the rule's predicate was evaluated.
+   */
+  private final LongAdder evaluations = new LongAdder();
+
+  /**
+   * The number of times the rule was skipped because a guard ruled it out.
+   */
+  private final LongAdder skipped = new LongAdder();
+
+  /**
+   * The number of times the rule applied to a message.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * The total time spent evaluating the rule in nanoseconds.
+   */
+  private final LongAdder evaluationTimeNanos = new LongAdder();
+
+  void recordEvaluation(boolean hit, long elapsedNanos) {
+    evaluations.increment();
+    evaluationTimeNanos.add(elapsedNanos);
+    if(hit) {
+      hits.increment();
+    }
+  }
+
+  void recordSkip() {
+    skipped.increment();
+  }
+
+  public long getEvaluations() {
+    return evaluations.sum();
+  }
+
+  public long getSkipped() {
+    return skipped.sum();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getEvaluationTime(TimeUnit units) {
+    return units.convert(evaluationTimeNanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return The mean time to evaluate the rule in nanoseconds, or 0 if it has not been evaluated.
+   */
+  public double getMeanEvaluationTimeNanos() {
+    long n = evaluations.sum();
+    return n == 0 ? 0d : (double) evaluationTimeNanos.sum() / n;
+  }
+
+  @Override
+  public String toString() {
+    return "RuleStatistics{" +
+            "evaluations=" + getEvaluations() +
+            ", skipped=" + getSkipped() +
+            ", hits=" + getHits() +
+            ", meanEvaluationTimeNanos=" + getMeanEvaluationTimeNanos() +
+            '}';
+  }
+}
@@ -19,23 +19,17 @@
 package org.apache.metron.threatintel.triage;
 
 import com.google.common.base.Function;
-import org.apache.metron.common.aggregator.Aggregators;
 import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
 import org.apache.metron.common.configuration.enrichment.threatintel.RiskLevelRule;
-import org.apache.metron.common.configuration.enrichment.threatintel.RuleScore;
 import org.apache.metron.common.configuration.enrichment.threatintel.ThreatIntelConfig;
 import org.apache.metron.common.configuration.enrichment.threatintel.ThreatScore;
 import org.apache.metron.common.configuration.enrichment.threatintel.ThreatTriageConfig;
-import org.apache.metron.stellar.common.StellarPredicateProcessor;
-import org.apache.metron.stellar.common.StellarProcessor;
-import org.apache.metron.stellar.common.utils.ConversionUtils;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.stellar.dsl.MapVariableResolver;
 import org.apache.metron.stellar.dsl.VariableResolver;
 import org.apache.metron.stellar.dsl.functions.resolver.FunctionResolver;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -78,38 +72,16 @@ public class ThreatTriageProcessor implements Function<Map, ThreatScore> {
   @Nullable
   @Override
   public ThreatScore apply(@Nullable Map message) {
-
-    ThreatScore threatScore = new ThreatScore();
-    StellarPredicateProcessor predicateProcessor = new StellarPredicateProcessor();
-    StellarProcessor processor = new StellarProcessor();
     VariableResolver variableResolver = new MapVariableResolver(message, sensorConfig.getConfiguration(), threatIntelConfig.getConfig());
-
-    // attempt to apply each rule to the threat
-    for(RiskLevelRule rule : threatTriageConfig.getRiskLevelRules()) {
-      if(predicateProcessor.parse(rule.getRule(), variableResolver, functionResolver, context)) {
-
-        // add the rule's score to the overall threat score
-        String reason = execute(rule.getReason(), processor, variableResolver, String.class);
-        Double score = execute(rule.getScoreExpression(), processor, variableResolver, Double.class);
-        threatScore.addRuleScore(new RuleScore(rule, reason, score));
-      }
-    }
-
-    // calculate the aggregate threat score
-    List<Number> ruleScores = new ArrayList<>();
-    for(RuleScore ruleScore: threatScore.getRuleScores()) {
-      ruleScores.add(ruleScore.getScore());
-    }
-    Aggregators aggregators = threatTriageConfig.getAggregator();
-    Double aggregateScore = aggregators.aggregate(ruleScores, threatTriageConfig.getAggregationConfig());
-    threatScore.setScore(aggregateScore);
-
-    return threatScore;
+    // the rules are compiled once per triage configuration and shared by every processor using it
+    return TriageRuleSet.get(threatTriageConfig).apply(variableResolver, functionResolver, context);
   }
 
-  private <T> T execute(String expression, StellarProcessor processor, VariableResolver resolver, Class<T> clazz) {
-    Object result = processor.parse(expression, resolver, functionResolver, context);
-    return ConversionUtils.convert(result, clazz);
+  /**
+   * @return The hit counts and evaluation times of each rule, in the order the rules are defined.
+   */
+  public Map<RiskLevelRule, RuleStatistics> getRuleStatistics() {
+    return TriageRuleSet.get(threatTriageConfig).getRuleStatistics();
   }
 
   public List<RiskLevelRule> getRiskLevelRules() {
@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.threatintel.triage;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+import org.apache.metron.common.configuration.enrichment.threatintel.RiskLevelRule;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The static analysis of a single {@link RiskLevelRule}.
+ *
+ * <p>A rule whose predicate is a chain of conjuncts joined by 'and' is split into
+ * its conjuncts.  Conjuncts of the following forms are pulled out as guards:
+ * <ul>
+ *   <li>Equality guards: {@code field == 'literal'}, which are looked up in a hash index.</li>
+ *   <li>Shared guards: {@code IN_SUBNET(field, 'cidr', ...)}, which are evaluated at most
+ *   once per message no matter how many rules contain them.</li>
+ * </ul>
+ * Once every guard holds, only the residual conjuncts need to be evaluated.  The analysis is
+ * deliberately conservative; any predicate it does not understand is evaluated as-is.
+ */
+class TriageRule {
+
+  private static final String IDENTIFIER = "[a-zA-Z_$](?:[a-zA-Z_.:0-9]*[a-zA-Z_.0-9])?";
+  private static final String STRING_LITERAL = "'[^'\\\\]*'|\"[^\"\\\\]*\"";
+  private static final Pattern EQUALITY_GUARD = Pattern.compile(
+          "^(" + IDENTIFIER + ")\\s*==\\s*(" + STRING_LITERAL + ")$");
+  private static final Pattern REVERSED_EQUALITY_GUARD = Pattern.compile(
+          "^(" + STRING_LITERAL + ")\\s*==\\s*(" + IDENTIFIER + ")$");
+  private static final Pattern SUBNET_GUARD = Pattern.compile(
+          "^IN_SUBNET\\s*\\(\\s*(" + IDENTIFIER + ")((?:\\s*,\\s*(?:" + STRING_LITERAL + "))+)\\s*\\)$");
+  private static final Pattern SUBNET_ARG = Pattern.compile(STRING_LITERAL);
+
+  /**
+   * Words which look like identifiers but are Stellar keywords or constants.
+   */
+  private static final Set<String> KEYWORDS = ImmutableSet.of(
+          "and", "AND", "or", "OR", "not", "NOT", "in", "IN", "true", "TRUE", "false", "FALSE",
+          "null", "NULL", "NaN", "if", "IF", "then", "THEN", "else", "ELSE", "match", "MATCH",
+          "default", "DEFAULT", "exists", "EXISTS");
+
+  /**
+   * Words which, at the top level, mean the predicate is not a simple conjunction.
+   */
+  private static final Set<String> NON_CONJUNCTIVE = ImmutableSet.of(
+          "or", "OR", "if", "IF", "then", "THEN", "else", "ELSE", "match", "MATCH");
+
+  private final int index;
+  private final RiskLevelRule rule;
+  private final List<Map.Entry<String, String>> equalityGuards = new ArrayList<>();
+  private final List<String> sharedGuards = new ArrayList<>();
+  private final String residual;
+  private final Double staticScore;
+  private final RuleStatistics statistics = new RuleStatistics();
+
+  TriageRule(int index, RiskLevelRule rule) {
+    this.index = index;
+    this.rule = rule;
+    this.staticScore = parseStaticScore(rule.getScoreExpression());
+
+    List<String> conjuncts = splitConjuncts(rule.getRule());
+    if(conjuncts == null) {
+      this.residual = rule.getRule();
+      return;
+    }
+    Set<Map.Entry<String, String>> equalities = new LinkedHashSet<>();
+    Set<String> subnets = new LinkedHashSet<>();
+    List<String> remaining = new ArrayList<>();
+    for(String conjunct : conjuncts) {
+      Map.Entry<String, String> equality = toEqualityGuard(conjunct);
+      String subnet = equality == null ? toSubnetGuard(conjunct) : null;
+      if(equality != null) {
+        equalities.add(equality);
+      }
+      else if(subnet != null) {
+        subnets.add(subnet);
+      }
+      else {
+        remaining.add(conjunct);
+      }
+    }
+    equalityGuards.addAll(equalities);
+    sharedGuards.addAll(subnets);
+    if(equalityGuards.isEmpty() && sharedGuards.isEmpty()) {
+      this.residual = rule.getRule();
+    }
+    else if(remaining.isEmpty()) {
+      // the guards are the whole predicate
+      this.residual = null;
+    }
+    else {
+      // 'true and ...' retains the boolean coercion that the original 'and' chain applied
+      this.residual = "true and " + Joiner.on(" and ").join(remaining);
+    }
+  }
+
+  int getIndex() {
+    return index;
+  }
+
+  RiskLevelRule getRule() {
+    return rule;
+  }
+
+  /**
+   * @return The (field, literal) pairs which must all be equal for the rule to apply.
+   */
+  List<Map.Entry<String, String>> getEqualityGuards() {
+    return equalityGuards;
+  }
+
+  /**
+   * @return The canonical Stellar expressions of the guards which may be shared with other rules.
+   */
+  List<String> getSharedGuards() {
+    return sharedGuards;
+  }
+
+  boolean hasGuards() {
+    return !equalityGuards.isEmpty() || !sharedGuards.isEmpty();
+  }
+
+  /**
+   * @return The predicate to evaluate once all guards hold, or null if the guards are sufficient.
+   */
+  String getResidual() {
+    return residual;
+  }
+
+  /**
+   * @return The score of the rule if it is a numeric constant, otherwise null.
+   */
+  Double getStaticScore() {
+    return staticScore;
+  }
+
+  RuleStatistics getStatistics() {
+    return statistics;
+  }
+
+  private static Double parseStaticScore(String scoreExpression) {
+    if(scoreExpression == null) {
+      return null;
+    }
+    try {
+      return Double.parseDouble(scoreExpression.trim());
+    }
+    catch(NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Map.Entry<String, String> toEqualityGuard(String conjunct) {
+    Matcher m = EQUALITY_GUARD.matcher(conjunct);
+    if(m.matches() && !KEYWORDS.contains(m.group(1))) {
+      return new AbstractMap.SimpleImmutableEntry<>(m.group(1), unquote(m.group(2)));
+    }
+    m = REVERSED_EQUALITY_GUARD.matcher(conjunct);
+    if(m.matches() && !KEYWORDS.contains(m.group(2))) {
+      return new AbstractMap.SimpleImmutableEntry<>(m.group(2), unquote(m.group(1)));
+    }
+    return null;
+  }
+
+  private static String toSubnetGuard(String conjunct) {
+    Matcher m = SUBNET_GUARD.matcher(conjunct);
+    if(!m.matches() || KEYWORDS.contains(m.group(1))) {
+      return null;
+    }
+    List<String> args = new ArrayList<>();
+    args.add(m.group(1));
+    Matcher literals = SUBNET_ARG.matcher(m.group(2));
+    while(literals.find()) {
+      args.add(literals.group());
+    }
+    return "IN_SUBNET(" + Joiner.on(", ").join(args) + ")";
+  }
+
+  private static String unquote(String literal) {
+    return literal.substring(1, literal.length() - 1);
+  }
+
+  /**
+   * Splits a predicate into the conjuncts of a top-level 'and' chain.
+   *
+   * @param predicate The Stellar predicate.
+   * @return The trimmed conjuncts, or null if the predicate is anything other than a conjunction
+   * (for example, it contains a top-level 'or', a ternary or a match expression).
+   */
+  static List<String> splitConjuncts(String predicate) {
+    if(predicate == null) {
+      return null;
+    }
+    List<String> conjuncts = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    int i = 0;
+    int length = predicate.length();
+    while(i < length) {
+      char c = predicate.charAt(i);
+      if(c == '\'' || c == '"') {
+        i = skipString(predicate, i);
+        if(i < 0) {
+          return null;
+        }
+        continue;
+      }
+      if(c == '(' || c == '[' || c == '{') {
+        depth++;
+        i++;
+        continue;
+      }
+      if(c == ')' || c == ']' || c == '}') {
+        depth--;
+        i++;
+        continue;
+      }
+      if(Character.isLetter(c) || c == '_' || c == '$') {
+        int end = i + 1;
+        while(end < length && isIdentifierPart(predicate.charAt(end))) {
+          end++;
+        }
+        String word = predicate.substring(i, end);
+        if(depth == 0) {
+          if(NON_CONJUNCTIVE.contains(word)) {
+            return null;
+          }
+          if(word.equals("and") || word.equals("AND")) {
+            conjuncts.add(predicate.substring(start, i));
+            start = end;
+          }
+        }
+        i = end;
+        continue;
+      }
+      if(Character.isDigit(c)) {
+        // skip numeric literals so that exponents and suffixes are not read as words
+        while(i < length && (Character.isLetterOrDigit(predicate.charAt(i)) || predicate.charAt(i) == '.')) {
+          i++;
+        }
+        continue;
+      }
+      if(depth == 0 && i + 1 < length) {
+        String op = predicate.substring(i, i + 2);
+        if(op.equals("&&")) {
+          conjuncts.add(predicate.substring(start, i));
+          start = i + 2;
+          i += 2;
+          continue;
+        }
+        if(op.equals("||") || op.equals("=>") || op.equals("->")) {
+          return null;
+        }
+      }
+      if(depth == 0 && c == '?') {
+        return null;
+      }
+      i++;
+    }
+    if(depth != 0) {
+      return null;
+    }
+    conjuncts.add(predicate.substring(start));
+    List<String> ret = new ArrayList<>(conjuncts.size());
+    for(String conjunct : conjuncts) {
+      String trimmed = conjunct.trim();
+      if(trimmed.isEmpty()) {
+        return null;
+      }
+      ret.add(trimmed);
+    }
+    return ret;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == ':' || c == '$';
+  }
+
+  /**
+   * @return The index just past the closing quote, or -1 if the string is not terminated.
+   */
+  private static int skipString(String s, int openQuote) {
+    char quote = s.charAt(openQuote);
+    for(int i = openQuote + 1;i < s.length();++i) {
+      char c = s.charAt(i);
+      if(c == '\\') {
+        i++;
+      }
+      else if(c == quote) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+}
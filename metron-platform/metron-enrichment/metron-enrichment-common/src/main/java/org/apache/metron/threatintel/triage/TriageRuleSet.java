@@ -0,0 +1,354 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.threatintel.triage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.metron.common.aggregator.Aggregators;
+import org.apache.metron.common.configuration.enrichment.threatintel.RiskLevelRule;
+import org.apache.metron.common.configuration.enrichment.threatintel.RuleScore;
+import org.apache.metron.common.configuration.enrichment.threatintel.ThreatScore;
+import org.apache.metron.common.configuration.enrichment.threatintel.ThreatTriageConfig;
+import org.apache.metron.stellar.common.StellarPredicateProcessor;
+import org.apache.metron.stellar.common.StellarProcessor;
+import org.apache.metron.stellar.common.utils.ConversionUtils;
+import org.apache.metron.stellar.dsl.Context;
+import org.apache.metron.stellar.dsl.VariableResolver;
+import org.apache.metron.stellar.dsl.functions.resolver.FunctionResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A threat triage rule set that has been compiled once for a {@link ThreatTriageConfig}.
+ *
+ * <p>When compiled, each rule is analyzed for guards (see {@link TriageRule}).  Equality guards
+ * are indexed by field and literal so that a single lookup per field finds the rules that could
+ * apply to a message.  Guards that are shared between rules are evaluated at most once per message.
+ * Only the rules that survive their guards have their remaining predicate evaluated.
+ *
+ * <p>When the aggregator is {@link Aggregators#MAX} and the aggregation config contains
+ * {@value #SKIP_DOMINATED_RULES_CONF} set to true, rules with a constant score that cannot change
+ * the aggregate score are not evaluated.  As these rules are then not recorded in the threat score,
+ * this is disabled by default.
+ *
+ * <p>A rule set is immutable and is shared by all threads triaging with the same configuration.
+ */
+public class TriageRuleSet {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The aggregation config key that enables skipping rules that cannot change a MAX aggregate.
+   */
+  public static final String SKIP_DOMINATED_RULES_CONF = "skipDominatedRules";
+
+  /**
+   * Compiled rule sets, keyed by the identity of the configuration they were compiled from.  A
+   * configuration change produces a new {@link ThreatTriageConfig}, so the rules are compiled once per change.
+   */
+  private static final Cache<ThreatTriageConfig, TriageRuleSet> ruleSets = Caffeine.newBuilder()
+          .weakKeys()
+          .build();
+
+  private static final byte GUARD_UNKNOWN = 0;
+  private static final byte GUARD_TRUE = 1;
+  private static final byte GUARD_FALSE = 2;
+  private static final byte GUARD_ERROR = 3;
+
+  private final List<RiskLevelRule> riskLevelRules;
+  private final Aggregators aggregator;
+  private final Map<String, Object> aggregationConfig;
+  private final TriageRule[] rules;
+  private final int[] evaluationOrder;
+
+  /**
+   * field -> literal -> the rules with an equality guard on that (field, literal) pair.
+   */
+  private final Map<String, Map<String, int[]>> equalityIndex;
+
+  /**
+   * The distinct shared guard expressions, and for each rule the ids of its shared guards.
+   */
+  private final String[] sharedGuards;
+  private final int[][] ruleSharedGuards;
+
+  private final boolean skipDominated;
+  private final boolean negativeValuesTrump;
+  private final StellarPredicateProcessor predicateProcessor;
+  private final StellarProcessor processor;
+
+  /**
+   * Retrieves the rule set compiled for the given configuration, compiling it if necessary.
+   *
+   * @param config The threat triage configuration.
+   * @return The compiled rule set.
+   */
+  public static TriageRuleSet get(ThreatTriageConfig config) {
+    TriageRuleSet ruleSet = ruleSets.get(config, TriageRuleSet::new);
+    if(!ruleSet.isCompiledFrom(config)) {
+      // the configuration was modified in place
+      ruleSet = new TriageRuleSet(config);
+      ruleSets.put(config, ruleSet);
+    }
+    return ruleSet;
+  }
+
+  TriageRuleSet(ThreatTriageConfig config) {
+    this.riskLevelRules = config.getRiskLevelRules();
+    this.aggregator = config.getAggregator();
+    this.aggregationConfig = config.getAggregationConfig();
+    Map<String, Object> aggConfig = aggregationConfig == null ? Collections.emptyMap() : aggregationConfig;
+    this.skipDominated = aggregator == Aggregators.MAX
+            && Boolean.TRUE.equals(ConversionUtils.convert(aggConfig.get(SKIP_DOMINATED_RULES_CONF), Boolean.class));
+    Object negValues = aggConfig.get(Aggregators.NEGATIVE_VALUES_TRUMP_CONF);
+    this.negativeValuesTrump = negValues == null
+            || !Boolean.FALSE.equals(ConversionUtils.convert(negValues, Boolean.class));
+
+    this.rules = new TriageRule[riskLevelRules.size()];
+    Map<String, Map<String, List<Integer>>> index = new HashMap<>();
+    Map<String, Integer> guardIds = new LinkedHashMap<>();
+    this.ruleSharedGuards = new int[rules.length][];
+    int expressions = 0;
+    for(int i = 0;i < rules.length;++i) {
+      TriageRule rule = new TriageRule(i, riskLevelRules.get(i));
+      rules[i] = rule;
+      for(Map.Entry<String, String> guard : rule.getEqualityGuards()) {
+        index.computeIfAbsent(guard.getKey(), k -> new HashMap<>())
+             .computeIfAbsent(guard.getValue(), k -> new ArrayList<>())
+             .add(i);
+      }
+      List<String> shared = rule.getSharedGuards();
+      ruleSharedGuards[i] = new int[shared.size()];
+      for(int j = 0;j < shared.size();++j) {
+        ruleSharedGuards[i][j] = guardIds.computeIfAbsent(shared.get(j), k -> guardIds.size());
+      }
+      expressions += 4;
+    }
+    this.equalityIndex = new HashMap<>();
+    for(Map.Entry<String, Map<String, List<Integer>>> field : index.entrySet()) {
+      Map<String, int[]> literals = new HashMap<>();
+      for(Map.Entry<String, List<Integer>> literal : field.getValue().entrySet()) {
+        literals.put(literal.getKey(), literal.getValue().stream().mapToInt(Integer::intValue).toArray());
+      }
+      equalityIndex.put(field.getKey(), literals);
+    }
+    this.sharedGuards = guardIds.keySet().toArray(new String[0]);
+    this.evaluationOrder = evaluationOrder(rules, skipDominated, negativeValuesTrump);
+
+    // size the expression caches to hold every expression of the rule set
+    int cacheSize = expressions + sharedGuards.length + 1;
+    this.predicateProcessor = new StellarPredicateProcessor(cacheSize, 1, TimeUnit.HOURS);
+    this.processor = new StellarProcessor(cacheSize, 1, TimeUnit.HOURS);
+    LOG.debug("Compiled {} triage rule(s) with {} indexed field(s) and {} shared guard(s)",
+            rules.length, equalityIndex.size(), sharedGuards.length);
+  }
+
+  private boolean isCompiledFrom(ThreatTriageConfig config) {
+    return riskLevelRules == config.getRiskLevelRules()
+            && aggregator == config.getAggregator()
+            && aggregationConfig == config.getAggregationConfig();
+  }
+
+  /**
+   * When skipping dominated rules, evaluate the rules most likely to raise the aggregate first:
+   * negative scores (which trump all others), then rules with a computed score, then constant
+   * scores from highest to lowest.  Otherwise the rules are evaluated in the order they are defined.
+   */
+  private static int[] evaluationOrder(TriageRule[] rules, boolean skipDominated, boolean negativeValuesTrump) {
+    List<TriageRule> ordered = new ArrayList<>();
+    Collections.addAll(ordered, rules);
+    if(skipDominated) {
+      ordered.sort(Comparator.comparingInt((TriageRule r) -> rank(r, negativeValuesTrump))
+                             .thenComparingDouble(r -> r.getStaticScore() == null ? 0d : -r.getStaticScore()));
+    }
+    return ordered.stream().mapToInt(TriageRule::getIndex).toArray();
+  }
+
+  private static int rank(TriageRule rule, boolean negativeValuesTrump) {
+    Double score = rule.getStaticScore();
+    if(score == null) {
+      return 1;
+    }
+    return score < 0 && negativeValuesTrump ? 0 : 2;
+  }
+
+  /**
+   * Applies the rules to a message.
+   *
+   * @param resolver Resolves the variables referenced by the rules.
+   * @param functionResolver Resolves the functions referenced by the rules.
+   * @param context The Stellar context.
+   * @return The threat score with the rules that applied, in the order they are defined.
+   */
+  public ThreatScore apply(VariableResolver resolver, FunctionResolver functionResolver, Context context) {
+    int[] equalityHits = lookupEqualityGuards(resolver);
+    byte[] guardStates = new byte[sharedGuards.length];
+    RuleScore[] applied = new RuleScore[rules.length];
+
+    double runningMax = 0d;
+    boolean resultFixed = false;
+    for(int idx : evaluationOrder) {
+      TriageRule rule = rules[idx];
+      RuleStatistics stats = rule.getStatistics();
+      int hits = equalityHits == null ? 0 : equalityHits[idx];
+      if(hits < rule.getEqualityGuards().size()) {
+        stats.recordSkip();
+        continue;
+      }
+      boolean guardError = false;
+      boolean guardsHold = true;
+      for(int guardId : ruleSharedGuards[idx]) {
+        byte state = evaluateGuard(guardId, guardStates, resolver, functionResolver, context);
+        if(state == GUARD_FALSE) {
+          guardsHold = false;
+          break;
+        }
+        guardError |= state == GUARD_ERROR;
+      }
+      if(!guardsHold || (skipDominated && isDominated(rule, runningMax, resultFixed))) {
+        stats.recordSkip();
+        continue;
+      }
+
+      // if a guard could not be evaluated, fall back to the original predicate so errors surface as before
+      String predicate = guardError ? rule.getRule().getRule() : rule.getResidual();
+      long start = System.nanoTime();
+      boolean isApplied = predicate == null || predicateProcessor.parse(predicate, resolver, functionResolver, context);
+      stats.recordEvaluation(isApplied, System.nanoTime() - start);
+      if(isApplied) {
+        RiskLevelRule riskLevelRule = rule.getRule();
+        String reason = execute(riskLevelRule.getReason(), resolver, functionResolver, context, String.class);
+        Double score = execute(riskLevelRule.getScoreExpression(), resolver, functionResolver, context, Double.class);
+        applied[idx] = new RuleScore(riskLevelRule, reason, score);
+        if(score != null) {
+          if(score < 0 && negativeValuesTrump) {
+            resultFixed = true;
+          }
+          runningMax = Math.max(runningMax, score);
+        }
+      }
+    }
+
+    ThreatScore threatScore = new ThreatScore();
+    List<Number> ruleScores = new ArrayList<>();
+    for(RuleScore ruleScore : applied) {
+      if(ruleScore != null) {
+        threatScore.addRuleScore(ruleScore);
+        ruleScores.add(ruleScore.getScore());
+      }
+    }
+    threatScore.setScore(aggregator.aggregate(ruleScores, aggregationConfig));
+    return threatScore;
+  }
+
+  /**
+   * A rule cannot change a MAX aggregate if the aggregate has already been fixed by a trumping
+   * negative score, or if its constant score is no greater than the maximum seen so far.
+   */
+  private boolean isDominated(TriageRule rule, double runningMax, boolean resultFixed) {
+    if(resultFixed) {
+      return true;
+    }
+    Double score = rule.getStaticScore();
+    if(score == null) {
+      return false;
+    }
+    if(score < 0) {
+      return !negativeValuesTrump;
+    }
+    return score <= runningMax;
+  }
+
+  /**
+   * @return The number of equality guards satisfied by the message for each rule, or null if none were.
+   */
+  private int[] lookupEqualityGuards(VariableResolver resolver) {
+    int[] hits = null;
+    for(Map.Entry<String, Map<String, int[]>> field : equalityIndex.entrySet()) {
+      Object value = resolver.resolve(field.getKey());
+      if(value == null) {
+        continue;
+      }
+      // Stellar equality with a string literal is value.equals(literal), which is exactly a hash lookup
+      int[] matching = field.getValue().get(value);
+      if(matching != null) {
+        if(hits == null) {
+          hits = new int[rules.length];
+        }
+        for(int idx : matching) {
+          hits[idx]++;
+        }
+      }
+    }
+    return hits;
+  }
+
+  private byte evaluateGuard(int guardId, byte[] states, VariableResolver resolver, FunctionResolver functionResolver, Context context) {
+    if(states[guardId] == GUARD_UNKNOWN) {
+      try {
+        Boolean result = predicateProcessor.parse(sharedGuards[guardId], resolver, functionResolver, context);
+        states[guardId] = result != null && result ? GUARD_TRUE : GUARD_FALSE;
+      }
+      catch(Exception e) {
+        states[guardId] = GUARD_ERROR;
+      }
+    }
+    return states[guardId];
+  }
+
+  private <T> T execute(String expression, VariableResolver resolver, FunctionResolver functionResolver, Context context, Class<T> clazz) {
+    Object result = processor.parse(expression, resolver, functionResolver, context);
+    return ConversionUtils.convert(result, clazz);
+  }
+
+  /**
+   * @return The statistics of each rule, in the order the rules are defined.
+   */
+  public Map<RiskLevelRule, RuleStatistics> getRuleStatistics() {
+    Map<RiskLevelRule, RuleStatistics> ret = new LinkedHashMap<>();
+    for(TriageRule rule : rules) {
+      ret.put(rule.getRule(), rule.getStatistics());
+    }
+    return ret;
+  }
+
+  /**
+   * @return The number of distinct fields used to index the rules.
+   */
+  public int getIndexedFieldCount() {
+    return equalityIndex.size();
+  }
+
+  /**
+   * @return The number of distinct guards shared by the rules.
+   */
+  public int getSharedGuardCount() {
+    return sharedGuards.length;
+  }
+}
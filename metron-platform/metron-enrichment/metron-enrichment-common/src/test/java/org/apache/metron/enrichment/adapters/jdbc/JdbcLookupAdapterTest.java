@@ -0,0 +1,269 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.enrichment.adapters.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.metron.enrichment.cache.CacheKey;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcLookupAdapterTest {
+
+  private static final int ASSETS = 250;
+
+  /**
+   * Queries of the 'blocked_assets' view wait on this, when set.
+   */
+  private static volatile CountDownLatch release;
+  private static volatile CountDownLatch blocked;
+
+  private GenericJdbcConfig jdbcConfig;
+  private Connection connection;
+  private JdbcLookupAdapter adapter;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    jdbcConfig = new GenericJdbcConfig();
+    jdbcConfig.setClassName("org.h2.Driver");
+    jdbcConfig.setJdbcUrl("jdbc:h2:mem:" + getClass().getSimpleName() + ";DB_CLOSE_DELAY=-1");
+    connection = DriverManager.getConnection(jdbcConfig.getJdbcUrl());
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE assets (ip VARCHAR(64) PRIMARY KEY, owner VARCHAR(64), criticality INT)");
+      for (int i = 0; i < ASSETS; ++i) {
+        statement.execute(String.format("INSERT INTO assets VALUES ('10.0.0.%d', 'owner-%d', %d)", i, i, i % 5));
+      }
+    }
+  }
+
+  @AfterEach
+  public void teardown() throws SQLException {
+    if (adapter != null) {
+      adapter.cleanup();
+    }
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE assets");
+    }
+    connection.close();
+  }
+
+  private JdbcLookupConfig lookupConfig() {
+    return new JdbcLookupConfig()
+            .withTable("assets")
+            .withKeyColumn("ip")
+            .withValueColumns(ImmutableList.of("owner", "criticality"));
+  }
+
+  private JdbcLookupAdapter createAdapter(JdbcLookupConfig config) {
+    adapter = new JdbcLookupAdapter().withJdbcConfig(jdbcConfig).withLookupConfig(config);
+    assertTrue(adapter.initializeAdapter(new HashMap<>()));
+    return adapter;
+  }
+
+  private static CacheKey key(String ip) {
+    return new CacheKey("ip_src_addr", ip, null);
+  }
+
+  private static JSONObject asset(int i) {
+    JSONObject ret = new JSONObject();
+    ret.put("owner", "owner-" + i);
+    ret.put("criticality", i % 5);
+    return ret;
+  }
+
+  /**
+   * Called by H2 for each row of the 'blocked_assets' view.
+   */
+  public static boolean awaitRelease() throws InterruptedException {
+    CountDownLatch latch = release;
+    if (latch != null) {
+      blocked.countDown();
+      latch.await(30, TimeUnit.SECONDS);
+    }
+    return true;
+  }
+
+  private void execute(String sql) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  @Test
+  public void shouldEnrich() {
+    createAdapter(lookupConfig());
+
+    assertEquals(asset(7), adapter.enrich(key("10.0.0.7")));
+    assertEquals(new JSONObject(), adapter.enrich(key("192.168.0.1")));
+    assertEquals(new JSONObject(), adapter.enrich(key(null)));
+    assertEquals("ip_src_addr", adapter.getOutputPrefix(key("10.0.0.7")));
+  }
+
+  @Test
+  public void shouldCacheResults() throws SQLException {
+    createAdapter(lookupConfig());
+
+    assertEquals(asset(7), adapter.enrich(key("10.0.0.7")));
+    assertEquals(new JSONObject(), adapter.enrich(key("192.168.0.1")));
+    execute("UPDATE assets SET owner = 'changed' WHERE ip = '10.0.0.7'");
+    execute("INSERT INTO assets VALUES ('192.168.0.1', 'added', 0)");
+
+    // the results, including the missing key, are served from the cache
+    adapter.enrich(key("10.0.0.7")).clear();
+    assertEquals(asset(7), adapter.enrich(key("10.0.0.7")));
+    assertEquals(new JSONObject(), adapter.enrich(key("192.168.0.1")));
+    assertEquals(2, adapter.getQueryCount());
+  }
+
+  @Test
+  public void shouldExpireMissingKeys() throws SQLException {
+    createAdapter(lookupConfig().withNegativeCacheExpirationSeconds(0));
+
+    assertEquals(new JSONObject(), adapter.enrich(key("192.168.0.1")));
+    execute("INSERT INTO assets VALUES ('192.168.0.1', 'added', 0)");
+
+    assertEquals("added", adapter.enrich(key("192.168.0.1")).get("owner"));
+    assertEquals(2, adapter.getQueryCount());
+  }
+
+  @Test
+  public void shouldNotCacheWhenDisabled() {
+    createAdapter(lookupConfig().withCacheSize(0));
+
+    assertEquals(asset(7), adapter.enrich(key("10.0.0.7")));
+    assertEquals(asset(7), adapter.enrich(key("10.0.0.7")));
+    assertEquals(2, adapter.getQueryCount());
+  }
+
+  @Test
+  public void shouldEnrichInBatches() {
+    createAdapter(lookupConfig().withBatchSize(100));
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < ASSETS; ++i) {
+      keys.add("10.0.0." + i);
+    }
+    keys.add("192.168.0.1");
+    keys.add("10.0.0.7");
+
+    Map<String, JSONObject> results = adapter.enrichAll(keys);
+    assertEquals(ASSETS + 1, results.size());
+    for (int i = 0; i < ASSETS; ++i) {
+      assertEquals(asset(i), results.get("10.0.0." + i));
+    }
+    assertEquals(new JSONObject(), results.get("192.168.0.1"));
+    assertEquals(3, adapter.getQueryCount());
+
+    // every key is now cached
+    assertEquals(asset(7), adapter.enrich(key("10.0.0.7")));
+    adapter.enrichAll(keys);
+    assertEquals(3, adapter.getQueryCount());
+  }
+
+  @Test
+  public void shouldBatchConcurrentLookups() throws Exception {
+    final int lookups = 32;
+    final int batchSize = 16;
+    execute("CREATE ALIAS AWAIT_RELEASE FOR \"" + getClass().getName() + ".awaitRelease\"");
+    execute("CREATE VIEW blocked_assets AS SELECT * FROM assets WHERE AWAIT_RELEASE()");
+    createAdapter(lookupConfig().withTable("blocked_assets").withPoolSize(1).withBatchSize(batchSize));
+    ExecutorService executor = Executors.newFixedThreadPool(lookups + 1);
+    blocked = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    try {
+      // the first lookup holds the only connection until it is released
+      Future<JSONObject> first = executor.submit(() -> adapter.enrich(key("10.0.0.0")));
+      assertTrue(blocked.await(30, TimeUnit.SECONDS));
+
+      // meanwhile, the other lookups queue up
+      List<Future<JSONObject>> results = new ArrayList<>();
+      for (int i = 1; i <= lookups; ++i) {
+        String ip = "10.0.0." + i;
+        results.add(executor.submit(() -> adapter.enrich(key(ip))));
+      }
+      long deadline = System.currentTimeMillis() + 30000;
+      while (adapter.getPendingCount() < lookups && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      assertEquals(lookups, adapter.getPendingCount());
+      release.countDown();
+
+      assertEquals(asset(0), first.get());
+      for (int i = 1; i <= lookups; ++i) {
+        assertEquals(asset(i), results.get(i - 1).get());
+      }
+    } finally {
+      release.countDown();
+      release = null;
+      executor.shutdownNow();
+      execute("DROP VIEW blocked_assets");
+      execute("DROP ALIAS AWAIT_RELEASE");
+    }
+
+    // the queued lookups are run as full batches
+    assertEquals(1 + lookups / batchSize, adapter.getQueryCount());
+  }
+
+  @Test
+  public void shouldFailLookupsWhenTheQueryFails() throws SQLException {
+    createAdapter(lookupConfig().withCacheSize(0));
+    execute("ALTER TABLE assets DROP COLUMN owner");
+
+    assertThrows(IllegalStateException.class, () -> adapter.enrich(key("10.0.0.7")));
+    assertThrows(IllegalStateException.class, () -> adapter.enrichAll(ImmutableList.of("10.0.0.7")));
+  }
+
+  @Test
+  public void shouldNotInitializeWithoutADatabase() {
+    jdbcConfig.setClassName("org.example.MissingDriver");
+    adapter = new JdbcLookupAdapter().withJdbcConfig(jdbcConfig).withLookupConfig(lookupConfig());
+    assertFalse(adapter.initializeAdapter(new HashMap<>()));
+  }
+
+  @Test
+  public void shouldRejectInvalidIdentifiers() {
+    assertThrows(IllegalArgumentException.class, () -> new JdbcLookupConfig().withTable("assets; DROP TABLE assets"));
+    assertThrows(IllegalArgumentException.class, () -> new JdbcLookupConfig().withKeyColumn("ip OR 1=1"));
+    assertThrows(IllegalArgumentException.class,
+            () -> new JdbcLookupConfig().withValueColumns(ImmutableList.of("owner", "'x'")));
+    assertThrows(IllegalArgumentException.class, () -> new JdbcLookupConfig().withBatchSize(0));
+    assertThrows(IllegalStateException.class, () -> new JdbcLookupConfig().withTable("assets").getQuery(1));
+  }
+
+  @Test
+  public void shouldBuildQueries() {
+    JdbcLookupConfig config = lookupConfig().withTable("inventory.assets");
+    assertEquals("SELECT ip, owner, criticality FROM inventory.assets WHERE ip IN (?)", config.getQuery(1));
+    assertEquals("SELECT ip, owner, criticality FROM inventory.assets WHERE ip IN (?, ?, ?)", config.getQuery(3));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.enrichment.adapters.maxmind;
+
+import com.google.common.collect.ImmutableMap;
+import com.maxmind.geoip2.exception.AddressNotFoundException;
+import com.maxmind.geoip2.exception.GeoIp2Exception;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingDatabaseReaderTest {
+
+  private static final Map<String, Object> RESULT = ImmutableMap.of("country", "US");
+
+  @Test
+  public void testToIpv4() {
+    assertEquals(0L, MaxMindDbUtilities.toIpv4("0.0.0.0"));
+    assertEquals(0x08080404L, MaxMindDbUtilities.toIpv4("8.8.4.4"));
+    assertEquals(0xFFFFFFFFL, MaxMindDbUtilities.toIpv4("255.255.255.255"));
+    assertEquals(0xC0A80001L, MaxMindDbUtilities.toIpv4("192.168.0.1"));
+    for (String invalid : new String[] { null, "", "1.2.3", "1.2.3.4.5", "1.2.3.", ".1.2.3", "1..2.3",
+            "256.1.1.1", "01.2.3.4", "1.2.3.a", "::1", "1.2.3.4 ", "1234.1.1.1" }) {
+      assertEquals(-1L, MaxMindDbUtilities.toIpv4(invalid), "Should not parse " + invalid);
+    }
+  }
+
+  @Test
+  public void testCacheSizeRoundsUp() {
+    assertEquals(0, new CachingDatabaseReader<>(null, 0).getCacheSize());
+    assertEquals(1, new CachingDatabaseReader<>(null, 1).getCacheSize());
+    assertEquals(1024, new CachingDatabaseReader<>(null, 1000).getCacheSize());
+    assertEquals(1024, new CachingDatabaseReader<>(null, 1024).getCacheSize());
+  }
+
+  @Test
+  public void testResultsAreCached() throws Exception {
+    AtomicInteger lookups = new AtomicInteger();
+    CachingDatabaseReader<Object> reader = new CachingDatabaseReader<>(null, 16);
+    CachingDatabaseReader.Lookup<Object> lookup = (r, addr) -> {
+      lookups.incrementAndGet();
+      return RESULT;
+    };
+
+    assertEquals(Optional.of(RESULT), reader.get("8.8.4.4", lookup));
+    assertEquals(Optional.of(RESULT), reader.get("8.8.4.4", lookup));
+    assertEquals(1, lookups.get());
+
+    // results can be modified without affecting the cache
+    reader.get("8.8.4.4", lookup).get().clear();
+    assertEquals(Optional.of(RESULT), reader.get("8.8.4.4", lookup));
+    assertEquals(1, lookups.get());
+  }
+
+  @Test
+  public void testNotFoundIsCached() throws Exception {
+    AtomicInteger lookups = new AtomicInteger();
+    CachingDatabaseReader<Object> reader = new CachingDatabaseReader<>(null, 16);
+    CachingDatabaseReader.Lookup<Object> lookup = (r, addr) -> {
+      lookups.incrementAndGet();
+      throw new AddressNotFoundException("not found");
+    };
+
+    assertFalse(reader.get("203.0.113.1", lookup).isPresent());
+    assertFalse(reader.get("203.0.113.1", lookup).isPresent());
+    assertEquals(1, lookups.get());
+
+    // ineligible addresses are never looked up
+    assertFalse(reader.get("192.168.0.1", lookup).isPresent());
+    assertEquals(1, lookups.get());
+  }
+
+  @Test
+  public void testErrorsAreNotCached() throws Exception {
+    AtomicInteger lookups = new AtomicInteger();
+    CachingDatabaseReader<Object> reader = new CachingDatabaseReader<>(null, 16);
+    CachingDatabaseReader.Lookup<Object> lookup = (r, addr) -> {
+      if (lookups.incrementAndGet() == 1) {
+        throw new IOException("transient");
+      }
+      return RESULT;
+    };
+
+    assertThrows(IOException.class, () -> reader.get("8.8.4.4", lookup));
+    assertEquals(Optional.of(RESULT), reader.get("8.8.4.4", lookup));
+    assertEquals(2, lookups.get());
+  }
+
+  @Test
+  public void testCollidingAddressesAreDistinguished() throws GeoIp2Exception, IOException {
+    CachingDatabaseReader<Object> reader = new CachingDatabaseReader<>(null, 1);
+    CachingDatabaseReader.Lookup<Object> lookup = (r, addr) -> ImmutableMap.of("ip", addr.getHostAddress());
+
+    for (int i = 0; i < 2; ++i) {
+      assertEquals("8.8.4.4", reader.get("8.8.4.4", lookup).get().get("ip"));
+      assertEquals("8.8.8.8", reader.get("8.8.8.8", lookup).get().get("ip"));
+    }
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.metron.enrichment.adapters.maxmind.asn;
 
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FileUtils;
+import org.apache.metron.enrichment.adapters.maxmind.MaxMindDatabase;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.test.utils.UnitTestHelper;
 import org.json.simple.JSONObject;
@@ -109,6 +110,28 @@ public class GeoLiteAsnDatabaseTest {
         result.get(), "Remote Local IP should return result based on DB");
   }
 
+  @Test
+  public void testGetRemoteMemoryMapped() throws IOException {
+    File localDir = testFolder.newFolder("maxmind");
+    Map<String, Object> globalConfig = new HashMap<>();
+    globalConfig.put(MaxMindDatabase.MAXMIND_FILE_MODE, "MEMORY_MAPPED");
+    globalConfig.put(MaxMindDatabase.MAXMIND_LOCAL_DIR, localDir.getAbsolutePath());
+    GeoLiteAsnDatabase.INSTANCE.update(asnHdfsFile.getAbsolutePath(), globalConfig);
+
+    Optional<Map<String, Object>> result = GeoLiteAsnDatabase.INSTANCE.get(IP_ADDR);
+    assertEquals(expectedAsnMessage, result.get(), "Remote Local IP should return result based on DB");
+    assertEquals(0, localDir.list().length, "Staged database should not be left on local disk");
+  }
+
+  @Test
+  public void testCachedResultsAreCopies() {
+    GeoLiteAsnDatabase.INSTANCE.update(asnHdfsFile.getAbsolutePath());
+
+    GeoLiteAsnDatabase.INSTANCE.get(IP_ADDR).get().clear();
+    Optional<Map<String, Object>> result = GeoLiteAsnDatabase.INSTANCE.get(IP_ADDR);
+    assertEquals(expectedAsnMessage, result.get(), "Cached result should not be modified by callers");
+  }
+
   @Test
   public void testMultipleUpdates() {
     GeoLiteAsnDatabase.INSTANCE.update(asnHdfsFile.getAbsolutePath());
@@ -22,6 +22,7 @@ import org.adrianwalker.multilinestring.Multiline;
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.metron.enrichment.adapters.maxmind.MaxMindDatabase;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.test.utils.UnitTestHelper;
 import org.json.simple.JSONObject;
@@ -186,6 +187,42 @@ public class GeoLiteCityDatabaseTest {
     assertEquals(expectedNoDmaMessage, result.get(), "Remote Local IP should return result based on DB");
   }
 
+  @Test
+  public void testGetRemoteMemoryMapped() throws IOException {
+    File localDir = testFolder.newFolder("maxmind");
+    Map<String, Object> globalConfig = new HashMap<>();
+    globalConfig.put(MaxMindDatabase.MAXMIND_FILE_MODE, "MEMORY_MAPPED");
+    globalConfig.put(MaxMindDatabase.MAXMIND_LOCAL_DIR, localDir.getAbsolutePath());
+    GeoLiteCityDatabase.INSTANCE.update(geoHdfsFile.getAbsolutePath(), globalConfig);
+
+    Optional<Map<String, String>> result = GeoLiteCityDatabase.INSTANCE.get(IP_NO_DMA);
+    assertEquals(expectedNoDmaMessage, result.get(), "Remote Local IP should return result based on DB");
+    result = GeoLiteCityDatabase.INSTANCE.get(IP_WITH_DMA);
+    assertEquals(expectedDmaMessage, result.get(), "Remote Local IP should return result based on DB");
+    assertEquals(0, localDir.list().length, "Staged database should not be left on local disk");
+  }
+
+  @Test
+  public void testCachedResultsAreCopies() {
+    GeoLiteCityDatabase.INSTANCE.update(geoHdfsFile.getAbsolutePath());
+
+    GeoLiteCityDatabase.INSTANCE.get(IP_NO_DMA).get().clear();
+    Optional<Map<String, String>> result = GeoLiteCityDatabase.INSTANCE.get(IP_NO_DMA);
+    assertEquals(expectedNoDmaMessage, result.get(), "Cached result should not be modified by callers");
+  }
+
+  @Test
+  public void testCacheDisabled() {
+    Map<String, Object> globalConfig = Collections.singletonMap(MaxMindDatabase.MAXMIND_CACHE_SIZE, 0);
+    GeoLiteCityDatabase.INSTANCE.update(geoHdfsFile.getAbsolutePath(), globalConfig);
+
+    for (int i = 0; i < 2; ++i) {
+      Optional<Map<String, String>> result = GeoLiteCityDatabase.INSTANCE.get(IP_NO_DMA);
+      assertEquals(expectedNoDmaMessage, result.get(), "Remote Local IP should return result based on DB");
+      assertFalse(GeoLiteCityDatabase.INSTANCE.get("203.0.113.1").isPresent(), "External address not found");
+    }
+  }
+
   @Test
   public void testMultipleUpdates() {
     GeoLiteCityDatabase.INSTANCE.update(geoHdfsFile.getAbsolutePath());
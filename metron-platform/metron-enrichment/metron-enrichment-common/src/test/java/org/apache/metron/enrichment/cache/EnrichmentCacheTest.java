@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.enrichment.cache;
+
+import org.apache.metron.enrichment.interfaces.EnrichmentAdapter;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EnrichmentCacheTest {
+
+  private final AtomicLong time = new AtomicLong();
+
+  /**
+   * An adapter which takes a fixed time, according to the test's ticker, to enrich a key.
+   */
+  private class TimedAdapter implements EnrichmentAdapter<CacheKey> {
+    private final long costNanos;
+    private final Function<CacheKey, JSONObject> results;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private TimedAdapter(long costNanos, Function<CacheKey, JSONObject> results) {
+      this.costNanos = costNanos;
+      this.results = results;
+    }
+
+    @Override
+    public void logAccess(CacheKey value) {
+    }
+
+    @Override
+    public JSONObject enrich(CacheKey value) {
+      loads.incrementAndGet();
+      time.addAndGet(costNanos);
+      return results.apply(value);
+    }
+
+    @Override
+    public boolean initializeAdapter(Map<String, Object> config) {
+      return true;
+    }
+
+    @Override
+    public void updateAdapter(Map<String, Object> config) {
+    }
+
+    @Override
+    public void cleanup() {
+    }
+
+    @Override
+    public String getOutputPrefix(CacheKey value) {
+      return "";
+    }
+  }
+
+  private static JSONObject result(Object value) {
+    JSONObject ret = new JSONObject();
+    ret.put("result", value);
+    return ret;
+  }
+
+  private EnrichmentCache cache(long maxSize, long negativeTimeRetainMinutes, long refreshMinutes, boolean adaptive) {
+    return new EnrichmentCache(maxSize, TimeUnit.MINUTES.toNanos(10), TimeUnit.MINUTES.toNanos(negativeTimeRetainMinutes),
+            TimeUnit.MINUTES.toNanos(refreshMinutes), adaptive, TimeUnit.MILLISECONDS.toNanos(50), Runnable::run, true, time::get);
+  }
+
+  private static CacheKey key(Object value) {
+    return new CacheKey("ip_src_addr", value, null);
+  }
+
+  @Test
+  public void shouldPartitionByAdapter() {
+    EnrichmentCache cache = cache(100, 10, 0, true);
+    TimedAdapter geo = new TimedAdapter(1, k -> result("geo"));
+    TimedAdapter host = new TimedAdapter(1, k -> result("host"));
+
+    for (int i = 0; i < 2; ++i) {
+      assertEquals(result("geo"), cache.get("geo", key("10.0.0.1"), geo));
+      assertEquals(result("host"), cache.get("host", key("10.0.0.1"), host));
+    }
+    assertEquals(1, geo.loads.get());
+    assertEquals(1, host.loads.get());
+    assertEquals(1, cache.getStats().get("geo").hitCount());
+    assertEquals(1, cache.getStats().get("host").missCount());
+    assertEquals(2, cache.stats().hitCount());
+  }
+
+  @Test
+  public void shouldRetainEmptyResultsForTheirOwnTime() {
+    EnrichmentCache cache = cache(100, 1, 0, true);
+    TimedAdapter adapter = new TimedAdapter(1, k -> "found".equals(k.getValue()) ? result("found") : null);
+
+    assertEquals(result("found"), cache.get("adapter", key("found"), adapter));
+    assertNull(cache.get("adapter", key("missing"), adapter));
+    assertNull(cache.get("adapter", key("missing"), adapter));
+    assertEquals(2, adapter.loads.get());
+
+    time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+    assertEquals(result("found"), cache.get("adapter", key("found"), adapter));
+    assertNull(cache.get("adapter", key("missing"), adapter));
+    assertEquals(3, adapter.loads.get());
+  }
+
+  @Test
+  public void shouldRefreshHotKeysAhead() {
+    EnrichmentCache cache = cache(100, 10, 1, true);
+    AtomicInteger version = new AtomicInteger();
+    TimedAdapter adapter = new TimedAdapter(1, k -> result(version.get()));
+
+    assertEquals(result(0), cache.get("adapter", key("key"), adapter));
+    version.set(1);
+    time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+    // the old result is served while the new one loads
+    assertEquals(result(0), cache.get("adapter", key("key"), adapter));
+    assertEquals(result(1), cache.get("adapter", key("key"), adapter));
+    assertEquals(2, adapter.loads.get());
+    assertEquals(0, cache.getStats().get("adapter").evictionCount());
+  }
+
+  @Test
+  public void shouldKeepResultWhenRefreshFails() {
+    EnrichmentCache cache = cache(100, 10, 1, true);
+    AtomicInteger calls = new AtomicInteger();
+    TimedAdapter adapter = new TimedAdapter(1, k -> {
+      if (calls.incrementAndGet() == 2) {
+        throw new IllegalStateException("unavailable");
+      }
+      return result(calls.get());
+    });
+
+    assertEquals(result(1), cache.get("adapter", key("key"), adapter));
+    time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+    assertEquals(result(1), cache.get("adapter", key("key"), adapter));
+    assertEquals(result(1), cache.get("adapter", key("key"), adapter));
+    assertEquals(result(3), cache.get("adapter", key("key"), adapter));
+  }
+
+  @Test
+  public void shouldShareCapacityEvenlyUntilLoadsAreMeasured() {
+    EnrichmentCache cache = cache(1000, 10, 0, true);
+    cache.get("a", key("key"), new TimedAdapter(0, k -> null));
+    cache.get("b", key("key"), new TimedAdapter(0, k -> null));
+
+    assertEquals(500, cache.getMaximumSize("a"));
+    assertEquals(500, cache.getMaximumSize("b"));
+  }
+
+  /**
+   * Runs a cheap adapter, whose keys are uniformly distributed, and an expensive adapter, whose keys are
+   * skewed, against a cache too small for either.  Sharing the cache by load cost should give the expensive
+   * adapter more hits, and reduce the total time spent loading.
+   */
+  @Test
+  public void shouldReduceLoadTimeOnSkewedKeys() {
+    long evenNanos = loadTime(false);
+    long adaptiveNanos = loadTime(true);
+
+    assertTrue(adaptiveNanos < evenNanos * 0.9,
+            String.format("Adaptive load time of %d ms should be well below %d ms",
+                    TimeUnit.NANOSECONDS.toMillis(adaptiveNanos), TimeUnit.NANOSECONDS.toMillis(evenNanos)));
+  }
+
+  private long loadTime(boolean adaptive) {
+    time.set(0);
+    EnrichmentCache cache = cache(1000, 10, 0, adaptive);
+    TimedAdapter cheap = new TimedAdapter(TimeUnit.MICROSECONDS.toNanos(10), k -> result(k.getValue()));
+    TimedAdapter expensive = new TimedAdapter(TimeUnit.MILLISECONDS.toNanos(1), k -> result(k.getValue()));
+    int numKeys = 10000;
+    // the cumulative distribution of Zipf(1) over the keys
+    double[] cdf = new double[numKeys];
+    double sum = 0;
+    for (int i = 0; i < numKeys; ++i) {
+      sum += 1.0 / (i + 1);
+      cdf[i] = sum;
+    }
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; ++i) {
+      cache.get("cheap", key(random.nextInt(numKeys)), cheap);
+      int skewed = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+      cache.get("expensive", key(skewed < 0 ? -skewed - 1 : skewed), expensive);
+    }
+    assertEquals(100000, cache.getStats().get("expensive").requestCount());
+    if (adaptive) {
+      assertTrue(cache.getMaximumSize("expensive") > 3 * cache.getMaximumSize("cheap"));
+    } else {
+      assertEquals(cache.getMaximumSize("expensive"), cache.getMaximumSize("cheap"));
+    }
+    return time.get();
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.enrichment.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.metron.integration.utils.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupTableTest {
+  private File tempDir;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    tempDir = TestUtils.createTempDir(this.getClass().getName());
+  }
+
+  private File write(String name, Object map) throws IOException {
+    File file = new File(tempDir, name);
+    try (OutputStream os = new FileOutputStream(file)) {
+      LookupTableWriter.write(map, os);
+    }
+    return file;
+  }
+
+  private static Map<String, Object> createMap(int size) {
+    Map<String, Object> ret = new HashMap<>();
+    for (int i = 0; i < size; ++i) {
+      ret.put("10.0." + (i / 256) + "." + (i % 256), i % 10 == 0 ? null : ImmutableMap.of("asset", "host-" + i));
+    }
+    return ret;
+  }
+
+  @Test
+  public void shouldLookUpValues() throws Exception {
+    Map<String, Object> map = createMap(1000);
+    LookupTable table = LookupTable.open(write("lookup.table", map));
+
+    assertEquals(map.size(), table.size());
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      assertTrue(table.containsKey(entry.getKey()));
+      assertEquals(entry.getValue(), table.get(entry.getKey()));
+    }
+    assertNull(table.get("192.168.0.1"));
+    assertFalse(table.containsKey("192.168.0.1"));
+    assertNull(table.get(1));
+    assertEquals(map, new HashMap<>(table));
+  }
+
+  @Test
+  public void shouldReadAcrossSegments() throws Exception {
+    Map<String, Object> map = createMap(100);
+    map.put("unicode é漢", ImmutableList.of("a", "b"));
+    LookupTable table = LookupTable.open(write("segmented.table", map), 6);
+
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      assertEquals(entry.getValue(), table.get(entry.getKey()));
+    }
+    assertEquals(map, new HashMap<>(table));
+  }
+
+  @Test
+  public void shouldReadEmptyTable() throws Exception {
+    LookupTable table = LookupTable.open(write("empty.table", new HashMap<>()));
+
+    assertTrue(table.isEmpty());
+    assertNull(table.get("key"));
+    assertFalse(table.entrySet().iterator().hasNext());
+  }
+
+  @Test
+  public void shouldRemainReadableOnceDeleted() throws Exception {
+    File file = write("deleted.table", ImmutableMap.of("key", "value"));
+    LookupTable table = LookupTable.open(file);
+    assertTrue(file.delete());
+
+    assertEquals("value", table.get("key"));
+  }
+
+  @Test
+  public void shouldRejectOtherFiles() throws Exception {
+    File file = new File(tempDir, "other.ser");
+    try (OutputStream os = new FileOutputStream(file)) {
+      os.write(new byte[64]);
+    }
+
+    IOException e = assertThrows(IOException.class, () -> LookupTable.open(file));
+    assertTrue(e.getMessage().contains("is not a version 1 lookup table"));
+  }
+
+  @Test
+  public void shouldRejectNonMaps() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> write("list.table", ImmutableList.of("a")));
+    assertTrue(e.getMessage().contains("Only maps can be written as lookup tables"));
+
+    e = assertThrows(IllegalArgumentException.class, () -> write("intkeys.table", ImmutableMap.of(1, "a")));
+    assertTrue(e.getMessage().contains("Lookup tables must have string keys"));
+  }
+}
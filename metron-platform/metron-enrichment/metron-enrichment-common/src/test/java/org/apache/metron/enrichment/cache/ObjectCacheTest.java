@@ -34,6 +34,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -95,6 +96,27 @@ public class ObjectCacheTest {
     }
   }
 
+  @Test
+  public void shouldMapLookupTables() throws Exception {
+    File file = new File(tempDir, "lookup.table");
+    Map<String, Object> map = new HashMap<>();
+    for(String s : data) {
+      map.put(s, s.length());
+    }
+    try(BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(file))) {
+      LookupTableWriter.write(map, bos);
+    }
+    ObjectCacheConfig objectCacheConfig = new ObjectCacheConfig(new HashMap<>());
+    // lookup tables are not read onto the heap, so are not limited by the max file size
+    objectCacheConfig.setMaxFileSize(1);
+    cache.initialize(objectCacheConfig);
+
+    Object table = cache.get(file.getAbsolutePath());
+    assertTrue(table instanceof LookupTable);
+    assertEquals(map, table);
+    assertEquals(6, ((Map) table).get("metron"));
+  }
+
   @Test
   public void shouldThrowExceptionOnMaxFileSize() throws Exception {
     String filename = "maxSizeException.ser";
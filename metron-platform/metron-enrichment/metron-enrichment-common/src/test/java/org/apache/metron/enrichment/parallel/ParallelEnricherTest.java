@@ -24,8 +24,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.adrianwalker.multilinestring.Multiline;
 import org.apache.metron.common.Constants;
@@ -162,6 +165,27 @@ public class ParallelEnricherTest {
     assertTrue(result.getResult().containsKey("parallelenricher.enrich.begin.ts"));
     assertTrue(result.getResult().containsKey("parallelenricher.enrich.end.ts"));
   }
+
+  @Test
+  public void testGoodConfigAsync() throws Exception {
+    SensorEnrichmentConfig config = JSONUtils.INSTANCE.load(goodConfig, SensorEnrichmentConfig.class);
+    config.getConfiguration().putIfAbsent("stellarContext", stellarContext);
+    List<CompletableFuture<ParallelEnricher.EnrichmentResult>> results = new ArrayList<>();
+    for(int i = 0;i < 5;++i) {
+      JSONObject message = new JSONObject() {{
+        put(Constants.SENSOR_TYPE, "test");
+      }};
+      results.add(enricher.applyAsync(message, EnrichmentStrategies.ENRICHMENT, config, null));
+    }
+    for(CompletableFuture<ParallelEnricher.EnrichmentResult> future : results) {
+      ParallelEnricher.EnrichmentResult result = future.get();
+      JSONObject ret = result.getResult();
+      assertEquals(11, ret.size(), "Got the wrong result count: " + ret);
+      assertEquals("TEST", ret.get("ALL_CAPS"));
+      assertEquals(0, result.getEnrichmentErrors().size());
+      assertTrue(ret.containsKey("parallelenricher.enrich.end.ts"));
+    }
+  }
 /**
    * {
   "enrichment": {
@@ -21,6 +21,7 @@ package org.apache.metron.threatintel.triage;
 import com.google.common.collect.ImmutableList;
 import org.adrianwalker.multilinestring.Multiline;
 import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
+import org.apache.metron.common.configuration.enrichment.threatintel.RiskLevelRule;
 import org.apache.metron.common.configuration.enrichment.threatintel.RuleScore;
 import org.apache.metron.common.configuration.enrichment.threatintel.ThreatScore;
 import org.apache.metron.common.utils.JSONUtils;
@@ -29,6 +30,7 @@ import org.apache.metron.stellar.dsl.StellarFunctions;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -437,6 +439,180 @@ public class ThreatTriageTest {
     assertEquals(1010.0d, threatTriageProcessor.apply(message).getScore(), 1e-10);
   }
 
+  /**
+   * {
+   *  "threatIntel": {
+   *    "triageConfig": {
+   *      "riskLevelRules" : [
+   *        {
+   *          "name": "internal web",
+   *          "rule": "asset.type == 'web' and IN_SUBNET(ip_src_addr, '10.0.0.0/8', '192.168.0.0/16')",
+   *          "score": 10
+   *        },
+   *        {
+   *          "name": "internal admin",
+   *          "rule": "IN_SUBNET(ip_src_addr, '10.0.0.0/8', '192.168.0.0/16') && user.type == 'admin' and priority > 5",
+   *          "score": 20
+   *        },
+   *        {
+   *          "name": "web",
+   *          "rule": "'web' == asset.type",
+   *          "score": 5
+   *        },
+   *        {
+   *          "name": "either",
+   *          "rule": "asset.type == 'db' or user.type == 'admin'",
+   *          "score": 1
+   *        }
+   *      ],
+   *      "aggregator": "MAX"
+   *    }
+   *  }
+   * }
+   */
+  @Multiline
+  public static String guardedRulesConfig;
+
+  /**
+   * Rules guarded by equality and subnet checks should produce the same results as evaluating every rule.
+   */
+  @Test
+  public void testGuardedRules() throws Exception {
+    ThreatTriageProcessor threatTriageProcessor = getProcessor(guardedRulesConfig);
+    {
+      ThreatScore score = threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "web");
+        put("user.type", "admin");
+        put("ip_src_addr", "10.0.0.1");
+        put("priority", 10);
+      }});
+      assertEquals(20d, score.getScore(), delta);
+      assertEquals(ImmutableList.of("internal web", "internal admin", "web", "either"), ruleNames(score));
+    }
+    {
+      ThreatScore score = threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "web");
+        put("user.type", "admin");
+        put("ip_src_addr", "172.16.0.1");
+        put("priority", 10);
+      }});
+      assertEquals(5d, score.getScore(), delta);
+      assertEquals(ImmutableList.of("web", "either"), ruleNames(score));
+    }
+    {
+      ThreatScore score = threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "db");
+        put("ip_src_addr", "10.0.0.1");
+      }});
+      assertEquals(1d, score.getScore(), delta);
+      assertEquals(ImmutableList.of("either"), ruleNames(score));
+    }
+  }
+
+  @Test
+  public void testRuleStatistics() throws Exception {
+    ThreatTriageProcessor threatTriageProcessor = getProcessor(guardedRulesConfig);
+    for(int i = 0;i < 3;++i) {
+      threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "web");
+        put("ip_src_addr", "172.16.0.1");
+      }});
+    }
+    Map<RiskLevelRule, RuleStatistics> stats = threatTriageProcessor.getRuleStatistics();
+    assertEquals(4, stats.size());
+    for(Map.Entry<RiskLevelRule, RuleStatistics> kv : stats.entrySet()) {
+      RuleStatistics ruleStats = kv.getValue();
+      switch(kv.getKey().getName()) {
+        case "web":
+          assertEquals(3, ruleStats.getHits());
+          break;
+        case "either":
+          assertEquals(3, ruleStats.getEvaluations());
+          assertEquals(0, ruleStats.getHits());
+          break;
+        default:
+          // ruled out by their guards without evaluating the rule
+          assertEquals(3, ruleStats.getSkipped());
+          assertEquals(0, ruleStats.getEvaluations());
+          break;
+      }
+    }
+  }
+
+  /**
+   * {
+   *  "threatIntel": {
+   *    "triageConfig": {
+   *      "riskLevelRules" : [
+   *        {
+   *          "name": "low",
+   *          "rule": "asset.type == 'web'",
+   *          "score": 5
+   *        },
+   *        {
+   *          "name": "high",
+   *          "rule": "user.type == 'admin'",
+   *          "score": 10
+   *        },
+   *        {
+   *          "name": "computed",
+   *          "rule": "exists(priority)",
+   *          "score": "priority"
+   *        }
+   *      ],
+   *      "aggregator": "MAX",
+   *      "aggregationConfig": {
+   *        "skipDominatedRules": true
+   *      }
+   *    }
+   *  }
+   * }
+   */
+  @Multiline
+  public static String skipDominatedRulesConfig;
+
+  /**
+   * With a MAX aggregator, rules which cannot raise the score may be skipped when enabled.
+   */
+  @Test
+  public void testSkipDominatedRules() throws Exception {
+    ThreatTriageProcessor threatTriageProcessor = getProcessor(skipDominatedRulesConfig);
+    {
+      ThreatScore score = threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "web");
+        put("user.type", "admin");
+      }});
+      assertEquals(10d, score.getScore(), delta);
+      assertEquals(ImmutableList.of("high"), ruleNames(score));
+    }
+    {
+      ThreatScore score = threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "web");
+        put("user.type", "admin");
+        put("priority", 50);
+      }});
+      assertEquals(50d, score.getScore(), delta);
+      assertEquals(ImmutableList.of("computed"), ruleNames(score));
+    }
+    {
+      ThreatScore score = threatTriageProcessor.apply(new HashMap<Object, Object>() {{
+        put("asset.type", "web");
+        put("user.type", "admin");
+        put("priority", 7);
+      }});
+      assertEquals(10d, score.getScore(), delta);
+      assertEquals(ImmutableList.of("high", "computed"), ruleNames(score));
+    }
+  }
+
+  private static List<String> ruleNames(ThreatScore score) {
+    List<String> names = new ArrayList<>();
+    for(RuleScore ruleScore : score.getRuleScores()) {
+      names.add(ruleScore.getRule().getName());
+    }
+    return names;
+  }
+
   private static ThreatTriageProcessor getProcessor(String config) throws IOException {
     SensorEnrichmentConfig c = JSONUtils.INSTANCE.load(config, SensorEnrichmentConfig.class);
     return new ThreatTriageProcessor(c, StellarFunctions.FUNCTION_RESOLVER(), Context.EMPTY_CONTEXT());
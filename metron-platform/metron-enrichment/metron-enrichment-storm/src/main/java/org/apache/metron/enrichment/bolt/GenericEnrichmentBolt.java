@@ -32,6 +32,7 @@ import org.apache.metron.storm.common.bolt.ConfiguredEnrichmentBolt;
 import org.apache.metron.common.configuration.ConfigurationType;
 import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
 import org.apache.metron.common.error.MetronError;
+import org.apache.metron.common.performance.LatencyMetrics;
 import org.apache.metron.common.performance.PerformanceLogger;
 import org.apache.metron.enrichment.cache.CacheKey;
 import org.apache.metron.enrichment.configuration.Enrichment;
@@ -225,7 +226,9 @@ public class GenericEnrichmentBolt extends ConfiguredEnrichmentBolt {
               subGroup = adapter.getStreamSubGroup(enrichmentType, field);
 
               perfLog.mark("enrich");
+              long start = System.nanoTime();
               enrichedField = cache.get(cacheKey);
+              LatencyMetrics.INSTANCE.recorder(LatencyMetrics.ENRICHMENT, enrichmentType, sourceType).recordSince(start);
               perfLog.log("enrich", "key={}, time to run enrichment type={}", key, enrichmentType);
 
               if (enrichedField == null)
@@ -41,21 +41,27 @@ import org.apache.metron.enrichment.parallel.WorkerPoolStrategies;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.stellar.dsl.StellarFunctions;
 import org.apache.metron.storm.common.utils.StormErrorUtils;
+import org.apache.storm.Config;
 import org.apache.storm.task.OutputCollector;
 import org.apache.storm.task.TopologyContext;
 import org.apache.storm.topology.OutputFieldsDeclarer;
 import org.apache.storm.tuple.Fields;
 import org.apache.storm.tuple.Tuple;
 import org.apache.storm.tuple.Values;
+import org.apache.storm.utils.TupleUtils;
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This bolt is a unified enrichment/threat intel bolt.  In contrast to the split/enrich/join
@@ -84,6 +90,26 @@ public class UnifiedEnrichmentBolt extends ConfiguredEnrichmentBolt {
    */
   public static final String THREADPOOL_TYPE_TOPOLOGY_CONF = "metron.threadpool.type";
 
+  /**
+   * A message being enriched, which is emitted once every earlier message is emitted.
+   */
+  private static class PendingMessage {
+    private final Tuple tuple;
+    private final JSONObject message;
+    private final SensorEnrichmentConfig config;
+    private final String guid;
+    private final CompletableFuture<ParallelEnricher.EnrichmentResult> result;
+
+    private PendingMessage(Tuple tuple, JSONObject message, SensorEnrichmentConfig config, String guid,
+                           CompletableFuture<ParallelEnricher.EnrichmentResult> result) {
+      this.tuple = tuple;
+      this.message = message;
+      this.config = config;
+      this.guid = guid;
+      this.result = result;
+    }
+  }
+
   /**
    * The enricher implementation to use.  This will do the parallel enrichment via a thread pool.
    */
@@ -129,6 +155,12 @@ public class UnifiedEnrichmentBolt extends ConfiguredEnrichmentBolt {
   protected EnrichmentContext enrichmentContext;
   protected boolean captureCacheStats = true;
 
+  /**
+   * The maximum number of messages being enriched at once.
+   */
+  protected int maxPending = 1;
+  private transient Deque<PendingMessage> pending;
+
   public UnifiedEnrichmentBolt(String zookeeperUrl) {
     super(zookeeperUrl);
   }
@@ -216,6 +248,21 @@ public class UnifiedEnrichmentBolt extends ConfiguredEnrichmentBolt {
     return this;
   }
 
+  /**
+   * Enrich up to this many messages at once, rather than one at a time.  While a message waits on a slow
+   * enrichment, such as a REST_GET, the following messages are enriched.  Messages are still emitted in
+   * the order they arrived.  By default, messages are enriched one at a time.
+   * @param maxPending The maximum number of messages being enriched at once.
+   * @return Instance of this class
+   */
+  public UnifiedEnrichmentBolt withMaxPending(int maxPending) {
+    if (maxPending <= 0) {
+      throw new IllegalArgumentException(String.format("maxPending must be positive. Value provided was %s", maxPending));
+    }
+    this.maxPending = maxPending;
+    return this;
+  }
+
   /**
    * Invalidate the cache on reload of bolt.  By default, we do not.
    * @param cacheInvalidationOnReload
@@ -255,52 +302,137 @@ public class UnifiedEnrichmentBolt extends ConfiguredEnrichmentBolt {
    */
   @Override
   public void execute(Tuple input) {
+    if (TupleUtils.isTick(input)) {
+      emitCompleted(maxPending);
+      collector.ack(input);
+      return;
+    }
     JSONObject message = generateMessage(input);
+    if (maxPending > 1) {
+      enrichAsync(input, message);
+      return;
+    }
     try {
-      String sourceType = MessageUtils.getSensorType(message);
-      SensorEnrichmentConfig config = getConfigurations().getSensorEnrichmentConfig(sourceType);
-      if(config == null) {
-        LOG.debug("Unable to find SensorEnrichmentConfig for sourceType: {}", sourceType);
-        config = new SensorEnrichmentConfig();
-      }
-      //This is an existing kludge for the stellar adapter to pass information along.
-      //We should figure out if this can be rearchitected a bit.  This smells.
-      config.getConfiguration().putIfAbsent(STELLAR_CONTEXT_CONF, stellarContext);
+      SensorEnrichmentConfig config = getSensorEnrichmentConfig(message);
       String guid = getGUID(input, message);
 
       // enrich the message
       ParallelEnricher.EnrichmentResult result = enricher.apply(message, strategy, config, perfLog);
-      JSONObject enriched = result.getResult();
-      enriched = strategy.postProcess(enriched, config, enrichmentContext);
-
-      //we can emit the message now
-      collector.emit("message",
-              input,
-              new Values(guid, enriched));
-      //and handle each of the errors in turn.  If any adapter errored out, we will have one message per.
-      for(Map.Entry<Object, Throwable> t : result.getEnrichmentErrors()) {
-        LOG.error("[Metron] Unable to enrich message: {}", message, t);
-        MetronError error = new MetronError()
-                .withErrorType(strategy.getErrorType())
-                .withMessage(t.getValue().getMessage())
-                .withThrowable(t.getValue())
-                .addRawMessage(t.getKey());
-        StormErrorUtils.handleError(collector, error);
-      }
+      emit(input, message, config, guid, result);
+    } catch (Exception e) {
+      handleError(message, e);
+    }
+    finally {
+      collector.ack(input);
+    }
+  }
+
+  /**
+   * Starts enriching a message, then emits every message which has finished enriching, in the order they
+   * arrived.  If too many messages are being enriched, this waits for the earliest.
+   *
+   * @param input The input tuple to be processed.
+   * @param message The message.
+   */
+  private void enrichAsync(Tuple input, JSONObject message) {
+    SensorEnrichmentConfig config = null;
+    String guid = null;
+    CompletableFuture<ParallelEnricher.EnrichmentResult> result;
+    try {
+      config = getSensorEnrichmentConfig(message);
+      guid = getGUID(input, message);
+      result = enricher.applyAsync(message, strategy, config, null);
     } catch (Exception e) {
-      //If something terrible and unexpected happens then we want to send an error along, but this
-      //really shouldn't be happening.
-      LOG.error("[Metron] Unable to enrich message: {}", message, e);
+      result = new CompletableFuture<>();
+      result.completeExceptionally(e);
+    }
+    pending.add(new PendingMessage(input, message, config, guid, result));
+    emitCompleted(maxPending);
+  }
+
+  /**
+   * Emits the messages which have finished enriching, in the order they arrived.  This stops at the first
+   * message still being enriched, unless more than the given number of messages are pending, in which case it
+   * waits for them.
+   *
+   * @param maxPending The maximum number of messages to leave pending.
+   */
+  private void emitCompleted(int maxPending) {
+    while (pending != null && !pending.isEmpty()
+            && (pending.size() > maxPending || pending.peek().result.isDone())) {
+      PendingMessage next = pending.poll();
+      try {
+        emit(next.tuple, next.message, next.config, next.guid, next.result.get());
+      } catch (InterruptedException | ExecutionException e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        handleError(next.message, e instanceof ExecutionException ? e.getCause() : e);
+      } catch (Exception e) {
+        handleError(next.message, e);
+      } finally {
+        collector.ack(next.tuple);
+      }
+    }
+  }
+
+  private SensorEnrichmentConfig getSensorEnrichmentConfig(JSONObject message) {
+    String sourceType = MessageUtils.getSensorType(message);
+    SensorEnrichmentConfig config = getConfigurations().getSensorEnrichmentConfig(sourceType);
+    if(config == null) {
+      LOG.debug("Unable to find SensorEnrichmentConfig for sourceType: {}", sourceType);
+      config = new SensorEnrichmentConfig();
+    }
+    //This is an existing kludge for the stellar adapter to pass information along.
+    //We should figure out if this can be rearchitected a bit.  This smells.
+    config.getConfiguration().putIfAbsent(STELLAR_CONTEXT_CONF, stellarContext);
+    return config;
+  }
+
+  private void emit(Tuple input, JSONObject message, SensorEnrichmentConfig config, String guid,
+                    ParallelEnricher.EnrichmentResult result) {
+    JSONObject enriched = result.getResult();
+    enriched = strategy.postProcess(enriched, config, enrichmentContext);
+
+    //we can emit the message now
+    collector.emit("message",
+            input,
+            new Values(guid, enriched));
+    //and handle each of the errors in turn.  If any adapter errored out, we will have one message per.
+    for(Map.Entry<Object, Throwable> t : result.getEnrichmentErrors()) {
+      LOG.error("[Metron] Unable to enrich message: {}", message, t);
       MetronError error = new MetronError()
               .withErrorType(strategy.getErrorType())
-              .withMessage(e.getMessage())
-              .withThrowable(e)
-              .addRawMessage(message);
+              .withMessage(t.getValue().getMessage())
+              .withThrowable(t.getValue())
+              .addRawMessage(t.getKey());
       StormErrorUtils.handleError(collector, error);
     }
-    finally {
-      collector.ack(input);
+  }
+
+  private void handleError(JSONObject message, Throwable e) {
+    //If something terrible and unexpected happens then we want to send an error along, but this
+    //really shouldn't be happening.
+    LOG.error("[Metron] Unable to enrich message: {}", message, e);
+    MetronError error = new MetronError()
+            .withErrorType(strategy.getErrorType())
+            .withMessage(e.getMessage())
+            .withThrowable(e)
+            .addRawMessage(message);
+    StormErrorUtils.handleError(collector, error);
+  }
+
+  /**
+   * When messages are enriched concurrently, tick tuples emit those which finished since the last tuple.
+   */
+  @Override
+  public Map<String, Object> getComponentConfiguration() {
+    Map<String, Object> conf = super.getComponentConfiguration();
+    if (maxPending > 1) {
+      conf = conf == null ? new HashMap<>() : new HashMap<>(conf);
+      conf.put(Config.TOPOLOGY_TICK_TUPLE_FREQ_SECS, 1);
     }
+    return conf;
   }
 
   /**
@@ -350,18 +482,19 @@ public class UnifiedEnrichmentBolt extends ConfiguredEnrichmentBolt {
     }
     if(map.containsKey(THREADPOOL_NUM_THREADS_TOPOLOGY_CONF)) {
       int numThreads = getNumThreads(map.get(THREADPOOL_NUM_THREADS_TOPOLOGY_CONF));
-      ConcurrencyContext.get(strategy).initialize(numThreads, maxCacheSize, maxTimeRetain, workerPoolStrategy, LOG, captureCacheStats);
+      ConcurrencyContext.get(strategy).initialize(numThreads, maxCacheSize, maxTimeRetain, workerPoolStrategy, LOG, captureCacheStats,
+              getConfigurations().getGlobalConfig());
     }
     else {
       throw new IllegalStateException("You must pass " + THREADPOOL_NUM_THREADS_TOPOLOGY_CONF + " via storm config.");
     }
     messageGetter = this.getterStrategy.get(messageFieldName);
     enricher = new ParallelEnricher(enrichmentsByType, ConcurrencyContext.get(strategy), captureCacheStats);
+    pending = new ArrayDeque<>(maxPending);
     perfLog = new PerformanceLogger(() -> getConfigurations().getGlobalConfig(), Perf.class.getName());
-    GeoLiteCityDatabase.INSTANCE.update((String)getConfigurations().getGlobalConfig().get(
-        GeoLiteCityDatabase.GEO_HDFS_FILE));
-    GeoLiteAsnDatabase.INSTANCE.update((String)getConfigurations().getGlobalConfig().get(
-        GeoLiteAsnDatabase.ASN_HDFS_FILE));
+    // The databases are shared by every executor in the worker, so only the first executor loads them
+    GeoLiteCityDatabase.INSTANCE.updateIfNecessary(getConfigurations().getGlobalConfig());
+    GeoLiteAsnDatabase.INSTANCE.updateIfNecessary(getConfigurations().getGlobalConfig());
     initializeStellar();
     enrichmentContext = new EnrichmentContext(StellarFunctions.FUNCTION_RESOLVER(), stellarContext);
   }
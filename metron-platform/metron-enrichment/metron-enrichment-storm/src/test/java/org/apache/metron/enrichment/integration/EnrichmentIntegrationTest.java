@@ -147,6 +147,7 @@ public class EnrichmentIntegrationTest extends BaseIntegrationTest {
       setProperty("enrichment_kafka_start", "UNCOMMITTED_EARLIEST");
       setProperty("enrichment_input_topic", Constants.ENRICHMENT_TOPIC);
       setProperty("enrichment_output_topic", Constants.INDEXING_TOPIC);
+      setProperty("enrichment_output_wire_format", "JSON");
       setProperty("enrichment_error_topic", ERROR_TOPIC);
       setProperty("threatintel_error_topic", ERROR_TOPIC);
 
@@ -176,6 +177,8 @@ public class EnrichmentIntegrationTest extends BaseIntegrationTest {
       // threads
       setProperty("unified_enrichment_threadpool_size", "1");
       setProperty("unified_enrichment_threadpool_type", "FIXED");
+      setProperty("unified_enrichment_max_pending", "1");
+      setProperty("unified_threat_intel_max_pending", "1");
     }};
   }
 
@@ -22,6 +22,8 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.hbase.client.Table;
@@ -58,6 +60,12 @@ public class HTableProvider implements TableProvider {
     return getConnection(config).getTable(TableName.valueOf(tableName));
   }
 
+  @Override
+  public BufferedMutator getBufferedMutator(Configuration config, BufferedMutatorParams params)
+      throws IOException {
+    return getConnection(config).getBufferedMutator(params);
+  }
+
   private Connection getConnection(Configuration config) throws IOException {
     ThreadLocal<RetryingConnection> threadLocal = connMap.computeIfAbsent(config, c -> ThreadLocal.withInitial(() -> new RetryingConnection(config)));
     return threadLocal.get().getUnderlying();
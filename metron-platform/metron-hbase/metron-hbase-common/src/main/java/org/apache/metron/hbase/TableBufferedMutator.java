@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.hbase;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.client.Table;
+
+/**
+ * A {@link BufferedMutator} which writes to a {@link Table}.  Mutations are written in a single batch once
+ * the write buffer fills or is flushed.
+ *
+ * <p>Mutations which fail are passed to the exception listener, as they would be by HBase's own
+ * BufferedMutator.  Without a listener, the failures are thrown.
+ */
+public class TableBufferedMutator implements BufferedMutator {
+
+  /**
+   * The write buffer size if none is given, which is HBase's default.
+   */
+  public static final long DEFAULT_WRITE_BUFFER_SIZE = 2 * 1024 * 1024;
+
+  private final Table table;
+  private final TableName tableName;
+  private final long writeBufferSize;
+  private final ExceptionListener listener;
+  private final List<Mutation> buffer = new ArrayList<>();
+  private long bufferedSize = 0;
+
+  public TableBufferedMutator(Table table, BufferedMutatorParams params) {
+    this.table = table;
+    this.tableName = params.getTableName();
+    this.writeBufferSize = params.getWriteBufferSize() > 0 ? params.getWriteBufferSize() : DEFAULT_WRITE_BUFFER_SIZE;
+    this.listener = params.getListener();
+  }
+
+  @Override
+  public TableName getName() {
+    return tableName;
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return table.getConfiguration();
+  }
+
+  @Override
+  public synchronized void mutate(Mutation mutation) throws IOException {
+    buffer.add(mutation);
+    bufferedSize += mutation.heapSize();
+    if (bufferedSize >= writeBufferSize) {
+      flush();
+    }
+  }
+
+  @Override
+  public synchronized void mutate(List<? extends Mutation> mutations) throws IOException {
+    for (Mutation mutation : mutations) {
+      mutate(mutation);
+    }
+  }
+
+  @Override
+  public synchronized void flush() throws IOException {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    List<Mutation> batch = new ArrayList<>(buffer);
+    buffer.clear();
+    bufferedSize = 0;
+
+    Object[] results = new Object[batch.size()];
+    List<Throwable> causes = new ArrayList<>();
+    List<Row> rows = new ArrayList<>();
+    List<String> hosts = new ArrayList<>();
+    try {
+      table.batch(batch, results);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing to " + tableName);
+    } catch (IOException | RuntimeException e) {
+      // the results of the mutations which failed are either their cause or empty
+      for (int i = 0; i < results.length; ++i) {
+        if (results[i] == null || results[i] instanceof Throwable) {
+          causes.add(results[i] == null ? e : (Throwable) results[i]);
+          rows.add(batch.get(i));
+          hosts.add("");
+        }
+      }
+    }
+    if (!rows.isEmpty()) {
+      RetriesExhaustedWithDetailsException e = new RetriesExhaustedWithDetailsException(causes, rows, hosts);
+      if (listener == null) {
+        throw e;
+      }
+      listener.onException(e, this);
+    }
+  }
+
+  @Override
+  public long getWriteBufferSize() {
+    return writeBufferSize;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      table.close();
+    }
+  }
+}
@@ -22,12 +22,28 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.function.Supplier;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
 import org.apache.hadoop.hbase.client.Table;
 
 public interface TableProvider extends Serializable {
 
   Table getTable(Configuration config, String tableName) throws IOException;
 
+  /**
+   * Creates a BufferedMutator, which writes mutations in the background once its write buffer fills.
+   *
+   * <p>By default, the mutations are written to the table from {@link #getTable(Configuration, String)}
+   * when the buffer fills or is flushed, so providers which only supply a table continue to work.
+   *
+   * @param config The HBase configuration.
+   * @param params The table name, write buffer size and exception listener.
+   * @return The BufferedMutator.
+   */
+  default BufferedMutator getBufferedMutator(Configuration config, BufferedMutatorParams params) throws IOException {
+    return new TableBufferedMutator(getTable(config, params.getTableName().getNameAsString()), params);
+  }
+
   /**
    * Factory method that creates TableProviders.
    *
@@ -26,8 +26,17 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
 import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Increment;
@@ -35,6 +44,8 @@ import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
@@ -66,19 +77,71 @@ public class HBaseClient implements Closeable {
    */
   private Table table;
 
+  /**
+   * Buffers Mutations and writes them in the background, if the client was created with a write buffer.
+   */
+  private BufferedMutator mutator;
+
+  /**
+   * The Mutations which the BufferedMutator failed to write, and why.
+   */
+  private final Map<Row, Throwable> failures = Collections.synchronizedMap(new IdentityHashMap<>());
+
+  /**
+   * Periodically flushes the BufferedMutator, if a flush interval was given.
+   */
+  private ScheduledExecutorService flusher;
+
   /**
    * New hbase client.
    */
   public HBaseClient(TableProvider provider, final Configuration configuration, final String tableName) {
+    this(provider, configuration, tableName, 0, 0);
+  }
+
+  /**
+   * New hbase client which writes Mutations through a BufferedMutator.
+   *
+   * <p>Mutations are handed to the BufferedMutator as soon as they are added, so they are written in the
+   * background whenever the write buffer fills, rather than all at once by {@link #mutate()}.
+   *
+   * @param writeBufferSize The size of the write buffer in bytes.  If 0 or less, Mutations are queued and
+   *                        written synchronously by {@link #mutate()}.
+   * @param flushIntervalMillis How often the write buffer is flushed in the background.  If 0 or less,
+   *                            it is only flushed when full or by {@link #mutate()}.
+   */
+  public HBaseClient(TableProvider provider, final Configuration configuration, final String tableName,
+                     long writeBufferSize, long flushIntervalMillis) {
     this.mutations = new ArrayList<>();
     this.gets = new ArrayList<>();
     try {
       this.table = provider.getTable(configuration, tableName);
+      if (writeBufferSize > 0) {
+        BufferedMutatorParams params = new BufferedMutatorParams(TableName.valueOf(tableName))
+                .writeBufferSize(writeBufferSize)
+                .listener((e, m) -> recordFailures(e));
+        this.mutator = provider.getBufferedMutator(configuration, params);
+      }
     } catch (Exception e) {
       String msg = String.format("Unable to open connection to HBase for table '%s'", tableName);
       LOG.error(msg, e);
       throw new RuntimeException(msg, e);
     }
+    if (mutator != null && flushIntervalMillis > 0) {
+      this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "hbase-flusher-" + tableName);
+        thread.setDaemon(true);
+        return thread;
+      });
+      flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * @return True if Mutations are written through a BufferedMutator.
+   */
+  public boolean isBuffered() {
+    return mutator != null;
   }
 
   /**
@@ -88,22 +151,25 @@ public class HBaseClient implements Closeable {
    * @param rowKey     The row key of the Mutation.
    * @param cols       The columns affected by the Mutation.
    * @param durability The durability of the mutation.
+   * @return The Mutations that were added.
    */
-  public void addMutation(byte[] rowKey, ColumnList cols, Durability durability) {
+  public List<Mutation> addMutation(byte[] rowKey, ColumnList cols, Durability durability) {
+    List<Mutation> added = new ArrayList<>();
 
     if (cols.hasColumns()) {
       Put put = createPut(rowKey, cols, durability);
-      mutations.add(put);
+      add(put, added);
     }
 
     if (cols.hasCounters()) {
       Increment inc = createIncrement(rowKey, cols, durability);
-      mutations.add(inc);
+      add(inc, added);
     }
 
     if (mutations.isEmpty()) {
-      mutations.add(new Put(rowKey));
+      add(new Put(rowKey), added);
     }
+    return added;
   }
 
   /**
@@ -114,23 +180,48 @@ public class HBaseClient implements Closeable {
    * @param cols             The columns affected by the Mutation.
    * @param durability       The durability of the mutation.
    * @param timeToLiveMillis The time to live in milliseconds.
+   * @return The Mutations that were added.
    */
-  public void addMutation(byte[] rowKey, ColumnList cols, Durability durability, Long timeToLiveMillis) {
+  public List<Mutation> addMutation(byte[] rowKey, ColumnList cols, Durability durability, Long timeToLiveMillis) {
+    List<Mutation> added = new ArrayList<>();
 
     if (cols.hasColumns()) {
       Put put = createPut(rowKey, cols, durability, timeToLiveMillis);
-      mutations.add(put);
+      add(put, added);
     }
 
     if (cols.hasCounters()) {
       Increment inc = createIncrement(rowKey, cols, durability, timeToLiveMillis);
-      mutations.add(inc);
+      add(inc, added);
     }
 
     if (mutations.isEmpty()) {
       Put put = new Put(rowKey);
       put.setTTL(timeToLiveMillis);
-      mutations.add(put);
+      add(put, added);
+    }
+    return added;
+  }
+
+  /**
+   * Queues a Mutation and, if buffered, hands it to the BufferedMutator.
+   *
+   * @param mutation The Mutation.
+   * @param added The Mutations added by the caller.
+   */
+  private void add(Mutation mutation, List<Mutation> added) {
+    mutations.add(mutation);
+    added.add(mutation);
+    if (mutator != null) {
+      try {
+        mutator.mutate(mutation);
+      } catch (RetriesExhaustedWithDetailsException e) {
+        recordFailures(e);
+
+      } catch (IOException e) {
+        // the mutations which failed are unknown, so all of those queued are treated as failed
+        mutations.forEach(m -> failures.put(m, e));
+      }
     }
   }
 
@@ -138,27 +229,92 @@ public class HBaseClient implements Closeable {
    * Remove all queued Mutations from the batch.
    */
   public void clearMutations() {
+    mutations.forEach(failures::remove);
     mutations.clear();
   }
 
   /**
    * Submits all queued Mutations.
    * @return The number of mutation submitted.
+   * @throws RuntimeException If any of the Mutations failed.
    */
   public int mutate() {
     int mutationCount = mutations.size();
-    Object[] result = new Object[mutationCount];
+    Map<Mutation, Throwable> failed = mutateAll();
+    if (!failed.isEmpty()) {
+      String msg = String.format("'%d' HBase write(s) failed on table '%s'", failed.size(), tableName(table));
+      throw new RuntimeException(msg, failed.values().iterator().next());
+    }
+
+    return mutationCount;
+  }
+
+  /**
+   * Submits all queued Mutations, or waits for them to be written if buffered.  Unlike {@link #mutate()},
+   * the Mutations which fail do not prevent the rest from being reported as written.
+   *
+   * @return The Mutations which failed, and why.  Empty if all were written.
+   */
+  public Map<Mutation, Throwable> mutateAll() {
+    Map<Mutation, Throwable> failed = new IdentityHashMap<>();
     try {
-      table.batch(mutations, result);
+      if (mutator != null) {
+        mutator.flush();
+        for (Mutation mutation : mutations) {
+          Throwable cause = failures.remove(mutation);
+          if (cause != null) {
+            failed.put(mutation, cause);
+          }
+        }
+
+      } else {
+        Object[] results = new Object[mutations.size()];
+        try {
+          table.batch(mutations, results);
+
+        } catch (Exception e) {
+          // the results of the mutations which failed are either their cause or empty
+          for (int i = 0; i < results.length; i++) {
+            if (results[i] == null || results[i] instanceof Throwable) {
+              failed.put(mutations.get(i), results[i] == null ? e : (Throwable) results[i]);
+            }
+          }
+        }
+      }
+    } catch (Exception e) {
+      mutations.forEach(m -> failed.put(m, e));
+
+    } finally {
       mutations.clear();
+    }
 
+    if (!failed.isEmpty()) {
+      String msg = String.format("'%d' HBase write(s) failed on table '%s'", failed.size(), tableName(table));
+      LOG.error(msg, failed.values().iterator().next());
+    }
+    return failed;
+  }
+
+  /**
+   * Flushes the write buffer in the background.  Failures are reported by {@link #mutateAll()}.
+   */
+  private void flush() {
+    try {
+      mutator.flush();
     } catch (Exception e) {
-      String msg = String.format("'%d' HBase write(s) failed on table '%s'", size(mutations), tableName(table));
-      LOG.error(msg, e);
-      throw new RuntimeException(msg, e);
+      LOG.error(String.format("Unable to flush HBase writes to table '%s'", tableName(table)), e);
     }
+  }
 
-    return mutationCount;
+  /**
+   * Records the Mutations that the BufferedMutator failed to write.
+   *
+   * @param e The exception raised by the BufferedMutator.
+   */
+  private void recordFailures(RetriesExhaustedWithDetailsException e) {
+    for (int i = 0; i < e.getNumExceptions(); i++) {
+      failures.put(e.getRow(i), e.getCause(i));
+    }
   }
 
   /**
@@ -209,8 +365,17 @@ public class HBaseClient implements Closeable {
    */
   @Override
   public void close() throws IOException {
-    if(table != null) {
-      table.close();
+    if(flusher != null) {
+      flusher.shutdownNow();
+    }
+    try {
+      if(mutator != null) {
+        mutator.close();
+      }
+    } finally {
+      if(table != null) {
+        table.close();
+      }
     }
   }
 
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.hbase.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.metron.hbase.ColumnList;
+import org.apache.metron.hbase.TableProvider;
+import org.apache.metron.hbase.mock.MockHTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the HBaseClient when writing through a BufferedMutator.
+ */
+public class BufferedHBaseClientTest {
+
+  private static final String tableName = "table";
+  private static final byte[] cf = Bytes.toBytes("cf");
+  private static final byte[] column = Bytes.toBytes("column");
+
+  /**
+   * A table which fails to write any row whose key starts with 'bad'.
+   */
+  private static class FailingTable extends MockHTable {
+
+    FailingTable() {
+      super(tableName, "cf");
+    }
+
+    @Override
+    public void batch(List<? extends Row> actions, Object[] results) throws IOException {
+      boolean failed = false;
+      for (int i = 0; i < actions.size(); i++) {
+        Row action = actions.get(i);
+        if (Bytes.toString(action.getRow()).startsWith("bad")) {
+          results[i] = new IOException("Unable to write " + Bytes.toString(action.getRow()));
+          failed = true;
+        } else {
+          put((Put) action);
+          results[i] = new Result();
+        }
+      }
+      if (failed) {
+        throw new IOException("Some writes failed");
+      }
+    }
+  }
+
+  private FailingTable table;
+  private TableProvider provider;
+  private ColumnList cols;
+
+  @BeforeEach
+  public void setup() {
+    table = new FailingTable();
+    provider = (c, t) -> table;
+    cols = new ColumnList();
+    cols.addColumn(cf, column, Bytes.toBytes("value"));
+  }
+
+  private HBaseClient createClient(long writeBufferSize, long flushIntervalMillis) {
+    return new HBaseClient(provider, HBaseConfiguration.create(), tableName, writeBufferSize, flushIntervalMillis);
+  }
+
+  @Test
+  public void shouldWriteOnceFlushed() throws IOException {
+    try (HBaseClient client = createClient(1024 * 1024, 0)) {
+      assertTrue(client.isBuffered());
+      client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+      client.addMutation(Bytes.toBytes("row2"), cols, Durability.SKIP_WAL);
+
+      // the write buffer is not full, so nothing has been written
+      assertEquals(0, table.size());
+
+      assertTrue(client.mutateAll().isEmpty());
+      assertEquals(2, table.size());
+    }
+  }
+
+  @Test
+  public void shouldWriteWhenBufferFills() throws IOException {
+    try (HBaseClient client = createClient(1, 0)) {
+      client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+      client.addMutation(Bytes.toBytes("row2"), cols, Durability.SKIP_WAL);
+
+      // each mutation fills the buffer, so is written before the batch is submitted
+      assertEquals(2, table.size());
+      assertEquals(2, client.mutate());
+    }
+  }
+
+  @Test
+  public void shouldFlushInBackground() throws Exception {
+    try (HBaseClient client = createClient(1024 * 1024, 10)) {
+      client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+
+      long deadline = System.currentTimeMillis() + 10000;
+      while (table.size() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, table.size());
+      assertTrue(client.mutateAll().isEmpty());
+    }
+  }
+
+  @Test
+  public void shouldReportEachFailedMutation() throws IOException {
+    try (HBaseClient client = createClient(1024 * 1024, 0)) {
+      List<Mutation> good = client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+      List<Mutation> bad = client.addMutation(Bytes.toBytes("bad1"), cols, Durability.SKIP_WAL);
+
+      Map<Mutation, Throwable> failed = client.mutateAll();
+      assertEquals(1, failed.size());
+      assertTrue(failed.containsKey(bad.get(0)));
+      assertFalse(failed.containsKey(good.get(0)));
+      assertEquals("Unable to write bad1", failed.get(bad.get(0)).getMessage());
+
+      // the successful mutation was still written
+      assertEquals(1, table.size());
+    }
+  }
+
+  @Test
+  public void shouldReportFailuresFromBackgroundFlushes() throws IOException {
+    try (HBaseClient client = createClient(1, 0)) {
+      List<Mutation> bad = client.addMutation(Bytes.toBytes("bad1"), cols, Durability.SKIP_WAL);
+      client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+
+      // the failure happened when the buffer filled, but is reported with the batch
+      Map<Mutation, Throwable> failed = client.mutateAll();
+      assertEquals(1, failed.size());
+      assertTrue(failed.containsKey(bad.get(0)));
+    }
+  }
+
+  @Test
+  public void shouldReportEachFailedMutationWhenUnbuffered() throws IOException {
+    try (HBaseClient client = createClient(0, 0)) {
+      assertFalse(client.isBuffered());
+      client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+      List<Mutation> bad = client.addMutation(Bytes.toBytes("bad1"), cols, Durability.SKIP_WAL);
+
+      Map<Mutation, Throwable> failed = client.mutateAll();
+      assertEquals(1, failed.size());
+      assertTrue(failed.containsKey(bad.get(0)));
+      assertEquals(1, table.size());
+    }
+  }
+
+  @Test
+  public void mutateShouldThrowIfAnyMutationFailed() throws IOException {
+    try (HBaseClient client = createClient(1024 * 1024, 0)) {
+      client.addMutation(Bytes.toBytes("row1"), cols, Durability.SKIP_WAL);
+      List<Mutation> bad = client.addMutation(Bytes.toBytes("bad1"), cols, Durability.SKIP_WAL);
+
+      RuntimeException e = assertThrows(RuntimeException.class, client::mutate);
+      assertEquals("'1' HBase write(s) failed on table 'table'", e.getMessage());
+      assertSame(IOException.class, e.getCause().getClass());
+
+      // the failed batch is not retried by the next
+      assertEquals(0, client.mutate());
+    }
+  }
+}
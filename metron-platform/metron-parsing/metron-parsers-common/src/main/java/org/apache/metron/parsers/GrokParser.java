@@ -56,10 +56,23 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
 
   protected static final LazyLogger LOG = LazyLoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /**
+   * An ordered list of patterns to try in turn, in place of the single {@code patternLabel}.
+   */
+  public static final String PATTERNS_CONF = "patterns";
+
+  /**
+   * The field in which to record the label of the pattern that matched when using {@code patterns}.
+   */
+  public static final String PATTERN_FIELD_CONF = "patternField";
+  public static final String DEFAULT_PATTERN_FIELD = "grok_pattern";
+
   protected transient Grok grok;
   protected String grokPath;
   protected boolean multiLine = false;
   protected String patternLabel;
+  protected List<GrokPatternCandidate> patterns;
+  protected String patternField = DEFAULT_PATTERN_FIELD;
   protected List<String> timeFields = new ArrayList<>();
   protected String timestampField;
   protected SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.S z");
@@ -76,6 +89,17 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
       multiLine = Boolean.parseBoolean(multiLineString);
     }
     this.patternLabel = (String) parserConfig.get("patternLabel");
+    List<Object> patternsParam = (List<Object>) parserConfig.get(PATTERNS_CONF);
+    if (patternsParam != null && !patternsParam.isEmpty()) {
+      this.patterns = new ArrayList<>();
+      for (Object pattern : patternsParam) {
+        this.patterns.add(GrokPatternCandidate.create(pattern));
+      }
+    }
+    String patternFieldParam = (String) parserConfig.get(PATTERN_FIELD_CONF);
+    if (patternFieldParam != null) {
+      this.patternField = patternFieldParam;
+    }
     this.timestampField = (String) parserConfig.get("timestampField");
     List<String> timeFieldsParam = (List<String>) parserConfig.get("timeFields");
     if (timeFieldsParam != null) {
@@ -129,13 +153,20 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
       }
       grok.addPatternFromReader(new InputStreamReader(patterInputStream, getReadCharset()));
 
-      LOG.info("Grok parser set the following grok expression for '{}': {}", () ->patternLabel,
-              () -> grok.getPatterns().get(patternLabel));
+      if (isMultiPattern()) {
+        for (GrokPatternCandidate pattern : patterns) {
+          pattern.compile(grok.getPatterns());
+          LOG.info("Compiled grok pattern {}", pattern);
+        }
+      } else {
+        LOG.info("Grok parser set the following grok expression for '{}': {}", () ->patternLabel,
+                () -> grok.getPatterns().get(patternLabel));
 
-      String grokPattern = "%{" + patternLabel + "}";
+        String grokPattern = "%{" + patternLabel + "}";
 
-      grok.compile(grokPattern);
-      LOG.info("Compiled grok pattern {}", grokPattern);
+        grok.compile(grokPattern);
+        LOG.info("Compiled grok pattern {}", grokPattern);
+      }
 
     } catch (Throwable e) {
       LOG.error(e.getMessage(), e);
@@ -166,10 +197,8 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
       while ((originalMessage = reader.readLine()) != null) {
         LOG.debug("Grok parser parsing message: {}", originalMessage);
         try {
-          Match gm = grok.match(originalMessage);
-          gm.captures();
           JSONObject message = new JSONObject();
-          message.putAll(gm.toMap());
+          String matchedLabel = match(originalMessage, message);
 
           if (message.size() == 0) {
             Throwable rte = new RuntimeException("Grok statement produced a null message. Original message was: "
@@ -188,7 +217,10 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
           if (timestampField != null) {
             message.put(Constants.Fields.TIMESTAMP.getName(), formatTimestamp(message.get(timestampField)));
           }
-          message.remove(patternLabel);
+          message.remove(matchedLabel);
+          if (isMultiPattern()) {
+            message.put(patternField, matchedLabel);
+          }
           postParse(message);
           messages.add(message);
           LOG.debug("Grok parser parsed message: {}", message);
@@ -216,10 +248,8 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
     try {
       originalMessage = new String(rawMessage, StandardCharsets.UTF_8);
       LOG.debug("Grok parser parsing message: {}",originalMessage);
-      Match gm = grok.match(originalMessage);
-      gm.captures();
       JSONObject message = new JSONObject();
-      message.putAll(gm.toMap());
+      String matchedLabel = match(originalMessage, message);
 
       if (message.size() == 0) {
         Throwable rte = new RuntimeException("Grok statement produced a null message. Original message was: "
@@ -237,7 +267,10 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
         if (timestampField != null) {
           message.put(Constants.Fields.TIMESTAMP.getName(), formatTimestamp(message.get(timestampField)));
         }
-        message.remove(patternLabel);
+        message.remove(matchedLabel);
+        if (isMultiPattern()) {
+          message.put(patternField, matchedLabel);
+        }
         postParse(message);
         messages.add(message);
         LOG.debug("Grok parser parsed message: {}", message);
@@ -253,6 +286,39 @@ public class GrokParser implements MessageParser<JSONObject>, Serializable {
     return Optional.of(new DefaultMessageParserResult<JSONObject>(messages, errors));
   }
 
+  protected boolean isMultiPattern() {
+    return patterns != null;
+  }
+
+  /**
+   * Matches a line against the configured pattern, or the first of the configured patterns that
+   * matches.  Patterns whose cheap pre-check rules out the line are not run.
+   *
+   * @param line The line to parse.
+   * @param message The message to add the captured fields to.
+   * @return The label of the pattern that matched, or null if none did.
+   */
+  @SuppressWarnings("unchecked")
+  protected String match(String line, JSONObject message) {
+    if (!isMultiPattern()) {
+      Match gm = grok.match(line);
+      gm.captures();
+      message.putAll(gm.toMap());
+      return patternLabel;
+    }
+    for (GrokPatternCandidate pattern : patterns) {
+      if (!pattern.accepts(line)) {
+        continue;
+      }
+      Map<String, Object> captures = pattern.match(line);
+      if (!captures.isEmpty()) {
+        message.putAll(captures);
+        return pattern.getLabel();
+      }
+    }
+    return null;
+  }
+
   @Override
   public boolean validate(JSONObject message) {
     LOG.debug("Grok parser validating message: {}", message);
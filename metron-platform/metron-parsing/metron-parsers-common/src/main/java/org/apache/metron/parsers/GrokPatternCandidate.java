@@ -0,0 +1,312 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import oi.thekraken.grok.api.Grok;
+import oi.thekraken.grok.api.Match;
+import oi.thekraken.grok.api.exception.GrokException;
+
+/**
+ * One of an ordered list of grok patterns that a {@link GrokParser} tries in turn.
+ *
+ * <p>Before running the full regex, a cheap check rules out lines that cannot match:
+ * <ul>
+ *   <li>{@code prefix}: the line must start with this literal.</li>
+ *   <li>{@code contains}: the line must contain this literal.</li>
+ * </ul>
+ * If neither hint is configured, the literal that any match must begin with is derived
+ * from the compiled regex, when there is one.
+ */
+public class GrokPatternCandidate implements Serializable {
+
+  public static final String LABEL_CONF = "label";
+  public static final String PREFIX_CONF = "prefix";
+  public static final String CONTAINS_CONF = "contains";
+
+  private final String label;
+  private final String prefix;
+  private final String contains;
+  private transient Grok grok;
+  private transient String derivedLiteral;
+  private transient boolean derivedAnchored;
+
+  public GrokPatternCandidate(String label, String prefix, String contains) {
+    if (label == null) {
+      throw new IllegalArgumentException("Grok pattern candidates must specify a " + LABEL_CONF);
+    }
+    this.label = label;
+    this.prefix = prefix;
+    this.contains = contains;
+  }
+
+  /**
+   * Creates a candidate from its configuration, which is either the pattern label or a map
+   * containing the label and optional prefix/contains hints.
+   *
+   * @param config The candidate configuration.
+   * @return The candidate.
+   */
+  public static GrokPatternCandidate create(Object config) {
+    if (config instanceof String) {
+      return new GrokPatternCandidate((String) config, null, null);
+    }
+    if (config instanceof Map) {
+      Map<?, ?> m = (Map<?, ?>) config;
+      return new GrokPatternCandidate((String) m.get(LABEL_CONF), (String) m.get(PREFIX_CONF), (String) m.get(CONTAINS_CONF));
+    }
+    throw new IllegalArgumentException("Unable to create a grok pattern from " + config
+            + ": expected a pattern label or a map with '" + LABEL_CONF + "', '" + PREFIX_CONF + "' and '" + CONTAINS_CONF + "'");
+  }
+
+  /**
+   * Compiles the pattern using the given pattern definitions.
+   *
+   * @param patternDefinitions The pattern definitions loaded from the common and sensor pattern files.
+   * @throws GrokException If the pattern cannot be compiled.
+   */
+  public void compile(Map<String, String> patternDefinitions) throws GrokException {
+    Grok g = new Grok();
+    g.copyPatterns(patternDefinitions);
+    g.compile("%{" + label + "}");
+    if (prefix == null && contains == null) {
+      boolean[] anchored = new boolean[1];
+      String literal = leadingLiteral(g.getNamedRegex(), anchored);
+      if (literal != null && !literal.isEmpty()) {
+        derivedLiteral = literal;
+        derivedAnchored = anchored[0];
+      }
+    }
+    grok = g;
+  }
+
+  /**
+   * @param line The line to parse.
+   * @return false if the line cannot possibly match this pattern.
+   */
+  public boolean accepts(String line) {
+    if (prefix != null && !line.startsWith(prefix)) {
+      return false;
+    }
+    if (contains != null && !line.contains(contains)) {
+      return false;
+    }
+    if (derivedLiteral != null) {
+      return derivedAnchored ? line.startsWith(derivedLiteral) : line.contains(derivedLiteral);
+    }
+    return true;
+  }
+
+  /**
+   * Matches the line against the pattern.
+   *
+   * @param line The line to parse.
+   * @return The captures, which are empty if the line does not match.
+   */
+  public Map<String, Object> match(String line) {
+    Match gm = grok.match(line);
+    gm.captures();
+    return gm.toMap();
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  /**
+   * @return The literal derived from the regex that every match must start with, if any.
+   */
+  public String getDerivedLiteral() {
+    return derivedLiteral;
+  }
+
+  public boolean isCompiled() {
+    return grok != null;
+  }
+
+  /**
+   * Finds the literal text that any match of the regex must begin with.  This descends into
+   * leading capturing and non-capturing groups, and gives up on anything it does not understand
+   * (alternation, character classes, lookaround, inline flags and so on).
+   *
+   * @param regex The regex.
+   * @param anchored Set to true if the literal must appear at the start of the input.
+   * @return The literal, which may be empty, or null if the regex could not be analyzed.
+   */
+  static String leadingLiteral(String regex, boolean[] anchored) {
+    StringBuilder literal = new StringBuilder();
+    List<Integer> groups = new ArrayList<>();
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (literal.length() == 0 && c == '^') {
+        anchored[0] = true;
+        i++;
+        continue;
+      }
+      if (literal.length() == 0 && c == '(') {
+        int body = groupBody(regex, i);
+        if (body < 0) {
+          break;
+        }
+        groups.add(i);
+        i = body;
+        continue;
+      }
+      char next;
+      int width;
+      if (c == '\\') {
+        if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          // a character class such as \d or a back reference
+          break;
+        }
+        next = regex.charAt(i + 1);
+        width = 2;
+      } else if (".[]{}()*+?^$|".indexOf(c) >= 0) {
+        break;
+      } else {
+        next = c;
+        width = 1;
+      }
+      int after = i + width;
+      if (after < regex.length() && "?*{".indexOf(regex.charAt(after)) >= 0) {
+        // the character is optional
+        break;
+      }
+      literal.append(next);
+      i = after;
+      if (after < regex.length() && regex.charAt(after) == '+') {
+        break;
+      }
+    }
+    if (literal.length() == 0) {
+      return "";
+    }
+    if (hasTopLevelAlternation(regex, -1)) {
+      return null;
+    }
+    for (int open : groups) {
+      int close = closingParen(regex, open);
+      if (close < 0 || hasTopLevelAlternation(regex, open)) {
+        return null;
+      }
+      if (close + 1 < regex.length() && "?*{".indexOf(regex.charAt(close + 1)) >= 0) {
+        // the group is optional
+        return null;
+      }
+    }
+    return literal.toString();
+  }
+
+  /**
+   * @return The index of the start of a group's body, or -1 if it is not a plain or named group.
+   */
+  private static int groupBody(String regex, int open) {
+    if (regex.startsWith("(?:", open)) {
+      return open + 3;
+    }
+    if (regex.startsWith("(?<", open) && open + 3 < regex.length()
+            && regex.charAt(open + 3) != '=' && regex.charAt(open + 3) != '!') {
+      int end = regex.indexOf('>', open);
+      return end < 0 ? -1 : end + 1;
+    }
+    if (open + 1 < regex.length() && regex.charAt(open + 1) != '?') {
+      return open + 1;
+    }
+    return -1;
+  }
+
+  private static int closingParen(String regex, int open) {
+    int depth = 0;
+    for (int i = open; i < regex.length(); ++i) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '[') {
+        i = endOfClass(regex, i);
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        if (--depth == 0) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param open The index of the group's opening paren, or -1 for the whole regex.
+   * @return true if there is a '|' directly within the group.
+   */
+  private static boolean hasTopLevelAlternation(String regex, int open) {
+    int depth = 0;
+    for (int i = open + 1; i < regex.length(); ++i) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '[') {
+        i = endOfClass(regex, i);
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        if (depth-- == 0) {
+          return false;
+        }
+      } else if (c == '|' && depth == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int endOfClass(String regex, int open) {
+    int i = open + 1;
+    if (i < regex.length() && regex.charAt(i) == '^') {
+      i++;
+    }
+    if (i < regex.length() && regex.charAt(i) == ']') {
+      i++;
+    }
+    for (; i < regex.length(); ++i) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '[') {
+        i = endOfClass(regex, i);
+      } else if (c == ']') {
+        return i;
+      }
+    }
+    return regex.length();
+  }
+
+  @Override
+  public String toString() {
+    return "GrokPatternCandidate{" +
+            "label='" + label + '\'' +
+            ", prefix='" + prefix + '\'' +
+            ", contains='" + contains + '\'' +
+            ", derivedLiteral='" + derivedLiteral + '\'' +
+            '}';
+  }
+}
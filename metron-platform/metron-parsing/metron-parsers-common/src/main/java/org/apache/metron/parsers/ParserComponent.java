@@ -18,24 +18,34 @@
 package org.apache.metron.parsers;
 
 import java.io.Serializable;
+import org.apache.metron.parsers.filters.StellarFilter;
 import org.apache.metron.parsers.interfaces.MessageFilter;
 import org.apache.metron.parsers.interfaces.MessageParser;
 import org.json.simple.JSONObject;
 
 /**
- * Wrapper class to couple a MessageParser with a MessageFilter.
+ * Wrapper class to couple a MessageParser with a MessageFilter, and optionally a filter applied before parsing.
  */
 public class ParserComponent implements Serializable {
   private static final long serialVersionUID = 7880346740026374665L;
 
   private MessageParser<JSONObject> messageParser;
   private MessageFilter<JSONObject> filter;
+  private StellarFilter rawFilter;
 
   public ParserComponent(
       MessageParser<JSONObject> messageParser,
       MessageFilter<JSONObject> filter) {
+    this(messageParser, filter, null);
+  }
+
+  public ParserComponent(
+      MessageParser<JSONObject> messageParser,
+      MessageFilter<JSONObject> filter,
+      StellarFilter rawFilter) {
     this.messageParser = messageParser;
     this.filter = filter;
+    this.rawFilter = rawFilter;
   }
 
   public MessageParser<JSONObject> getMessageParser() {
@@ -46,6 +56,13 @@ public class ParserComponent implements Serializable {
     return filter;
   }
 
+  /**
+   * @return The filter applied to raw JSON messages before they are parsed, or null.
+   */
+  public StellarFilter getRawFilter() {
+    return rawFilter;
+  }
+
   public void setMessageParser(
       MessageParser<JSONObject> messageParser) {
     this.messageParser = messageParser;
@@ -55,4 +72,8 @@ public class ParserComponent implements Serializable {
       MessageFilter<JSONObject> filter) {
     this.filter = filter;
   }
+
+  public void setRawFilter(StellarFilter rawFilter) {
+    this.rawFilter = rawFilter;
+  }
 }
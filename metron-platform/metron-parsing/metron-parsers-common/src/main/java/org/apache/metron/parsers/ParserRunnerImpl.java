@@ -40,8 +40,10 @@ import org.apache.metron.common.configuration.ParserConfigurations;
 import org.apache.metron.common.configuration.SensorParserConfig;
 import org.apache.metron.common.error.MetronError;
 import org.apache.metron.common.message.metadata.RawMessage;
+import org.apache.metron.common.performance.LatencyMetrics;
 import org.apache.metron.common.utils.ReflectionUtils;
 import org.apache.metron.parsers.filters.Filters;
+import org.apache.metron.parsers.filters.StellarFilter;
 import org.apache.metron.parsers.interfaces.MessageFilter;
 import org.apache.metron.parsers.interfaces.MessageParser;
 import org.apache.metron.parsers.interfaces.MessageParserResult;
@@ -129,7 +131,8 @@ public class ParserRunnerImpl implements ParserRunner<JSONObject>, Serializable
    * Parses messages with the appropriate MessageParser based on sensor type.  The resulting list of messages are then
    * post-processed and added to the ParserRunnerResults message list.  Any errors that happen during post-processing are
    * added to the ParserRunnerResults error list.  Any exceptions (including a master exception) thrown by the MessageParser
-   * are also added to the ParserRunnerResults error list.
+   * are also added to the ParserRunnerResults error list.  A raw message dropped by the sensor's raw message filter is
+   * not parsed, and produces no messages or errors.
    *
    * @param sensorType Sensor type of the message
    * @param rawMessage Raw message including metadata
@@ -141,8 +144,27 @@ public class ParserRunnerImpl implements ParserRunner<JSONObject>, Serializable
     DefaultParserRunnerResults parserRunnerResults = new DefaultParserRunnerResults();
     SensorParserConfig sensorParserConfig = parserConfigurations.getSensorParserConfig(sensorType);
     if (sensorParserConfig != null) {
-      MessageParser<JSONObject> parser = sensorToParserComponentMap.get(sensorType).getMessageParser();
+      ParserComponent parserComponent = sensorToParserComponentMap.get(sensorType);
+      StellarFilter rawFilter = parserComponent.getRawFilter();
+      if (rawFilter != null) {
+        try {
+          if (!rawFilter.emit(rawMessage.getMessage(), stellarContext)) {
+            return parserRunnerResults;
+          }
+        } catch (RuntimeException e) {
+          parserRunnerResults.addError(new MetronError()
+                  .withErrorType(Constants.ErrorType.PARSER_ERROR)
+                  .withThrowable(e)
+                  .withSensorType(Collections.singleton(sensorType))
+                  .withMetadata(rawMessage.getMetadata())
+                  .addRawMessage(rawMessage.getMessage()));
+          return parserRunnerResults;
+        }
+      }
+      MessageParser<JSONObject> parser = parserComponent.getMessageParser();
+      long parseStart = System.nanoTime();
       Optional<MessageParserResult<JSONObject>> optionalMessageParserResult = parser.parseOptionalResult(rawMessage.getMessage());
+      LatencyMetrics.INSTANCE.recorder(LatencyMetrics.PARSE, sensorType).recordSince(parseStart);
       if (optionalMessageParserResult.isPresent()) {
         MessageParserResult<JSONObject> messageParserResult = optionalMessageParserResult.get();
 
@@ -207,10 +229,11 @@ public class ParserRunnerImpl implements ParserRunner<JSONObject>, Serializable
       MessageFilter<JSONObject> filter = null;
       parserConfig.getParserConfig().putIfAbsent("stellarContext", stellarContext);
       filter = getMessageFilter(parserConfig, filter);
+      StellarFilter rawFilter = getRawMessageFilter(parserConfig);
 
       parser.configure(parserConfig.getParserConfig());
       parser.init();
-      sensorToParserComponentMap.put(sensorType, new ParserComponent(parser, filter));
+      sensorToParserComponentMap.put(sensorType, new ParserComponent(parser, filter, rawFilter));
     }
   }
 
@@ -230,6 +253,24 @@ public class ParserRunnerImpl implements ParserRunner<JSONObject>, Serializable
     return filter;
   }
 
+  /**
+   * Creates the filter applied to raw messages before they are parsed, if the sensor has a
+   * {@value StellarFilter#RAW_QUERY_STRING_CONF} query.  The raw messages must be JSON objects.  Only the fields
+   * used by the query are decoded, so messages which are dropped are never parsed.
+   *
+   * @param parserConfig Sensor parser config
+   * @return The filter, or null if the sensor does not have one.
+   */
+  protected StellarFilter getRawMessageFilter(SensorParserConfig parserConfig) {
+    Object query = parserConfig.getParserConfig().get(StellarFilter.RAW_QUERY_STRING_CONF);
+    if (query instanceof String && !StringUtils.isEmpty((String) query)) {
+      StellarFilter filter = new StellarFilter(StellarFilter.RAW_QUERY_STRING_CONF);
+      filter.configure(parserConfig.getParserConfig());
+      return filter;
+    }
+    return null;
+  }
+
   /**
    * Post-processes parsed messages by:
    * <ul>
@@ -261,7 +302,9 @@ public class ParserRunnerImpl implements ParserRunner<JSONObject>, Serializable
             sensorParserConfig.getRawMessageStrategyConfig()
     );
     message.put(Constants.SENSOR_TYPE, sensorType);
+    long transformationStart = System.nanoTime();
     applyFieldTransformations(message, rawMessage, sensorParserConfig);
+    LatencyMetrics.INSTANCE.recorder(LatencyMetrics.FIELD_TRANSFORMATION, sensorType).recordSince(transformationStart);
     if (!message.containsKey(Constants.GUID)) {
       message.put(Constants.GUID, UUID.randomUUID().toString());
     }
@@ -19,6 +19,7 @@
 package org.apache.metron.parsers.filters;
 
 import org.apache.metron.stellar.dsl.Context;
+import org.apache.metron.stellar.dsl.JsonVariableResolver;
 import org.apache.metron.stellar.dsl.MapVariableResolver;
 import org.apache.metron.stellar.dsl.StellarFunctions;
 import org.apache.metron.stellar.dsl.VariableResolver;
@@ -31,18 +32,28 @@ import java.util.Map;
 
 public class StellarFilter implements MessageFilter<JSONObject> {
   public static final String QUERY_STRING_CONF = "filter.query";
+  public static final String RAW_QUERY_STRING_CONF = "filter.rawQuery";
   private StellarPredicateProcessor processor = new StellarPredicateProcessor();
   private String query;
+  private String queryConf;
+  private JsonVariableResolver.Projection projection;
   private FunctionResolver functionResolver = StellarFunctions.FUNCTION_RESOLVER();
 
   public StellarFilter()
   {
+    this(QUERY_STRING_CONF);
+  }
 
+  /**
+   * @param queryConf The property of the parser config which holds the query.
+   */
+  public StellarFilter(String queryConf) {
+    this.queryConf = queryConf;
   }
 
   @Override
   public void configure(Map<String, Object> config) {
-    Object o = config.get(QUERY_STRING_CONF);
+    Object o = config.get(queryConf);
     if(o instanceof String) {
       query= o.toString();
     }
@@ -51,6 +62,7 @@ public class StellarFilter implements MessageFilter<JSONObject> {
       stellarContext = Context.EMPTY_CONTEXT();
     }
     processor.validate(query, true, stellarContext);
+    projection = JsonVariableResolver.Projection.of(processor.variablesUsed(query));
   }
 
   @Override
@@ -58,4 +70,17 @@ public class StellarFilter implements MessageFilter<JSONObject> {
     VariableResolver resolver = new MapVariableResolver(message);
     return processor.parse(query, resolver, functionResolver, context);
   }
+
+  /**
+   * Filters a JSON message which has not yet been parsed.  Only the fields referenced by the
+   * query are decoded from the message.
+   *
+   * @param message The UTF-8 encoded JSON message.
+   * @param context The Stellar context.
+   * @return True if the message should be emitted.
+   */
+  public boolean emit(byte[] message, Context context) {
+    VariableResolver resolver = new JsonVariableResolver(projection, message);
+    return processor.parse(query, resolver, functionResolver, context);
+  }
 }
@@ -18,6 +18,8 @@
 
 package org.apache.metron.parsers.json;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.google.common.base.Joiner;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
@@ -29,7 +31,14 @@ import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.jayway.jsonpath.spi.json.JsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -91,9 +100,11 @@ public class JSONMapParser extends BasicParser {
   public static final String WRAP_ENTITY_NAME = "wrapEntityName";
   public static final String DEFAULT_WRAP_ENTITY_NAME = "messages";
   public static final String OVERRIDE_ORIGINAL_STRING = "overrideOriginalString";
+  public static final String STREAMING = "streaming";
 
   private static final String WRAP_START_FMT = "{ \"%s\" : [";
   private static final String WRAP_END = "]}";
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
   private MapStrategy mapStrategy = MapStrategy.DROP;
   private transient TypeRef<List<Map<String, Object>>> typeRef = null;
@@ -101,6 +112,7 @@ public class JSONMapParser extends BasicParser {
   private String wrapEntityName = DEFAULT_WRAP_ENTITY_NAME;
   private boolean wrapJson = false;
   private boolean overrideOriginalString = false; // adds original string values per sub-map
+  private StreamingJSONMapReader streamingReader = null;
 
 
   @Override
@@ -151,6 +163,25 @@ public class JSONMapParser extends BasicParser {
         CacheProvider.setCache(new LRUCache(100));
       }
     }
+    streamingReader = null;
+    if (isTrue(config.get(STREAMING))) {
+      List<String> path = StringUtils.isEmpty(jsonpQuery)
+              ? Collections.emptyList()
+              : StreamingJSONMapReader.compilePath(jsonpQuery);
+      if (path != null) {
+        streamingReader = new StreamingJSONMapReader(path, mapStrategy);
+      } else {
+        LOG.warn("Unable to stream JSON Path query {}; only simple field paths may be streamed."
+                + " Falling back to parsing the whole document.", jsonpQuery);
+      }
+    }
+  }
+
+  private static boolean isTrue(Object value) {
+    if (value instanceof String) {
+      return Boolean.valueOf((String) value);
+    }
+    return value instanceof Boolean && (Boolean) value;
   }
 
   /**
@@ -170,26 +201,21 @@ public class JSONMapParser extends BasicParser {
   @SuppressWarnings("unchecked")
   public List<JSONObject> parse(byte[] rawMessage) {
     try {
-      String rawString = new String(rawMessage, getReadCharset());
       List<Map<String, Object>> messages = new ArrayList<>();
+      // when streaming without an original string override, the messages are normalized as they are read
+      boolean normalized = streamingReader != null && !overrideOriginalString;
 
-      // if configured, wrap the json in an entity and array
-      if (wrapJson) {
-        rawString = wrapMessageJson(rawString);
-      }
-
-      if (!StringUtils.isEmpty(jsonpQuery)) {
-        Object parsedObject = JsonPath.parse(rawString).read(jsonpQuery, typeRef);
-        if (parsedObject != null) {
-          messages.addAll((List<Map<String,Object>>)parsedObject);
+      if (streamingReader != null) {
+        try (JsonParser parser = createStreamingParser(rawMessage)) {
+          streamingReader.read(parser, normalized, messages::add);
         }
       } else {
-        messages.add(JSONUtils.INSTANCE.load(rawString, JSONUtils.MAP_SUPPLIER));
+        messages.addAll(parseMessages(rawMessage));
       }
 
       ArrayList<JSONObject> parsedMessages = new ArrayList<>();
       for (Map<String, Object> rawMessageMap : messages) {
-        JSONObject ret = normalizeJson(rawMessageMap);
+        JSONObject ret = normalized ? (JSONObject) rawMessageMap : normalizeJson(rawMessageMap);
         if (overrideOriginalString) {
           // override the global system default, which is to add the raw message as original_string
           // the original string is the original for THIS sub message
@@ -209,6 +235,59 @@ public class JSONMapParser extends BasicParser {
     }
   }
 
+  /**
+   * Parses the whole document, selecting the messages with the JSON Path query if configured.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> parseMessages(byte[] rawMessage) throws IOException {
+    String rawString = new String(rawMessage, getReadCharset());
+    List<Map<String, Object>> messages = new ArrayList<>();
+
+    // if configured, wrap the json in an entity and array
+    if (wrapJson) {
+      rawString = wrapMessageJson(rawString);
+    }
+
+    if (!StringUtils.isEmpty(jsonpQuery)) {
+      Object parsedObject = JsonPath.parse(rawString).read(jsonpQuery, typeRef);
+      if (parsedObject != null) {
+        messages.addAll((List<Map<String,Object>>)parsedObject);
+      }
+    } else {
+      messages.add(JSONUtils.INSTANCE.load(rawString, JSONUtils.MAP_SUPPLIER));
+    }
+    return messages;
+  }
+
+  /**
+   * Creates a parser which reads directly from the raw bytes, wrapping them without copying if configured.
+   */
+  private JsonParser createStreamingParser(byte[] rawMessage) throws IOException {
+    Charset charset = getReadCharset();
+    if (!StandardCharsets.UTF_8.equals(charset) && !StandardCharsets.US_ASCII.equals(charset)) {
+      // Jackson only detects the unicode encodings itself, so decode anything else up front
+      String rawString = new String(rawMessage, charset);
+      return JSON_FACTORY.createParser(wrapJson ? wrapMessageJson(rawString) : rawString);
+    }
+    if (!wrapJson) {
+      return JSON_FACTORY.createParser(rawMessage);
+    }
+    // as in wrapMessageJson, drop trailing whitespace and a single trailing comma
+    int end = rawMessage.length;
+    while (end > 0 && (rawMessage[end - 1] & 0xff) <= ' ') {
+      end--;
+    }
+    if (end > 0 && rawMessage[end - 1] == ',') {
+      end--;
+    }
+    byte[] start = String.format(WRAP_START_FMT, wrapEntityName).getBytes(StandardCharsets.UTF_8);
+    InputStream in = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+            new ByteArrayInputStream(start),
+            new ByteArrayInputStream(rawMessage, 0, end),
+            new ByteArrayInputStream(WRAP_END.getBytes(StandardCharsets.UTF_8)))));
+    return JSON_FACTORY.createParser(in);
+  }
+
   /**
    * Process all sub-maps via the MapHandler.
    * We have standardized on one-dimensional maps as our data model.
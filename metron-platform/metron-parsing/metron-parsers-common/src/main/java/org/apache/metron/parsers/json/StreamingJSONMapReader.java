@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.json.simple.JSONObject;
+
+/**
+ * Reads the messages selected by a JSON Path query straight off of a Jackson token stream.
+ *
+ * <p>Rather than building a tree of the whole document, the reader skips to the selected
+ * element and then reads one record at a time, so memory is bounded by the largest record rather than
+ * the whole batch.  Only simple paths are supported: a chain of field names, such as {@code $.foo.bar}
+ * or {@code $['foo']}, optionally ending in {@code [*]}.  If the path selects an array, each object in the
+ * array is a message; if it selects an object, that object is the message.
+ *
+ * <p>Since reading stops once the selected element has been read, the remainder of the document is
+ * not validated.
+ */
+public class StreamingJSONMapReader implements Serializable {
+
+  private static final Pattern SEGMENT = Pattern.compile(
+          "\\.([^.\\[\\]]+)|\\['([^']+)'\\]|\\[\"([^\"]+)\"\\]");
+  private static final String WILDCARD = "[*]";
+
+  private final List<String> path;
+  private final JSONMapParser.MapStrategy mapStrategy;
+
+  /**
+   * @param path The field names leading to the messages.
+   * @param mapStrategy The strategy used to flatten nested maps.
+   */
+  public StreamingJSONMapReader(List<String> path, JSONMapParser.MapStrategy mapStrategy) {
+    this.path = Collections.unmodifiableList(new ArrayList<>(path));
+    this.mapStrategy = mapStrategy;
+  }
+
+  /**
+   * Compiles a JSON Path query into the field names leading to the messages.
+   *
+   * @param jsonpQuery The JSON Path query.
+   * @return The field names, or null if the query is not simple enough to be streamed.
+   */
+  public static List<String> compilePath(String jsonpQuery) {
+    if (jsonpQuery == null) {
+      return null;
+    }
+    String query = jsonpQuery.trim();
+    if (!query.startsWith("$")) {
+      return null;
+    }
+    int end = query.endsWith(WILDCARD) ? query.length() - WILDCARD.length() : query.length();
+    List<String> ret = new ArrayList<>();
+    Matcher m = SEGMENT.matcher(query);
+    int pos = 1;
+    while (pos < end) {
+      if (!m.find(pos) || m.start() != pos || m.end() > end) {
+        return null;
+      }
+      String name = m.group(1) != null ? m.group(1) : m.group(2) != null ? m.group(2) : m.group(3);
+      if (m.group(1) != null && name.equals("*")) {
+        return null;
+      }
+      ret.add(name);
+      pos = m.end();
+    }
+    return ret;
+  }
+
+  public List<String> getPath() {
+    return path;
+  }
+
+  /**
+   * Reads the messages selected by the path.
+   *
+   * @param parser The parser, positioned before the start of the document.
+   * @param normalize If true, nested maps are flattened according to the map strategy as the record is
+   *                  read and a {@link JSONObject} is passed to the consumer.  Otherwise, the record is
+   *                  passed as-is.
+   * @param consumer Receives each message in turn.
+   */
+  public void read(JsonParser parser, boolean normalize, Consumer<Map<String, Object>> consumer) throws IOException {
+    if (parser.nextToken() == null || !seek(parser)) {
+      return;
+    }
+    JsonToken token = parser.getCurrentToken();
+    if (token == JsonToken.START_ARRAY) {
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new IOException("Unexpected end of input within the message array");
+        }
+        if (token == JsonToken.START_OBJECT) {
+          consumer.accept(readRecord(parser, normalize));
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } else if (token == JsonToken.START_OBJECT) {
+      consumer.accept(readRecord(parser, normalize));
+    }
+  }
+
+  /**
+   * Advances the parser to the value at the end of the path.
+   *
+   * @return false if the path does not exist in the document.
+   */
+  private boolean seek(JsonParser parser) throws IOException {
+    for (String name : path) {
+      if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+        return false;
+      }
+      boolean found = false;
+      while (!found && parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        if (name.equals(field)) {
+          found = true;
+        } else {
+          parser.skipChildren();
+        }
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> readRecord(JsonParser parser, boolean normalize) throws IOException {
+    if (!normalize) {
+      return readObject(parser);
+    }
+    JSONObject ret = new JSONObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        readMap(key, parser, ret);
+      } else {
+        ret.put(key, readValue(parser));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Handles a nested map according to the map strategy, unfolding it without materializing it if possible.
+   */
+  @SuppressWarnings("unchecked")
+  private void readMap(String key, JsonParser parser, JSONObject ret) throws IOException {
+    switch (mapStrategy) {
+      case DROP:
+        parser.skipChildren();
+        break;
+      case UNFOLD:
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String newKey = key + "." + parser.getCurrentName();
+          if (parser.nextToken() == JsonToken.START_OBJECT) {
+            readMap(newKey, parser, ret);
+          } else {
+            ret.put(newKey, readValue(parser));
+          }
+        }
+        break;
+      default:
+        mapStrategy.handle(key, readObject(parser), ret);
+    }
+  }
+
+  private Map<String, Object> readObject(JsonParser parser) throws IOException {
+    Map<String, Object> ret = new LinkedHashMap<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      parser.nextToken();
+      ret.put(key, readValue(parser));
+    }
+    return ret;
+  }
+
+  private Object readValue(JsonParser parser) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if (token == null) {
+      throw new IOException("Unexpected end of input");
+    }
+    switch (token) {
+      case START_OBJECT:
+        return readObject(parser);
+      case START_ARRAY:
+        List<Object> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          list.add(readValue(parser));
+        }
+        return list;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return parser.getNumberValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        return parser.getEmbeddedObject();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers.pipeline;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads raw messages from a local file, one per line, as if they were read from a topic.
+ */
+public class FilePipelineSource implements PipelineSource {
+
+  static final int DEFAULT_BATCH_SIZE = 100;
+
+  private final String topic;
+  private final int batchSize;
+  private final BufferedReader reader;
+  private final AtomicLong numAcked = new AtomicLong();
+  private long numRead = 0;
+  private boolean finished = false;
+  private boolean paused = false;
+
+  /**
+   * @param file The file to read.
+   * @param topic The topic the messages are treated as having been read from.
+   * @throws IOException If the file could not be opened.
+   */
+  public FilePipelineSource(File file, String topic) throws IOException {
+    this(file, topic, DEFAULT_BATCH_SIZE);
+  }
+
+  public FilePipelineSource(File file, String topic, int batchSize) throws IOException {
+    this.topic = topic;
+    this.batchSize = batchSize;
+    this.reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public List<PipelineRecord> poll(long timeoutMillis) throws IOException {
+    if (paused) {
+      try {
+        Thread.sleep(timeoutMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new ArrayList<>();
+    }
+    List<PipelineRecord> ret = new ArrayList<>(batchSize);
+    while (ret.size() < batchSize && !finished) {
+      String line = reader.readLine();
+      if (line == null) {
+        finished = true;
+      } else if (!line.isEmpty()) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("topic", topic);
+        metadata.put("offset", numRead);
+        ret.add(new PipelineRecord(topic, 0, numRead++, null, line.getBytes(StandardCharsets.UTF_8), metadata));
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public void ack(PipelineRecord record) {
+    numAcked.incrementAndGet();
+  }
+
+  /**
+   * Files have no position to commit, so a pipeline reading a file which stops early starts again from
+   * the beginning.
+   */
+  @Override
+  public void commit() {
+  }
+
+  /**
+   * @return The number of records which have been fully written.
+   */
+  public long getNumAcked() {
+    return numAcked.get();
+  }
+
+  @Override
+  public void pause() {
+    paused = true;
+  }
+
+  @Override
+  public void resume() {
+    paused = false;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return finished;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
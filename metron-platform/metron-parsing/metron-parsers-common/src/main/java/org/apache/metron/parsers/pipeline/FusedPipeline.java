@@ -0,0 +1,658 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers.pipeline;
+
+import static org.apache.metron.common.Constants.STELLAR_CONTEXT_CONF;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.apache.metron.common.Constants;
+import org.apache.metron.common.configuration.EnrichmentConfigurations;
+import org.apache.metron.common.configuration.IndexingConfigurations;
+import org.apache.metron.common.configuration.ParserConfigurations;
+import org.apache.metron.common.configuration.SensorParserConfig;
+import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
+import org.apache.metron.common.configuration.writer.IndexingWriterConfiguration;
+import org.apache.metron.common.configuration.writer.WriterConfiguration;
+import org.apache.metron.common.error.MetronError;
+import org.apache.metron.common.message.metadata.MetadataUtil;
+import org.apache.metron.common.message.metadata.RawMessage;
+import org.apache.metron.common.utils.JSONUtils;
+import org.apache.metron.common.writer.BulkMessage;
+import org.apache.metron.common.writer.BulkMessageWriter;
+import org.apache.metron.common.writer.BulkWriterResponse;
+import org.apache.metron.common.writer.MessageId;
+import org.apache.metron.enrichment.cache.CacheKey;
+import org.apache.metron.enrichment.interfaces.EnrichmentAdapter;
+import org.apache.metron.enrichment.parallel.ConcurrencyContext;
+import org.apache.metron.enrichment.parallel.EnrichmentContext;
+import org.apache.metron.enrichment.parallel.EnrichmentStrategies;
+import org.apache.metron.enrichment.parallel.ParallelEnricher;
+import org.apache.metron.enrichment.parallel.WorkerPoolStrategies;
+import org.apache.metron.parsers.ParserRunner;
+import org.apache.metron.parsers.ParserRunnerResults;
+import org.apache.metron.stellar.dsl.Context;
+import org.apache.metron.stellar.dsl.StellarFunctions;
+import org.apache.metron.writer.BulkWriterComponent;
+import org.apache.metron.writer.FlushPolicy;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses, enriches and indexes messages within a single process, rather than in separate topologies
+ * connected through Kafka.
+ *
+ * <p>Each stage runs on its own thread, and the stages are connected by bounded queues, so a slow stage
+ * holds back the stages before it.  When too many records are in flight, the source is paused.  The
+ * stages use the same components as the topologies: a {@link ParserRunner}, a {@link ParallelEnricher}
+ * for each of enrichment and threat intel, and a {@link BulkWriterComponent} for each writer.  Errors
+ * are indexed along with the messages, as the "error" sensor type.
+ *
+ * <p>A record is only acked to its source once every message parsed from it, and every error it caused,
+ * has been written by every writer.
+ */
+public class FusedPipeline {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static final int DEFAULT_QUEUE_SIZE = 1000;
+  static final int DEFAULT_MAX_PENDING = 10000;
+  static final int DEFAULT_MAX_BATCH_TIMEOUT = 6;
+  static final long POLL_TIMEOUT_MILLIS = 100;
+
+  /**
+   * A record read from the source, which is acked once all of its messages have been written.
+   */
+  private class Tracker {
+    private final PipelineRecord record;
+    private final AtomicInteger remaining = new AtomicInteger(1);
+
+    private Tracker(PipelineRecord record) {
+      this.record = record;
+    }
+
+    /**
+     * Adds messages which must be written before the record is complete.  This must be called before
+     * the message which caused them is marked as done.
+     */
+    private void add(int count) {
+      remaining.addAndGet(count);
+    }
+
+    private void done() {
+      if (remaining.decrementAndGet() == 0) {
+        source.ack(record);
+        numPending.decrementAndGet();
+      }
+    }
+  }
+
+  private static class Message {
+    private final Tracker tracker;
+    private final String sensorType;
+    private final JSONObject message;
+    private final boolean isError;
+
+    private Message(Tracker tracker, String sensorType, JSONObject message, boolean isError) {
+      this.tracker = tracker;
+      this.sensorType = sensorType;
+      this.message = message;
+      this.isError = isError;
+    }
+  }
+
+  /**
+   * Writes messages with one writer.  Messages are tracked until the writer's batch is flushed.
+   */
+  private class Indexer implements FlushPolicy<JSONObject> {
+    private final BulkMessageWriter<JSONObject> writer;
+    private final BulkWriterComponent<JSONObject> component;
+    private final Map<MessageId, Message> pending = new HashMap<>();
+    private long nextId = 0;
+    private boolean draining = false;
+
+    private Indexer(BulkMessageWriter<JSONObject> writer) {
+      this.writer = writer;
+      this.component = new BulkWriterComponent<>(maxBatchTimeout);
+      component.addFlushPolicy(this);
+    }
+
+    private WriterConfiguration getConfiguration() {
+      return new IndexingWriterConfiguration(writer.getName(), indexingConfigurations.get());
+    }
+
+    private void write(Message message) {
+      MessageId id = new MessageId(Long.toString(nextId++));
+      pending.put(id, message);
+      component.write(message.sensorType, new BulkMessage<>(id, message.message), writer, getConfiguration());
+    }
+
+    /**
+     * @param all If true, then all batches are flushed.  Otherwise, only batches which have timed out are.
+     */
+    private void flush(boolean all) {
+      draining = all;
+      try {
+        component.flushAll(writer, getConfiguration());
+      } finally {
+        draining = false;
+      }
+    }
+
+    @Override
+    public boolean shouldFlush(String sensorType, WriterConfiguration configurations, List<BulkMessage<JSONObject>> messages) {
+      return draining;
+    }
+
+    @Override
+    public void onFlush(String sensorType, BulkWriterResponse response) {
+      for (MessageId id : response.getSuccesses()) {
+        Message message = pending.remove(id);
+        if (message != null) {
+          message.tracker.done();
+        }
+      }
+      for (Map.Entry<Throwable, java.util.Collection<MessageId>> error : response.getErrors().entrySet()) {
+        for (MessageId id : error.getValue()) {
+          Message message = pending.remove(id);
+          if (message == null) {
+            continue;
+          }
+          if (message.isError) {
+            LOG.error("Unable to write error with {}: {}", writer.getName(), message.message, error.getKey());
+          } else {
+            message.tracker.add(1);
+            failures.add(error(message.tracker, new MetronError()
+                    .withErrorType(Constants.ErrorType.INDEXING_ERROR)
+                    .withThrowable(error.getKey())
+                    .withSensorType(Collections.singleton(sensorType))
+                    .addRawMessage(message.message)));
+          }
+          message.tracker.done();
+        }
+      }
+    }
+  }
+
+  private final PipelineSource source;
+  private final ParserRunner<JSONObject> parserRunner;
+  private final Supplier<ParserConfigurations> parserConfigurations;
+  private final Supplier<IndexingConfigurations> indexingConfigurations;
+  private final List<BulkMessageWriter<JSONObject>> writers;
+  private Supplier<EnrichmentConfigurations> enrichmentConfigurations = EnrichmentConfigurations::new;
+  private Map<String, EnrichmentAdapter<CacheKey>> enrichments = new HashMap<>();
+  private Map<String, EnrichmentAdapter<CacheKey>> threatIntels = new HashMap<>();
+  private Context stellarContext;
+  private int numThreads = 2 * Runtime.getRuntime().availableProcessors();
+  private long maxCacheSize = 10000;
+  private long maxTimeRetain = 10;
+  private int queueSize = DEFAULT_QUEUE_SIZE;
+  private int maxPending = DEFAULT_MAX_PENDING;
+  private int maxBatchTimeout = DEFAULT_MAX_BATCH_TIMEOUT;
+
+  private final Tracker endOfRecords = new Tracker(null);
+  private final Message endOfMessages = new Message(null, null, null, false);
+  private final AtomicInteger numPending = new AtomicInteger();
+  private final Map<String, String> topicToSensorMap = new HashMap<>();
+  private final List<Message> failures = new ArrayList<>();
+  private ParallelEnricher enricher;
+  private ParallelEnricher threatIntelEnricher;
+  private EnrichmentContext enrichmentContext;
+  private volatile boolean stopped = false;
+  private volatile Throwable failure;
+
+  /**
+   * @param source The source of the raw messages.
+   * @param parserRunner The parsers for each sensor.  Each sensor reads the topic set in its parser config,
+   *                     or the topic named after the sensor.
+   * @param parserConfigurations The parser configurations.
+   * @param indexingConfigurations The indexing configurations, which determine whether each writer is
+   *                               enabled for a sensor, and its batch size and timeout.
+   * @param writers The writers which index each message.
+   */
+  public FusedPipeline(PipelineSource source,
+                       ParserRunner<JSONObject> parserRunner,
+                       Supplier<ParserConfigurations> parserConfigurations,
+                       Supplier<IndexingConfigurations> indexingConfigurations,
+                       List<BulkMessageWriter<JSONObject>> writers) {
+    this.source = source;
+    this.parserRunner = parserRunner;
+    this.parserConfigurations = parserConfigurations;
+    this.indexingConfigurations = indexingConfigurations;
+    this.writers = writers;
+  }
+
+  /**
+   * Enriches messages after they are parsed.  Without this, messages are indexed as they are parsed.
+   *
+   * @param enrichmentConfigurations The enrichment configurations.
+   * @param enrichments The enrichment adapters, by enrichment type.
+   * @param threatIntels The threat intel adapters, by enrichment type.
+   * @return This pipeline.
+   */
+  public FusedPipeline withEnrichments(Supplier<EnrichmentConfigurations> enrichmentConfigurations,
+                                       Map<String, EnrichmentAdapter<CacheKey>> enrichments,
+                                       Map<String, EnrichmentAdapter<CacheKey>> threatIntels) {
+    this.enrichmentConfigurations = enrichmentConfigurations;
+    this.enrichments = enrichments;
+    this.threatIntels = threatIntels;
+    return this;
+  }
+
+  /**
+   * @param stellarContext The Stellar context.  By default, it only provides the global config.
+   * @return This pipeline.
+   */
+  public FusedPipeline withStellarContext(Context stellarContext) {
+    this.stellarContext = stellarContext;
+    return this;
+  }
+
+  /**
+   * @param numThreads The number of threads used to enrich messages in parallel.
+   * @return This pipeline.
+   */
+  public FusedPipeline withNumThreads(int numThreads) {
+    this.numThreads = numThreads;
+    return this;
+  }
+
+  /**
+   * @param maxCacheSize The maximum number of enrichment results to cache.
+   * @return This pipeline.
+   */
+  public FusedPipeline withMaxCacheSize(long maxCacheSize) {
+    this.maxCacheSize = maxCacheSize;
+    return this;
+  }
+
+  /**
+   * @param maxTimeRetain The number of minutes to cache enrichment results.
+   * @return This pipeline.
+   */
+  public FusedPipeline withMaxTimeRetain(long maxTimeRetain) {
+    this.maxTimeRetain = maxTimeRetain;
+    return this;
+  }
+
+  /**
+   * @param queueSize The number of records or messages which may wait between each stage.
+   * @return This pipeline.
+   */
+  public FusedPipeline withQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+    return this;
+  }
+
+  /**
+   * @param maxPending The number of records which may be in flight before the source is paused.
+   * @return This pipeline.
+   */
+  public FusedPipeline withMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+    return this;
+  }
+
+  /**
+   * @param maxBatchTimeout The maximum time, in seconds, that a message waits to be written in a batch.
+   * @return This pipeline.
+   */
+  public FusedPipeline withMaxBatchTimeout(int maxBatchTimeout) {
+    this.maxBatchTimeout = maxBatchTimeout;
+    return this;
+  }
+
+  /**
+   * Runs the pipeline on the calling thread, until the source is finished or {@link #stop()} is
+   * called.  Every record already read is written and acked before this returns.  The source and the
+   * writers are closed when the pipeline finishes.
+   *
+   * @throws Exception If the pipeline could not be started, or a stage failed unexpectedly.
+   */
+  public void run() throws Exception {
+    initialize();
+    BlockingQueue<Tracker> records = new ArrayBlockingQueue<>(queueSize);
+    BlockingQueue<Message> parsed = new ArrayBlockingQueue<>(queueSize);
+    BlockingQueue<Message> enriched = new ArrayBlockingQueue<>(queueSize);
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService stages = Executors.newFixedThreadPool(3, r -> {
+      Thread t = new Thread(r, "fused-pipeline-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      List<Future<?>> futures = Arrays.asList(
+              stages.submit(() -> {
+                parse(records, parsed);
+                return null;
+              }),
+              stages.submit(() -> {
+                enrich(parsed, enriched);
+                return null;
+              }),
+              stages.submit(() -> {
+                index(enriched);
+                return null;
+              }));
+      boolean paused = false;
+      while (!stopped && !source.isFinished()) {
+        checkFailure();
+        boolean full = numPending.get() >= maxPending;
+        if (full != paused) {
+          if (full) {
+            source.pause();
+          } else {
+            source.resume();
+          }
+          paused = full;
+        }
+        for (PipelineRecord record : source.poll(POLL_TIMEOUT_MILLIS)) {
+          numPending.incrementAndGet();
+          put(records, new Tracker(record));
+        }
+        source.commit();
+      }
+      put(records, endOfRecords);
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      source.commit();
+    } finally {
+      stages.shutdownNow();
+      close();
+    }
+  }
+
+  /**
+   * Stops reading records.  The records already read are written before {@link #run()} returns.
+   */
+  public void stop() {
+    stopped = true;
+  }
+
+  private void initialize() throws Exception {
+    if (stellarContext == null) {
+      stellarContext = new Context.Builder()
+              .with(Context.Capabilities.GLOBAL_CONFIG, () -> parserConfigurations.get().getGlobalConfig())
+              .with(Context.Capabilities.STELLAR_CONFIG, () -> parserConfigurations.get().getGlobalConfig())
+              .build();
+    }
+    StellarFunctions.initialize(stellarContext);
+    parserRunner.init(parserConfigurations, stellarContext);
+    for (String sensorType : parserRunner.getSensorTypes()) {
+      SensorParserConfig config = parserConfigurations.get().getSensorParserConfig(sensorType);
+      config.init();
+      topicToSensorMap.put(config.getSensorTopic() != null ? config.getSensorTopic() : sensorType, sensorType);
+    }
+
+    enricher = createEnricher(EnrichmentStrategies.ENRICHMENT, enrichments);
+    threatIntelEnricher = createEnricher(EnrichmentStrategies.THREAT_INTEL, threatIntels);
+    enrichmentContext = new EnrichmentContext(StellarFunctions.FUNCTION_RESOLVER(), stellarContext);
+
+    for (BulkMessageWriter<JSONObject> writer : writers) {
+      writer.init(new HashMap<>(), new IndexingWriterConfiguration(writer.getName(), indexingConfigurations.get()));
+    }
+  }
+
+  private ParallelEnricher createEnricher(EnrichmentStrategies strategy, Map<String, EnrichmentAdapter<CacheKey>> adapters) {
+    if (adapters.isEmpty()) {
+      return null;
+    }
+    for (Map.Entry<String, EnrichmentAdapter<CacheKey>> adapter : adapters.entrySet()) {
+      if (!adapter.getValue().initializeAdapter(enrichmentConfigurations.get().getGlobalConfig())) {
+        throw new IllegalStateException("Could not initialize adapter: " + adapter.getKey());
+      }
+    }
+    ConcurrencyContext.get(strategy).initialize(numThreads, maxCacheSize, maxTimeRetain, WorkerPoolStrategies.FIXED, LOG, false,
+            enrichmentConfigurations.get().getGlobalConfig());
+    return new ParallelEnricher(adapters, ConcurrencyContext.get(strategy), false);
+  }
+
+  private void close() {
+    for (BulkMessageWriter<JSONObject> writer : writers) {
+      try {
+        writer.close();
+      } catch (Exception e) {
+        LOG.error("Unable to close writer {}", writer.getName(), e);
+      }
+    }
+    enrichments.values().forEach(EnrichmentAdapter::cleanup);
+    threatIntels.values().forEach(EnrichmentAdapter::cleanup);
+    try {
+      source.close();
+    } catch (IOException e) {
+      LOG.error("Unable to close source", e);
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      throw new IllegalStateException("Unable to continue, since a stage of the pipeline failed: " + failure.getMessage(), failure);
+    }
+  }
+
+  /**
+   * Adds to a queue, waiting while it is full, unless a stage has failed.
+   */
+  private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+    while (!queue.offer(item, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+      checkFailure();
+    }
+  }
+
+  private void parse(BlockingQueue<Tracker> in, BlockingQueue<Message> out) throws InterruptedException {
+    try {
+      for (Tracker tracker = in.take(); tracker != endOfRecords; tracker = in.take()) {
+        List<Message> messages = parse(tracker);
+        tracker.add(messages.size());
+        for (Message message : messages) {
+          put(out, message);
+        }
+        tracker.done();
+      }
+      put(out, endOfMessages);
+    } catch (Throwable t) {
+      failure = t;
+      throw t;
+    }
+  }
+
+  private List<Message> parse(Tracker tracker) {
+    PipelineRecord record = tracker.record;
+    String sensorType = topicToSensorMap.get(record.getTopic());
+    List<Message> ret = new ArrayList<>();
+    try {
+      ParserConfigurations configurations = parserConfigurations.get();
+      SensorParserConfig config = configurations.getSensorParserConfig(sensorType);
+      if (config == null) {
+        throw new IllegalStateException("Unable to find a parser for topic " + record.getTopic());
+      }
+      RawMessage rawMessage = config.getRawMessageStrategy().get(getMetadata(record, config), record.getValue(),
+              config.getReadMetadata(), config.getRawMessageStrategyConfig());
+      ParserRunnerResults<JSONObject> results = parserRunner.execute(sensorType, rawMessage, configurations);
+      for (JSONObject message : results.getMessages()) {
+        ret.add(new Message(tracker, sensorType, message, false));
+      }
+      for (MetronError error : results.getErrors()) {
+        ret.add(error(tracker, error));
+      }
+    } catch (Throwable e) {
+      ret.add(error(tracker, new MetronError()
+              .withErrorType(Constants.ErrorType.PARSER_ERROR)
+              .withThrowable(e)
+              .withSensorType(Collections.singleton(sensorType))
+              .addRawMessage(record.getValue())));
+    }
+    return ret;
+  }
+
+  /**
+   * Gathers the metadata of a record, as the parser topology does for a tuple.
+   */
+  private static Map<String, Object> getMetadata(PipelineRecord record, SensorParserConfig config) throws IOException {
+    Map<String, Object> metadata = new HashMap<>();
+    if (config.getReadMetadata()) {
+      String prefix = MetadataUtil.INSTANCE.getMetadataPrefix(config.getRawMessageStrategyConfig());
+      record.getMetadata().forEach((key, value) -> metadata.put(MetadataUtil.INSTANCE.prefixKey(prefix, key), value));
+      if (record.getKey() != null && record.getKey().length > 0) {
+        Map<String, Object> keyMetadata = JSONUtils.INSTANCE.load(new String(record.getKey(), StandardCharsets.UTF_8), JSONUtils.MAP_SUPPLIER);
+        keyMetadata.forEach((key, value) -> metadata.put(MetadataUtil.INSTANCE.prefixKey(prefix, key), value));
+      }
+    }
+    return metadata;
+  }
+
+  private void enrich(BlockingQueue<Message> in, BlockingQueue<Message> out) throws InterruptedException {
+    try {
+      for (Message message = in.take(); message != endOfMessages; message = in.take()) {
+        if (message.isError || (enricher == null && threatIntelEnricher == null)) {
+          put(out, message);
+          continue;
+        }
+        List<Message> messages = enrich(message);
+        message.tracker.add(messages.size());
+        for (Message enriched : messages) {
+          put(out, enriched);
+        }
+        message.tracker.done();
+      }
+      put(out, endOfMessages);
+    } catch (Throwable t) {
+      failure = t;
+      throw t;
+    }
+  }
+
+  private List<Message> enrich(Message message) {
+    List<Message> ret = new ArrayList<>();
+    SensorEnrichmentConfig config = enrichmentConfigurations.get().getSensorEnrichmentConfig(message.sensorType);
+    if (config == null) {
+      config = new SensorEnrichmentConfig();
+    }
+    config.getConfiguration().putIfAbsent(STELLAR_CONTEXT_CONF, stellarContext);
+    JSONObject enriched = message.message;
+    for (EnrichmentStrategies strategy : EnrichmentStrategies.values()) {
+      ParallelEnricher parallelEnricher = strategy == EnrichmentStrategies.ENRICHMENT ? enricher : threatIntelEnricher;
+      if (parallelEnricher == null) {
+        continue;
+      }
+      try {
+        ParallelEnricher.EnrichmentResult result = parallelEnricher.apply(enriched, strategy, config, null);
+        enriched = strategy.postProcess(result.getResult(), config, enrichmentContext);
+        for (Map.Entry<Object, Throwable> error : result.getEnrichmentErrors()) {
+          ret.add(error(message.tracker, new MetronError()
+                  .withErrorType(strategy.getErrorType())
+                  .withMessage(error.getValue().getMessage())
+                  .withThrowable(error.getValue())
+                  .addRawMessage(error.getKey())));
+        }
+      } catch (Exception e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        // as in the enrichment topology, a message which cannot be enriched is replaced by an error
+        LOG.error("Unable to enrich message: {}", enriched, e);
+        ret.add(error(message.tracker, new MetronError()
+                .withErrorType(strategy.getErrorType())
+                .withMessage(e.getMessage())
+                .withThrowable(e)
+                .addRawMessage(enriched)));
+        return ret;
+      }
+    }
+    ret.add(new Message(message.tracker, message.sensorType, enriched, false));
+    return ret;
+  }
+
+  private void index(BlockingQueue<Message> in) throws InterruptedException {
+    try {
+      List<Indexer> indexers = new ArrayList<>();
+      for (BulkMessageWriter<JSONObject> writer : writers) {
+        indexers.add(new Indexer(writer));
+      }
+      long nextTimeoutCheck = 0;
+      for (Message message = in.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS); message != endOfMessages;
+           message = in.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (message != null) {
+          index(indexers, message);
+        }
+        if (message == null || System.currentTimeMillis() >= nextTimeoutCheck) {
+          for (Indexer indexer : indexers) {
+            indexer.flush(false);
+          }
+          nextTimeoutCheck = System.currentTimeMillis() + POLL_TIMEOUT_MILLIS;
+        }
+        indexFailures(indexers);
+      }
+      do {
+        for (Indexer indexer : indexers) {
+          indexer.flush(true);
+        }
+      } while (indexFailures(indexers));
+    } catch (Throwable t) {
+      failure = t;
+      throw t;
+    }
+  }
+
+  private void index(List<Indexer> indexers, Message message) {
+    message.tracker.add(indexers.size());
+    for (Indexer indexer : indexers) {
+      indexer.write(message);
+    }
+    message.tracker.done();
+  }
+
+  /**
+   * Indexes errors for the messages which could not be written.
+   *
+   * @return True if there were any such errors.
+   */
+  private boolean indexFailures(List<Indexer> indexers) {
+    if (failures.isEmpty()) {
+      return false;
+    }
+    List<Message> errors = new ArrayList<>(failures);
+    failures.clear();
+    for (Message error : errors) {
+      index(indexers, error);
+    }
+    return true;
+  }
+
+  private static Message error(Tracker tracker, MetronError error) {
+    return new Message(tracker, Constants.ERROR_TYPE, error.getJSONObject(), true);
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads raw messages from Kafka topics.
+ *
+ * <p>Offsets are committed explicitly, never automatically.  The committed offset of a partition never
+ * passes a record which has not been acked, so messages are delivered at least once.
+ */
+public class KafkaPipelineSource implements PipelineSource {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final Consumer<byte[], byte[]> consumer;
+  private final Queue<PipelineRecord> acked = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The offsets of the records polled, but not yet acked, by partition.
+   */
+  private final Map<TopicPartition, TreeSet<Long>> pending = new HashMap<>();
+
+  /**
+   * The offset after the last record polled, by partition.
+   */
+  private final Map<TopicPartition, Long> polled = new HashMap<>();
+
+  private final Map<TopicPartition, Long> committed = new HashMap<>();
+
+  /**
+   * @param consumerConfig The Kafka consumer configuration.  Auto commit is disabled and the keys and
+   *                       values are read as bytes, regardless of the configuration.
+   * @param topics The topics to read.
+   */
+  public KafkaPipelineSource(Map<String, Object> consumerConfig, List<String> topics) {
+    this(new KafkaConsumer<>(createConsumerConfig(consumerConfig)), topics);
+  }
+
+  public KafkaPipelineSource(Consumer<byte[], byte[]> consumer, List<String> topics) {
+    this.consumer = consumer;
+    consumer.subscribe(topics, new ConsumerRebalanceListener() {
+      @Override
+      public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        commit();
+        for (TopicPartition partition : partitions) {
+          // records in flight from these partitions will be read again by their new consumer
+          pending.remove(partition);
+          polled.remove(partition);
+          committed.remove(partition);
+        }
+      }
+
+      @Override
+      public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+      }
+    });
+  }
+
+  private static Map<String, Object> createConsumerConfig(Map<String, Object> consumerConfig) {
+    Map<String, Object> ret = new HashMap<>(consumerConfig);
+    ret.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    ret.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+    ret.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+    return ret;
+  }
+
+  @Override
+  public List<PipelineRecord> poll(long timeoutMillis) {
+    List<PipelineRecord> ret = new ArrayList<>();
+    for (ConsumerRecord<byte[], byte[]> record : consumer.poll(timeoutMillis)) {
+      TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+      pending.computeIfAbsent(partition, p -> new TreeSet<>()).add(record.offset());
+      // nothing before the first record polled needs to be committed
+      committed.putIfAbsent(partition, record.offset());
+      polled.put(partition, record.offset() + 1);
+
+      Map<String, Object> metadata = new HashMap<>();
+      metadata.put("topic", record.topic());
+      metadata.put("partition", record.partition());
+      metadata.put("offset", record.offset());
+      metadata.put("timestamp", record.timestamp());
+      ret.add(new PipelineRecord(record.topic(), record.partition(), record.offset(), record.key(), record.value(), metadata));
+    }
+    return ret;
+  }
+
+  @Override
+  public void ack(PipelineRecord record) {
+    acked.add(record);
+  }
+
+  @Override
+  public void commit() {
+    for (PipelineRecord record = acked.poll(); record != null; record = acked.poll()) {
+      TreeSet<Long> offsets = pending.get(new TopicPartition(record.getTopic(), record.getPartition()));
+      if (offsets != null) {
+        offsets.remove(record.getOffset());
+      }
+    }
+
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (Map.Entry<TopicPartition, Long> entry : polled.entrySet()) {
+      TreeSet<Long> unacked = pending.get(entry.getKey());
+      long offset = unacked == null || unacked.isEmpty() ? entry.getValue() : unacked.first();
+      if (offset > committed.getOrDefault(entry.getKey(), -1L)) {
+        offsets.put(entry.getKey(), new OffsetAndMetadata(offset));
+      }
+    }
+    if (!offsets.isEmpty()) {
+      LOG.debug("Committing offsets {}", offsets);
+      consumer.commitSync(offsets);
+      offsets.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+    }
+  }
+
+  @Override
+  public void pause() {
+    consumer.pause(consumer.assignment());
+  }
+
+  @Override
+  public void resume() {
+    consumer.resume(consumer.assignment());
+  }
+
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+
+  @Override
+  public void close() {
+    consumer.close();
+  }
+}
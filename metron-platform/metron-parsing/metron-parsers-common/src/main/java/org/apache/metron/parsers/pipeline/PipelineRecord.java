@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers.pipeline;
+
+import java.util.Map;
+
+/**
+ * A raw message read by a {@link PipelineSource}, along with where it was read from.
+ */
+public class PipelineRecord {
+
+  private final String topic;
+  private final int partition;
+  private final long offset;
+  private final byte[] key;
+  private final byte[] value;
+  private final Map<String, Object> metadata;
+
+  /**
+   * @param topic The topic the record was read from, which determines its sensor type.
+   * @param partition The partition the record was read from.
+   * @param offset The position of the record within its partition.
+   * @param key The key of the record, which may be null.
+   * @param value The raw message.
+   * @param metadata Environmental metadata, such as the topic and offset, made available to parsers
+   *                 which read metadata.
+   */
+  public PipelineRecord(String topic, int partition, long offset, byte[] key, byte[] value, Map<String, Object> metadata) {
+    this.topic = topic;
+    this.partition = partition;
+    this.offset = offset;
+    this.key = key;
+    this.value = value;
+    this.metadata = metadata;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public int getPartition() {
+    return partition;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public byte[] getKey() {
+    return key;
+  }
+
+  public byte[] getValue() {
+    return value;
+  }
+
+  public Map<String, Object> getMetadata() {
+    return metadata;
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.parsers.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Supplies raw messages to a {@link FusedPipeline}.
+ *
+ * <p>All methods except {@link #ack(PipelineRecord)} are called from the single thread running the
+ * pipeline.  A source must not consider a record consumed until it has been acked, and should only
+ * commit its position past records which have all been acked.
+ */
+public interface PipelineSource extends Closeable {
+
+  /**
+   * Retrieves the next records, waiting up to the given time if none are available.  No records
+   * should be returned while the source is paused, though the wait still applies.
+   *
+   * @param timeoutMillis The maximum time to wait.
+   * @return The records, which may be empty.
+   * @throws IOException If the records could not be read.
+   */
+  List<PipelineRecord> poll(long timeoutMillis) throws IOException;
+
+  /**
+   * Marks a record as fully written.  This may be called from any thread.
+   *
+   * @param record A record returned by {@link #poll(long)}.
+   */
+  void ack(PipelineRecord record);
+
+  /**
+   * Commits the position of the source past the records which have been acked.
+   *
+   * @throws IOException If the position could not be committed.
+   */
+  void commit() throws IOException;
+
+  /**
+   * Stops returning records until {@link #resume()} is called, while the pipeline catches up.
+   */
+  void pause();
+
+  void resume();
+
+  /**
+   * @return True if the source will not return any more records.
+   */
+  boolean isFinished();
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.parsers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.metron.parsers.interfaces.MessageParserResult;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public class MultiPatternGrokParserTest {
+
+  private GrokParser createParser(List<Object> patterns, String patternField) {
+    Map<String, Object> parserConfig = new HashMap<>();
+    parserConfig.put("grokPath", "/patterns/multi_patterns");
+    parserConfig.put(GrokParser.PATTERNS_CONF, patterns);
+    if (patternField != null) {
+      parserConfig.put(GrokParser.PATTERN_FIELD_CONF, patternField);
+    }
+    parserConfig.put("timeFields", new ArrayList<>());
+    GrokParser parser = new GrokParser();
+    parser.configure(parserConfig);
+    parser.init();
+    return parser;
+  }
+
+  private MessageParserResult<JSONObject> parse(GrokParser parser, String line) {
+    Optional<MessageParserResult<JSONObject>> result = parser.parseOptionalResult(line.getBytes(StandardCharsets.UTF_8));
+    assertTrue(result.isPresent());
+    return result.get();
+  }
+
+  @Test
+  public void testFirstMatchWins() {
+    GrokParser parser = createParser(Arrays.asList("LOGIN_EVENT", "LOGOUT_EVENT", "GENERIC_EVENT"), null);
+
+    List<JSONObject> messages = parse(parser, "LOGIN user=alice src=10.0.0.1").getMessages();
+    assertEquals(1, messages.size());
+    JSONObject message = messages.get(0);
+    assertEquals("LOGIN_EVENT", message.get(GrokParser.DEFAULT_PATTERN_FIELD));
+    assertEquals("alice", message.get("user"));
+    assertEquals("10.0.0.1", message.get("ip_src_addr"));
+    assertFalse(message.containsKey("LOGIN_EVENT"));
+    assertFalse(message.containsKey("event_type"));
+
+    message = parse(parser, "LOGOUT user=bob").getMessages().get(0);
+    assertEquals("LOGOUT_EVENT", message.get(GrokParser.DEFAULT_PATTERN_FIELD));
+    assertEquals("bob", message.get("user"));
+
+    message = parse(parser, "REBOOT requested by operator").getMessages().get(0);
+    assertEquals("GENERIC_EVENT", message.get(GrokParser.DEFAULT_PATTERN_FIELD));
+    assertEquals("REBOOT", message.get("event_type"));
+    assertEquals("requested by operator", message.get("event_message"));
+  }
+
+  @Test
+  public void testOrderDeterminesMatch() {
+    GrokParser parser = createParser(Arrays.asList("GENERIC_EVENT", "LOGIN_EVENT"), "event_kind");
+    JSONObject message = parse(parser, "LOGIN user=alice src=10.0.0.1").getMessages().get(0);
+    assertEquals("GENERIC_EVENT", message.get("event_kind"));
+    assertFalse(message.containsKey(GrokParser.DEFAULT_PATTERN_FIELD));
+  }
+
+  @Test
+  public void testHints() {
+    List<Object> patterns = new ArrayList<>();
+    patterns.add(ImmutableMap.of(GrokPatternCandidate.LABEL_CONF, "ALERT_EVENT"
+            , GrokPatternCandidate.CONTAINS_CONF, "[critical]"));
+    patterns.add(ImmutableMap.of(GrokPatternCandidate.LABEL_CONF, "GENERIC_EVENT"
+            , GrokPatternCandidate.PREFIX_CONF, "AUDIT"));
+    GrokParser parser = createParser(patterns, null);
+
+    JSONObject message = parse(parser, "[critical] disk failure").getMessages().get(0);
+    assertEquals("ALERT_EVENT", message.get(GrokParser.DEFAULT_PATTERN_FIELD));
+    assertEquals("critical", message.get("severity"));
+
+    // the contains hint rules out the alert pattern, and the prefix hint rules out the generic pattern
+    MessageParserResult<JSONObject> result = parse(parser, "[warning] disk nearly full");
+    assertTrue(result.getMessages().isEmpty());
+    assertEquals(1, result.getMessageThrowables().size());
+
+    message = parse(parser, "AUDIT configuration changed").getMessages().get(0);
+    assertEquals("GENERIC_EVENT", message.get(GrokParser.DEFAULT_PATTERN_FIELD));
+  }
+
+  @Test
+  public void testNoMatch() {
+    GrokParser parser = createParser(Arrays.asList("LOGIN_EVENT", "LOGOUT_EVENT"), null);
+    MessageParserResult<JSONObject> result = parse(parser, "REBOOT requested by operator");
+    assertTrue(result.getMessages().isEmpty());
+    assertEquals(1, result.getMessageThrowables().size());
+  }
+
+  @Test
+  public void testDerivedLiteral() throws Exception {
+    GrokParser parser = createParser(Arrays.asList("LOGIN_EVENT", "LOGOUT_EVENT", "ALERT_EVENT", "GENERIC_EVENT"), null);
+    Map<String, String> derived = new HashMap<>();
+    for (GrokPatternCandidate pattern : parser.patterns) {
+      assertTrue(pattern.isCompiled());
+      derived.put(pattern.getLabel(), pattern.getDerivedLiteral());
+    }
+    assertEquals("LOGIN user=", derived.get("LOGIN_EVENT"));
+    assertEquals("LOGOUT user=", derived.get("LOGOUT_EVENT"));
+    assertEquals("[", derived.get("ALERT_EVENT"));
+    assertNull(derived.get("GENERIC_EVENT"));
+  }
+
+  @Test
+  public void testLeadingLiteral() {
+    boolean[] anchored = new boolean[1];
+    assertEquals("foo bar", GrokPatternCandidate.leadingLiteral("^foo bar", anchored));
+    assertTrue(anchored[0]);
+
+    anchored[0] = false;
+    assertEquals("ab", GrokPatternCandidate.leadingLiteral("(?<name0>ab(c|d))", anchored));
+    assertFalse(anchored[0]);
+    assertEquals("a", GrokPatternCandidate.leadingLiteral("ab?c", anchored));
+    assertEquals("a", GrokPatternCandidate.leadingLiteral("a+b", anchored));
+    assertEquals("[x] ", GrokPatternCandidate.leadingLiteral("\\[x\\] \\d+", anchored));
+    assertEquals("", GrokPatternCandidate.leadingLiteral("\\d+abc", anchored));
+    assertNull(GrokPatternCandidate.leadingLiteral("(?<name0>ab)|cd", anchored));
+    assertNull(GrokPatternCandidate.leadingLiteral("(?:abc)?def", anchored));
+  }
+}
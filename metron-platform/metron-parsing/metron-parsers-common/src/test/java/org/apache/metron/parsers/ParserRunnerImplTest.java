@@ -30,6 +30,7 @@ import org.apache.metron.parsers.filters.StellarFilter;
 import org.apache.metron.parsers.interfaces.MessageFilter;
 import org.apache.metron.parsers.interfaces.MessageParser;
 import org.apache.metron.parsers.interfaces.MessageParserResult;
+import org.apache.metron.parsers.json.JSONMapParser;
 import org.apache.metron.stellar.dsl.Context;
 import org.json.simple.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
@@ -419,4 +420,45 @@ public class ParserRunnerImplTest {
     assertTrue(processResult.get().isError());
     assertEquals(expectedMetronError, processResult.get().getError());
   }
+
+  @Test
+  public void shouldFilterRawMessagesBeforeParsing() {
+    SensorParserConfig jsonConfig = new SensorParserConfig();
+    jsonConfig.setParserClassName(JSONMapParser.class.getName());
+    jsonConfig.setSensorTopic("json");
+    jsonConfig.getParserConfig().put(StellarFilter.RAW_QUERY_STRING_CONF, "protocol == 'dns'");
+    parserConfigurations.updateSensorParserConfig("json", jsonConfig);
+    MessageParser<JSONObject> jsonParser = spy(new JSONMapParser());
+    parserRunner = spy(new ParserRunnerImpl(new HashSet<>(Collections.singletonList("json"))));
+    doReturn(jsonParser).when(parserRunner).createParserInstance(jsonConfig);
+    parserRunner.init(() -> parserConfigurations, Context.EMPTY_CONTEXT());
+    assertNotNull(parserRunner.getSensorToParserComponentMap().get("json").getRawFilter());
+
+    RawMessage dns = new RawMessage("{\"protocol\":\"dns\",\"query\":\"example.com\"}".getBytes(StandardCharsets.UTF_8), new HashMap<>());
+    ParserRunnerResults<JSONObject> results = parserRunner.execute("json", dns, parserConfigurations);
+    assertEquals(1, results.getMessages().size());
+    assertEquals("example.com", results.getMessages().get(0).get("query"));
+    assertTrue(results.getErrors().isEmpty());
+
+    // dropped without being parsed
+    RawMessage http = new RawMessage("{\"protocol\":\"http\",\"method\":\"GET\"}".getBytes(StandardCharsets.UTF_8), new HashMap<>());
+    results = parserRunner.execute("json", http, parserConfigurations);
+    assertTrue(results.getMessages().isEmpty());
+    assertTrue(results.getErrors().isEmpty());
+    verify(jsonParser, never()).parseOptionalResult(http.getMessage());
+
+    // a raw message which is not JSON is an error
+    RawMessage notJson = new RawMessage("protocol=dns".getBytes(StandardCharsets.UTF_8), new HashMap<>());
+    results = parserRunner.execute("json", notJson, parserConfigurations);
+    assertTrue(results.getMessages().isEmpty());
+    assertEquals(1, results.getErrors().size());
+    MetronError error = results.getErrors().get(0);
+    assertTrue(error.getThrowable().get() instanceof IllegalArgumentException);
+    assertEquals(new MetronError()
+            .withErrorType(Constants.ErrorType.PARSER_ERROR)
+            .withThrowable(error.getThrowable().get())
+            .withSensorType(Collections.singleton("json"))
+            .addRawMessage(notJson.getMessage()), error);
+    verify(jsonParser, never()).parseOptionalResult(notJson.getMessage());
+  }
 }
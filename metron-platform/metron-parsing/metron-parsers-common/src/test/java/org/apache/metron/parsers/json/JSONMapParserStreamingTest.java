@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.parsers.json;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.adrianwalker.multilinestring.Multiline;
+import org.apache.log4j.Level;
+import org.apache.metron.common.Constants.Fields;
+import org.apache.metron.parsers.BasicParser;
+import org.apache.metron.test.utils.UnitTestHelper;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JSONMapParserStreamingTest {
+
+  /**
+   * {
+   * "meta" : { "account" : "1234", "regions" : [ "us-east-1", "us-west-2" ] },
+   * "Records" :
+   * [
+   * { "name" : "foo1", "value" : "bar", "number" : 1.0, "count" : 7,
+   *   "collection" : { "blah" : 7, "bigblah" : { "innerBlah" : "baz" } } },
+   * { "name" : "foo2", "value" : "baz", "number" : 2.0, "tags" : [ "a", "b" ] }
+   * ],
+   * "trailer" : { "count" : 2 }
+   * }
+   */
+  @Multiline
+  static String JSON_BATCH;
+
+  /**
+   * { "name" : "foo1", "value" : "bar", "number" : 1.0 },
+   * { "name" : "foo2", "value" : "baz", "number" : 2.0 },
+   */
+  @Multiline
+  static String JSON_LIST;
+
+  private static List<JSONObject> parse(Map<String, Object> config, String json) {
+    Map<String, Object> streamingConfig = new HashMap<>(config);
+    streamingConfig.put(JSONMapParser.STREAMING, true);
+    JSONMapParser parser = new JSONMapParser();
+    parser.configure(streamingConfig);
+    return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static List<JSONObject> parseWithoutStreaming(Map<String, Object> config, String json) {
+    JSONMapParser parser = new JSONMapParser();
+    parser.configure(config);
+    return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void assertSameAsJsonPath(Map<String, Object> config, String json) {
+    List<JSONObject> expected = parseWithoutStreaming(config, json);
+    List<JSONObject> actual = parse(config, json);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      JSONObject e = new JSONObject(expected.get(i));
+      JSONObject a = new JSONObject(actual.get(i));
+      e.remove("timestamp");
+      a.remove("timestamp");
+      assertEquals(e, a);
+    }
+  }
+
+  @Test
+  public void testCompilePath() {
+    assertEquals(ImmutableList.of(), StreamingJSONMapReader.compilePath("$"));
+    assertEquals(ImmutableList.of("Records"), StreamingJSONMapReader.compilePath("$.Records"));
+    assertEquals(ImmutableList.of("Records"), StreamingJSONMapReader.compilePath("$.Records[*]"));
+    assertEquals(ImmutableList.of("a b", "c"), StreamingJSONMapReader.compilePath("$['a b'].c"));
+    assertNull(StreamingJSONMapReader.compilePath("$..Records"));
+    assertNull(StreamingJSONMapReader.compilePath("$.Records[0]"));
+    assertNull(StreamingJSONMapReader.compilePath("$.*"));
+    assertNull(StreamingJSONMapReader.compilePath("$$..$$SDSE$#$#."));
+  }
+
+  @Test
+  public void testHappyPath() {
+    List<JSONObject> output = parse(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.Records"), JSON_BATCH);
+    assertEquals(2, output.size());
+    JSONObject message = output.get(0);
+    // account for timestamp field in the size
+    assertEquals(5, message.size());
+    assertEquals("foo1", message.get("name"));
+    assertEquals("bar", message.get("value"));
+    assertEquals(1.0, message.get("number"));
+    assertEquals(7, message.get("count"));
+    assertTrue(message.get("timestamp") instanceof Number);
+    assertFalse(message.containsKey(Fields.ORIGINAL.getName()));
+
+    message = output.get(1);
+    assertEquals(5, message.size());
+    assertEquals("foo2", message.get("name"));
+    assertEquals(ImmutableList.of("a", "b"), message.get("tags"));
+  }
+
+  @Test
+  public void testMatchesJsonPath() {
+    for (JSONMapParser.MapStrategy strategy : new JSONMapParser.MapStrategy[] {
+            JSONMapParser.MapStrategy.DROP, JSONMapParser.MapStrategy.UNFOLD, JSONMapParser.MapStrategy.ALLOW }) {
+      assertSameAsJsonPath(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.Records"
+              , JSONMapParser.MAP_STRATEGY_CONFIG, strategy.name()), JSON_BATCH);
+      assertSameAsJsonPath(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.Records"
+              , JSONMapParser.MAP_STRATEGY_CONFIG, strategy.name()
+              , JSONMapParser.OVERRIDE_ORIGINAL_STRING, true), JSON_BATCH);
+    }
+  }
+
+  @Test
+  public void testUnfold() {
+    List<JSONObject> output = parse(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.Records[*]"
+            , JSONMapParser.MAP_STRATEGY_CONFIG, JSONMapParser.MapStrategy.UNFOLD.name()), JSON_BATCH);
+    assertEquals(2, output.size());
+    JSONObject message = output.get(0);
+    assertEquals(7, message.get("collection.blah"));
+    assertEquals("baz", message.get("collection.bigblah.innerBlah"));
+    assertFalse(message.containsKey("collection"));
+  }
+
+  @Test
+  public void testError() {
+    UnitTestHelper.setLog4jLevel(BasicParser.class, Level.FATAL);
+    assertThrows(IllegalStateException.class, () -> parse(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.Records"
+            , JSONMapParser.MAP_STRATEGY_CONFIG, JSONMapParser.MapStrategy.ERROR.name()), JSON_BATCH));
+    UnitTestHelper.setLog4jLevel(BasicParser.class, Level.ERROR);
+  }
+
+  @Test
+  public void testOriginalStringHandledByParser() throws ParseException {
+    List<JSONObject> output = parse(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.Records"
+            , JSONMapParser.OVERRIDE_ORIGINAL_STRING, true), JSON_BATCH);
+    assertEquals(2, output.size());
+    Object original = new JSONParser().parse((String) output.get(1).get(Fields.ORIGINAL.getName()));
+    assertEquals(ImmutableMap.of("name", "foo2", "value", "baz", "number", 2.0, "tags", ImmutableList.of("a", "b")), original);
+  }
+
+  @Test
+  public void testNoMatchesNoExceptions() {
+    assertEquals(0, parse(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$.foo"), JSON_BATCH).size());
+  }
+
+  @Test
+  public void testWrapped() {
+    Map<String, Object> config = ImmutableMap.of(JSONMapParser.WRAP_JSON, true
+            , JSONMapParser.WRAP_ENTITY_NAME, "foo"
+            , JSONMapParser.JSONP_QUERY, "$.foo");
+    List<JSONObject> output = parse(config, JSON_LIST);
+    assertEquals(2, output.size());
+    assertEquals("foo1", output.get(0).get("name"));
+    assertEquals("foo2", output.get(1).get("name"));
+    assertSameAsJsonPath(config, JSON_LIST);
+  }
+
+  @Test
+  public void testWithoutQuery() {
+    List<JSONObject> output = parse(new HashMap<>(), "{ \"name\" : \"foo1\", \"nested\" : { \"a\" : 1 } }");
+    assertEquals(1, output.size());
+    assertEquals("foo1", output.get(0).get("name"));
+    assertFalse(output.get(0).containsKey("nested"));
+  }
+
+  @Test
+  public void testUnsupportedQueryFallsBack() {
+    List<JSONObject> output = parse(ImmutableMap.of(JSONMapParser.JSONP_QUERY, "$..Records"), JSON_BATCH);
+    assertEquals(2, output.size());
+  }
+}
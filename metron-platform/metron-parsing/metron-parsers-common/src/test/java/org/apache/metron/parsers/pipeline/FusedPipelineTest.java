@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.parsers.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.metron.common.Constants;
+import org.apache.metron.common.configuration.EnrichmentConfigurations;
+import org.apache.metron.common.configuration.IndexingConfigurations;
+import org.apache.metron.common.configuration.ParserConfigurations;
+import org.apache.metron.common.configuration.SensorParserConfig;
+import org.apache.metron.common.configuration.enrichment.SensorEnrichmentConfig;
+import org.apache.metron.common.configuration.writer.WriterConfiguration;
+import org.apache.metron.common.writer.BulkMessage;
+import org.apache.metron.common.writer.BulkMessageWriter;
+import org.apache.metron.common.writer.BulkWriterResponse;
+import org.apache.metron.enrichment.cache.CacheKey;
+import org.apache.metron.enrichment.interfaces.EnrichmentAdapter;
+import org.apache.metron.integration.utils.TestUtils;
+import org.apache.metron.parsers.ParserRunnerImpl;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FusedPipelineTest {
+
+  private static final String parserConfig = "{ \"parserClassName\": \"org.apache.metron.parsers.json.JSONMapParser\", "
+          + "\"sensorTopic\": \"test_topic\" }";
+
+  private static final String enrichmentConfig = "{ \"enrichment\": { \"fieldMap\": { \"stub\": [ \"ip_src_addr\" ] } }, "
+          + "\"threatIntel\": { } }";
+
+  /**
+   * Looks up the host of an address.
+   */
+  public static class StubAdapter implements EnrichmentAdapter<CacheKey> {
+    @Override
+    public void logAccess(CacheKey value) {
+    }
+
+    @Override
+    public JSONObject enrich(CacheKey value) {
+      JSONObject ret = new JSONObject();
+      ret.put("host", "host-" + value.getValue());
+      return ret;
+    }
+
+    @Override
+    public boolean initializeAdapter(Map<String, Object> config) {
+      return true;
+    }
+
+    @Override
+    public void updateAdapter(Map<String, Object> config) {
+    }
+
+    @Override
+    public void cleanup() {
+    }
+
+    @Override
+    public String getOutputPrefix(CacheKey value) {
+      return "stub";
+    }
+  }
+
+  /**
+   * Keeps the messages written, by sensor type.
+   */
+  public static class InMemoryWriter implements BulkMessageWriter<JSONObject> {
+    private final Map<String, List<JSONObject>> written = new HashMap<>();
+    private String failingSensorType;
+    private CountDownLatch blockedLatch = new CountDownLatch(0);
+    private CountDownLatch writingLatch = new CountDownLatch(1);
+    private boolean closed = false;
+
+    @Override
+    public void init(Map stormConf, WriterConfiguration config) {
+    }
+
+    @Override
+    public synchronized BulkWriterResponse write(String sensorType, WriterConfiguration configurations,
+                                                 List<BulkMessage<JSONObject>> messages) throws Exception {
+      writingLatch.countDown();
+      blockedLatch.await();
+      if (sensorType.equals(failingSensorType)) {
+        throw new IOException("Unable to write " + sensorType);
+      }
+      BulkWriterResponse response = new BulkWriterResponse();
+      for (BulkMessage<JSONObject> message : messages) {
+        written.computeIfAbsent(sensorType, s -> new ArrayList<>()).add(message.getMessage());
+        response.addSuccess(message.getId());
+      }
+      return response;
+    }
+
+    @Override
+    public String getName() {
+      return "memory";
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    public synchronized List<JSONObject> getWritten(String sensorType) {
+      return written.getOrDefault(sensorType, Collections.emptyList());
+    }
+  }
+
+  private ParserConfigurations parserConfigurations;
+  private EnrichmentConfigurations enrichmentConfigurations;
+  private InMemoryWriter writer;
+  private File tempDir;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    parserConfigurations = new ParserConfigurations();
+    parserConfigurations.updateSensorParserConfig("test", SensorParserConfig.fromBytes(parserConfig.getBytes(StandardCharsets.UTF_8)));
+    enrichmentConfigurations = new EnrichmentConfigurations();
+    enrichmentConfigurations.updateSensorEnrichmentConfig("test", SensorEnrichmentConfig.fromBytes(enrichmentConfig.getBytes(StandardCharsets.UTF_8)));
+    writer = new InMemoryWriter();
+    tempDir = TestUtils.createTempDir(this.getClass().getName());
+  }
+
+  private FusedPipeline createPipeline(PipelineSource source) {
+    Map<String, EnrichmentAdapter<CacheKey>> enrichments = new HashMap<>();
+    enrichments.put("stub", new StubAdapter());
+    return new FusedPipeline(source, new ParserRunnerImpl(new HashSet<>(Collections.singleton("test"))), () -> parserConfigurations,
+            IndexingConfigurations::new, Collections.singletonList(writer))
+            .withEnrichments(() -> enrichmentConfigurations, enrichments, new HashMap<>())
+            .withNumThreads(2)
+            .withQueueSize(2)
+            .withMaxPending(4);
+  }
+
+  private FilePipelineSource createFileSource(String... lines) throws IOException {
+    File file = new File(tempDir, "messages.json");
+    Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    return new FilePipelineSource(file, "test_topic", 2);
+  }
+
+  @Test
+  public void shouldParseEnrichAndIndexMessages() throws Exception {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      lines.add("{ \"ip_src_addr\": \"10.0.0." + i + "\", \"timestamp\": " + (1000 + i) + " }");
+    }
+    lines.add("not json");
+    FilePipelineSource source = createFileSource(lines.toArray(new String[0]));
+
+    createPipeline(source).run();
+
+    List<JSONObject> messages = writer.getWritten("test");
+    assertEquals(10, messages.size());
+    for (int i = 0; i < 10; ++i) {
+      JSONObject message = messages.get(i);
+      assertEquals("10.0.0." + i, message.get("ip_src_addr"));
+      assertEquals("host-10.0.0." + i, message.get("enrichments.stub.ip_src_addr.host"));
+      assertEquals("test", message.get(Constants.SENSOR_TYPE));
+    }
+    List<JSONObject> errors = writer.getWritten(Constants.ERROR_TYPE);
+    assertEquals(1, errors.size());
+    assertEquals(Constants.ErrorType.PARSER_ERROR.getType(), errors.get(0).get(Constants.ErrorFields.ERROR_TYPE.getName()));
+    assertEquals(11, source.getNumAcked());
+    assertTrue(writer.closed);
+  }
+
+  @Test
+  public void shouldIndexErrorsWhenWritesFail() throws Exception {
+    writer.failingSensorType = "test";
+    FilePipelineSource source = createFileSource(
+            "{ \"ip_src_addr\": \"10.0.0.1\", \"timestamp\": 1000 }",
+            "{ \"ip_src_addr\": \"10.0.0.2\", \"timestamp\": 1001 }");
+
+    createPipeline(source).run();
+
+    assertTrue(writer.getWritten("test").isEmpty());
+    List<JSONObject> errors = writer.getWritten(Constants.ERROR_TYPE);
+    assertEquals(2, errors.size());
+    for (JSONObject error : errors) {
+      assertEquals(Constants.ErrorType.INDEXING_ERROR.getType(), error.get(Constants.ErrorFields.ERROR_TYPE.getName()));
+    }
+    assertEquals(2, source.getNumAcked());
+  }
+
+  @Test
+  public void shouldCommitOffsetsOnlyOnceWritten() throws Exception {
+    TopicPartition partition = new TopicPartition("test_topic", 0);
+    // the consumer is left open, so its offsets can be checked once the pipeline is finished
+    MockConsumer<byte[], byte[]> consumer = new MockConsumer<byte[], byte[]>(OffsetResetStrategy.EARLIEST) {
+      @Override
+      public synchronized void close() {
+      }
+    };
+    KafkaPipelineSource source = new KafkaPipelineSource(consumer, Collections.singletonList("test_topic"));
+    consumer.rebalance(Collections.singletonList(partition));
+    consumer.updateBeginningOffsets(Collections.singletonMap(partition, 0L));
+    for (int i = 0; i < 2; ++i) {
+      byte[] value = ("{ \"ip_src_addr\": \"10.0.0." + i + "\", \"timestamp\": 1000 }").getBytes(StandardCharsets.UTF_8);
+      consumer.addRecord(new ConsumerRecord<>("test_topic", 0, i, null, value));
+    }
+    writer.blockedLatch = new CountDownLatch(1);
+    FusedPipeline pipeline = createPipeline(source);
+    AtomicReference<Exception> failure = new AtomicReference<>();
+    Thread thread = new Thread(() -> {
+      try {
+        pipeline.run();
+      } catch (Exception e) {
+        failure.set(e);
+      }
+    });
+    thread.start();
+
+    assertTrue(writer.writingLatch.await(10, TimeUnit.SECONDS));
+    Thread.sleep(200);
+    assertNull(consumer.committed(partition));
+
+    writer.blockedLatch.countDown();
+    pipeline.stop();
+    thread.join(10000);
+    assertFalse(thread.isAlive());
+    assertNull(failure.get());
+    assertEquals(2, writer.getWritten("test").size());
+    assertEquals(new OffsetAndMetadata(2), consumer.committed(partition));
+  }
+}
@@ -21,14 +21,24 @@ package org.apache.metron.parsers.bolt;
 import com.github.benmanes.caffeine.cache.Cache;
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.metron.common.Constants;
 import org.apache.metron.storm.common.bolt.ConfiguredParserBolt;
 import org.apache.metron.common.configuration.ParserConfigurations;
@@ -66,6 +76,37 @@ public class ParserBolt extends ConfiguredParserBolt implements Serializable {
 
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * The number of threads used to parse tuples, as an integer or as a multiple of the number of
+   * cores, such as "2C".  If 1 or less, tuples are parsed on the executor thread.
+   */
+  public static final String THREADPOOL_NUM_THREADS_TOPOLOGY_CONF = "metron.parser.threadpool.size";
+
+  /**
+   * The maximum number of tuples being parsed by the thread pool at once.  It defaults to 4 times
+   * the number of threads, and never exceeds topology.max.spout.pending.
+   */
+  public static final String THREADPOOL_MAX_PENDING_TOPOLOGY_CONF = "metron.parser.threadpool.maxPending";
+
+  /**
+   * A tuple submitted to the thread pool, whose results are written once every earlier tuple is written.
+   */
+  private static class PendingTuple {
+    private final Tuple tuple;
+    private final String sensorType;
+    private final byte[] originalMessage;
+    private final Future<ParserRunnerResults<JSONObject>> results;
+
+    private PendingTuple(Tuple tuple, String sensorType, byte[] originalMessage,
+                         Future<ParserRunnerResults<JSONObject>> results) {
+      this.tuple = tuple;
+      this.sensorType = sensorType;
+      this.originalMessage = originalMessage;
+      this.results = results;
+    }
+  }
+
   private OutputCollector collector;
   private ParserRunner<JSONObject> parserRunner;
   private Map<String, WriterHandler> sensorToWriterMap;
@@ -76,6 +117,11 @@ public class ParserBolt extends ConfiguredParserBolt implements Serializable {
   private int maxBatchTimeout;
   private int batchTimeoutDivisor = 1;
   private transient AckTuplesPolicy ackTuplesPolicy;
+  private int numThreads = 1;
+  private int maxPending = 0;
+  private transient ExecutorService workerPool;
+  private transient ThreadLocal<ParserRunner<JSONObject>> workerRunners;
+  private transient Deque<PendingTuple> pending;
 
   public ParserBolt( String zookeeperUrl
                    , ParserRunner parserRunner
@@ -118,6 +164,50 @@ public class ParserBolt extends ConfiguredParserBolt implements Serializable {
     return batchTimeoutDivisor;
   }
 
+  /**
+   * Parses tuples on a pool of threads, rather than on the executor thread.  Each thread has its
+   * own parsers, so parsers need not be thread-safe.  Results are still written and acked on the
+   * executor thread, in the order the tuples arrived.  This may be overridden with
+   * {@link #THREADPOOL_NUM_THREADS_TOPOLOGY_CONF}.
+   *
+   * @param numThreads The number of threads.  If 1, tuples are parsed on the executor thread.
+   * @return ParserBolt
+   */
+  public ParserBolt withNumThreads(int numThreads) {
+    if (numThreads <= 0) {
+      throw new IllegalArgumentException(String.format("numThreads must be positive. Value provided was %s", numThreads));
+    }
+    this.numThreads = numThreads;
+    return this;
+  }
+
+  /**
+   * @param maxPending The maximum number of tuples being parsed by the thread pool at once.  This may
+   *                   be overridden with {@link #THREADPOOL_MAX_PENDING_TOPOLOGY_CONF}.
+   * @return ParserBolt
+   */
+  public ParserBolt withMaxPending(int maxPending) {
+    if (maxPending <= 0) {
+      throw new IllegalArgumentException(String.format("maxPending must be positive. Value provided was %s", maxPending));
+    }
+    this.maxPending = maxPending;
+    return this;
+  }
+
+  /**
+   * Used only for unit testing
+   */
+  public int getNumThreads() {
+    return numThreads;
+  }
+
+  /**
+   * Used only for unit testing
+   */
+  public int getMaxPending() {
+    return maxPending;
+  }
+
   /**
    * Used only for unit testing
    */
@@ -202,7 +292,9 @@ public class ParserBolt extends ConfiguredParserBolt implements Serializable {
     super.prepare(stormConf, context, collector);
     messageGetStrategy = MessageGetters.DEFAULT_BYTES_FROM_POSITION.get();
     this.collector = collector;
-    this.parserRunner.init(this::getConfigurations, initializeStellar());
+    Context stellarContext = initializeStellar();
+    initializeWorkerPool(stormConf, stellarContext);
+    this.parserRunner.init(this::getConfigurations, stellarContext);
 
     ackTuplesPolicy = new AckTuplesPolicy(collector, messageGetStrategy);
 
@@ -235,26 +327,154 @@ public class ParserBolt extends ConfiguredParserBolt implements Serializable {
   }
 
 
+  /**
+   * Creates the thread pool, if more than one thread is configured.  This must be called before the
+   * parser runner is initialized, since each thread's parsers are created from a copy of it.
+   */
+  private void initializeWorkerPool(Map stormConf, Context stellarContext) {
+    if (stormConf.containsKey(THREADPOOL_NUM_THREADS_TOPOLOGY_CONF)) {
+      numThreads = getNumThreads(stormConf.get(THREADPOOL_NUM_THREADS_TOPOLOGY_CONF));
+    }
+    if (numThreads <= 1) {
+      return;
+    }
+    if (stormConf.containsKey(THREADPOOL_MAX_PENDING_TOPOLOGY_CONF)) {
+      maxPending = Integer.parseInt(stormConf.get(THREADPOOL_MAX_PENDING_TOPOLOGY_CONF).toString().trim());
+    } else if (maxPending <= 0) {
+      maxPending = 4 * numThreads;
+    }
+    Object maxSpoutPending = stormConf.get(Config.TOPOLOGY_MAX_SPOUT_PENDING);
+    if (maxSpoutPending instanceof Number && ((Number) maxSpoutPending).intValue() > 0) {
+      maxPending = Math.min(maxPending, ((Number) maxSpoutPending).intValue());
+    }
+    maxPending = Math.max(maxPending, 1);
+
+    Supplier<ParserRunner<JSONObject>> runnerFactory = createWorkerRunnerFactory(stellarContext);
+    workerRunners = ThreadLocal.withInitial(runnerFactory);
+    pending = new ArrayDeque<>(maxPending);
+    AtomicInteger threadCount = new AtomicInteger();
+    workerPool = Executors.newFixedThreadPool(numThreads, r -> {
+      Thread t = new Thread(r, "parser-worker-" + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+    LOG.info("Parsing with {} threads and at most {} pending tuples", numThreads, maxPending);
+  }
+
+  /**
+   * Creates the parser runners used by the thread pool, one per thread.  Each is a copy of the
+   * parser runner as it was before being initialized.
+   *
+   * @param stellarContext The Stellar context shared by the parser runners.
+   * @return Creates and initializes a parser runner.
+   */
   @SuppressWarnings("unchecked")
+  protected Supplier<ParserRunner<JSONObject>> createWorkerRunnerFactory(Context stellarContext) {
+    if (!(parserRunner instanceof Serializable)) {
+      throw new IllegalStateException("Unable to parse with multiple threads, since the parser runner is not serializable");
+    }
+    byte[] template = SerializationUtils.serialize((Serializable) parserRunner);
+    return () -> {
+      ParserRunner<JSONObject> runner = SerializationUtils.deserialize(template);
+      runner.init(this::getConfigurations, stellarContext);
+      return runner;
+    };
+  }
+
+  /**
+   * Figure out how many threads to use in the thread pool.  If it's a number, then cast to an int.  If it's a
+   * string and ends with "C", then strip the C and treat it as an integral multiple of the number of cores.
+   */
+  private static int getNumThreads(Object numThreads) {
+    if (numThreads instanceof Number) {
+      return ((Number) numThreads).intValue();
+    }
+    String numThreadsStr = numThreads.toString().trim().toUpperCase();
+    if (numThreadsStr.endsWith("C")) {
+      return Integer.parseInt(numThreadsStr.replace("C", "")) * Runtime.getRuntime().availableProcessors();
+    }
+    return Integer.parseInt(numThreadsStr);
+  }
+
   @Override
   public void execute(Tuple tuple) {
     if (TupleUtils.isTick(tuple)) {
+      // results which are parsed but not yet written must be seen by the flush
+      writeCompleted(0);
       handleTickTuple(tuple);
       return;
     }
     byte[] originalMessage = (byte[]) messageGetStrategy.get(tuple);
     String topic = tuple.getStringByField(FieldsConfiguration.TOPIC.getFieldName());
     String sensorType = topicToSensorMap.get(topic);
+    if (workerPool == null) {
+      ParserRunnerResults<JSONObject> parserRunnerResults;
+      try {
+        ParserConfigurations parserConfigurations = getConfigurations();
+        parserRunnerResults = parserRunner.execute(sensorType, getRawMessage(tuple, sensorType, originalMessage, parserConfigurations), parserConfigurations);
+      } catch (Throwable ex) {
+        handleError(sensorType, originalMessage, tuple, ex, collector);
+        collector.ack(tuple);
+        return;
+      }
+      write(tuple, sensorType, originalMessage, parserRunnerResults);
+    } else {
+      CompletableFuture<ParserRunnerResults<JSONObject>> results;
+      try {
+        ParserConfigurations parserConfigurations = getConfigurations();
+        RawMessage rawMessage = getRawMessage(tuple, sensorType, originalMessage, parserConfigurations);
+        results = CompletableFuture.supplyAsync(
+                () -> workerRunners.get().execute(sensorType, rawMessage, parserConfigurations), workerPool);
+      } catch (Throwable ex) {
+        results = new CompletableFuture<>();
+        results.completeExceptionally(ex);
+      }
+      pending.add(new PendingTuple(tuple, sensorType, originalMessage, results));
+      writeCompleted(maxPending);
+    }
+  }
+
+  /**
+   * Writes the results of the tuples submitted to the thread pool, in the order they were submitted.  This
+   * stops at the first tuple still being parsed, unless more than the given number of tuples are pending,
+   * in which case it waits for them.
+   *
+   * @param maxPending The maximum number of tuples to leave pending.
+   */
+  private void writeCompleted(int maxPending) {
+    while (pending != null && !pending.isEmpty()
+            && (pending.size() > maxPending || pending.peek().results.isDone())) {
+      PendingTuple next = pending.poll();
+      ParserRunnerResults<JSONObject> parserRunnerResults;
+      try {
+        parserRunnerResults = next.results.get();
+      } catch (InterruptedException | ExecutionException ex) {
+        if (ex instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        Throwable cause = ex instanceof ExecutionException ? ex.getCause() : ex;
+        handleError(next.sensorType, next.originalMessage, next.tuple, cause, collector);
+        collector.ack(next.tuple);
+        continue;
+      }
+      write(next.tuple, next.sensorType, next.originalMessage, parserRunnerResults);
+    }
+  }
+
+  private RawMessage getRawMessage(Tuple tuple, String sensorType, byte[] originalMessage,
+                                   ParserConfigurations parserConfigurations) {
+    SensorParserConfig sensorParserConfig = parserConfigurations.getSensorParserConfig(sensorType);
+    return RawMessageUtil.INSTANCE.getRawMessage( sensorParserConfig.getRawMessageStrategy()
+            , tuple
+            , originalMessage
+            , sensorParserConfig.getReadMetadata()
+            , sensorParserConfig.getRawMessageStrategyConfig()
+    );
+  }
+
+  private void write(Tuple tuple, String sensorType, byte[] originalMessage,
+                     ParserRunnerResults<JSONObject> parserRunnerResults) {
     try {
-      ParserConfigurations parserConfigurations = getConfigurations();
-      SensorParserConfig sensorParserConfig = parserConfigurations.getSensorParserConfig(sensorType);
-      RawMessage rawMessage = RawMessageUtil.INSTANCE.getRawMessage( sensorParserConfig.getRawMessageStrategy()
-              , tuple
-              , originalMessage
-              , sensorParserConfig.getReadMetadata()
-              , sensorParserConfig.getRawMessageStrategyConfig()
-      );
-      ParserRunnerResults<JSONObject> parserRunnerResults = parserRunner.execute(sensorType, rawMessage, parserConfigurations);
       parserRunnerResults.getErrors().forEach(error -> handleError(collector, error));
 
       WriterHandler writer = sensorToWriterMap.get(sensorType);
@@ -283,6 +503,14 @@ public class ParserBolt extends ConfiguredParserBolt implements Serializable {
     }
   }
 
+  @Override
+  public void cleanup() {
+    if (workerPool != null) {
+      workerPool.shutdownNow();
+    }
+    super.cleanup();
+  }
+
   protected Context initializeStellar() {
     Map<String, Object> cacheConfig = new HashMap<>();
     for (String sensorType: this.parserRunner.getSensorTypes()) {
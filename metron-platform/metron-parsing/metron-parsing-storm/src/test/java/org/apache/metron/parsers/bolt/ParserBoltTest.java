@@ -24,7 +24,10 @@ import org.apache.metron.common.configuration.SensorParserConfig;
 import org.apache.metron.common.error.MetronError;
 import org.apache.metron.common.message.metadata.RawMessage;
 import org.apache.metron.common.writer.BulkMessage;
+import org.apache.metron.common.writer.MessageId;
+import org.apache.metron.parsers.BasicParser;
 import org.apache.metron.parsers.DefaultParserRunnerResults;
+import org.apache.metron.parsers.ParserRunner;
 import org.apache.metron.parsers.ParserRunnerImpl;
 import org.apache.metron.parsers.ParserRunnerResults;
 import org.apache.metron.stellar.dsl.Context;
@@ -42,11 +45,14 @@ import org.mockito.Mock;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class ParserBoltTest extends BaseBoltTest {
@@ -199,6 +205,205 @@ public class ParserBoltTest extends BaseBoltTest {
     verify(writerHandler).init(eq(stormConf), eq(topologyContext), eq(outputCollector), eq(parserConfigurations), any(AckTuplesPolicy.class), eq(14));
   }
 
+  @Test
+  public void shouldLimitMaxPendingToMaxSpoutPending() {
+    Map<String, Object> stormConf = new HashMap<>();
+    stormConf.put(ParserBolt.THREADPOOL_NUM_THREADS_TOPOLOGY_CONF, "4");
+    stormConf.put(Config.TOPOLOGY_MAX_SPOUT_PENDING, 10);
+    ParserBolt parserBolt = prepareWithWorkerPool(stormConf, () -> parserRunner);
+
+    assertEquals(4, parserBolt.getNumThreads());
+    assertEquals(10, parserBolt.getMaxPending());
+    parserBolt.cleanup();
+  }
+
+  @Test
+  public void shouldWriteInOrderWhenParsingWithWorkerPool() throws Exception {
+    Map<String, Object> stormConf = new HashMap<>();
+    stormConf.put(ParserBolt.THREADPOOL_NUM_THREADS_TOPOLOGY_CONF, 3);
+    CountDownLatch firstParsed = new CountDownLatch(1);
+    ParserBolt parserBolt = prepareWithWorkerPool(stormConf, () -> new ParserRunnerImpl(new HashSet<>()) {
+      @Override
+      public ParserRunnerResults<JSONObject> execute(String sensorType, RawMessage rawMessage, ParserConfigurations parserConfigurations) {
+        String messageId = new String(rawMessage.getMessage(), StandardCharsets.UTF_8);
+        if ("messageId1".equals(messageId)) {
+          try {
+            firstParsed.await();
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+        JSONObject message = new JSONObject();
+        message.put(Constants.GUID, messageId);
+        DefaultParserRunnerResults parserRunnerResults = new DefaultParserRunnerResults();
+        parserRunnerResults.addMessage(message);
+        return parserRunnerResults;
+      }
+    });
+    assertEquals(12, parserBolt.getMaxPending());
+
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Tuple tuple = mock(Tuple.class);
+      when(messageGetStrategy.get(tuple)).thenReturn(String.format("messageId%s", i + 1).getBytes(StandardCharsets.UTF_8));
+      when(tuple.getStringByField(FieldsConfiguration.TOPIC.getFieldName())).thenReturn("yafTopic");
+      tuples.add(tuple);
+      parserBolt.execute(tuple);
+    }
+
+    // nothing is written while the first tuple is being parsed
+    verify(writerHandler, never()).write(any(), any(), any());
+
+    firstParsed.countDown();
+    when(t1.getSourceComponent()).thenReturn("__system");
+    when(t1.getSourceStreamId()).thenReturn("__tick");
+    parserBolt.execute(t1);
+
+    InOrder inOrder = inOrder(bulkWriterResponseHandler, writerHandler);
+    for (int i = 0; i < 3; i++) {
+      String messageId = String.format("messageId%s", i + 1);
+      inOrder.verify(bulkWriterResponseHandler).addTupleMessageIds(tuples.get(i), Collections.singletonList(messageId));
+      inOrder.verify(writerHandler).write(eq("yaf"), argThat(m -> new MessageId(messageId).equals(m.getId())), any());
+    }
+    inOrder.verify(writerHandler).flush(any(), eq(messageGetStrategy));
+    verify(outputCollector).ack(t1);
+    parserBolt.cleanup();
+  }
+
+  /**
+   * A parser which records the threads each instance parses on.  Each message is parsed after a delay that
+   * depends on its content, so that messages are parsed out of order.
+   */
+  public static class WorkerThreadParser extends BasicParser {
+    private static final Map<WorkerThreadParser, Set<String>> threadsByParser = new ConcurrentHashMap<>();
+
+    @Override
+    public void configure(Map<String, Object> config) {
+    }
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<JSONObject> parse(byte[] rawMessage) {
+      threadsByParser.computeIfAbsent(this, p -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+      String text = new String(rawMessage, StandardCharsets.UTF_8);
+      try {
+        Thread.sleep(Math.abs(text.hashCode()) % 5);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      if (text.endsWith("fail")) {
+        throw new IllegalStateException("Unable to parse " + text);
+      }
+      if (text.endsWith("skip")) {
+        return Collections.emptyList();
+      }
+      JSONObject message = new JSONObject();
+      message.put(Constants.GUID, text);
+      message.put("timestamp", 1L);
+      return Collections.singletonList(message);
+    }
+  }
+
+  @Test
+  public void shouldParseWithACopyOfTheParserRunnerOnEachWorker() throws Exception {
+    WorkerThreadParser.threadsByParser.clear();
+    Map<String, Object> stormConf = new HashMap<>();
+    stormConf.put(ParserBolt.THREADPOOL_NUM_THREADS_TOPOLOGY_CONF, 4);
+    SensorParserConfig yafConfig = new SensorParserConfig();
+    yafConfig.setParserClassName(WorkerThreadParser.class.getName());
+    ParserRunnerImpl runner = new ParserRunnerImpl(new HashSet<>(Collections.singleton("yaf")));
+    ParserBolt parserBolt = prepareWithWorkerPool(stormConf, runner, yafConfig, null);
+
+    List<Tuple> tuples = new ArrayList<>();
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      String text = "message" + i + (i % 10 == 3 ? "fail" : i % 10 == 7 ? "skip" : "");
+      Tuple tuple = mock(Tuple.class);
+      when(messageGetStrategy.get(tuple)).thenReturn(text.getBytes(StandardCharsets.UTF_8));
+      when(tuple.getStringByField(FieldsConfiguration.TOPIC.getFieldName())).thenReturn("yafTopic");
+      tuples.add(tuple);
+      texts.add(text);
+      parserBolt.execute(tuple);
+    }
+    when(t1.getSourceComponent()).thenReturn("__system");
+    when(t1.getSourceStreamId()).thenReturn("__tick");
+    parserBolt.execute(t1);
+
+    // each tuple is written, or acked if it has nothing to write, in the order it arrived
+    InOrder inOrder = inOrder(bulkWriterResponseHandler, writerHandler, outputCollector);
+    for (int i = 0; i < tuples.size(); i++) {
+      String text = texts.get(i);
+      if (text.endsWith("fail") || text.endsWith("skip")) {
+        inOrder.verify(bulkWriterResponseHandler).addTupleMessageIds(tuples.get(i), Collections.emptyList());
+        inOrder.verify(outputCollector).ack(tuples.get(i));
+      } else {
+        inOrder.verify(bulkWriterResponseHandler).addTupleMessageIds(tuples.get(i), Collections.singletonList(text));
+        inOrder.verify(writerHandler).write(eq("yaf"), argThat(m -> new MessageId(text).equals(m.getId())), any());
+      }
+    }
+    inOrder.verify(writerHandler).flush(any(), eq(messageGetStrategy));
+    inOrder.verify(outputCollector).ack(t1);
+    verify(writerHandler, times(32)).write(any(), any(), any());
+
+    // every message is parsed on a worker, each of which has its own parser
+    Map<WorkerThreadParser, Set<String>> threadsByParser = WorkerThreadParser.threadsByParser;
+    assertTrue(!threadsByParser.isEmpty() && threadsByParser.size() <= 4, "Parsers used: " + threadsByParser.size());
+    Set<String> threads = new HashSet<>();
+    for (Set<String> parserThreads : threadsByParser.values()) {
+      assertEquals(1, parserThreads.size());
+      assertTrue(parserThreads.iterator().next().startsWith("parser-worker-"), "Parsed on " + parserThreads);
+      threads.addAll(parserThreads);
+    }
+    assertEquals(threadsByParser.size(), threads.size());
+    parserBolt.cleanup();
+  }
+
+  private ParserBolt prepareWithWorkerPool(Map<String, Object> stormConf, Supplier<ParserRunner<JSONObject>> workerRunners) {
+    return prepareWithWorkerPool(stormConf, parserRunner, new SensorParserConfig(), workerRunners);
+  }
+
+  /**
+   * @param workerRunners Creates the parser runner of each worker.  If null, the bolt's own copies are used.
+   */
+  private ParserBolt prepareWithWorkerPool(Map<String, Object> stormConf, ParserRunner<JSONObject> runner,
+                                           SensorParserConfig yafConfig, Supplier<ParserRunner<JSONObject>> workerRunners) {
+    yafConfig.setSensorTopic("yafTopic");
+    ParserConfigurations parserConfigurations = new ParserConfigurations();
+    parserConfigurations.updateSensorParserConfig("yaf", yafConfig);
+
+    ParserBolt parserBolt = spy(new ParserBolt("zookeeperUrl", runner, new HashMap<String, WriterHandler>() {{
+      put("yaf", writerHandler);
+    }}) {
+
+      @Override
+      protected SensorParserConfig getSensorParserConfig(String sensorType) {
+        return parserConfigurations.getSensorParserConfig(sensorType);
+      }
+
+      @Override
+      public ParserConfigurations getConfigurations() {
+        return parserConfigurations;
+      }
+
+      @Override
+      protected Supplier<ParserRunner<JSONObject>> createWorkerRunnerFactory(Context stellarContext) {
+        return workerRunners == null ? super.createWorkerRunnerFactory(stellarContext) : workerRunners;
+      }
+    });
+    doReturn(stellarContext).when(parserBolt).initializeStellar();
+    parserBolt.setCuratorFramework(client);
+    parserBolt.setZKCache(cache);
+
+    parserBolt.prepare(stormConf, topologyContext, outputCollector);
+    parserBolt.setMessageGetStrategy(messageGetStrategy);
+    parserBolt.setAckTuplesPolicy(bulkWriterResponseHandler);
+    return parserBolt;
+  }
+
   @Test
   public void shouldThrowExceptionOnMissingConfig() {
     Map stormConf = mock(Map.class);
@@ -24,6 +24,7 @@ import org.apache.metron.common.Constants;
 import org.apache.metron.pcap.PcapHelper;
 import org.apache.metron.pcap.config.FixedPcapConfig;
 import org.apache.metron.pcap.config.PcapConfig;
+import org.apache.metron.pcap.filter.fixed.FixedPcapFilter;
 
 public class FixedCliParser extends CliParser {
   private Options fixedOptions;
@@ -40,7 +41,7 @@ public class FixedCliParser extends CliParser {
     options.addOption(newOption("sp", "ip_src_port", true, "Source port"));
     options.addOption(newOption("dp", "ip_dst_port", true, "Destination port"));
     options.addOption(newOption("p", "protocol", true, "IP Protocol"));
-    options.addOption(newOption("pf", "packet_filter", true, "Packet Filter regex"));
+    options.addOption(newOption("pf", "packet_filter", true, "Packet Filter regex.  May be specified multiple times, in which case a packet matches if any regex matches."));
     options.addOption(newOption("pre", "prefix", true, "Result file prefix to use"));
     options.addOption(newOption("ir", "include_reverse", false, "Indicates if filter should check swapped src/dest addresses and IPs"));
     return options;
@@ -63,7 +64,10 @@ public class FixedCliParser extends CliParser {
     config.putFixedField(Constants.Fields.DST_PORT.getName(), commandLine.getOptionValue("ip_dst_port"));
     config.putFixedField(Constants.Fields.PROTOCOL.getName(), commandLine.getOptionValue("protocol"));
     config.putFixedField(Constants.Fields.INCLUDES_REVERSE_TRAFFIC.getName(), Boolean.toString(commandLine.hasOption("include_reverse")));
-    config.putFixedField(PcapHelper.PacketFields.PACKET_FILTER.getName(), commandLine.getOptionValue("packet_filter"));
+    String[] packetFilters = commandLine.getOptionValues("packet_filter");
+    config.putFixedField(PcapHelper.PacketFields.PACKET_FILTER.getName()
+                        , packetFilters == null ? null : String.join(FixedPcapFilter.PACKET_FILTER_SEPARATOR, packetFilters)
+                        );
     if(commandLine.hasOption("prefix")) {
       config.setFinalFilenamePrefix(commandLine.getOptionValue("prefix"));
     }
@@ -19,6 +19,8 @@
 package org.apache.metron.pcap.filter.fixed;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import javax.xml.bind.DatatypeConverter;
@@ -30,12 +32,19 @@ import org.apache.metron.pcap.filter.PcapFilter;
 import org.apache.metron.pcap.filter.PcapFilterConfigurator;
 import org.apache.metron.pcap.filter.PcapFilters;
 import org.apache.metron.pcap.pattern.ByteArrayMatchingUtil;
+import org.apache.metron.pcap.pattern.MultiPatternMatcher;
 import org.apache.metron.stellar.dsl.MapVariableResolver;
 import org.apache.metron.stellar.dsl.VariableResolver;
 
 
 public class FixedPcapFilter implements PcapFilter {
 
+  /**
+   * Multiple binary regexes may be passed as the packet filter, separated by newlines.  The packet
+   * passes the filter if any of them match.
+   */
+  public static final String PACKET_FILTER_SEPARATOR = "\n";
+
   public static class Configurator implements PcapFilterConfigurator<Map<String, String>> {
     @Override
     public void addToConfig(Map<String, String> fields, Configuration conf) {
@@ -53,6 +62,7 @@ public class FixedPcapFilter implements PcapFilter {
   }
 
   private String packetFilter;
+  private MultiPatternMatcher packetFilters;
   private String srcAddr;
   private Integer srcPort;
   private String dstAddr;
@@ -96,6 +106,15 @@ public class FixedPcapFilter implements PcapFilter {
       if(kv.getKey().equals(PcapHelper.PacketFields.PACKET_FILTER.getName())) {
         System.out.println("Processing: " + kv.getKey() + " => " + kv.getValue());
         this.packetFilter = kv.getValue();
+        if(packetFilter != null && packetFilter.contains(PACKET_FILTER_SEPARATOR)) {
+          List<String> patterns = Splitter.on(PACKET_FILTER_SEPARATOR).trimResults().omitEmptyStrings().splitToList(packetFilter);
+          try {
+            //compile once for the mapper rather than per packet
+            this.packetFilters = ByteArrayMatchingUtil.INSTANCE.getMultiPatternMatcher(patterns);
+          } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to compile binary filters: " + patterns, e);
+          }
+        }
       }
     }
   }
@@ -116,6 +135,9 @@ public class FixedPcapFilter implements PcapFilter {
       if(packetFilter != null) {
         //and we have a packet filter, then we need to filter the packet
         byte[] data = (byte[])resolver.resolve(PcapHelper.PacketFields.PACKET_DATA.getName());
+        if(packetFilters != null) {
+          return data != null && packetFilters.matchesAny(data);
+        }
         try {
           return ByteArrayMatchingUtil.INSTANCE.match(packetFilter, data);
         } catch (ExecutionException e) {
@@ -30,7 +30,8 @@ import java.util.concurrent.ExecutionException;
         ,name="MATCHER"
         ,description = "Determine if a regex defined sequence of bytes (or strings) exists in a byte array."
         ,params = {
-            "binary_regex - Regex defining what to look for in the byte array. Note syntax guide for binary regex is at https://github.com/nishihatapalmer/byteseek/blob/master/sequencesyntax.md"
+            "binary_regex - Regex defining what to look for in the byte array. Note syntax guide for binary regex is at https://github.com/nishihatapalmer/byteseek/blob/master/sequencesyntax.md" +
+            " A list of regexes may also be passed, in which case the byte array is scanned once and matches if any of the regexes match."
            ,"data - The byte array to evaluate."
                   }
         ,returns="result: Boolean indicating whether or not the byte array is a match."
@@ -41,10 +42,13 @@ public class ByteArrayMatcherFunction implements StellarFunction {
     if(args.size() != 2) {
       return new IllegalStateException("Expected 2 arguments: regex and data");
     }
-    String regex = (String)args.get(0);
+    Object regex = args.get(0);
     byte[] data = (byte[])args.get(1);
     try {
-      return ByteArrayMatchingUtil.INSTANCE.match(regex, data);
+      if(regex instanceof List) {
+        return ByteArrayMatchingUtil.INSTANCE.matchAny((List<String>)regex, data);
+      }
+      return ByteArrayMatchingUtil.INSTANCE.match((String)regex, data);
     }
     catch (ExecutionException e) {
       throw new IllegalStateException("Unable to process " + regex + " against " + DatatypeConverter.printHexBinary(data));
@@ -28,6 +28,9 @@ import net.byteseek.searcher.Searcher;
 import net.byteseek.searcher.sequence.horspool.BoyerMooreHorspoolSearcher;
 import net.byteseek.searcher.sequence.horspool.HorspoolFinalFlagSearcher;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -42,6 +45,15 @@ public enum ByteArrayMatchingUtil {
                       return new HorspoolFinalFlagSearcher(compile(pattern));
                     }
                   });
+  private LoadingCache<List<String>, MultiPatternMatcher> multiPatternMatchers = CacheBuilder.newBuilder()
+          .maximumSize(100)
+          .expireAfterAccess(10, TimeUnit.MINUTES)
+          .build(
+                  new CacheLoader<List<String>, MultiPatternMatcher>() {
+                    public MultiPatternMatcher load(List<String> patterns) throws Exception {
+                      return new MultiPatternMatcher(patterns);
+                    }
+                  });
   private SequenceMatcherCompiler compiler = new SequenceMatcherCompiler();
 
   private SequenceMatcher compile(String pattern) throws CompileException {
@@ -61,4 +73,39 @@ public enum ByteArrayMatchingUtil {
       return !searcher.searchForwards(data).isEmpty();
     }
   }
+
+  /**
+   * Compile (or retrieve the cached) automaton which matches any of the patterns in a single pass.
+   * @param patterns The binary regexes
+   * @return The multi-pattern matcher
+   */
+  public MultiPatternMatcher getMultiPatternMatcher(List<String> patterns) throws ExecutionException {
+    return multiPatternMatchers.get(Collections.unmodifiableList(new ArrayList<>(patterns)));
+  }
+
+  /**
+   * Determine which of the patterns match the data, scanning it only once.
+   * @param patterns The binary regexes
+   * @param data The data to search
+   * @return The patterns which match, in the order specified.
+   */
+  public List<String> matchAll(List<String> patterns, byte[] data) throws ExecutionException {
+    if(patterns == null || patterns.isEmpty() || data == null) {
+      return Collections.emptyList();
+    }
+    return getMultiPatternMatcher(patterns).matches(data);
+  }
+
+  /**
+   * Determine whether any of the patterns match the data, scanning it only once.
+   * @param patterns The binary regexes
+   * @param data The data to search
+   * @return true if at least one pattern matches.
+   */
+  public boolean matchAny(List<String> patterns, byte[] data) throws ExecutionException {
+    if(patterns == null || patterns.isEmpty() || data == null) {
+      return false;
+    }
+    return getMultiPatternMatcher(patterns).matchesAny(data);
+  }
 }
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.pcap.pattern;
+
+import org.apache.metron.stellar.dsl.Context;
+import org.apache.metron.stellar.dsl.ParseException;
+import org.apache.metron.stellar.dsl.Stellar;
+import org.apache.metron.stellar.dsl.StellarFunction;
+
+import javax.xml.bind.DatatypeConverter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+@Stellar(namespace="BYTEARRAY"
+        ,name="MATCHES"
+        ,description = "Determine which of a list of regex defined sequences of bytes (or strings) exist in a byte array." +
+                       " The byte array is scanned once, regardless of the number of regexes."
+        ,params = {
+            "binary_regexes - List of regexes defining what to look for in the byte array. Note syntax guide for binary regex is at https://github.com/nishihatapalmer/byteseek/blob/master/sequencesyntax.md"
+           ,"data - The byte array to evaluate."
+                  }
+        ,returns="result: The list of regexes which match the byte array, in the order given."
+        )
+public class ByteArrayMultiMatcherFunction implements StellarFunction {
+  @Override
+  public Object apply(List<Object> args, Context context) throws ParseException {
+    if(args.size() != 2) {
+      throw new IllegalStateException("Expected 2 arguments: regexes and data");
+    }
+    Object regexes = args.get(0);
+    byte[] data = (byte[])args.get(1);
+    List<String> patterns;
+    if(regexes instanceof List) {
+      patterns = (List<String>) regexes;
+    }
+    else if(regexes == null) {
+      return Collections.emptyList();
+    }
+    else {
+      patterns = Collections.singletonList((String)regexes);
+    }
+    try {
+      return ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, data);
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Unable to process " + patterns + " against " + DatatypeConverter.printHexBinary(data), e);
+    }
+  }
+
+  @Override
+  public void initialize(Context context) {
+
+  }
+
+  @Override
+  public boolean isInitialized() {
+    return true;
+  }
+}
@@ -0,0 +1,351 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.pcap.pattern;
+
+import net.byteseek.compiler.CompileException;
+import net.byteseek.compiler.matcher.SequenceMatcherCompiler;
+import net.byteseek.matcher.bytes.ByteMatcher;
+import net.byteseek.matcher.sequence.SequenceMatcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Matches a set of binary regexes against a byte array in a single pass.
+ *
+ * <p>Each pattern is compiled by byteseek into a fixed length {@link SequenceMatcher}.  From each
+ * matcher we pick an "anchor": the longest window of positions whose byte classes expand into
+ * at most {@link #MAX_ANCHOR_EXPANSION} literal byte strings.  All of the anchor strings for all of the
+ * patterns are loaded into an Aho-Corasick automaton, so the payload is scanned exactly once regardless
+ * of the number of patterns.  When an anchor is seen, the full sequence matcher for its pattern is verified
+ * at the implied start offset.
+ *
+ * <p>Instances are immutable and thread safe once constructed.
+ */
+public class MultiPatternMatcher {
+
+  /**
+   * The maximum number of literal strings that a single pattern's anchor may expand into.  If no
+   * window satisfies this bound, the single position with the fewest matching bytes is used.
+   */
+  public static final int MAX_ANCHOR_EXPANSION = 64;
+
+  private static final int ALPHABET = 256;
+
+  private final List<String> patterns;
+  private final SequenceMatcher[] matchers;
+
+  /**
+   * The fully computed transition table, ALPHABET entries per state.
+   */
+  private final int[] transitions;
+
+  /**
+   * For each state, the ids of the anchors which end at that state (including those reached by failure links).
+   */
+  private final int[][] outputs;
+
+  /**
+   * For each anchor id, the pattern it belongs to.
+   */
+  private final int[] anchorPattern;
+
+  /**
+   * For each anchor id, the distance from the last byte of the anchor back to the start of the pattern.
+   */
+  private final int[] anchorBack;
+
+  public MultiPatternMatcher(List<String> patterns) throws CompileException {
+    this.patterns = Collections.unmodifiableList(new ArrayList<>(patterns));
+    SequenceMatcherCompiler compiler = new SequenceMatcherCompiler();
+    this.matchers = new SequenceMatcher[this.patterns.size()];
+    for(int i = 0;i < matchers.length;++i) {
+      matchers[i] = compiler.compile(this.patterns.get(i));
+    }
+
+    TrieBuilder builder = new TrieBuilder();
+    List<Integer> patternIds = new ArrayList<>();
+    List<Integer> backs = new ArrayList<>();
+    for(int i = 0;i < matchers.length;++i) {
+      SequenceMatcher matcher = matchers[i];
+      if(matcher.length() == 0) {
+        continue;
+      }
+      int[] window = chooseAnchor(matcher);
+      int start = window[0];
+      int end = window[1];
+      for(byte[] literal : expand(matcher, start, end)) {
+        int anchorId = patternIds.size();
+        patternIds.add(i);
+        backs.add(end - 1);
+        builder.add(literal, anchorId);
+      }
+    }
+    this.anchorPattern = toArray(patternIds);
+    this.anchorBack = toArray(backs);
+    builder.link();
+    this.transitions = builder.transitions();
+    this.outputs = builder.outputs();
+  }
+
+  public List<String> getPatterns() {
+    return patterns;
+  }
+
+  /**
+   * Scans the data once and returns the patterns which matched, in the order they were specified.
+   * @param data The data to scan
+   * @return The matching patterns, an empty list if none match.
+   */
+  public List<String> matches(byte[] data) {
+    boolean[] hits = scan(data, false);
+    if(hits == null) {
+      return Collections.emptyList();
+    }
+    List<String> ret = new ArrayList<>();
+    for(int i = 0;i < hits.length;++i) {
+      if(hits[i]) {
+        ret.add(patterns.get(i));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Scans the data, stopping at the first match.
+   * @param data The data to scan
+   * @return true if any pattern matched
+   */
+  public boolean matchesAny(byte[] data) {
+    return scan(data, true) != null;
+  }
+
+  private boolean[] scan(byte[] data, boolean stopOnFirst) {
+    if(data == null || anchorPattern.length == 0) {
+      return null;
+    }
+    boolean[] hits = null;
+    int remaining = matchers.length;
+    int state = 0;
+    for(int pos = 0;pos < data.length;++pos) {
+      state = transitions[(state << 8) | (data[pos] & 0xff)];
+      int[] out = outputs[state];
+      if(out == null) {
+        continue;
+      }
+      for(int anchorId : out) {
+        int patternId = anchorPattern[anchorId];
+        if(hits != null && hits[patternId]) {
+          continue;
+        }
+        int start = pos - anchorBack[anchorId];
+        SequenceMatcher matcher = matchers[patternId];
+        if(start >= 0 && start + matcher.length() <= data.length && matcher.matchesNoBoundsCheck(data, start)) {
+          if(hits == null) {
+            hits = new boolean[matchers.length];
+          }
+          hits[patternId] = true;
+          if(stopOnFirst || --remaining == 0) {
+            return hits;
+          }
+        }
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Find the longest window [start, end) of the matcher whose expansion is bounded by MAX_ANCHOR_EXPANSION.
+   * Ties are broken by the smaller expansion.
+   */
+  private static int[] chooseAnchor(SequenceMatcher matcher) {
+    int length = matcher.length();
+    int[] sizes = new int[length];
+    for(int i = 0;i < length;++i) {
+      sizes[i] = matcher.getMatcherForPosition(i).getNumberOfMatchingBytes();
+    }
+    int bestStart = -1;
+    int bestEnd = -1;
+    long bestExpansion = Long.MAX_VALUE;
+    int start = 0;
+    long expansion = 1;
+    for(int end = 0;end < length;++end) {
+      expansion *= sizes[end];
+      while(start <= end && expansion > MAX_ANCHOR_EXPANSION) {
+        expansion /= sizes[start++];
+      }
+      if(start > end) {
+        expansion = 1;
+        continue;
+      }
+      int windowLength = end - start + 1;
+      int bestLength = bestEnd - bestStart;
+      if(windowLength > bestLength || (windowLength == bestLength && expansion < bestExpansion)) {
+        bestStart = start;
+        bestEnd = end + 1;
+        bestExpansion = expansion;
+      }
+    }
+    if(bestStart < 0) {
+      //every position is too broad on its own, so take the narrowest one.
+      int narrowest = 0;
+      for(int i = 1;i < length;++i) {
+        if(sizes[i] < sizes[narrowest]) {
+          narrowest = i;
+        }
+      }
+      bestStart = narrowest;
+      bestEnd = narrowest + 1;
+    }
+    return new int[] { bestStart, bestEnd };
+  }
+
+  private static List<byte[]> expand(SequenceMatcher matcher, int start, int end) {
+    List<byte[]> ret = new ArrayList<>();
+    ret.add(new byte[end - start]);
+    for(int i = start;i < end;++i) {
+      ByteMatcher byteMatcher = matcher.getMatcherForPosition(i);
+      byte[] matching = byteMatcher.getMatchingBytes();
+      List<byte[]> next = new ArrayList<>(ret.size()*matching.length);
+      for(byte[] prefix : ret) {
+        for(byte b : matching) {
+          byte[] literal = prefix.clone();
+          literal[i - start] = b;
+          next.add(literal);
+        }
+      }
+      ret = next;
+    }
+    return ret;
+  }
+
+  private static int[] toArray(List<Integer> l) {
+    int[] ret = new int[l.size()];
+    for(int i = 0;i < ret.length;++i) {
+      ret[i] = l.get(i);
+    }
+    return ret;
+  }
+
+  /**
+   * Builds the goto/failure structure of the automaton and collapses it into a full transition table.
+   */
+  private static class TrieBuilder {
+    private final List<int[]> gotos = new ArrayList<>();
+    private final List<List<Integer>> outs = new ArrayList<>();
+    private int[] fail;
+
+    TrieBuilder() {
+      newState();
+    }
+
+    private int newState() {
+      int[] row = new int[ALPHABET];
+      Arrays.fill(row, -1);
+      gotos.add(row);
+      outs.add(null);
+      return gotos.size() - 1;
+    }
+
+    void add(byte[] literal, int anchorId) {
+      int state = 0;
+      for(byte b : literal) {
+        int c = b & 0xff;
+        int next = gotos.get(state)[c];
+        if(next < 0) {
+          next = newState();
+          gotos.get(state)[c] = next;
+        }
+        state = next;
+      }
+      addOutput(state, anchorId);
+    }
+
+    private void addOutput(int state, int anchorId) {
+      List<Integer> out = outs.get(state);
+      if(out == null) {
+        out = new ArrayList<>();
+        outs.set(state, out);
+      }
+      out.add(anchorId);
+    }
+
+    /**
+     * Breadth first computation of the failure links, after which every missing goto
+     * is replaced by the transition of the failure state.
+     */
+    void link() {
+      fail = new int[gotos.size()];
+      Deque<Integer> queue = new ArrayDeque<>();
+      int[] root = gotos.get(0);
+      for(int c = 0;c < ALPHABET;++c) {
+        if(root[c] < 0) {
+          root[c] = 0;
+        }
+        else {
+          fail[root[c]] = 0;
+          queue.add(root[c]);
+        }
+      }
+      while(!queue.isEmpty()) {
+        int state = queue.poll();
+        List<Integer> inherited = outs.get(fail[state]);
+        if(inherited != null) {
+          for(int anchorId : inherited) {
+            addOutput(state, anchorId);
+          }
+        }
+        int[] row = gotos.get(state);
+        int[] failRow = gotos.get(fail[state]);
+        for(int c = 0;c < ALPHABET;++c) {
+          int next = row[c];
+          if(next < 0) {
+            row[c] = failRow[c];
+          }
+          else {
+            fail[next] = failRow[c];
+            queue.add(next);
+          }
+        }
+      }
+    }
+
+    int[] transitions() {
+      int[] ret = new int[gotos.size()*ALPHABET];
+      for(int state = 0;state < gotos.size();++state) {
+        System.arraycopy(gotos.get(state), 0, ret, state*ALPHABET, ALPHABET);
+      }
+      return ret;
+    }
+
+    int[][] outputs() {
+      int[][] ret = new int[outs.size()][];
+      for(int state = 0;state < outs.size();++state) {
+        List<Integer> out = outs.get(state);
+        if(out != null) {
+          ret[state] = toArray(out);
+        }
+      }
+      return ret;
+    }
+  }
+}
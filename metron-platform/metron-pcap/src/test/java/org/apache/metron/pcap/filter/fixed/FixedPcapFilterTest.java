@@ -21,14 +21,17 @@ package org.apache.metron.pcap.filter.fixed;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.metron.common.Constants;
 import org.apache.metron.pcap.PacketInfo;
+import org.apache.metron.pcap.PcapHelper;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -332,4 +335,37 @@ public class FixedPcapFilterTest {
     }
   }
 
+  @Test
+  public void testMultiplePacketFilters() {
+    Configuration config = new Configuration();
+    final Map<String, String> fields = new HashMap<String, String>() {{
+      put(PcapHelper.PacketFields.PACKET_FILTER.getName(), "`casey`" + FixedPcapFilter.PACKET_FILTER_SEPARATOR + "deadbeef");
+    }};
+    new FixedPcapFilter.Configurator().addToConfig(fields, config);
+    for(String payload : new String[] { "hello casey", "metron" }) {
+      FixedPcapFilter filter = new FixedPcapFilter() {
+        @Override
+        protected Map<String, Object> packetToFields(PacketInfo pi) {
+          return new HashMap<String, Object>() {{
+            put(PcapHelper.PacketFields.PACKET_DATA.getName(), payload.getBytes(StandardCharsets.UTF_8));
+          }};
+        }
+      };
+      filter.configure(config);
+      assertEquals(payload.contains("casey"), filter.test(null));
+    }
+    {
+      FixedPcapFilter filter = new FixedPcapFilter() {
+        @Override
+        protected Map<String, Object> packetToFields(PacketInfo pi) {
+          return new HashMap<String, Object>() {{
+            put(PcapHelper.PacketFields.PACKET_DATA.getName(), new byte[] { 0x00, (byte)0xde, (byte)0xad, (byte)0xbe, (byte)0xef });
+          }};
+        }
+      };
+      filter.configure(config);
+      assertTrue(filter.test(null));
+    }
+  }
+
 }
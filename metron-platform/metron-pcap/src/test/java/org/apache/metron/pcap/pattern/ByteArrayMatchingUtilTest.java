@@ -18,17 +18,20 @@
 package org.apache.metron.pcap.pattern;
 
 import org.apache.metron.stellar.common.utils.StellarProcessorUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import javax.xml.bind.DatatypeConverter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -63,6 +66,20 @@ public class ByteArrayMatchingUtilTest {
         throw new IllegalArgumentException(e);
       }
     })
+    , MULTI_PATTERN_UTIL((pattern, data) -> {
+      try {
+        return ByteArrayMatchingUtil.INSTANCE.matchAny(Arrays.asList(pattern, "`never gonna match`"), data);
+      } catch (ExecutionException e) {
+        throw new IllegalArgumentException(e);
+      }
+    })
+    , STELLAR_MULTI_PATTERN((pattern, data) -> {
+       Map<String, Object> args = new HashMap<>();
+       args.put("pattern", pattern);
+       args.put("data", data);
+       return !((List<String>) StellarProcessorUtils.run("BYTEARRAY_MATCHES([pattern], data)" , args)).isEmpty();
+     }
+    )
     ;
     Evaluator evaluator;
     EvaluationStrategy(Evaluator evaluator) {
@@ -113,6 +130,38 @@ public class ByteArrayMatchingUtilTest {
     assertTrue(strategy.evaluate("(dead).{2}(beef)", DEADBEEF_DONUTHOLE));
   }
 
+  @Test
+  public void testMultiPatternReportsHits() throws Exception {
+    List<String> patterns = Arrays.asList("`metron`", "deadbeef", "`apache`", "(dead).{2}(beef)", "2f56..14bc56420489ca38e7faf8cec3d4");
+    assertEquals(Arrays.asList("`metron`", "deadbeef")
+                , ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, join(DEADBEEF, "metronjones".getBytes(StandardCharsets.UTF_8)))
+                );
+    assertEquals(Arrays.asList("(dead).{2}(beef)")
+                , ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, DEADBEEF_DONUTHOLE)
+                );
+    assertEquals(Arrays.asList("2f56..14bc56420489ca38e7faf8cec3d4")
+                , ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, REALPACKET)
+                );
+    assertEquals(Arrays.asList("`apache`")
+                , ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, "apache".getBytes(StandardCharsets.UTF_8))
+                );
+    assertTrue(ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, new byte[] {}).isEmpty());
+    assertTrue(ByteArrayMatchingUtil.INSTANCE.matchAll(patterns, null).isEmpty());
+    //the compiled automaton is cached
+    assertTrue(ByteArrayMatchingUtil.INSTANCE.getMultiPatternMatcher(patterns) == ByteArrayMatchingUtil.INSTANCE.getMultiPatternMatcher(patterns));
+  }
+
+  @Test
+  public void testMultiPatternStellar() {
+    Map<String, Object> args = new HashMap<>();
+    args.put("data", join(DEADBEEF, "metron".getBytes(StandardCharsets.UTF_8)));
+    assertEquals(Arrays.asList("deadbeef", "`metron`")
+                , StellarProcessorUtils.run("BYTEARRAY_MATCHES(['`apache`', 'deadbeef', '`metron`'], data)", args)
+                );
+    assertTrue((boolean)StellarProcessorUtils.run("BYTEARRAY_MATCHER(['`apache`', '`metron`'], data)", args));
+    assertFalse((boolean)StellarProcessorUtils.run("BYTEARRAY_MATCHER(['`apache`', 'beefdead'], data)", args));
+  }
+
   public byte[] join(byte[]... array) {
     byte[] ret;
     int size = 0;
@@ -20,6 +20,7 @@ package org.apache.metron.writer;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.metron.common.configuration.writer.WriterConfiguration;
+import org.apache.metron.common.performance.LatencyMetrics;
 import org.apache.metron.common.system.Clock;
 import org.apache.metron.common.writer.BulkMessageWriter;
 import org.apache.metron.common.writer.BulkMessage;
@@ -116,6 +117,7 @@ public class BulkWriterComponent<MESSAGE_T> {
                     )
   {
     long startTime = System.currentTimeMillis(); //no need to mock, so use real time
+    long startNanos = System.nanoTime();
     BulkWriterResponse response = new BulkWriterResponse();
 
     Collection<MessageId> ids = messages.stream().map(BulkMessage::getId).collect(Collectors.toList());
@@ -129,6 +131,7 @@ public class BulkWriterComponent<MESSAGE_T> {
     } catch (Throwable e) {
       response.addAllErrors(e, ids);
     } finally {
+      LatencyMetrics.INSTANCE.recorder(LatencyMetrics.WRITE, bulkMessageWriter.getName(), sensorType).recordSince(startNanos);
       onFlush(sensorType, response);
     }
     long endTime = System.currentTimeMillis();
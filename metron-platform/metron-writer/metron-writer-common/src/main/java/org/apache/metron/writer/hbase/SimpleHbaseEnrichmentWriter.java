@@ -26,6 +26,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
+import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.metron.common.configuration.writer.WriterConfiguration;
@@ -48,6 +52,10 @@ import java.util.stream.Collectors;
 
 /**
  * Used primarily for streaming enrichments.
+ *
+ * <p>Puts are written through a {@link BufferedMutator}, so they are sent to HBase in the background
+ * as the write buffer fills, while the rest of the batch is still being converted.  Each message whose
+ * put fails is reported as an error, rather than failing the whole batch.
  */
 public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkMessageWriter<JSONObject>, Serializable {
 
@@ -61,6 +69,7 @@ public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkM
     ,ENRICHMENT_TYPE("shew.enrichmentType")
     ,VALUE_COLUMNS("shew.valueColumns")
     ,HBASE_PROVIDER("shew.hbaseProvider")
+    ,WRITE_BUFFER_SIZE("shew.writeBufferSize")
     ;
     String key;
     Configurations(String key) {
@@ -119,7 +128,14 @@ public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkM
   private String tableName;
   private String cf;
   private Table table;
+  private transient BufferedMutator mutator;
+  private long writeBufferSize;
   private TableProvider provider;
+
+  /**
+   * The puts which the BufferedMutator failed to write, and why.
+   */
+  private final Map<Row, Throwable> failures = Collections.synchronizedMap(new IdentityHashMap<>());
   private Map.Entry<Object, KeyTransformer> keyTransformer;
 
   public SimpleHbaseEnrichmentWriter() {
@@ -201,6 +217,7 @@ public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkM
       {
         Configuration conf = HBaseConfiguration.create();
         //new table connection
+        closeMutator();
         if(table != null) {
           table.close();
         }
@@ -220,6 +237,46 @@ public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkM
 
   }
 
+  /**
+   * Returns the BufferedMutator that writes to the configured table.
+   *
+   * @param config The sensor config.  The write buffer size defaults to that of the HBase client.
+   */
+  public BufferedMutator getBufferedMutator(Map<String, Object> config) throws IOException {
+    Table table = getTable(config);
+    Object sizeObj = config.get(Configurations.WRITE_BUFFER_SIZE.getKey());
+    long size = sizeObj == null ? 0 : ConversionUtils.convert(sizeObj, Long.class);
+    synchronized(this) {
+      if(mutator == null || size != writeBufferSize) {
+        closeMutator();
+        BufferedMutatorParams params = new BufferedMutatorParams(TableName.valueOf(tableName))
+                .listener((e, m) -> {
+                  for(int i = 0; i < e.getNumExceptions(); i++) {
+                    failures.put(e.getRow(i), e.getCause(i));
+                  }
+                });
+        if(size > 0) {
+          params.writeBufferSize(size);
+        }
+        LOG.debug("Creating buffered mutator for table '{}', write buffer size: '{}'", table.getName(), size);
+        mutator = getProvider().getBufferedMutator(HBaseConfiguration.create(), params);
+        writeBufferSize = size;
+      }
+      return mutator;
+    }
+  }
+
+  private synchronized void closeMutator() throws IOException {
+    if(mutator != null) {
+      try {
+        mutator.close();
+      } finally {
+        mutator = null;
+        failures.clear();
+      }
+    }
+  }
+
 
   private List<String> getColumns(Object keyColumnsObj, boolean allowNull) {
     Object o = keyColumnsObj;
@@ -321,34 +378,49 @@ public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkM
                     ) throws Exception
   {
     Map<String, Object> sensorConfig = configurations.getSensorConfig(sensorType);
-    Table table = getTable(sensorConfig);
+    BufferedMutator mutator = getBufferedMutator(sensorConfig);
     KeyTransformer transformer = getTransformer(sensorConfig);
     Object enrichmentTypeObj = Configurations.ENRICHMENT_TYPE.get(sensorConfig);
     String enrichmentType = enrichmentTypeObj == null?null:enrichmentTypeObj.toString();
     Set<String> valueColumns = new HashSet<>(getColumns(Configurations.VALUE_COLUMNS.get(sensorConfig), true));
-    List<Put> puts = new ArrayList<>();
-    for(BulkMessage<JSONObject> bulkWriterMessage : messages) {
-      EnrichmentKey key = getKey(bulkWriterMessage.getMessage(), transformer, enrichmentType);
-      EnrichmentValue value = getValue(bulkWriterMessage.getMessage(), transformer.keySet, valueColumns);
-      if(key == null || value == null) {
-        continue;
-      }
-      Put put = converter.toPut(this.cf, key, value);
-      if(put != null) {
-        LOG.debug("Put: {Column Family: '{}', Key: '{}', Value: '{}'}", this.cf, key, value);
-        puts.add(put);
-      }
-    }
+    Map<Put, MessageId> puts = new IdentityHashMap<>();
     Set<MessageId> ids = messages.stream().map(BulkMessage::getId).collect(Collectors.toSet());
     BulkWriterResponse response = new BulkWriterResponse();
     try {
-      table.put(puts);
+      for(BulkMessage<JSONObject> bulkWriterMessage : messages) {
+        EnrichmentKey key = getKey(bulkWriterMessage.getMessage(), transformer, enrichmentType);
+        EnrichmentValue value = getValue(bulkWriterMessage.getMessage(), transformer.keySet, valueColumns);
+        if(key == null || value == null) {
+          continue;
+        }
+        Put put = converter.toPut(this.cf, key, value);
+        if(put != null) {
+          LOG.debug("Put: {Column Family: '{}', Key: '{}', Value: '{}'}", this.cf, key, value);
+          puts.put(put, bulkWriterMessage.getId());
+          mutator.mutate(put);
+        }
+      }
+      mutator.flush();
     } catch (Exception e) {
+      // which of the puts were written is unknown
+      puts.keySet().forEach(failures::remove);
       response.addAllErrors(e, ids);
       return response;
     }
 
-    // Can return no errors, because put will throw Exception on error.
+    // each put that failed was passed to the listener; the rest were written
+    int failed = 0;
+    for(Map.Entry<Put, MessageId> put : puts.entrySet()) {
+      Throwable cause = failures.remove(put.getKey());
+      if(cause != null) {
+        response.addError(cause, put.getValue());
+        ids.remove(put.getValue());
+        failed++;
+      }
+    }
+    if(failed > 0) {
+      LOG.error("Failed to write {} of {} enrichment(s) to HBase", failed, puts.size());
+    }
     response.addAllSuccesses(ids);
     return response;
   }
@@ -361,8 +433,12 @@ public class SimpleHbaseEnrichmentWriter extends AbstractWriter implements BulkM
   @Override
   public void close() throws Exception {
     synchronized(this) {
-      if(table != null) {
-        table.close();
+      try {
+        closeMutator();
+      } finally {
+        if(table != null) {
+          table.close();
+        }
       }
     }
   }
@@ -34,8 +34,10 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.metron.common.Constants;
 import org.apache.metron.common.configuration.writer.WriterConfiguration;
+import org.apache.metron.common.message.WireFormat;
 import org.apache.metron.common.utils.KafkaUtils;
 import org.apache.metron.common.utils.StringUtils;
 import org.apache.metron.common.writer.BulkMessageWriter;
@@ -58,6 +60,7 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
     ,REQUIRED_ACKS("kafka.requiredAcks")
     ,TOPIC("kafka.topic")
     ,TOPIC_FIELD("kafka.topicField")
+    ,WIRE_FORMAT("kafka.wireFormat")
     ,PRODUCER_CONFIGS("kafka.producerConfigs");
     ;
     String key;
@@ -90,6 +93,7 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
   private int requiredAcks = 1;
   private String kafkaTopic = Constants.ENRICHMENT_TOPIC;
   private String kafkaTopicField = null;
+  private WireFormat wireFormat = WireFormat.JSON;
   private KafkaProducer kafkaProducer;
   private String configPrefix = null;
   private String zkQuorum = null;
@@ -135,6 +139,14 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
     return this;
   }
 
+  /**
+   * @param wireFormat The name of the {@link WireFormat} to write messages in.
+   */
+  public KafkaWriter withWireFormat(String wireFormat) {
+    this.wireFormat = WireFormat.of(wireFormat);
+    return this;
+  }
+
   public KafkaWriter withConfigPrefix(String prefix) {
     this.configPrefix = prefix;
     return this;
@@ -192,6 +204,10 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
     if(topicField != null) {
       withTopicField(topicField);
     }
+    String wireFormat = Configurations.WIRE_FORMAT.getAndConvert(getConfigPrefix(), configMap, String.class);
+    if(wireFormat != null) {
+      withWireFormat(wireFormat);
+    }
     Map<String, Object> producerConfigs = (Map)Configurations.PRODUCER_CONFIGS.get(getConfigPrefix(), configMap);
     if(producerConfigs != null) {
       withProducerConfigs(producerConfigs);
@@ -219,6 +235,15 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
     producerConfig.put("request.required.acks", requiredAcks);
     producerConfig.put(ProducerConfig.BATCH_SIZE_CONFIG, DEFAULT_BATCH_SIZE);
     producerConfig.putAll(producerConfigs == null?new HashMap<>():producerConfigs);
+    if(wireFormat != WireFormat.JSON) {
+      // binary formats are sent as they are, whatever serializer the producer configs ask for
+      Object configured = producerConfigs == null ? null : producerConfigs.get("value.serializer");
+      if(configured != null && !ByteArraySerializer.class.getName().equals(configured)) {
+        LOG.warn("Ignoring value.serializer {}; the {} wire format is always written with {}",
+                configured, wireFormat, ByteArraySerializer.class.getName());
+      }
+      producerConfig.put("value.serializer", ByteArraySerializer.class.getName());
+    }
     producerConfig = KafkaUtils.INSTANCE.normalizeProtocol(producerConfig);
     return producerConfig;
   }
@@ -244,9 +269,9 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
     for (BulkMessage<JSONObject> bulkWriterMessage: messages) {
       MessageId messageId = bulkWriterMessage.getId();
       JSONObject message = bulkWriterMessage.getMessage();
-      String jsonMessage;
+      Object value;
       try {
-         jsonMessage = message.toJSONString();
+         value = wireFormat == WireFormat.JSON ? message.toJSONString() : wireFormat.write(message);
       } catch (Throwable t) {
         writerResponse.addError(t, messageId);
         continue;
@@ -254,12 +279,12 @@ public class KafkaWriter extends AbstractWriter implements BulkMessageWriter<JSO
       Optional<String> topic = getKafkaTopic(message);
       if(topic.isPresent()) {
         Future future = kafkaProducer
-            .send(new ProducerRecord<String, String>(topic.get(), jsonMessage));
+            .send(new ProducerRecord<>(topic.get(), value));
         // we want to manage the batching
         results.add(new AbstractMap.SimpleEntry<>(messageId, future));
       }
       else {
-        LOG.debug("Dropping {} because no topic is specified.", jsonMessage);
+        LOG.debug("Dropping {} because no topic is specified.", message);
       }
     }
 
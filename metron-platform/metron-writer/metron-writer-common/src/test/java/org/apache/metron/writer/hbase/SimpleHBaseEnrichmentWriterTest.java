@@ -20,14 +20,20 @@ package org.apache.metron.writer.hbase;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.client.Table;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.metron.common.configuration.writer.WriterConfiguration;
 import org.apache.metron.common.writer.BulkMessage;
+import org.apache.metron.common.writer.BulkWriterResponse;
+import org.apache.metron.common.writer.MessageId;
 import org.apache.metron.enrichment.converter.EnrichmentConverter;
 import org.apache.metron.enrichment.converter.EnrichmentKey;
 import org.apache.metron.enrichment.converter.EnrichmentValue;
 import org.apache.metron.enrichment.lookup.LookupKV;
+import org.apache.metron.hbase.TableProvider;
 import org.apache.metron.hbase.mock.MockHBaseTableProvider;
 import org.apache.metron.hbase.mock.MockHTable;
 import org.json.simple.JSONObject;
@@ -51,6 +57,34 @@ public class SimpleHBaseEnrichmentWriterTest {
     put(SimpleHbaseEnrichmentWriter.Configurations.HBASE_PROVIDER.getKey(), MockHBaseTableProvider.class.getName());
   }};
 
+  /**
+   * Provides a table which fails to write the enrichment for the indicator 'bad'.
+   */
+  public static class FailingTableProvider implements TableProvider {
+    @Override
+    public Table getTable(org.apache.hadoop.conf.Configuration config, String tableName) {
+      byte[] badRow = new EnrichmentKey(ENRICHMENT_TYPE, "bad").toBytes();
+      return new MockHTable(tableName, TABLE_CF) {
+        @Override
+        public void batch(List<? extends Row> actions, Object[] results) throws IOException {
+          boolean failed = false;
+          for (int i = 0; i < actions.size(); i++) {
+            if (Arrays.equals(badRow, actions.get(i).getRow())) {
+              results[i] = new IOException("Unable to write");
+              failed = true;
+            } else {
+              put((Put) actions.get(i));
+              results[i] = new Result();
+            }
+          }
+          if (failed) {
+            throw new IOException("Some writes failed");
+          }
+        }
+      };
+    }
+  }
+
   @BeforeEach
   public void setupMockTable() {
     MockHBaseTableProvider.addToCache(TABLE_NAME, TABLE_CF);
@@ -81,6 +115,32 @@ public class SimpleHBaseEnrichmentWriterTest {
     assertEquals(2, values.get(0).getValue().getMetadata().size());
   }
 
+  @Test
+  public void testPartialFailure() throws Exception {
+    SimpleHbaseEnrichmentWriter writer = new SimpleHbaseEnrichmentWriter();
+    WriterConfiguration configuration = createConfig(3,
+            new HashMap<String, Object>(BASE_WRITER_CONFIG) {{
+              put(SimpleHbaseEnrichmentWriter.Configurations.KEY_COLUMNS.getKey(), "ip");
+              put(SimpleHbaseEnrichmentWriter.Configurations.HBASE_PROVIDER.getKey(), FailingTableProvider.class.getName());
+              put(SimpleHbaseEnrichmentWriter.Configurations.WRITE_BUFFER_SIZE.getKey(), 1024);
+            }}
+    );
+    writer.configure(SENSOR_TYPE, configuration);
+
+    BulkWriterResponse response = writer.write(SENSOR_TYPE, configuration, Arrays.asList(
+            new BulkMessage<>("good1", new JSONObject(ImmutableMap.of("ip", "good1", "user", "a"))),
+            new BulkMessage<>("bad", new JSONObject(ImmutableMap.of("ip", "bad", "user", "b"))),
+            new BulkMessage<>("good2", new JSONObject(ImmutableMap.of("ip", "good2", "user", "c")))
+    ));
+
+    // only the message whose put failed is an error
+    assertEquals(1, response.getErrors().size());
+    Collection<MessageId> failed = response.getErrors().values().iterator().next();
+    assertEquals(Collections.singletonList(new MessageId("bad")), new ArrayList<>(failed));
+    assertEquals(new HashSet<>(Arrays.asList(new MessageId("good1"), new MessageId("good2"))),
+            new HashSet<>(response.getSuccesses()));
+  }
+
   @Test
   public void testFilteredKey() throws Exception {
     final String sensorType = "dummy";
@@ -27,12 +27,14 @@ import org.apache.metron.common.configuration.ParserConfigurations;
 import org.apache.metron.common.configuration.SensorParserConfig;
 import org.apache.metron.common.configuration.writer.ParserWriterConfiguration;
 import org.apache.metron.common.configuration.writer.WriterConfiguration;
+import org.apache.metron.common.message.WireFormat;
 import org.apache.metron.common.writer.BulkMessage;
 import org.apache.metron.common.writer.BulkWriterResponse;
 import org.apache.metron.common.writer.MessageId;
 import org.json.simple.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -107,6 +109,52 @@ public class KafkaWriterTest {
     assertEquals(producerConfigs.get("key2"), "value2");
   }
 
+  @Test
+  public void testSmileWireFormat() throws Exception {
+    KafkaWriter writer = new KafkaWriter();
+    writer.configure(SENSOR_TYPE, createConfiguration(
+            new HashMap<String, Object>() {{
+              put("kafka.brokerUrl" , "localhost:6667");
+              put("kafka.topic" , SENSOR_TYPE);
+              put("kafka.wireFormat" , "smile");
+            }}
+    ));
+    assertEquals("org.apache.kafka.common.serialization.ByteArraySerializer",
+            writer.createProducerConfigs().get("value.serializer"));
+
+    writer.setKafkaProducer(kafkaProducer);
+    Future future = mock(Future.class);
+    when(kafkaProducer.send(any())).thenReturn(future);
+    JSONObject message = new JSONObject();
+    message.put("value", "success");
+    message.put("count", 3L);
+    BulkWriterResponse response = writer.write(SENSOR_TYPE, createConfiguration(new HashMap<>()),
+            Collections.singletonList(new BulkMessage<>("messageId", message)));
+    assertTrue(response.getSuccesses().contains(new MessageId("messageId")));
+
+    ArgumentCaptor<ProducerRecord> record = ArgumentCaptor.forClass(ProducerRecord.class);
+    verify(kafkaProducer, times(1)).send(record.capture());
+    assertEquals(SENSOR_TYPE, record.getValue().topic());
+    byte[] value = (byte[]) record.getValue().value();
+    assertEquals(WireFormat.SMILE, WireFormat.detect(value));
+    assertEquals(message, WireFormat.SMILE.read(value));
+  }
+
+  @Test
+  public void testSmileWireFormatIgnoresValueSerializerInProducerConfigs() throws Exception {
+    KafkaWriter writer = new KafkaWriter();
+    writer.configure(SENSOR_TYPE, createConfiguration(
+            new HashMap<String, Object>() {{
+              put("kafka.brokerUrl" , "localhost:6667");
+              put("kafka.topic" , SENSOR_TYPE);
+              put("kafka.wireFormat" , "smile");
+              put("kafka.producerConfigs" , ImmutableMap.of("value.serializer", "org.apache.kafka.common.serialization.StringSerializer"));
+            }}
+    ));
+    assertEquals("org.apache.kafka.common.serialization.ByteArraySerializer",
+            writer.createProducerConfigs().get("value.serializer"));
+  }
+
   @Test
   public void testTopicField_bothTopicAndFieldSpecified() throws Exception {
     KafkaWriter writer = new KafkaWriter();
@@ -0,0 +1,305 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.common.network;
+
+import com.google.common.net.InetAddresses;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A binary prefix trie of IPv4 and IPv6 ranges in CIDR notation, each with a value.
+ *
+ * <p>Looking up an address walks at most one node per bit of the address, however many ranges
+ * the trie holds, and allocates nothing for IPv4 addresses.  The trie may be read concurrently
+ * once built.
+ *
+ * @param <V> The type of the values.
+ */
+public class CidrTrie<V> {
+
+  private static final int IPV4_BITS = 32;
+  private static final int IPV6_BITS = 128;
+  private static final int IPV4_ROOT = 0;
+  private static final int IPV6_ROOT = 1;
+
+  /**
+   * A range and its value.
+   */
+  public static class Match<V> {
+    private final String range;
+    private final int prefixLength;
+    private final V value;
+
+    private Match(String range, int prefixLength, V value) {
+      this.range = range;
+      this.prefixLength = prefixLength;
+      this.value = value;
+    }
+
+    /**
+     * @return The range, as it was added to the trie.
+     */
+    public String getRange() {
+      return range;
+    }
+
+    public int getPrefixLength() {
+      return prefixLength;
+    }
+
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return range + "=" + value;
+    }
+  }
+
+  // node n has its children at 2n and 2n + 1, where 0 means no child since no node points to a root
+  private int[] children = new int[64];
+  private Match<V>[] matches = newMatches(32);
+  private int nodes = 2;
+  private int size;
+
+  /**
+   * @param ranges The ranges in CIDR notation, each of which is its own value.  Nulls are skipped.
+   * @return The trie.
+   * @throws IllegalArgumentException If a range is not valid CIDR notation.
+   */
+  public static CidrTrie<String> of(Collection<String> ranges) {
+    CidrTrie<String> ret = new CidrTrie<>();
+    for (String range : ranges) {
+      if (range != null) {
+        ret.put(range, range);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @param ranges The values of ranges in CIDR notation.  Null ranges are skipped.
+   * @return The trie.
+   * @throws IllegalArgumentException If a range is not valid CIDR notation.
+   */
+  public static <V> CidrTrie<V> of(Map<String, V> ranges) {
+    CidrTrie<V> ret = new CidrTrie<>();
+    for (Map.Entry<String, V> range : ranges.entrySet()) {
+      if (range.getKey() != null) {
+        ret.put(range.getKey(), range.getValue());
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Adds a range, replacing the value of an equivalent range.
+   *
+   * @param range The range in CIDR notation, for example 192.168.0.0/24 or 2001:db8::/32.  An address
+   *              without a prefix length is a range of just that address.  Bits beyond the prefix
+   *              length are ignored.
+   * @param value The value of the range.
+   * @throws IllegalArgumentException If the range is not valid CIDR notation.
+   */
+  public void put(String range, V value) {
+    int slash = range.indexOf('/');
+    String address = slash < 0 ? range : range.substring(0, slash);
+    long ipv4 = parseIpv4(address);
+    byte[] ipv6 = null;
+    if (ipv4 < 0) {
+      ipv6 = parseIpv6(address);
+      if (ipv6 == null) {
+        throw new IllegalArgumentException("Could not parse [" + range + "]");
+      }
+    }
+    int bits = ipv6 == null ? IPV4_BITS : IPV6_BITS;
+    int prefixLength = slash < 0 ? bits : parsePrefixLength(range.substring(slash + 1), bits);
+    if (prefixLength < 0) {
+      throw new IllegalArgumentException("Could not parse [" + range + "]");
+    }
+
+    int node = ipv6 == null ? IPV4_ROOT : IPV6_ROOT;
+    for (int i = 0; i < prefixLength; ++i) {
+      int child = 2 * node + (ipv6 == null ? bit((int) ipv4, i) : bit(ipv6, i));
+      if (children[child] == 0) {
+        // allocate first, since allocating may replace the array
+        int newNode = newNode();
+        children[child] = newNode;
+      }
+      node = children[child];
+    }
+    if (matches[node] == null) {
+      size++;
+    }
+    matches[node] = new Match<>(range, prefixLength, value);
+  }
+
+  /**
+   * @return The number of distinct ranges.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Finds the most specific range containing an address.
+   *
+   * @param ip The IPv4 or IPv6 address.
+   * @return The narrowest range containing the address, or null if there is none.
+   * @throws IllegalArgumentException If the address could not be parsed.
+   */
+  public Match<V> longestMatch(String ip) {
+    long ipv4 = parseIpv4(ip);
+    byte[] ipv6 = ipv4 < 0 ? toIpv6(ip) : null;
+    int bits = ipv6 == null ? IPV4_BITS : IPV6_BITS;
+    int node = ipv6 == null ? IPV4_ROOT : IPV6_ROOT;
+    Match<V> ret = matches[node];
+    for (int i = 0; i < bits; ++i) {
+      node = children[2 * node + (ipv6 == null ? bit((int) ipv4, i) : bit(ipv6, i))];
+      if (node == 0) {
+        break;
+      }
+      ret = matches[node] == null ? ret : matches[node];
+    }
+    return ret;
+  }
+
+  /**
+   * Determines whether an address is a host address of any of the ranges.  This is how
+   * IN_SUBNET has always treated ranges: an IPv4 range of more than two addresses excludes its
+   * network and broadcast addresses.  IPv6 ranges, which have no broadcast address, include
+   * every address.
+   *
+   * @param ip The IPv4 or IPv6 address.
+   * @return True if the address is a host address of at least one range.
+   * @throws IllegalArgumentException If the address could not be parsed.
+   */
+  public boolean containsHost(String ip) {
+    long ipv4 = parseIpv4(ip);
+    if (ipv4 < 0) {
+      return longestMatch(ip) != null;
+    }
+    // the address is the network (or broadcast) address of a range if all of its host bits are 0 (or 1)
+    int zeros = Long.numberOfTrailingZeros(ipv4 | 1L << IPV4_BITS);
+    int ones = Long.numberOfTrailingZeros(~ipv4);
+    int node = IPV4_ROOT;
+    for (int i = 0; ; ++i) {
+      int hostBits = IPV4_BITS - i;
+      if (matches[node] != null && (hostBits <= 1 || (zeros < hostBits && ones < hostBits))) {
+        return true;
+      }
+      if (i == IPV4_BITS || (node = children[2 * node + bit((int) ipv4, i)]) == 0) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * @return The address as an unsigned int, or -1 if it is not a dotted-quad IPv4 address.
+   */
+  private static long parseIpv4(String ip) {
+    long ret = 0;
+    int octet = 0;
+    int digits = 0;
+    int dots = 0;
+    for (int i = 0; i < ip.length(); ++i) {
+      char c = ip.charAt(i);
+      if (c >= '0' && c <= '9') {
+        octet = octet * 10 + (c - '0');
+        if (++digits > 3 || octet > 255) {
+          return -1;
+        }
+      } else if (c == '.' && digits > 0 && ++dots < 4) {
+        ret = ret << 8 | octet;
+        octet = 0;
+        digits = 0;
+      } else {
+        return -1;
+      }
+    }
+    return dots == 3 && digits > 0 ? ret << 8 | octet : -1;
+  }
+
+  /**
+   * @return The 16 bytes of an IPv6 address, or null if it is not an IPv6 address.
+   */
+  private static byte[] parseIpv6(String ip) {
+    if (ip.indexOf(':') < 0 || !InetAddresses.isInetAddress(ip)) {
+      return null;
+    }
+    InetAddress address = InetAddresses.forString(ip);
+    if (address instanceof Inet4Address) {
+      // an IPv4-mapped address, such as ::ffff:192.168.0.1, which is parsed as IPv4
+      byte[] ret = new byte[16];
+      ret[10] = (byte) 0xFF;
+      ret[11] = (byte) 0xFF;
+      System.arraycopy(address.getAddress(), 0, ret, 12, 4);
+      return ret;
+    }
+    return address.getAddress();
+  }
+
+  private static byte[] toIpv6(String ip) {
+    byte[] ret = parseIpv6(ip);
+    if (ret == null) {
+      throw new IllegalArgumentException("Could not parse [" + ip + "]");
+    }
+    return ret;
+  }
+
+  private static int parsePrefixLength(String prefixLength, int bits) {
+    if (prefixLength.isEmpty() || prefixLength.length() > 3) {
+      return -1;
+    }
+    int ret = 0;
+    for (int i = 0; i < prefixLength.length(); ++i) {
+      char c = prefixLength.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      ret = ret * 10 + (c - '0');
+    }
+    return ret <= bits ? ret : -1;
+  }
+
+  private static int bit(int address, int i) {
+    return address >>> (31 - i) & 1;
+  }
+
+  private static int bit(byte[] address, int i) {
+    return address[i >>> 3] >>> (7 - (i & 7)) & 1;
+  }
+
+  private int newNode() {
+    if (2 * nodes + 2 > children.length) {
+      children = Arrays.copyOf(children, children.length * 2);
+      matches = Arrays.copyOf(matches, matches.length * 2);
+    }
+    return nodes++;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Match<V>[] newMatches(int size) {
+    return new Match[size];
+  }
+}
@@ -20,6 +20,9 @@ package org.apache.metron.stellar.common.utils;
 import com.google.common.hash.Funnel;
 import com.google.common.hash.PrimitiveSink;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.function.Function;
 
@@ -57,9 +60,45 @@ public class BloomFilter<T> implements Serializable {
   }
 
   private com.google.common.hash.BloomFilter<T> filter;
+  // transient, so that filters serialized before it was added can still be read
+  private transient Function<T, byte[]> serializer;
 
   public BloomFilter(Function<T, byte[]> serializer, int expectedInsertions, double falsePositiveRate) {
-    filter = com.google.common.hash.BloomFilter.create(new BloomFunnel<T>(serializer), expectedInsertions, falsePositiveRate);
+    this(serializer, com.google.common.hash.BloomFilter.create(new BloomFunnel<T>(serializer), expectedInsertions, falsePositiveRate));
+  }
+
+  private BloomFilter(Function<T, byte[]> serializer, com.google.common.hash.BloomFilter<T> filter) {
+    this.serializer = serializer;
+    this.filter = filter;
+  }
+
+  /**
+   * Reads a bloom filter written by {@link #writeTo(OutputStream)}.
+   *
+   * @param in The stream to read from.
+   * @param serializer The serializer the filter was created with.
+   * @return The bloom filter.
+   * @throws IOException If the filter could not be read.
+   */
+  public static <T> BloomFilter<T> readFrom(InputStream in, Function<T, byte[]> serializer) throws IOException {
+    return new BloomFilter<>(serializer, com.google.common.hash.BloomFilter.readFrom(in, new BloomFunnel<T>(serializer)));
+  }
+
+  /**
+   * Writes the bits of the filter.  The serializer is not written.
+   *
+   * @param out The stream to write to.
+   * @throws IOException If the filter could not be written.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    filter.writeTo(out);
+  }
+
+  /**
+   * @return The serializer, or null if the filter was read with Kryo or Java serialization.
+   */
+  public Function<T, byte[]> getSerializer() {
+    return serializer;
   }
 
   public boolean mightContain(T key) {
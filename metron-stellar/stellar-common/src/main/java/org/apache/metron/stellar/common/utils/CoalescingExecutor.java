@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.common.utils;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking calls to remote services in the background, so that callers may wait on several at once.
+ *
+ * <ul>
+ *   <li>Calls with equal keys which are in flight at the same time are coalesced: only the first is made,
+ *   and every caller receives its result.</li>
+ *   <li>At most a given number of calls to each endpoint run at once.  Further calls wait for one to finish.</li>
+ *   <li>A call which does not finish within its timeout, including the time spent waiting for the endpoint,
+ *   fails with a {@link TimeoutException}.  A call which times out while waiting is never made.</li>
+ * </ul>
+ */
+public class CoalescingExecutor implements Closeable {
+
+  /**
+   * The calls running, and waiting to run, against an endpoint.
+   */
+  private static class Endpoint {
+    private int running = 0;
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+  }
+
+  private final ExecutorService executor;
+  private final ScheduledExecutorService timer;
+  private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+  private final AtomicLong numCalls = new AtomicLong();
+  private final AtomicLong numCoalesced = new AtomicLong();
+
+  /**
+   * @param name The prefix of the names of the threads which make the calls.
+   */
+  public CoalescingExecutor(String name) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newCachedThreadPool(daemon(() -> name + "-" + threadCount.incrementAndGet()));
+    this.timer = Executors.newSingleThreadScheduledExecutor(daemon(() -> name + "-timeout"));
+  }
+
+  private static ThreadFactory daemon(Supplier<String> name) {
+    return r -> {
+      Thread t = new Thread(r, name.get());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  /**
+   * Submits a call, unless an equal call is already in flight.
+   *
+   * @param endpoint The endpoint called, such as the scheme, host and port of a URL.
+   * @param key Identifies the call.  Calls with equal keys must have the same result.
+   * @param maxConcurrent The maximum number of calls to the endpoint which may run at once.
+   * @param timeoutMillis The time allowed for the call, in milliseconds.  If 0 or less, the call may take any time.
+   * @param call The call.
+   * @param <T> The type of the result.
+   * @return The result of the call.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> submit(String endpoint, Object key, int maxConcurrent, long timeoutMillis, Callable<T> call) {
+    CompletableFuture<Object> created = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      numCoalesced.incrementAndGet();
+      // each caller has its own future, so one cannot complete or cancel it for the others
+      return existing.thenApply(result -> (T) result);
+    }
+    if (timeoutMillis > 0) {
+      ScheduledFuture<?> timeout = timer.schedule(() -> {
+        inFlight.remove(key, created);
+        created.completeExceptionally(new TimeoutException(
+                String.format("Call to %s exceeded the timeout of %d ms", endpoint, timeoutMillis)));
+      }, timeoutMillis, TimeUnit.MILLISECONDS);
+      created.whenComplete((result, t) -> timeout.cancel(false));
+    }
+    run(endpoints.computeIfAbsent(endpoint, e -> new Endpoint()), Math.max(maxConcurrent, 1), () -> {
+      if (created.isDone()) {
+        return;
+      }
+      numCalls.incrementAndGet();
+      // the call is removed before it completes, so that a caller which sees the result never joins it
+      try {
+        Object result = call.call();
+        inFlight.remove(key, created);
+        created.complete(result);
+      } catch (Throwable t) {
+        inFlight.remove(key, created);
+        created.completeExceptionally(t);
+      }
+    });
+    return created.thenApply(result -> (T) result);
+  }
+
+  /**
+   * Waits for the result of a call, rethrowing a runtime exception thrown by the call as is.
+   *
+   * @param result The result of a call.
+   * @param <T> The type of the result.
+   * @return The result.
+   */
+  public static <T> T join(CompletableFuture<T> result) {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Runs a task now if the endpoint has capacity, otherwise once an earlier task finishes.
+   */
+  private void run(Endpoint endpoint, int maxConcurrent, Runnable task) {
+    synchronized (endpoint) {
+      if (endpoint.running >= maxConcurrent) {
+        endpoint.waiting.add(task);
+        return;
+      }
+      endpoint.running++;
+    }
+    executor.execute(() -> {
+      Runnable next = task;
+      while (next != null) {
+        next.run();
+        synchronized (endpoint) {
+          next = endpoint.waiting.poll();
+          if (next == null) {
+            endpoint.running--;
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * @return The number of calls made.
+   */
+  public long getNumCalls() {
+    return numCalls.get();
+  }
+
+  /**
+   * @return The number of calls which received the result of an equal call already in flight.
+   */
+  public long getNumCoalesced() {
+    return numCoalesced.get();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    timer.shutdownNow();
+  }
+}
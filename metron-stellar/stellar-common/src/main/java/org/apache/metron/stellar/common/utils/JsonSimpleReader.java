@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.common.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Reads JSON with Jackson's streaming parser into the values that json-simple's parser would give:
+ * {@link JSONObject}, {@link JSONArray}, {@link String}, {@link Long}, {@link Double}, {@link Boolean}
+ * and null.  Integers too large for a long are read as a {@link java.math.BigInteger}.
+ *
+ * <p>As with json-simple, if a field occurs more than once within an object, the last occurrence is used.
+ */
+public class JsonSimpleReader {
+
+  private JsonSimpleReader() {
+  }
+
+  /**
+   * Reads the fields of an object, up to and including its end.
+   *
+   * @param parser The parser, positioned on the start of the object.
+   * @return The object.
+   * @throws IOException If the object could not be read.
+   */
+  @SuppressWarnings("unchecked")
+  public static JSONObject readObject(JsonParser parser) throws IOException {
+    JSONObject ret = new JSONObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      ret.put(name, readValue(parser, parser.nextToken()));
+    }
+    return ret;
+  }
+
+  /**
+   * Reads a value, including any values nested within it.
+   *
+   * @param parser The parser.
+   * @param token The token which starts the value; the parser's current token.
+   * @return The value.
+   * @throws IOException If the value could not be read.
+   */
+  @SuppressWarnings("unchecked")
+  public static Object readValue(JsonParser parser, JsonToken token) throws IOException {
+    if (token == null) {
+      throw new IOException("Unexpected end of JSON");
+    }
+    switch (token) {
+      case START_OBJECT:
+        return readObject(parser);
+      case START_ARRAY:
+        JSONArray array = new JSONArray();
+        for (JsonToken t = parser.nextToken(); t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+          array.add(readValue(parser, t));
+        }
+        return array;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                ? parser.getBigIntegerValue()
+                : parser.getLongValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new IOException("Unexpected token " + token);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.dsl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.metron.stellar.common.utils.JsonSimpleReader;
+import org.json.simple.JSONObject;
+
+/**
+ * Resolves variables from a JSON message which has not yet been parsed.
+ *
+ * <p>Only the top-level fields named by a {@link Projection}, usually the variables used by an expression,
+ * are decoded.  The message is scanned once, on the first lookup, and the other fields are skipped without
+ * being decoded.  Any other field, including {@link VariableResolver#ALL_FIELDS}, is resolved by decoding
+ * the whole message.
+ *
+ * <p>Values are read by {@link JsonSimpleReader}, so they are the same as those produced by json-simple.
+ * If a field occurs more than once, the last occurrence is used, whether or not it is projected.
+ */
+public class JsonVariableResolver implements VariableResolver {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * The fields to decode from each message.  Each field is assigned a slot, so a projection should be
+   * created once per expression and shared by every message the expression is applied to.
+   */
+  public static class Projection implements Serializable {
+    private final Map<String, Integer> slots;
+    private final boolean allFields;
+
+    private Projection(Map<String, Integer> slots, boolean allFields) {
+      this.slots = slots;
+      this.allFields = allFields;
+    }
+
+    /**
+     * @param fields The fields to decode, such as those returned by
+     *     {@link org.apache.metron.stellar.common.BaseStellarProcessor#variablesUsed(String)}.  May be null.
+     * @return The projection.
+     */
+    public static Projection of(Collection<String> fields) {
+      if (fields == null) {
+        return new Projection(Collections.emptyMap(), false);
+      }
+      Map<String, Integer> slots = new HashMap<>();
+      for (String field : fields) {
+        if (field != null) {
+          slots.putIfAbsent(field, slots.size());
+        }
+      }
+      return new Projection(slots, slots.containsKey(ALL_FIELDS));
+    }
+
+    /**
+     * @return The slot of the field, or -1 if the field is not projected.
+     */
+    int slot(String field) {
+      Integer slot = slots.get(field);
+      return slot == null ? -1 : slot;
+    }
+
+    int size() {
+      return slots.size();
+    }
+
+    /**
+     * @return True if the whole message is needed.
+     */
+    public boolean isAllFields() {
+      return allFields;
+    }
+  }
+
+  private final Projection projection;
+  private final byte[] json;
+  private final int offset;
+  private final int length;
+  private Object[] values;
+  private JSONObject message;
+
+  /**
+   * @param projection The fields to decode.
+   * @param json The UTF-8 encoded JSON object.
+   */
+  public JsonVariableResolver(Projection projection, byte[] json) {
+    this(projection, json, 0, json.length);
+  }
+
+  /**
+   * @param projection The fields to decode.
+   * @param json The buffer holding the UTF-8 encoded JSON object.
+   * @param offset The offset of the JSON object in the buffer.
+   * @param length The length of the JSON object.
+   */
+  public JsonVariableResolver(Projection projection, byte[] json, int offset, int length) {
+    this.projection = projection;
+    this.json = json;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * @param projection The fields to decode.
+   * @param json The JSON object.
+   */
+  public JsonVariableResolver(Projection projection, String json) {
+    this(projection, json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public Object resolve(String variable) {
+    if (message != null) {
+      return ALL_FIELDS.equals(variable) ? message : message.get(variable);
+    }
+    int slot = projection.slot(variable);
+    if (slot < 0 || projection.isAllFields()) {
+      message = decodeAll();
+      return resolve(variable);
+    }
+    if (values == null) {
+      values = decodeProjected();
+    }
+    return values[slot];
+  }
+
+  @Override
+  public boolean exists(String variable) {
+    return true;
+  }
+
+  private Object[] decodeProjected() {
+    Object[] ret = new Object[projection.size()];
+    try (JsonParser parser = JSON_FACTORY.createParser(json, offset, length)) {
+      startObject(parser);
+      // the scan continues to the end of the message, as a later occurrence of a field replaces an earlier one
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        int slot = projection.slot(parser.getCurrentName());
+        JsonToken token = parser.nextToken();
+        if (slot >= 0) {
+          ret[slot] = JsonSimpleReader.readValue(parser, token);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to parse JSON message: " + e.getMessage(), e);
+    }
+    return ret;
+  }
+
+  private JSONObject decodeAll() {
+    try (JsonParser parser = JSON_FACTORY.createParser(json, offset, length)) {
+      startObject(parser);
+      return JsonSimpleReader.readObject(parser);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to parse JSON message: " + e.getMessage(), e);
+    }
+  }
+
+  private static void startObject(JsonParser parser) throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("Expected a JSON object, but found " + parser.getCurrentToken());
+    }
+  }
+}
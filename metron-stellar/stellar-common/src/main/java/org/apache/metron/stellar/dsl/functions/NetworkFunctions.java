@@ -18,25 +18,82 @@
 
 package org.apache.metron.stellar.dsl.functions;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
 import com.google.common.net.InternetDomainName;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.net.util.SubnetUtils;
+import org.apache.metron.stellar.common.network.CidrTrie;
 import org.apache.metron.stellar.dsl.BaseStellarFunction;
 import org.apache.metron.stellar.dsl.Stellar;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class NetworkFunctions {
+
+  /**
+   * Tables of ranges at most this large are cached by value; larger ones are cached by identity, since
+   * hashing them on every call would cost more than the lookup.
+   */
+  private static final int MAX_VALUE_KEYED_RANGES = 64;
+
+  /**
+   * Compiled ranges, keyed by the list or map of ranges they were compiled from.
+   */
+  private static final Cache<Object, CidrTrie<Object>> rangesByValue =
+          Caffeine.newBuilder().maximumSize(1000).build();
+
+  /**
+   * Compiled ranges of large tables, such as those loaded with OBJECT_GET, keyed by the table instance.
+   */
+  private static final Cache<Object, CidrTrie<Object>> rangesByIdentity =
+          Caffeine.newBuilder().weakKeys().maximumSize(100).build();
+
+  @SuppressWarnings("unchecked")
+  private static CidrTrie<Object> compile(Object ranges) {
+    boolean byValue = ranges instanceof List || ((Map<?, ?>) ranges).size() <= MAX_VALUE_KEYED_RANGES;
+    Cache<Object, CidrTrie<Object>> cache = byValue ? rangesByValue : rangesByIdentity;
+    CidrTrie<Object> ret = cache.getIfPresent(ranges);
+    if (ret == null) {
+      if (ranges instanceof List) {
+        // the list may be a view of the function's arguments, so it is copied before it is cached
+        List<Object> copy = new ArrayList<>((List<Object>) ranges);
+        ret = new CidrTrie<>();
+        for (Object range : copy) {
+          if (range != null) {
+            ret.put((String) range, range);
+          }
+        }
+        cache.put(copy, ret);
+      } else {
+        Map<Object, Object> map = byValue ? new HashMap<>((Map<Object, Object>) ranges) : (Map<Object, Object>) ranges;
+        ret = new CidrTrie<>();
+        for (Map.Entry<Object, Object> range : map.entrySet()) {
+          if (range.getKey() != null) {
+            ret.put(range.getKey().toString(), range.getValue());
+          }
+        }
+        cache.put(map, ret);
+      }
+    }
+    return ret;
+  }
+
   @Stellar(name="IN_SUBNET"
-          ,description = "Returns true if an IP is within a subnet range."
+          ,description = "Returns true if an IP is within a subnet range.  The ranges are compiled into a " +
+                         "prefix trie once and cached, so the cost of a call does not depend on the number of ranges."
           ,params = {
-                     "ip - The IP address in string form"
-                    ,"cidr+ - One or more IP ranges specified in CIDR notation (for example 192.168.0.0/24)"
+                     "ip - The IPv4 or IPv6 address in string form"
+                    ,"cidr+ - One or more IP ranges specified in CIDR notation (for example 192.168.0.0/24). " +
+                     "The network and broadcast addresses of an IPv4 range are not within the range."
                     }
           ,returns = "True if the IP address is within at least one of the network ranges and false if otherwise"
           )
@@ -53,16 +110,55 @@ public class NetworkFunctions {
       if(ip == null) {
         return false;
       }
-      boolean inSubnet = false;
-      for(int i = 1;i < list.size() && !inSubnet;++i) {
-        String cidr = (String) list.get(i);
-        if(cidr == null) {
-          continue;
-        }
-        inSubnet |= new SubnetUtils(cidr).getInfo().isInRange(ip);
-      }
+      CidrTrie<Object> ranges = compile(list.subList(1, list.size()));
+      return ranges.size() > 0 && ranges.containsHost(ip);
+    }
+  }
+
+  @Stellar(name="LOOKUP"
+          ,namespace = "SUBNET"
+          ,description = "Looks up the most specific range containing an IP in a table of ranges, such as a map of " +
+                         "network zones loaded with OBJECT_GET.  The table is compiled into a prefix trie once and " +
+                         "cached, so the cost of a lookup does not depend on the size of the table.  Large tables are " +
+                         "cached by instance, so should not be modified once used."
+          ,params = {
+                     "ip - The IPv4 or IPv6 address in string form"
+                    ,"ranges - A map of IP ranges in CIDR notation (for example 192.168.0.0/24) to their labels, " +
+                     "or a list of IP ranges"
+                    }
+          ,returns = "The label of the narrowest range containing the IP address, or the range itself if the ranges " +
+                     "are a list.  Null if no range contains the address, or the address is not valid."
+          )
+  public static class SubnetLookup extends BaseStellarFunction {
 
-      return inSubnet;
+    @Override
+    public Object apply(List<Object> list) {
+      if(list.size() < 2) {
+        throw new IllegalStateException("SUBNET_LOOKUP expects two args: [ip, ranges]"
+                + " where ranges is a map of cidr to label, or a list of cidrs"
+        );
+      }
+      Object ip = list.get(0);
+      Object ranges = list.get(1);
+      if(ip == null || ranges == null) {
+        return null;
+      }
+      if(ranges instanceof Collection && !(ranges instanceof List)) {
+        ranges = new ArrayList<>((Collection<?>) ranges);
+      }
+      if(!(ranges instanceof List || ranges instanceof Map)) {
+        throw new IllegalArgumentException("SUBNET_LOOKUP expects a map or list of ranges, not " + ranges.getClass().getName());
+      }
+      CidrTrie<Object> trie = compile(ranges);
+      CidrTrie.Match<Object> match;
+      try {
+        match = trie.longestMatch(ip.toString());
+      }
+      catch(IllegalArgumentException e) {
+        // not an IP address
+        return null;
+      }
+      return match == null ? null : match.getValue();
     }
   }
 
@@ -119,6 +119,17 @@ public class RestConfig extends HashMap<String, Object> {
    */
   public final static String ENFORCE_JSON = "enforce.json";
 
+  /**
+   * The maximum number of GET requests sent to each host at once.  Further requests wait, within the hard timeout.
+   * Defaults to 10.
+   */
+  public final static String MAX_CONCURRENT_REQUESTS = "max.concurrent.requests";
+
+  /**
+   * Setting this to true will send a single GET request for identical requests made at the same time.  Defaults to true.
+   */
+  public final static String COALESCE_REQUESTS = "coalesce.requests";
+
   public RestConfig() {
     put(TIMEOUT, 1000);
     put(RESPONSE_CODES_ALLOWED, Collections.singletonList(200));
@@ -194,4 +205,12 @@ public class RestConfig extends HashMap<String, Object> {
   public Boolean enforceJson() {
     return (Boolean) get(ENFORCE_JSON);
   }
+
+  public Integer getMaxConcurrentRequests() {
+    return (Integer) getOrDefault(MAX_CONCURRENT_REQUESTS, 10);
+  }
+
+  public Boolean coalesceRequests() {
+    return (Boolean) getOrDefault(COALESCE_REQUESTS, true);
+  }
 }
@@ -38,6 +38,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
+import org.apache.metron.stellar.common.utils.CoalescingExecutor;
 import org.apache.metron.stellar.common.utils.ConversionUtils;
 import org.apache.metron.stellar.common.utils.JSONUtils;
 import org.apache.metron.stellar.dsl.Context;
@@ -53,14 +54,18 @@ import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static java.lang.String.format;
 import static org.apache.metron.stellar.dsl.Context.Capabilities.GLOBAL_CONFIG;
@@ -86,6 +91,11 @@ public class RestFunctions {
    */
   private static ScheduledExecutorService scheduledExecutorService;
 
+  /**
+   * Executor used to make GET requests in the background, coalescing identical requests.
+   */
+  private static CoalescingExecutor coalescingExecutor;
+
   /**
    * Initialize a single HttpClient to be shared by REST functions.
    * @param context
@@ -123,12 +133,27 @@ public class RestFunctions {
       scheduledExecutorService.shutdown();
       scheduledExecutorService = null;
     }
+    if (coalescingExecutor != null) {
+      coalescingExecutor.close();
+      coalescingExecutor = null;
+    }
+  }
+
+  /**
+   * Returns the CoalescingExecutor shared by REST functions, creating it if necessary.
+   */
+  static synchronized CoalescingExecutor getCoalescingExecutor() {
+    if (coalescingExecutor == null) {
+      coalescingExecutor = new CoalescingExecutor("stellar-rest");
+    }
+    return coalescingExecutor;
   }
 
   @Stellar(
           namespace = "REST",
           name = "GET",
-          description = "Performs a REST GET request and parses the JSON results into a map.",
+          description = "Performs a REST GET request and parses the JSON results into a map.  Identical requests " +
+                  "made at the same time are sent once, unless 'coalesce.requests' is false.",
           params = {
                   "url - URI to the REST service",
                   "rest_config - Optional - Map (in curly braces) of name:value pairs, each overriding the global config parameter " +
@@ -161,12 +186,17 @@ public class RestFunctions {
     }
 
     /**
-     * Apply the function.
+     * Apply the function.  The request is sent at most 'max.concurrent.requests' at a time to each host,
+     * and is coalesced with any identical request in flight.
      * @param args The function arguments including uri and rest config.
      * @param context Stellar context
      */
     @Override
     public Object apply(List<Object> args, Context context) throws ParseException {
+      return CoalescingExecutor.join(submit(args, context));
+    }
+
+    private CompletableFuture<Object> submit(List<Object> args, Context context) {
       String uriString = getArg(0, String.class, args);
       Map<String, Object> functionRestConfig = null;
       Map<String, Object> queryParameters = new HashMap<>();
@@ -182,15 +212,25 @@ public class RestFunctions {
       Map<String, Object> getRestConfig = (Map<String, Object>) getGlobalConfig(context).get(STELLAR_REST_GET_SETTINGS);
       RestConfig restConfig = buildRestConfig(globalRestConfig, getRestConfig, functionRestConfig);
 
+      HttpGet httpGet;
       try {
-        HttpGet httpGet = buildGetRequest(uriString, queryParameters);
-        return executeRequest(restConfig, httpGet);
+        httpGet = buildGetRequest(uriString, queryParameters);
       } catch (URISyntaxException e) {
         throw new IllegalArgumentException(e.getMessage(), e);
-      } catch (IOException e) {
-        LOG.error(e.getMessage(), e);
-        return restConfig.getErrorValueOverride();
       }
+      URI uri = httpGet.getURI();
+      Object key = restConfig.coalesceRequests() ? Arrays.asList(uri, restConfig) : new Object();
+      return getCoalescingExecutor()
+              .submit(uri.getScheme() + "://" + uri.getAuthority(), key, restConfig.getMaxConcurrentRequests(),
+                      restConfig.getTimeout(), () -> executeRequest(restConfig, httpGet))
+              .exceptionally(t -> {
+                Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+                if (cause instanceof IOException || cause instanceof TimeoutException) {
+                  LOG.error(cause.getMessage(), cause);
+                  return restConfig.getErrorValueOverride();
+                }
+                throw t instanceof CompletionException ? (CompletionException) t : new CompletionException(t);
+              });
     }
 
     @Override
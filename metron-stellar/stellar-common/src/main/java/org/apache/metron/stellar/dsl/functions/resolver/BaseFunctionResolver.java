@@ -161,22 +161,30 @@ public abstract class BaseFunctionResolver implements FunctionResolver, Serializ
     Map<String, StellarFunctionInfo> functions = new HashMap<>();
 
     for(Class<? extends StellarFunction> clazz : resolvables()) {
-      StellarFunctionInfo fn = resolveFunction(clazz);
-      if(fn != null) {
-        // check for duplicate function names
-        StellarFunctionInfo fnSameName = functions.get(fn.getName());
-        if (fnSameName != null && ObjectUtils.notEqual(fnSameName, fn)) {
-          LOG.warn("Namespace conflict: duplicate function names; `{}` implemented by [{}, {}]",
-              fn.getName(), fnSameName.getFunction(), fn.getFunction());
-        }
-
-        functions.put(fn.getName(), fn);
-      }
+      addFunction(functions, resolveFunction(clazz));
     }
 
     return functions;
   }
 
+  /**
+   * Adds a function to those resolved, warning if another function has the same name.
+   * @param functions The functions resolved so far, keyed by name.
+   * @param fn The function to add, or null if the function could not be resolved.
+   */
+  protected static void addFunction(Map<String, StellarFunctionInfo> functions, StellarFunctionInfo fn) {
+    if(fn != null) {
+      // check for duplicate function names
+      StellarFunctionInfo fnSameName = functions.get(fn.getName());
+      if (fnSameName != null && ObjectUtils.notEqual(fnSameName, fn)) {
+        LOG.warn("Namespace conflict: duplicate function names; `{}` implemented by [{}, {}]",
+            fn.getName(), fnSameName.getFunction(), fn.getFunction());
+      }
+
+      functions.put(fn.getName(), fn);
+    }
+  }
+
   /**
    * Resolves a Stellar function from a given class.
    * @param clazz The class.
@@ -19,12 +19,16 @@
 package org.apache.metron.stellar.dsl.functions.resolver;
 
 import static org.apache.metron.stellar.dsl.Context.Capabilities.STELLAR_CONFIG;
+import static org.apache.metron.stellar.dsl.functions.resolver.ClasspathFunctionResolver.Config.STELLAR_FUNCTION_INDEX;
 import static org.apache.metron.stellar.dsl.functions.resolver.ClasspathFunctionResolver.Config.STELLAR_SEARCH_EXCLUDES_KEY;
 import static org.apache.metron.stellar.dsl.functions.resolver.ClasspathFunctionResolver.Config.STELLAR_SEARCH_INCLUDES_KEY;
 import static org.apache.metron.stellar.dsl.functions.resolver.ClasspathFunctionResolver.Config.STELLAR_VFS_PATHS;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +42,7 @@ import org.apache.metron.stellar.common.utils.VFSClassloaderUtil;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.stellar.dsl.Stellar;
 import org.apache.metron.stellar.dsl.StellarFunction;
+import org.apache.metron.stellar.dsl.StellarFunctionInfo;
 import org.atteo.classindex.ClassIndex;
 import org.reflections.util.FilterBuilder;
 
@@ -68,6 +73,13 @@ import org.reflections.util.FilterBuilder;
  *
  *   stellar.function.resolver.excludes = org\\.management.*
  *
+ * Jars built against stellar-common carry a {@link StellarFunctionIndex} describing their functions,
+ * so those functions are resolved without loading their classes, which are loaded on first use instead.
+ * Only the jars without an index are searched.  The index can be ignored, so that every function is
+ * loaded up front as before, with the following property.
+ *
+ *   stellar.function.index = false
+ *
  */
 public class ClasspathFunctionResolver extends BaseFunctionResolver {
   public enum Config {
@@ -87,6 +99,11 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
      * that specify what should be excluded when searching for Stellar functions.
      */
     STELLAR_SEARCH_EXCLUDES_KEY("stellar.function.resolver.excludes", ""),
+    /**
+     * The key for a global property that defines whether functions are resolved from the function
+     * index of each jar, rather than by loading every function's class.
+     */
+    STELLAR_FUNCTION_INDEX("stellar.function.index", "true"),
 
 
     ;
@@ -135,10 +152,16 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
    */
   private List<ClassLoader> classLoaders;
 
+  /**
+   * Whether functions are resolved from the function index where one exists.
+   */
+  private boolean useIndex;
+
   public ClasspathFunctionResolver() {
     this.includes = new ArrayList<>();
     this.excludes = new ArrayList<>();
     this.classLoaders = new ArrayList<>();
+    this.useIndex = true;
   }
 
   /**
@@ -187,6 +210,7 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
 
         include(STELLAR_SEARCH_INCLUDES_KEY.get(stellarConfig, String.class).split(STELLAR_SEARCH_DELIMS));
         exclude(STELLAR_SEARCH_EXCLUDES_KEY.get(stellarConfig, String.class).split(STELLAR_SEARCH_DELIMS));
+        useIndex = STELLAR_FUNCTION_INDEX.get(stellarConfig, Boolean.class);
         Optional<ClassLoader> vfsLoader = Optional.empty();
         try {
           vfsLoader = VFSClassloaderUtil.configureClassloader(STELLAR_VFS_PATHS.get(stellarConfig, String.class));
@@ -221,6 +245,27 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
     return ClassIndex.getAnnotated(Stellar.class, cl);
   }
 
+  /**
+   * Returns the classes annotated with {@link Stellar}, other than those which are indexed.  Only these
+   * classes are loaded.
+   * @param cl The classloader to search.
+   * @param indexed The names of the classes described by a function index.
+   */
+  protected Iterable<Class<?>> getUnindexedStellarClasses(ClassLoader cl, Set<String> indexed) {
+    List<Class<?>> ret = new ArrayList<>();
+    for (String className : ClassIndex.getAnnotatedNames(Stellar.class, cl)) {
+      if (!indexed.contains(className)) {
+        try {
+          ret.add(cl.loadClass(className));
+        } catch (ClassNotFoundException | LinkageError e) {
+          LOG.error("Skipping class " + className + ": " + e.getMessage()
+                  + ", please check that there are not old versions of stellar functions on the classpath.", e);
+        }
+      }
+    }
+    return ret;
+  }
+
   protected boolean includeClass(Class<?> c, FilterBuilder filterBuilder)
   {
     boolean isAssignable = StellarFunction.class.isAssignableFrom(c);
@@ -233,9 +278,47 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
    * (aka discovery) of Stellar functions.
    */
   @Override
-  @SuppressWarnings("unchecked")
   public Set<Class<? extends StellarFunction>> resolvables() {
+    return resolvables(getClassLoaders(), Collections.emptySet());
+  }
 
+  /**
+   * Resolves the functions described by the function index of each jar, without loading their classes,
+   * then searches for the functions in jars which have no index.
+   */
+  @Override
+  protected Map<String, StellarFunctionInfo> resolveFunctions() {
+    if (!useIndex) {
+      return super.resolveFunctions();
+    }
+    ClassLoader[] cls = getClassLoaders();
+    FilterBuilder filterBuilder = getFilter();
+    Map<String, StellarFunctionInfo> functions = new HashMap<>();
+    Set<String> indexed = new HashSet<>();
+    for (ClassLoader cl : cls) {
+      List<StellarFunctionIndex.Entry> entries;
+      try {
+        entries = StellarFunctionIndex.load(cl);
+      } catch (IOException e) {
+        LOG.error("Unable to read the Stellar function index, so all functions will be loaded: {}", e.getMessage(), e);
+        return super.resolveFunctions();
+      }
+      for (StellarFunctionIndex.Entry entry : entries) {
+        // as when searching, the first classloader to find a class wins
+        if (indexed.add(entry.getClassName()) && filterBuilder.apply(entry.getClassName().replace('$', '.'))) {
+          addFunction(functions, new StellarFunctionInfo(entry.getDescription(), entry.getName(), entry.getParams(),
+                  entry.getReturns(), new LazyStellarFunction(entry.getClassName(), cl)));
+        }
+      }
+    }
+    LOG.debug("Found {} indexed Stellar functions", indexed.size());
+    for (Class<? extends StellarFunction> clazz : resolvables(cls, indexed)) {
+      addFunction(functions, resolveFunction(clazz));
+    }
+    return functions;
+  }
+
+  private ClassLoader[] getClassLoaders() {
     ClassLoader[] cls = null;
     if (this.classLoaders.size() == 0) {
       LOG.warn("Using System classloader");
@@ -255,7 +338,10 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
       }
       cls = classLoaderList.toArray(new ClassLoader[0]);
     }
+    return cls;
+  }
 
+  private FilterBuilder getFilter() {
     FilterBuilder filterBuilder = new FilterBuilder();
     excludes.forEach(excl -> {
       if (excl != null) {
@@ -267,10 +353,16 @@ public class ClasspathFunctionResolver extends BaseFunctionResolver {
         filterBuilder.include(incl);
       }
     });
+    return filterBuilder;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<Class<? extends StellarFunction>> resolvables(ClassLoader[] cls, Set<String> indexed) {
+    FilterBuilder filterBuilder = getFilter();
     Set<String> classes = new HashSet<>();
     Set<Class<? extends StellarFunction>> ret = new HashSet<>();
     for (ClassLoader cl : cls) {
-      for (Class<?> c : getStellarClasses(cl)) {
+      for (Class<?> c : indexed.isEmpty() ? getStellarClasses(cl) : getUnindexedStellarClasses(cl, indexed)) {
         try {
           LOG.debug("{}: Found class: {}", cl.getClass().getCanonicalName(), c.getCanonicalName());
           if (includeClass(c, filterBuilder)) {
@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.dsl.functions.resolver;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.metron.stellar.dsl.Context;
+import org.apache.metron.stellar.dsl.ParseException;
+import org.apache.metron.stellar.dsl.StellarFunction;
+
+/**
+ * A Stellar function found in a {@link StellarFunctionIndex}, whose class is not loaded until
+ * the function is first initialized or applied.
+ */
+class LazyStellarFunction implements StellarFunction {
+
+  private final String className;
+  private final ClassLoader classLoader;
+  private volatile StellarFunction function;
+
+  LazyStellarFunction(String className, ClassLoader classLoader) {
+    this.className = className;
+    this.classLoader = classLoader;
+  }
+
+  /**
+   * @return The function, which is created on the first call.
+   * @throws IllegalStateException If the function could not be created.
+   */
+  StellarFunction get() {
+    StellarFunction ret = function;
+    if (ret == null) {
+      synchronized (this) {
+        ret = function;
+        if (ret == null) {
+          try {
+            Class<? extends StellarFunction> clazz =
+                    Class.forName(className, true, classLoader).asSubclass(StellarFunction.class);
+            ret = clazz.getConstructor().newInstance();
+          } catch (Exception | LinkageError e) {
+            throw new IllegalStateException("Unable to load Stellar function " + className + ": " + e.getMessage(), e);
+          }
+          function = ret;
+        }
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public Object apply(List<Object> args, Context context) throws ParseException {
+    return get().apply(args, context);
+  }
+
+  @Override
+  public void initialize(Context context) {
+    get().initialize(context);
+  }
+
+  @Override
+  public boolean isInitialized() {
+    StellarFunction f = function;
+    return f != null && f.isInitialized();
+  }
+
+  @Override
+  public void close() throws IOException {
+    StellarFunction f = function;
+    if (f != null) {
+      f.close();
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return className.equals(((LazyStellarFunction) o).className);
+  }
+
+  @Override
+  public int hashCode() {
+    return className.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return className;
+  }
+}
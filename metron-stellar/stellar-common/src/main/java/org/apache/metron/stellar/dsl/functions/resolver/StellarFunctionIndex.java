@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.dsl.functions.resolver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An index of the Stellar functions in a jar, written when the jar is built by the
+ * {@link StellarFunctionIndexProcessor}.  The index describes each function so that it can be
+ * resolved without loading its class; the class is loaded only when the function is first used.
+ *
+ * <p>The index is a UTF-8 text file with a header line giving the format version, followed by a
+ * line per function holding the tab separated class name, function name, description, return
+ * description and parameters.  Tabs, line breaks and backslashes within a field are escaped.
+ *
+ * <p>It is written under {@code META-INF/annotations/}, alongside the class index, so that the
+ * indices of several jars are concatenated when they are shaded together.  A reader must therefore
+ * accept several headers in the one file.
+ */
+public class StellarFunctionIndex {
+
+  /**
+   * The location of the index within a jar.
+   */
+  public static final String RESOURCE = "META-INF/annotations/org.apache.metron.stellar.dsl.Stellar.functions";
+
+  static final String HEADER = "#stellar-function-index";
+  static final int VERSION = 1;
+
+  /**
+   * Describes a function in the index.
+   */
+  public static class Entry {
+    private final String className;
+    private final String name;
+    private final String description;
+    private final String returns;
+    private final String[] params;
+
+    public Entry(String className, String name, String description, String returns, String[] params) {
+      this.className = className;
+      this.name = name;
+      this.description = description;
+      this.returns = returns;
+      this.params = params;
+    }
+
+    /**
+     * @return The binary name of the class implementing the function.
+     */
+    public String getClassName() {
+      return className;
+    }
+
+    /**
+     * @return The fully qualified name of the function, including its namespace.
+     */
+    public String getName() {
+      return name;
+    }
+
+    public String getDescription() {
+      return description;
+    }
+
+    public String getReturns() {
+      return returns;
+    }
+
+    public String[] getParams() {
+      return params;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Entry entry = (Entry) o;
+      return Objects.equals(className, entry.className)
+              && Objects.equals(name, entry.name)
+              && Objects.equals(description, entry.description)
+              && Objects.equals(returns, entry.returns)
+              && Arrays.equals(params, entry.params);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Objects.hash(className, name, description, returns) + Arrays.hashCode(params);
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{className='" + className + "', name='" + name + "'}";
+    }
+  }
+
+  private StellarFunctionIndex() {
+  }
+
+  /**
+   * Loads the index of every jar visible to a class loader.
+   *
+   * @param cl The class loader.
+   * @return The functions in the indices, in the order in which they were found.
+   * @throws IOException If an index could not be read.
+   */
+  public static List<Entry> load(ClassLoader cl) throws IOException {
+    List<Entry> ret = new ArrayList<>();
+    Enumeration<URL> resources = cl.getResources(RESOURCE);
+    while (resources.hasMoreElements()) {
+      try (Reader reader = new InputStreamReader(resources.nextElement().openStream(), StandardCharsets.UTF_8)) {
+        ret.addAll(read(reader));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Reads an index.  Functions listed under a header with an unknown version are skipped.
+   *
+   * @param reader The index.
+   * @return The functions in the index.
+   * @throws IOException If the index could not be read.
+   */
+  public static List<Entry> read(Reader reader) throws IOException {
+    List<Entry> ret = new ArrayList<>();
+    BufferedReader lines = new BufferedReader(reader);
+    boolean supported = false;
+    for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      if (line.startsWith("#")) {
+        supported = line.equals(HEADER + "\t" + VERSION);
+        continue;
+      }
+      if (!supported) {
+        continue;
+      }
+      String[] fields = line.split("\t", -1);
+      if (fields.length < 4) {
+        throw new IOException("Invalid Stellar function index entry: " + line);
+      }
+      String[] params = new String[fields.length - 4];
+      for (int i = 0; i < params.length; ++i) {
+        params[i] = unescape(fields[i + 4]);
+      }
+      ret.add(new Entry(unescape(fields[0]), unescape(fields[1]), unescape(fields[2]), unescape(fields[3]), params));
+    }
+    return ret;
+  }
+
+  /**
+   * Writes an index.
+   *
+   * @param entries The functions to write.
+   * @param writer The writer.  It is not closed.
+   * @throws IOException If the index could not be written.
+   */
+  public static void write(Iterable<Entry> entries, Writer writer) throws IOException {
+    writer.write(HEADER + "\t" + VERSION + "\n");
+    for (Entry entry : entries) {
+      List<String> fields = new ArrayList<>();
+      Collections.addAll(fields, entry.getClassName(), entry.getName(), entry.getDescription(), entry.getReturns());
+      Collections.addAll(fields, entry.getParams());
+      StringBuilder line = new StringBuilder();
+      for (String field : fields) {
+        if (line.length() > 0) {
+          line.append('\t');
+        }
+        line.append(escape(field));
+      }
+      writer.write(line.append('\n').toString());
+    }
+    writer.flush();
+  }
+
+  static String escape(String s) {
+    StringBuilder ret = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); ++i) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '\\': ret.append("\\\\"); break;
+        case '\t': ret.append("\\t"); break;
+        case '\n': ret.append("\\n"); break;
+        case '\r': ret.append("\\r"); break;
+        default: ret.append(c);
+      }
+    }
+    return ret.toString();
+  }
+
+  static String unescape(String s) {
+    if (s.indexOf('\\') < 0) {
+      return s;
+    }
+    StringBuilder ret = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); ++i) {
+      char c = s.charAt(i);
+      if (c == '\\' && i + 1 < s.length()) {
+        char next = s.charAt(++i);
+        switch (next) {
+          case 't': ret.append('\t'); break;
+          case 'n': ret.append('\n'); break;
+          case 'r': ret.append('\r'); break;
+          default: ret.append(next);
+        }
+      } else {
+        ret.append(c);
+      }
+    }
+    return ret.toString();
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.dsl.functions.resolver;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * An annotation processor which writes a {@link StellarFunctionIndex} of the classes annotated with
+ * {@code @Stellar}.  It runs wherever stellar-common is on the compile classpath, so every jar of
+ * Stellar functions built against it carries an index.
+ *
+ * <p>Only the JDK is used here, as this must be compiled before the rest of stellar-common.
+ */
+@SupportedAnnotationTypes(StellarFunctionIndexProcessor.STELLAR_ANNOTATION)
+public class StellarFunctionIndexProcessor extends AbstractProcessor {
+
+  static final String STELLAR_ANNOTATION = "org.apache.metron.stellar.dsl.Stellar";
+  static final String STELLAR_FUNCTION = "org.apache.metron.stellar.dsl.StellarFunction";
+
+  /**
+   * The functions to index, keyed by class name so the index is written in a stable order.
+   */
+  private final Map<String, StellarFunctionIndex.Entry> entries = new TreeMap<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      if (!entries.isEmpty()) {
+        writeIndex();
+      }
+      return false;
+    }
+    TypeElement function = processingEnv.getElementUtils().getTypeElement(STELLAR_FUNCTION);
+    for (TypeElement annotation : annotations) {
+      if (!annotation.getQualifiedName().contentEquals(STELLAR_ANNOTATION)) {
+        continue;
+      }
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+          continue;
+        }
+        TypeElement type = (TypeElement) element;
+        if (!isFunction(type, function)) {
+          continue;
+        }
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+          if (mirror.getAnnotationType().asElement().equals(annotation)) {
+            StellarFunctionIndex.Entry entry = toEntry(type, mirror);
+            if (entry != null) {
+              entries.put(entry.getClassName(), entry);
+            }
+          }
+        }
+      }
+    }
+    // the annotation is left unclaimed for the class index
+    return false;
+  }
+
+  /**
+   * @return True if the class can be instantiated as a function, as the resolver requires.
+   */
+  private boolean isFunction(TypeElement type, TypeElement function) {
+    if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+      return false;
+    }
+    return function == null || processingEnv.getTypeUtils().isAssignable(
+            processingEnv.getTypeUtils().erasure(type.asType()), processingEnv.getTypeUtils().erasure(function.asType()));
+  }
+
+  private StellarFunctionIndex.Entry toEntry(TypeElement type, AnnotationMirror mirror) {
+    String namespace = "";
+    String name = "";
+    String description = "";
+    String returns = "";
+    String[] params = new String[0];
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+            processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : values.entrySet()) {
+      String key = value.getKey().getSimpleName().toString();
+      Object v = value.getValue().getValue();
+      switch (key) {
+        case "namespace": namespace = v.toString().trim(); break;
+        case "name": name = v.toString().trim(); break;
+        case "description": description = v.toString(); break;
+        case "returns": returns = v.toString(); break;
+        case "params":
+          List<?> list = (List<?>) v;
+          params = new String[list.size()];
+          for (int i = 0; i < params.length; ++i) {
+            params[i] = ((AnnotationValue) list.get(i)).getValue().toString();
+          }
+          break;
+        default:
+      }
+    }
+    if (name.isEmpty()) {
+      return null;
+    }
+    String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+    String fullName = namespace.isEmpty() ? name : namespace + "_" + name;
+    return new StellarFunctionIndex.Entry(className, fullName, description, returns, params);
+  }
+
+  private void writeIndex() {
+    try {
+      readPreviousIndex();
+      FileObject file = processingEnv.getFiler()
+              .createResource(StandardLocation.CLASS_OUTPUT, "", StellarFunctionIndex.RESOURCE);
+      try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+        StellarFunctionIndex.write(entries.values(), writer);
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+              "Unable to write the Stellar function index: " + e.getMessage());
+    }
+  }
+
+  /**
+   * On an incremental build, only the changed classes are processed, so the functions already in the
+   * index are kept as long as their classes still exist.
+   */
+  private void readPreviousIndex() {
+    try {
+      FileObject file = processingEnv.getFiler()
+              .getResource(StandardLocation.CLASS_OUTPUT, "", StellarFunctionIndex.RESOURCE);
+      try (Reader reader = new InputStreamReader(file.openInputStream(), StandardCharsets.UTF_8)) {
+        for (StellarFunctionIndex.Entry entry : StellarFunctionIndex.read(reader)) {
+          String canonicalName = entry.getClassName().replace('$', '.');
+          if (!entries.containsKey(entry.getClassName())
+                  && processingEnv.getElementUtils().getTypeElement(canonicalName) != null) {
+            entries.put(entry.getClassName(), entry);
+          }
+        }
+      }
+    } catch (IOException e) {
+      // there is no previous index
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.common.network;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CidrTrieTest {
+
+  @Test
+  public void shouldFindLongestMatch() {
+    CidrTrie<String> trie = CidrTrie.of(ImmutableMap.of(
+            "10.0.0.0/8", "internal",
+            "10.1.0.0/16", "datacenter",
+            "10.1.2.0/24", "dmz",
+            "10.1.2.3", "gateway"));
+
+    assertEquals(4, trie.size());
+    assertEquals("internal", trie.longestMatch("10.200.0.1").getValue());
+    assertEquals("datacenter", trie.longestMatch("10.1.0.1").getValue());
+    assertEquals("dmz", trie.longestMatch("10.1.2.4").getValue());
+    assertEquals("gateway", trie.longestMatch("10.1.2.3").getValue());
+    assertEquals("10.1.2.0/24", trie.longestMatch("10.1.2.4").getRange());
+    assertEquals(24, trie.longestMatch("10.1.2.4").getPrefixLength());
+    assertNull(trie.longestMatch("11.0.0.1"));
+  }
+
+  @Test
+  public void shouldMatchIpv6() {
+    CidrTrie<String> trie = CidrTrie.of(ImmutableMap.of(
+            "2001:db8::/32", "documentation",
+            "2001:db8:1::/48", "site",
+            "::ffff:0:0/96", "mapped",
+            "192.168.0.0/16", "private"));
+
+    assertEquals("documentation", trie.longestMatch("2001:db8:ffff::1").getValue());
+    assertEquals("site", trie.longestMatch("2001:DB8:1:0:0:0:0:1").getValue());
+    assertEquals("mapped", trie.longestMatch("::ffff:192.168.0.1").getValue());
+    assertEquals("private", trie.longestMatch("192.168.0.1").getValue());
+    assertNull(trie.longestMatch("2001:db9::1"));
+    assertNull(trie.longestMatch("::1"));
+  }
+
+  @Test
+  public void shouldMatchEdgesOfTheAddressSpace() {
+    CidrTrie<String> trie = CidrTrie.of(ImmutableList.of("0.0.0.0/0", "255.255.255.255/32", "::/0"));
+
+    assertEquals("0.0.0.0/0", trie.longestMatch("0.0.0.0").getValue());
+    assertEquals("0.0.0.0/0", trie.longestMatch("128.0.0.1").getValue());
+    assertEquals("255.255.255.255/32", trie.longestMatch("255.255.255.255").getValue());
+    assertEquals("::/0", trie.longestMatch("ffff::").getValue());
+  }
+
+  @Test
+  public void shouldIgnoreHostBits() {
+    CidrTrie<String> trie = new CidrTrie<>();
+    trie.put("192.168.0.5/24", "first");
+    trie.put("192.168.0.0/24", "second");
+
+    assertEquals(1, trie.size());
+    assertEquals("second", trie.longestMatch("192.168.0.200").getValue());
+  }
+
+  @Test
+  public void shouldExcludeNetworkAndBroadcastAddresses() {
+    CidrTrie<String> trie = CidrTrie.of(ImmutableList.of("192.168.0.0/24", "10.0.0.0/31", "10.0.1.1/32"));
+
+    assertTrue(trie.containsHost("192.168.0.1"));
+    assertTrue(trie.containsHost("192.168.0.254"));
+    assertFalse(trie.containsHost("192.168.0.0"));
+    assertFalse(trie.containsHost("192.168.0.255"));
+    assertTrue(trie.containsHost("10.0.0.0"));
+    assertTrue(trie.containsHost("10.0.0.1"));
+    assertTrue(trie.containsHost("10.0.1.1"));
+    assertFalse(trie.containsHost("10.0.1.2"));
+
+    // the network address of a range may be a host address of an enclosing range
+    trie.put("192.168.0.0/16", "192.168.0.0/16");
+    assertTrue(trie.containsHost("192.168.0.255"));
+    assertFalse(trie.containsHost("192.168.0.0"));
+    assertFalse(trie.containsHost("192.168.255.255"));
+
+    CidrTrie<String> ipv6 = CidrTrie.of(ImmutableList.of("2001:db8::/32"));
+    assertTrue(ipv6.containsHost("2001:db8::"));
+  }
+
+  @Test
+  public void shouldAgreeWithBruteForce() {
+    Random random = new Random(0);
+    List<int[]> ranges = new ArrayList<>();
+    CidrTrie<String> trie = new CidrTrie<>();
+    for (int i = 0; i < 500; ++i) {
+      int prefixLength = 8 + random.nextInt(25);
+      int network = random.nextInt() & (int) (0xFFFFFFFFL << (32 - prefixLength));
+      // cluster the ranges, so many of them overlap
+      network = (network & 0x00FFFFFF) | 0x0A000000;
+      ranges.add(new int[] { network, prefixLength });
+      trie.put(toString(network) + "/" + prefixLength, toString(network) + "/" + prefixLength);
+    }
+    for (int i = 0; i < 10000; ++i) {
+      int address = (random.nextInt() & 0x00FFFFFF) | 0x0A000000;
+      int longest = -1;
+      String expected = null;
+      for (int[] range : ranges) {
+        int mask = (int) (0xFFFFFFFFL << (32 - range[1]));
+        if ((address & mask) == range[0] && range[1] > longest) {
+          longest = range[1];
+          expected = toString(range[0]) + "/" + range[1];
+        }
+      }
+      CidrTrie.Match<String> match = trie.longestMatch(toString(address));
+      assertEquals(expected, match == null ? null : match.getValue());
+    }
+  }
+
+  @Test
+  public void shouldRejectInvalidRanges() {
+    CidrTrie<String> trie = new CidrTrie<>();
+    for (String invalid : new String[] { "", "/24", "192.168.0.0/", "192.168.0.0/33", "192.168.0/24",
+            "192.168.0.256/24", "192.168.0.0/ 24", " 192.168.0.0/24", "2001:db8::/129", "example.com/8",
+            "1.2.3.4.5" }) {
+      assertThrows(IllegalArgumentException.class, () -> trie.put(invalid, "x"), invalid);
+    }
+    assertEquals(0, trie.size());
+  }
+
+  @Test
+  public void shouldRejectInvalidAddresses() {
+    CidrTrie<String> trie = CidrTrie.of(ImmutableList.of("0.0.0.0/0"));
+    for (String invalid : new String[] { "", "foo", "1.2.3", "1.2.3.4.5", "1..2.3", "256.1.1.1", "1.2.3.4 " }) {
+      IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> trie.longestMatch(invalid));
+      assertTrue(e.getMessage().startsWith("Could not parse"));
+    }
+  }
+
+  private static String toString(int address) {
+    return (address >>> 24) + "." + (address >>> 16 & 0xFF) + "." + (address >>> 8 & 0xFF) + "." + (address & 0xFF);
+  }
+}
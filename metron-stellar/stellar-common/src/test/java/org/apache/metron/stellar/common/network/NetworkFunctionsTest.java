@@ -18,9 +18,18 @@
 package org.apache.metron.stellar.common.network;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.metron.stellar.common.utils.StellarProcessorUtils.run;
 import static org.apache.metron.stellar.common.utils.StellarProcessorUtils.runWithArguments;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class NetworkFunctionsTest {
 
@@ -39,6 +48,69 @@ public class NetworkFunctionsTest {
     runWithArguments("IN_SUBNET", ImmutableList.of("192.168.1.1", "192.168.0.0/24", "192.168.1.0/24"), true);
   }
 
+  @Test
+  public void inSubnetTest_networkAndBroadcastAddresses() {
+    runWithArguments("IN_SUBNET", ImmutableList.of("192.168.0.0", "192.168.0.0/24"), false);
+    runWithArguments("IN_SUBNET", ImmutableList.of("192.168.0.255", "192.168.0.0/24"), false);
+    runWithArguments("IN_SUBNET", ImmutableList.of("192.168.0.255", "192.168.0.0/24", "192.168.0.0/16"), true);
+    runWithArguments("IN_SUBNET", ImmutableList.of("10.0.0.1", "10.0.0.1/32"), true);
+  }
+
+  @Test
+  public void inSubnetTest_ipv6() {
+    runWithArguments("IN_SUBNET", ImmutableList.of("2001:db8::1", "192.168.0.0/24", "2001:db8::/32"), true);
+    runWithArguments("IN_SUBNET", ImmutableList.of("2001:db9::1", "192.168.0.0/24", "2001:db8::/32"), false);
+  }
+
+  @Test
+  public void inSubnetTest_nulls() {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("ip", "192.168.0.1");
+    assertEquals(false, run("IN_SUBNET(missing, '192.168.0.0/24')", variables));
+    assertEquals(true, run("IN_SUBNET(ip, missing, '192.168.0.0/24')", variables));
+    assertEquals(false, run("IN_SUBNET(ip, missing)", variables));
+  }
+
+  @Test
+  public void inSubnetTest_invalid() {
+    assertThrows(Exception.class, () -> run("IN_SUBNET('foo', '192.168.0.0/24')", new HashMap<>()));
+    assertThrows(Exception.class, () -> run("IN_SUBNET('192.168.0.1', '192.168.0.0/33')", new HashMap<>()));
+  }
+
+  @Test
+  public void subnetLookupTest() {
+    Map<String, Object> zones = ImmutableMap.of(
+            "10.0.0.0/8", "internal",
+            "10.1.0.0/16", "datacenter",
+            "2001:db8::/32", "ipv6");
+    runWithArguments("SUBNET_LOOKUP", ImmutableList.of("10.1.2.3", zones), "datacenter");
+    runWithArguments("SUBNET_LOOKUP", ImmutableList.of("10.2.0.1", zones), "internal");
+    runWithArguments("SUBNET_LOOKUP", ImmutableList.of("2001:db8::1", zones), "ipv6");
+    runWithArguments("SUBNET_LOOKUP", ImmutableList.of("10.1.2.3", ImmutableList.of("10.0.0.0/8", "10.1.0.0/16")), "10.1.0.0/16");
+    assertEquals("datacenter", run("SUBNET_LOOKUP('10.1.2.3', { '10.0.0.0/8' : 'internal', '10.1.0.0/16' : 'datacenter' })", new HashMap<>()));
+  }
+
+  @Test
+  public void subnetLookupTest_large() {
+    Map<String, Object> zones = new HashMap<>();
+    for (int i = 0; i < 256; ++i) {
+      zones.put("10." + i + ".0.0/16", "zone-" + i);
+    }
+    for (int i = 0; i < 256; ++i) {
+      runWithArguments("SUBNET_LOOKUP", Arrays.asList("10." + i + ".3.4", zones), "zone-" + i);
+    }
+  }
+
+  @Test
+  public void subnetLookupTest_noMatch() {
+    Map<String, Object> variables = new HashMap<>();
+    variables.put("zones", ImmutableMap.of("10.0.0.0/8", "internal"));
+    assertNull(run("SUBNET_LOOKUP('192.168.0.1', zones)", variables));
+    assertNull(run("SUBNET_LOOKUP('foo', zones)", variables));
+    assertNull(run("SUBNET_LOOKUP(missing, zones)", variables));
+    assertNull(run("SUBNET_LOOKUP('10.0.0.1', missing)", variables));
+  }
+
   @Test
   public void removeSubdomainsTest() {
     runWithArguments("DOMAIN_REMOVE_SUBDOMAINS", "www.google.co.uk", "google.co.uk");
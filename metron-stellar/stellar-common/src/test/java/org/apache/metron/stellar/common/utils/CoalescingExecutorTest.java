@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.metron.stellar.common.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingExecutorTest {
+
+  private CoalescingExecutor executor;
+
+  @BeforeEach
+  public void setup() {
+    executor = new CoalescingExecutor("test");
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.close();
+  }
+
+  @Test
+  public void shouldCoalesceCallsInFlight() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    List<CompletableFuture<String>> results = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      results.add(executor.submit("http://localhost", "key", 10, 0, () -> {
+        calls.incrementAndGet();
+        release.await();
+        return "result";
+      }));
+    }
+    release.countDown();
+
+    for (CompletableFuture<String> result : results) {
+      assertEquals("result", result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, calls.get());
+    assertEquals(1, executor.getNumCalls());
+    assertEquals(9, executor.getNumCoalesced());
+
+    // once the call completes, the next is made again
+    assertEquals("again", executor.submit("http://localhost", "key", 10, 0, () -> "again").get(5, TimeUnit.SECONDS));
+    assertEquals(2, executor.getNumCalls());
+  }
+
+  @Test
+  public void shouldLimitConcurrentCallsPerEndpoint() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 20; ++i) {
+      int value = i;
+      results.add(executor.submit("http://localhost", i, 2, 0, () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(10);
+        running.decrementAndGet();
+        return value;
+      }));
+    }
+
+    for (int i = 0; i < results.size(); ++i) {
+      assertEquals(i, (int) results.get(i).get(5, TimeUnit.SECONDS));
+    }
+    assertTrue(maxRunning.get() <= 2, "Too many calls ran at once: " + maxRunning.get());
+    assertEquals(20, executor.getNumCalls());
+  }
+
+  @Test
+  public void shouldTimeOutCallsWaitingForTheEndpoint() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> slow = executor.submit("http://localhost", "slow", 1, 0, () -> {
+      release.await();
+      return "slow";
+    });
+    CompletableFuture<String> waiting = executor.submit("http://localhost", "waiting", 1, 50, () -> "waiting");
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof TimeoutException);
+    release.countDown();
+    assertEquals("slow", slow.get(5, TimeUnit.SECONDS));
+
+    // the call which timed out was never made
+    assertEquals(1, executor.getNumCalls());
+  }
+
+  @Test
+  public void shouldPropagateErrors() {
+    CompletableFuture<String> result = executor.submit("http://localhost", "key", 1, 0, () -> {
+      throw new IllegalStateException("failed");
+    });
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof IllegalStateException);
+  }
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.dsl;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.metron.stellar.common.StellarPredicateProcessor;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonVariableResolverTest {
+
+  private static final String MESSAGE = "{\"ip_src_addr\":\"10.0.0.1\",\"ip_src_port\":80,\"score\":1.5,"
+          + "\"nested\":{\"a\":[1,\"two\",null,true]},\"empty\":null,\"ip_dst_addr\":\"10.0.0.2\"}";
+
+  @Test
+  public void shouldResolveProjectedFields() {
+    JsonVariableResolver.Projection projection = JsonVariableResolver.Projection.of(
+            ImmutableSet.of("ip_src_addr", "ip_src_port", "score", "nested", "empty", "missing"));
+    JsonVariableResolver resolver = new JsonVariableResolver(projection, MESSAGE);
+
+    assertEquals("10.0.0.1", resolver.resolve("ip_src_addr"));
+    assertEquals(80L, resolver.resolve("ip_src_port"));
+    assertEquals(1.5, resolver.resolve("score"));
+    assertEquals(Arrays.asList(1L, "two", null, true), ((Map) resolver.resolve("nested")).get("a"));
+    assertNull(resolver.resolve("empty"));
+    assertNull(resolver.resolve("missing"));
+    assertTrue(resolver.exists("missing"));
+
+    JsonVariableResolver big = new JsonVariableResolver(projection, "{\"ip_src_port\":123456789012345678901234567890}");
+    assertEquals(new BigInteger("123456789012345678901234567890"), big.resolve("ip_src_port"));
+  }
+
+  @Test
+  public void shouldMatchJsonSimple() throws Exception {
+    JSONObject expected = (JSONObject) new JSONParser().parse(MESSAGE);
+    JsonVariableResolver.Projection projection = JsonVariableResolver.Projection.of(expected.keySet());
+    JsonVariableResolver projected = new JsonVariableResolver(projection, MESSAGE);
+    for (Object field : expected.keySet()) {
+      assertEquals(expected.get(field), projected.resolve((String) field), "Field " + field);
+    }
+
+    JsonVariableResolver all = new JsonVariableResolver(JsonVariableResolver.Projection.of(null), MESSAGE);
+    assertEquals(expected, all.resolve(VariableResolver.ALL_FIELDS));
+    assertEquals("10.0.0.2", all.resolve("ip_dst_addr"));
+  }
+
+  @Test
+  public void shouldUseLastOccurrenceOfField() throws Exception {
+    JsonVariableResolver.Projection projection = JsonVariableResolver.Projection.of(ImmutableSet.of("field"));
+    String json = "{\"field\":\"first\",\"other\":1,\"field\":\"second\",\"other\":2}";
+    JSONObject expected = (JSONObject) new JSONParser().parse(json);
+
+    // projected and unprojected fields are resolved as json-simple would
+    JsonVariableResolver resolver = new JsonVariableResolver(projection, json);
+    assertEquals(expected.get("field"), resolver.resolve("field"));
+    assertEquals("second", resolver.resolve("field"));
+    assertEquals(expected.get("other"), new JsonVariableResolver(projection, json).resolve("other"));
+    assertEquals(expected, new JsonVariableResolver(projection, json).resolve(VariableResolver.ALL_FIELDS));
+  }
+
+  @Test
+  public void shouldResolveFromOffset() {
+    byte[] buffer = ("garbage" + MESSAGE + "garbage").getBytes();
+    JsonVariableResolver.Projection projection = JsonVariableResolver.Projection.of(ImmutableSet.of("ip_dst_addr"));
+    JsonVariableResolver resolver = new JsonVariableResolver(projection, buffer, 7, MESSAGE.length());
+
+    assertEquals("10.0.0.2", resolver.resolve("ip_dst_addr"));
+    assertEquals(80L, resolver.resolve("ip_src_port"));
+  }
+
+  @Test
+  public void shouldRejectOtherJson() {
+    JsonVariableResolver.Projection projection = JsonVariableResolver.Projection.of(ImmutableSet.of("field"));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> new JsonVariableResolver(projection, "[1, 2]").resolve("field"));
+    assertTrue(e.getMessage().contains("Expected a JSON object"));
+  }
+
+  @Test
+  public void shouldEvaluatePredicates() {
+    StellarPredicateProcessor processor = new StellarPredicateProcessor();
+    String query = "ip_src_addr == '10.0.0.1' && ip_src_port > 50";
+    JsonVariableResolver.Projection projection = JsonVariableResolver.Projection.of(processor.variablesUsed(query));
+    assertFalse(projection.isAllFields());
+
+    assertTrue(processor.parse(query, new JsonVariableResolver(projection, MESSAGE),
+            StellarFunctions.FUNCTION_RESOLVER(), Context.EMPTY_CONTEXT()));
+    assertFalse(processor.parse(query, new JsonVariableResolver(projection, "{\"ip_src_addr\":\"10.0.0.1\"}"),
+            StellarFunctions.FUNCTION_RESOLVER(), Context.EMPTY_CONTEXT()));
+
+    String allQuery = "MAP_GET('ip_dst_addr', _) == '10.0.0.2'";
+    JsonVariableResolver.Projection all = JsonVariableResolver.Projection.of(processor.variablesUsed(allQuery));
+    assertTrue(all.isAllFields());
+    assertTrue(processor.parse(allQuery, new JsonVariableResolver(all, MESSAGE),
+            StellarFunctions.FUNCTION_RESOLVER(), Context.EMPTY_CONTEXT()));
+  }
+}
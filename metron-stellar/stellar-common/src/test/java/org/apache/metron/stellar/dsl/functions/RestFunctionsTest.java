@@ -17,6 +17,7 @@
  */
 package org.apache.metron.stellar.dsl.functions;
 
+import com.sun.net.httpserver.HttpServer;
 import org.apache.commons.io.FileUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
@@ -29,6 +30,7 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.metron.stellar.dsl.Context;
 import org.junit.Rule;
@@ -40,13 +42,22 @@ import org.junit.rules.TemporaryFolder;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.metron.stellar.dsl.functions.RestConfig.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -279,6 +290,66 @@ public class RestFunctionsTest {
     assertNull(result);
   }
 
+  /**
+   * Identical REST_GET requests made at the same time should be sent once.
+   * @throws Exception
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void restGetShouldCoalesceIdenticalRequests() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/get", exchange -> {
+      requests.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      byte[] body = "{\"get\":\"success\"}".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+
+    RestFunctions.RestGet restGet = new RestFunctions.RestGet();
+    RestFunctions.setCloseableHttpClient(HttpClients.createDefault());
+    RestFunctions.setScheduledExecutorService(Executors.newSingleThreadScheduledExecutor());
+    ExecutorService callers = Executors.newFixedThreadPool(5);
+    try {
+      String uri = String.format("http://localhost:%d/get", server.getAddress().getPort());
+      long coalesced = RestFunctions.getCoalescingExecutor().getNumCoalesced();
+      List<CompletableFuture<Object>> results = new ArrayList<>();
+      for (int i = 0; i < 5; ++i) {
+        results.add(CompletableFuture.supplyAsync(() -> restGet.apply(Collections.singletonList(uri), context), callers));
+      }
+
+      // the first request is held by the server until the others have joined it
+      long deadline = System.currentTimeMillis() + 10000;
+      while (RestFunctions.getCoalescingExecutor().getNumCoalesced() < coalesced + 4
+              && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      for (CompletableFuture<Object> result : results) {
+        assertEquals("success", ((Map<String, Object>) result.get(10, TimeUnit.SECONDS)).get("get"));
+      }
+      assertEquals(1, requests.get());
+
+      // a request made once the others complete is sent again
+      assertEquals("success", ((Map<String, Object>) restGet.apply(Collections.singletonList(uri), context)).get("get"));
+      assertEquals(2, requests.get());
+    } finally {
+      callers.shutdownNow();
+      restGet.close();
+      server.stop(0);
+    }
+  }
+
   @Test
   public void restGetShouldGetPoolingConnectionManager() {
     RestConfig restConfig = new RestConfig();
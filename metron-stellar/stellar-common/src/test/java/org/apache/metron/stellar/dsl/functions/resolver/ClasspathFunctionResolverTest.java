@@ -21,6 +21,7 @@ package org.apache.metron.stellar.dsl.functions.resolver;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import org.apache.metron.stellar.dsl.BaseStellarFunction;
 import org.apache.metron.stellar.dsl.Context;
 import org.apache.metron.stellar.dsl.StellarFunction;
 import org.junit.jupiter.api.BeforeAll;
@@ -28,6 +29,13 @@ import org.junit.jupiter.api.Test;
 import org.reflections.util.FilterBuilder;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
@@ -35,11 +43,23 @@ import java.util.Set;
 
 import static org.apache.metron.stellar.dsl.functions.resolver.ClasspathFunctionResolver.Config.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class ClasspathFunctionResolverTest {
 
+  /**
+   * A function which is only found through an index written by the test.
+   */
+  public static class IndexedUpper extends BaseStellarFunction {
+    @Override
+    public Object apply(List<Object> args) {
+      return args.get(0).toString().toUpperCase();
+    }
+  }
+
   private static List<String> expectedFunctions;
 
   @BeforeAll
@@ -126,6 +146,45 @@ public class ClasspathFunctionResolverTest {
     assertTrue(functions.contains("NOW"));
   }
 
+  @Test
+  public void testIndexedFunctionsAreLoadedLazily() throws Exception {
+    File dir = Files.createTempDirectory("stellar-index").toFile();
+    File index = new File(dir, StellarFunctionIndex.RESOURCE);
+    assertTrue(index.getParentFile().mkdirs());
+    try (Writer writer = new OutputStreamWriter(new FileOutputStream(index), StandardCharsets.UTF_8)) {
+      StellarFunctionIndex.write(ImmutableList.of(
+              new StellarFunctionIndex.Entry(IndexedUpper.class.getName()
+                      , "INDEXED_UPPER", "Upper case", "The string", new String[] { "input" }),
+              new StellarFunctionIndex.Entry("org.example.Missing", "MISSING", "", "", new String[0])
+      ), writer);
+    }
+    ClasspathFunctionResolver resolver = create(new Properties());
+    resolver.classLoaders(new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader()));
+
+    Set<String> functions = new HashSet<>(Lists.newArrayList(resolver.getFunctions()));
+    assertTrue(functions.contains("INDEXED_UPPER"));
+    assertTrue(functions.contains("MISSING"));
+
+    // the missing class is only noticed once the function is used
+    StellarFunction missing = resolver.apply("MISSING");
+    assertFalse(missing.isInitialized());
+    assertThrows(IllegalStateException.class, () -> missing.initialize(Context.EMPTY_CONTEXT()));
+
+    StellarFunction upper = resolver.apply("INDEXED_UPPER");
+    upper.initialize(Context.EMPTY_CONTEXT());
+    assertTrue(upper.isInitialized());
+    assertEquals("ABC", upper.apply(ImmutableList.of("abc"), Context.EMPTY_CONTEXT()));
+    resolver.close();
+  }
+
+  @Test
+  public void testIndexCanBeDisabled() {
+    Properties config = new Properties();
+    config.put(STELLAR_FUNCTION_INDEX.param(), "false");
+    ClasspathFunctionResolver resolver = create(config);
+    assertEquals(new HashSet<>(expectedFunctions), new HashSet<>(Lists.newArrayList(resolver.getFunctions())));
+  }
+
   @Test
   public void testInvalidStellarClass() {
     StellarFunction goodFunc = mock(StellarFunction.class);
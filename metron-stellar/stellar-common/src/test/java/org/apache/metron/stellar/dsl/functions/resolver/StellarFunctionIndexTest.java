@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.metron.stellar.dsl.functions.resolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.apache.metron.stellar.dsl.Stellar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StellarFunctionIndexTest {
+
+  @TempDir
+  public File tempDir;
+
+  private static final StellarFunctionIndex.Entry FUNCTION = new StellarFunctionIndex.Entry(
+          "org.example.Functions$Tricky", "EXAMPLE_TRICKY", "Tabs\tnew\nlines and \\backslashes",
+          "", new String[] { "a - The first", "b\t- The second" });
+
+  private static List<StellarFunctionIndex.Entry> roundTrip(List<StellarFunctionIndex.Entry> entries) throws IOException {
+    StringWriter writer = new StringWriter();
+    StellarFunctionIndex.write(entries, writer);
+    return StellarFunctionIndex.read(new StringReader(writer.toString()));
+  }
+
+  @Test
+  public void shouldRoundTrip() throws IOException {
+    StellarFunctionIndex.Entry noParams = new StellarFunctionIndex.Entry(
+            "org.example.Simple", "SIMPLE", "Simple", "Nothing", new String[0]);
+    List<StellarFunctionIndex.Entry> entries = Arrays.asList(FUNCTION, noParams);
+
+    assertEquals(entries, roundTrip(entries));
+    assertArrayEquals(new String[0], roundTrip(entries).get(1).getParams());
+  }
+
+  @Test
+  public void shouldReadConcatenatedIndices() throws IOException {
+    // shading concatenates the index of each jar
+    StringWriter writer = new StringWriter();
+    StellarFunctionIndex.write(Arrays.asList(FUNCTION), writer);
+    writer.write("#stellar-function-index\t2\norg.example.Future\tFUTURE\twith\tnew\tfields\n");
+    StellarFunctionIndex.write(Arrays.asList(FUNCTION), writer);
+
+    List<StellarFunctionIndex.Entry> entries = StellarFunctionIndex.read(new StringReader(writer.toString()));
+    assertEquals(Arrays.asList(FUNCTION, FUNCTION), entries);
+  }
+
+  @Test
+  public void shouldRejectInvalidEntries() {
+    assertThrows(IOException.class, () -> StellarFunctionIndex.read(
+            new StringReader("#stellar-function-index\t1\norg.example.Broken\tBROKEN\n")));
+  }
+
+  @Test
+  public void processorShouldIndexFunctions() throws Exception {
+    File source = new File(tempDir, "IndexedFunctions.java");
+    Files.write(source.toPath(), String.join("\n"
+            , "import java.util.List;"
+            , "import org.apache.metron.stellar.dsl.BaseStellarFunction;"
+            , "import org.apache.metron.stellar.dsl.Stellar;"
+            , "public class IndexedFunctions {"
+            , "  @Stellar(namespace = \"TEST\", name = \"ONE\", description = \"The first\", params = { \"x - A value\" }, returns = \"x\")"
+            , "  public static class One extends BaseStellarFunction {"
+            , "    public Object apply(List<Object> args) { return args.get(0); }"
+            , "  }"
+            , "  @Stellar(name = \" TWO \")"
+            , "  public static class Two extends BaseStellarFunction {"
+            , "    public Object apply(List<Object> args) { return null; }"
+            , "  }"
+            , "  @Stellar(name = \"ABSTRACT\")"
+            , "  public abstract static class Abstract extends BaseStellarFunction {"
+            , "  }"
+            , "  @Stellar(name = \"NOT_A_FUNCTION\")"
+            , "  public static class NotAFunction {"
+            , "  }"
+            , "}").getBytes(StandardCharsets.UTF_8));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    int result = compiler.run(null, null, null
+            , "-proc:only"
+            , "-processor", StellarFunctionIndexProcessor.class.getName()
+            , "-classpath", new File(Stellar.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath()
+            , "-d", tempDir.getAbsolutePath()
+            , source.getAbsolutePath());
+    assertEquals(0, result);
+
+    File index = new File(tempDir, StellarFunctionIndex.RESOURCE);
+    assertTrue(index.exists());
+    List<StellarFunctionIndex.Entry> entries;
+    try (Reader reader = new InputStreamReader(Files.newInputStream(index.toPath()), StandardCharsets.UTF_8)) {
+      entries = StellarFunctionIndex.read(reader);
+    }
+    assertEquals(Arrays.asList(
+            new StellarFunctionIndex.Entry("IndexedFunctions$One", "TEST_ONE", "The first", "x", new String[] { "x - A value" }),
+            new StellarFunctionIndex.Entry("IndexedFunctions$Two", "TWO", "", "", new String[0])
+    ), entries);
+  }
+}